@@ -1,5 +1,6 @@
 package manager.commands.common.report;
 
+import codex.explorer.tree.INode;
 import codex.service.ServiceRegistry;
 import codex.task.AbstractTask;
 import codex.task.ITask;
@@ -8,15 +9,13 @@ import codex.type.EntityRef;
 import codex.utils.ImageUtils;
 import codex.utils.Language;
 import manager.commands.common.DiskUsageReport;
-import org.apache.commons.io.FileDeleteStrategy;
+import manager.utils.DirectoryRemover;
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.text.MessageFormat;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 @BranchLink(priority = 2)
 public class DirEntry extends Entry {
@@ -31,10 +30,6 @@ public class DirEntry extends Entry {
         super(owner, icon, filePath);
     }
 
-    private long getFilesCount() throws IOException {
-        return Files.walk(new File(getPID()).toPath()).count();
-    }
-
     @Override
     protected void deleteEntry() {
         TES.executeTask(createDeleteTask());
@@ -61,45 +56,24 @@ public class DirEntry extends Entry {
 
         @Override
         public Void execute() throws Exception {
-            setProgress(0, Language.get(DiskUsageReport.class, "delete@calc"));
-            long totalFiles = entry.getFilesCount();
-            File directory  = new File(getPID());
-
-            AtomicInteger processed = new AtomicInteger(0);
-            Files.walkFileTree(directory.toPath(), new SimpleFileVisitor<Path>() {
-
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    return processPath(file);
-                }
-
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
-                    return processPath(dir);
-                }
-
-                private FileVisitResult processPath(Path path) {
-                    checkPaused();
-                    if (isCancelled()) {
-                        return FileVisitResult.TERMINATE;
-                    }
-                    try {
-                        FileDeleteStrategy.NORMAL.delete(path.toFile());
-                        processed.addAndGet(1);
-                        String fileName = path.toString().replace(entry.getPID() + File.separator, "");
-                        setProgress(
-                                (int) (processed.get() * 100 / totalFiles),
-                                MessageFormat.format(
-                                        Language.get(DiskUsageReport.class, "delete@progress"),
-                                        fileName
-                                )
-                        );
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
+            File directory = new File(getPID());
+            INode parent = entry.getParent();
+            new DirectoryRemover(this, Language.get(DiskUsageReport.class, "delete@progress")).deleteViaTrash(
+                    directory.toPath(),
+                    entry.getSize(),
+                    new DirectoryRemover.ITrashListener() {
+                        @Override
+                        public void movedToTrash() {
+                            SwingUtilities.invokeLater(() -> parent.detach(entry));
+                        }
+
+                        @Override
+                        public void restoredFromTrash() {
+                            SwingUtilities.invokeLater(() -> parent.attach(entry));
+                        }
                     }
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+            );
+
             try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(directory.getParentFile().toPath())) {
                 if (!dirStream.iterator().hasNext()) {
                     directory.getParentFile().delete();
@@ -117,7 +91,12 @@ public class DirEntry extends Entry {
                     //
                 }
             } else {
-                entry.getParent().detach(entry);
+                // Entry is already detached unless the directory could not be moved to trash
+                SwingUtilities.invokeLater(() -> {
+                    if (entry.getParent() != null) {
+                        entry.getParent().detach(entry);
+                    }
+                });
             }
         }
     }
@@ -1,8 +1,13 @@
 package manager.commands.common.report;
 
+import codex.log.Logger;
+import codex.task.ITask;
 import codex.type.EntityRef;
 import codex.utils.ImageUtils;
+import manager.commands.environment.BinaryStore;
 import manager.nodes.ReleaseList;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 @BranchLink(branchCatalogClass = ReleaseList.class, priority = 5)
 public class ReleaseEntry extends DirEntry {
@@ -11,4 +16,24 @@ public class ReleaseEntry extends DirEntry {
         super(owner, ImageUtils.getByPath("/images/release.png"), filePath);
     }
 
+    @Override
+    protected ITask createDeleteTask() {
+        return new DeleteDirectory(this) {
+            @Override
+            public Void execute() throws Exception {
+                super.execute();
+                // Binaries of the removed release may be not referenced by other releases anymore
+                try {
+                    int removed = BinaryStore.collectGarbage(Paths.get(getPID()).getParent());
+                    if (removed > 0) {
+                        Logger.getLogger().info("Binary store of ''{0}'': {1} unreferenced object(s) removed", Paths.get(getPID()).getParent(), removed);
+                    }
+                } catch (IOException e) {
+                    Logger.getLogger().warn("Unable to clean up binary store: {0}", e.getMessage());
+                }
+                return null;
+            }
+        };
+    }
+
 }
@@ -55,7 +55,7 @@ public class SourceEntry extends DirEntry {
     @Override
     protected ITask createDeleteTask() {
         Offshoot offshoot = (Offshoot) findEntity();
-        ITask task = offshoot.new DeleteOffshoot();
+        ITask task = offshoot.new DeleteOffshoot(getSize());
         task.addListener(new ITaskListener() {
             @Override
             public void afterExecute(ITask task) {
@@ -0,0 +1,211 @@
+package manager.commands.environment;
+
+import manager.nodes.Release;
+import org.apache.commons.codec.digest.DigestUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content-addressed storage of release binaries shared by all releases of a repository.
+ * Objects are keyed by MD5 checksum of the file content (the same one SVN stores for every file),
+ * release directories refer to objects with hard links (or copies where links are not supported).
+ */
+public class BinaryStore {
+
+    private static final String STORE_DIR = ".objects";
+    private static final String TEMP_DIR  = ".incoming";
+    // Objects put to the store recently may not be linked to their release yet
+    private static final long   GC_GRACE_PERIOD = TimeUnit.HOURS.toMillis(1);
+
+    private final Path root;
+
+    BinaryStore(Release release) {
+        root = Paths.get(release.getLocalPath()).getParent().resolve(STORE_DIR);
+    }
+
+    private Path getObject(String checksum) {
+        return root.resolve(checksum.substring(0, 2)).resolve(checksum);
+    }
+
+    boolean contains(String checksum) {
+        return checksum != null && Files.isRegularFile(getObject(checksum));
+    }
+
+    /**
+     * Allocate temporary file name for a download which will be put to the store afterwards.
+     */
+    Path newTempFile() throws IOException {
+        Path tempDir = root.resolve(TEMP_DIR);
+        Files.createDirectories(tempDir);
+        return tempDir.resolve(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Create the file of release directory referring to the stored object.
+     * @return Size of the materialized file.
+     */
+    long materialize(String checksum, Path target) throws IOException {
+        Path object = getObject(checksum);
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+        link(object, target);
+        return Files.size(target);
+    }
+
+    /**
+     * Move downloaded temporary file to the store.
+     * @param file Temporary file allocated by {@link #newTempFile()}.
+     * @param checksum Expected checksum of the content.
+     */
+    void put(Path file, String checksum) throws IOException {
+        try {
+            verify(file, checksum);
+            Path object = getObject(checksum);
+            if (!Files.exists(object)) {
+                Files.createDirectories(object.getParent());
+                try {
+                    Files.move(file, object, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Concurrently stored by another download
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Register file of release directory in the store: either link it to the existing object
+     * (so the release does not hold its own copy) or make it the object.
+     * @param file File of release directory.
+     * @param checksum Expected checksum of the content or NULL if unknown.
+     * @return Actual checksum of the file.
+     */
+    String adopt(Path file, String checksum) throws IOException {
+        String actual = checksum == null ? checksum(file) : verify(file, checksum);
+        Path object = getObject(actual);
+        if (Files.exists(object)) {
+            if (!Files.isSameFile(object, file)) {
+                materialize(actual, file);
+            }
+        } else {
+            Files.createDirectories(object.getParent());
+            link(file, object);
+        }
+        return actual;
+    }
+
+    private static void link(Path existing, Path link) throws IOException {
+        try {
+            Files.createLink(link, existing);
+        } catch (FileAlreadyExistsException e) {
+            // Concurrently linked by another thread
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Path temp = link.resolveSibling(link.getFileName() + ".tmp");
+            Files.copy(existing, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, link, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private static String verify(Path file, String checksum) throws IOException {
+        String actual = checksum(file);
+        if (!actual.equalsIgnoreCase(checksum)) {
+            throw new IOException(MessageFormat.format(
+                    "Checksum mismatch of file ''{0}'': expected {1}, actual {2}", file, checksum, actual
+            ));
+        }
+        return actual;
+    }
+
+    private static String checksum(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return DigestUtils.md5Hex(in);
+        }
+    }
+
+    /**
+     * Remove objects which are not referenced by any release of the repository (mark and sweep).
+     * An object is referenced if some file of a release directory is a hard link to it; releases
+     * holding a private copy of the content do not need the object.
+     * @param releasesDir Directory of the repository releases containing the store.
+     * @return Number of removed objects.
+     */
+    public static int collectGarbage(Path releasesDir) throws IOException {
+        final Path root = releasesDir.resolve(STORE_DIR);
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        final Path tempDir = root.resolve(TEMP_DIR);
+        final long threshold = System.currentTimeMillis() - GC_GRACE_PERIOD;
+
+        // Only files of the same size may be links to an object
+        final Map<Long, List<Path>> objects = new HashMap<>();
+        final Set<Path> marked = new HashSet<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(tempDir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.lastModifiedTime().toMillis() > threshold) {
+                    marked.add(file);
+                }
+                objects.computeIfAbsent(attrs.size(), size -> new LinkedList<>()).add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        Files.walkFileTree(releasesDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(root) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                List<Path> candidates = objects.get(attrs.size());
+                if (candidates != null) {
+                    for (Path object : candidates) {
+                        try {
+                            if (!marked.contains(object) && Files.isSameFile(file, object)) {
+                                marked.add(object);
+                                break;
+                            }
+                        } catch (IOException e) {
+                            // Keep the object if the file can not be checked
+                            marked.add(object);
+                        }
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        int removed = 0;
+        for (List<Path> candidates : objects.values()) {
+            for (Path object : candidates) {
+                if (!marked.contains(object) && Files.deleteIfExists(object)) {
+                    removed++;
+                    try {
+                        Files.deleteIfExists(object.getParent());
+                    } catch (DirectoryNotEmptyException e) {
+                        // Prefix directory still contains other objects
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+}
@@ -2,6 +2,7 @@ package manager.commands.environment;
 
 import codex.component.messagebox.MessageBox;
 import codex.component.messagebox.MessageType;
+import codex.log.Logger;
 import codex.service.ServiceRegistry;
 import codex.task.*;
 import codex.utils.Language;
@@ -27,8 +28,11 @@ import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -257,6 +261,17 @@ class CheckCache extends AbstractTask<Void> {
                                         );
                                     }
                                 });
+                        getFiles(dirXml, fileName -> true).forEach(fileName -> {
+                            String dirName = fileName.replaceAll("([^/]*)/.*", "$1");
+                            IndexEntryFile entry = index.get(Paths.get(loadedEntry.getKey().getParent() + File.separator + dirName));
+                            if (entry != null) {
+                                Path filePath = Paths.get(loadedEntry.getKey().getParent() + File.separator + fileName);
+                                entry.addFile(
+                                        filePath.subpath(baseIndex, filePath.getNameCount()).toString(),
+                                        loadedEntry.getValue().substring(0, loadedEntry.getValue().lastIndexOf("/")).concat("/").concat(fileName)
+                                );
+                            }
+                        });
                     } catch (IOException e) {
                         throw new IllegalStateException(e.getMessage());
                     } catch (XmlException e) {
@@ -273,16 +288,28 @@ class CheckCache extends AbstractTask<Void> {
     }
 
     private void loadGaps(List<Map.Entry<Path, IndexEntryFile>> gapsList) {
-        ISVNAuthenticationManager authMgr = environment.getBinaries().getRepository().getAuthManager();
+        Release release = (Release) environment.getBinaries();
+        ISVNAuthenticationManager authMgr = release.getRepository().getAuthManager();
+        BinaryStore store = new BinaryStore(release);
+        CacheStats  stats = new CacheStats();
         AtomicInteger current = new AtomicInteger(0);
         List<Callable<Boolean>> callables = gapsList.parallelStream().map(gap ->
                 (Callable<Boolean>) () -> {
-                    SVN.export(
-                            gap.getValue().url,
-                            releasePath.concat(File.separator).concat(gap.getValue().path),
-                            authMgr,
-                            null
-                    );
+                    IndexEntryFile entry = gap.getValue();
+                    if (!loadByChecksums(entry, store, stats, authMgr)) {
+                        File entryFile = new File(releasePath.concat(File.separator).concat(entry.path));
+                        long started = System.nanoTime();
+                        SVN.export(entry.url, entryFile.getPath(), authMgr, null);
+                        stats.downloaded(FileUtils.sizeOf(entryFile), System.nanoTime() - started);
+                        entry.files.keySet().forEach(path -> {
+                            try {
+                                store.adopt(Paths.get(releasePath, path), null);
+                            } catch (IOException e) {
+                                // File is kept as private copy of the release
+                                Logger.getLogger().warn("Unable to put file ''{0}'' to the binary store: {1}", path, e.getMessage());
+                            }
+                        });
+                    }
                     current.addAndGet(1);
                     setProgress(
                             current.get() * 100 / gapsList.size(),
@@ -300,6 +327,63 @@ class CheckCache extends AbstractTask<Void> {
         } catch (InterruptedException e) {
             throw new CancelException();
         }
+        Logger.getLogger().info(
+                "Release ''{0}'' cache loaded: {1} linked from the binary store, {2} downloaded in {3} sec (avoided: ~{4} sec)",
+                release.getVersion(),
+                codex.utils.FileUtils.formatFileSize(stats.linkedBytes.get()),
+                codex.utils.FileUtils.formatFileSize(stats.downloadedBytes.get()),
+                TimeUnit.NANOSECONDS.toSeconds(stats.downloadNanos.get()),
+                stats.getAvoidedTime() < 0 ? "?" : TimeUnit.NANOSECONDS.toSeconds(stats.getAvoidedTime())
+        );
+    }
+
+    /**
+     * Load files of the entry one by one, taking those with known checksum from the binary store.
+     * @return FALSE if checksums of the entry files are unknown and entry should be exported as a whole.
+     */
+    private boolean loadByChecksums(IndexEntryFile entry, BinaryStore store, CacheStats stats, ISVNAuthenticationManager authMgr) throws IOException, SVNException {
+        if (entry.files.isEmpty()) {
+            return false;
+        }
+        String rootUrl = entry.url.substring(0, entry.url.lastIndexOf("/"));
+        Map<String, String> remoteToLocal = entry.files.entrySet().stream()
+                .collect(Collectors.toMap(
+                        fileEntry -> fileEntry.getValue().substring(rootUrl.length() + 1),
+                        Map.Entry::getKey
+                ));
+        Map<String, String> checksums;
+        try {
+            checksums = SVN.getChecksums(rootUrl, remoteToLocal.keySet(), authMgr);
+        } catch (SVNException e) {
+            return false;
+        }
+        if (checksums.values().stream().anyMatch(Objects::isNull)) {
+            return false;
+        }
+        for (Map.Entry<String, String> remoteEntry : remoteToLocal.entrySet()) {
+            String checksum = checksums.get(remoteEntry.getKey());
+            Path   target   = Paths.get(releasePath, remoteEntry.getValue());
+            if (Files.exists(target)) {
+                try {
+                    store.adopt(target, checksum);
+                    continue;
+                } catch (IOException e) {
+                    Logger.getLogger().warn("Unable to put file ''{0}'' to the binary store, it will be loaded again: {1}", target, e.getMessage());
+                    Files.delete(target);
+                }
+            }
+            if (store.contains(checksum)) {
+                stats.linked(store.materialize(checksum, target));
+            } else {
+                Path temp = store.newTempFile();
+                long started = System.nanoTime();
+                SVN.export(rootUrl.concat("/").concat(remoteEntry.getKey()), temp.toString(), authMgr, SVNDepth.EMPTY);
+                stats.downloaded(Files.size(temp), System.nanoTime() - started);
+                store.put(temp, checksum);
+                store.materialize(checksum, target);
+            }
+        }
+        return true;
     }
 
     private static List<String> getIncludes(DirectoryDocument dirXml) {
@@ -315,19 +399,23 @@ class CheckCache extends AbstractTask<Void> {
     }
 
     private static List<String> getFiles(DirectoryDocument dirXml) {
+        return getFiles(dirXml, fileName ->
+                !fileName.contains("/")   ||
+                fileName.endsWith(".jar") ||
+                fileName.endsWith(".war") ||
+                fileName.endsWith(".so")  ||
+                fileName.endsWith(".dll")
+        );
+    }
+
+    private static List<String> getFiles(DirectoryDocument dirXml, Predicate<String> filter) {
         List<String> files = new LinkedList<>();
         if (dirXml.getDirectory().getFileGroups() != null) {
             files.addAll(Stream.of(dirXml.getDirectory().getFileGroups().getFileGroupArray())
                     .parallel()
                     .map((fileGroup) -> Stream.of(fileGroup.getFileArray())
-                            .filter((file) ->
-                                    !file.getName().contains("/")   ||
-                                            file.getName().endsWith(".jar") ||
-                                            file.getName().endsWith(".war") ||
-                                            file.getName().endsWith(".so")  ||
-                                            file.getName().endsWith(".dll")
-                            )
                             .map(Directory.FileGroups.FileGroup.File::getName)
+                            .filter(filter)
                     )
                     .flatMap(x-> x)
                     .collect(Collectors.toList())
@@ -340,6 +428,7 @@ class CheckCache extends AbstractTask<Void> {
         private   final String releasePath = environment.getBinaries().getLocalPath().concat(File.separator);
         protected final String path, url;
         protected final List<String> includes = new LinkedList<>();
+        protected final Map<String, String> files = new LinkedHashMap<>();
 
         IndexEntryFile(String path, String url) {
             this.path = path;
@@ -354,6 +443,10 @@ class CheckCache extends AbstractTask<Void> {
         }
 
         void addInclude(String path) {}
+
+        void addFile(String path, String url) {
+            files.put(path, url);
+        }
     }
 
     public class IndexEntryDir extends IndexEntryFile {
@@ -368,4 +461,30 @@ class CheckCache extends AbstractTask<Void> {
             includes.add(path);
         }
     }
+
+
+    private static class CacheStats {
+        private final AtomicLong linkedBytes     = new AtomicLong(0);
+        private final AtomicLong downloadedBytes = new AtomicLong(0);
+        private final AtomicLong downloadNanos   = new AtomicLong(0);
+
+        void linked(long size) {
+            linkedBytes.addAndGet(size);
+        }
+
+        void downloaded(long size, long nanos) {
+            downloadedBytes.addAndGet(size);
+            downloadNanos.addAndGet(nanos);
+        }
+
+        /**
+         * Estimated time of loading linked files at the throughput observed for downloaded ones.
+         */
+        long getAvoidedTime() {
+            if (downloadedBytes.get() == 0) {
+                return linkedBytes.get() == 0 ? 0 : -1;
+            }
+            return (long) (linkedBytes.get() * ((double) downloadNanos.get() / downloadedBytes.get()));
+        }
+    }
 }
@@ -0,0 +1,248 @@
+package manager.commands.environment;
+
+import codex.log.Logger;
+import manager.nodes.Environment;
+import manager.nodes.EnvironmentRoot;
+import manager.nodes.Release;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.text.MessageFormat;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Per-release AppCDS archives: the first launch of the release dumps loaded classes into the
+ * archive at JVM exit, subsequent launches map the archive. Archives are stored in the release
+ * cache and are kept per application kind, JVM version and class path.
+ */
+final class ClassDataSharing {
+
+    private final static String  ARCHIVE_DIR = ".cds";
+    private final static String  ARCHIVE_EXT = ".jsa";
+    private final static String  TEMP_EXT    = ".tmp";
+    private final static int     MIN_JAVA_VERSION = 13;
+    private final static Pattern JAVA_VERSION = Pattern.compile("version \"([^\"]+)\"");
+    private final static Map<String, String> VERSION_CACHE = new ConcurrentHashMap<>();
+
+    enum Mode {
+        /**
+         * Class data sharing is disabled or not supported by JVM.
+         */
+        None,
+        /**
+         * The archive will be created at JVM exit.
+         */
+        Dump,
+        /**
+         * The archive is used.
+         */
+        Use
+    }
+
+    private final Release release;
+    private final String  archivePrefix;
+
+    private volatile Mode mode = Mode.None;
+    private volatile Path archive;
+    private final Map<Path, Path> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param environment Environment to be launched.
+     * @param kind Application kind (archives of server and explorer differ).
+     */
+    ClassDataSharing(Environment environment, String kind) {
+        EnvironmentRoot envRoot = (EnvironmentRoot) environment.getParent();
+        if (!(environment.getBinaries() instanceof Release) || envRoot == null || !envRoot.isClassSharingEnabled()) {
+            release = null;
+            archivePrefix = null;
+            return;
+        }
+        String javaPath = envRoot.getJvmSource().get(EnvironmentRoot.PROP_JVM_PATH);
+        String version  = getJavaVersion(javaPath == null ? "java" : javaPath);
+        if (version == null || getMajorVersion(version) < MIN_JAVA_VERSION) {
+            release = null;
+            archivePrefix = null;
+            return;
+        }
+        release = (Release) environment.getBinaries();
+        archivePrefix = kind.concat("-").concat(version.replaceAll("[^\\w.\\-]", "_")).concat("-");
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns copy of the command with JVM options that create or use the archive inserted
+     * right after the JVM executable. The archive is chosen by the class path of the command,
+     * archives of other class paths are deleted. If the archive is unusable JVM falls back to
+     * normal class loading ({@code -Xshare:auto}).
+     */
+    List<String> apply(List<String> command) {
+        if (release == null || command.isEmpty()) {
+            return command;
+        }
+        Path archiveDir = Paths.get(release.getLocalPath(), ARCHIVE_DIR);
+        archive = archiveDir.resolve(archivePrefix.concat(getClassPathKey(command)).concat(ARCHIVE_EXT));
+        dropOutdated(archiveDir);
+        mode = Files.exists(archive) ? Mode.Use : Mode.Dump;
+
+        List<String> result = new LinkedList<>(command);
+        List<String> options = new LinkedList<>();
+        if (mode == Mode.Use) {
+            options.add("-Xshare:auto");
+            options.add("-XX:SharedArchiveFile=" + archive);
+        } else {
+            archiveDir.toFile().mkdirs();
+            Path temp = archive.resolveSibling(MessageFormat.format(
+                    "{0}.{1}{2}", archive.getFileName(), String.valueOf(System.nanoTime()), TEMP_EXT
+            ));
+            pending.put(temp, archive);
+            options.add("-XX:ArchiveClassesAtExit=" + temp);
+        }
+        result.addAll(1, options);
+        Logger.getLogger().debug("Class data sharing archive ''{0}'' mode: {1}", archive, mode);
+        return result;
+    }
+
+    /**
+     * Publish the archive dumped by the exited process. JVM writes the archive in place, so it
+     * is dumped to a temporary file and renamed when the process is finished: other launches
+     * never see a partially written archive.
+     */
+    void completed() {
+        pending.entrySet().removeIf(entry -> {
+            Path temp = entry.getKey();
+            if (!Files.exists(temp)) {
+                // Process of this launch has not dumped the archive yet
+                return false;
+            }
+            try {
+                if (Files.size(temp) > 0) {
+                    Files.move(temp, entry.getValue(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    Files.delete(temp);
+                }
+            } catch (IOException e) {
+                Logger.getLogger().warn("Unable to publish class data archive ''{0}'': {1}", entry.getValue(), e.getMessage());
+            }
+            return true;
+        });
+    }
+
+    private void dropOutdated(Path archiveDir) {
+        if (!Files.isDirectory(archiveDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(
+                archiveDir,
+                path -> path.getFileName().toString().startsWith(archivePrefix) && path.getFileName().toString().endsWith(ARCHIVE_EXT)
+        )) {
+            for (Path path : dirStream) {
+                if (!path.equals(archive)) {
+                    try {
+                        Files.delete(path);
+                    } catch (IOException e) {
+                        Logger.getLogger().warn("Unable to delete stale class data archive ''{0}''", path);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            //
+        }
+    }
+
+    /**
+     * Returns key of the class path used by JVM to load application classes: the jar given by
+     * {@code -jar} with jars of its manifest {@code Class-Path} and {@code -cp} entries. Each entry
+     * is identified by its path, size and modification time.
+     */
+    private static String getClassPathKey(List<String> command) {
+        List<Path> classPath = new LinkedList<>();
+        Iterator<String> iterator = command.iterator();
+        while (iterator.hasNext()) {
+            String arg = iterator.next();
+            if (!iterator.hasNext()) {
+                break;
+            }
+            if ("-jar".equals(arg)) {
+                Path jar = Paths.get(iterator.next());
+                classPath.add(jar);
+                classPath.addAll(getManifestClassPath(jar));
+                break;
+            } else if ("-cp".equals(arg) || "-classpath".equals(arg) || "--class-path".equals(arg)) {
+                for (String entry : iterator.next().split(File.pathSeparator)) {
+                    classPath.add(Paths.get(entry));
+                }
+            }
+        }
+        CRC32 checksum = new CRC32();
+        for (Path entry : classPath) {
+            File file = entry.toAbsolutePath().toFile();
+            checksum.update(MessageFormat.format(
+                    "{0}:{1}:{2};", file.getPath(), String.valueOf(file.length()), String.valueOf(file.lastModified())
+            ).getBytes(StandardCharsets.UTF_8));
+        }
+        return Long.toHexString(checksum.getValue());
+    }
+
+    private static List<Path> getManifestClassPath(Path jar) {
+        List<Path> entries = new LinkedList<>();
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Manifest manifest = jarFile.getManifest();
+            String classPath  = manifest == null ? null : manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+            if (classPath != null) {
+                for (String entry : classPath.trim().split("\\s+")) {
+                    if (!entry.isEmpty()) {
+                        entries.add(jar.resolveSibling(entry));
+                    }
+                }
+            }
+        } catch (IOException | InvalidPathException e) {
+            //
+        }
+        return entries;
+    }
+
+    private static int getMajorVersion(String version) {
+        String[] parts = version.split("[._+\\-]");
+        try {
+            return Integer.parseInt(parts[0].equals("1") && parts.length > 1 ? parts[1] : parts[0]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String getJavaVersion(String javaPath) {
+        return VERSION_CACHE.computeIfAbsent(javaPath, path -> {
+            try {
+                Process process = new ProcessBuilder(path, "-version").redirectErrorStream(true).start();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        Matcher matcher = JAVA_VERSION.matcher(line);
+                        if (matcher.find()) {
+                            return matcher.group(1);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                Logger.getLogger().warn("Unable to get version of JVM ''{0}''", path);
+            }
+            return "";
+        });
+    }
+}
@@ -0,0 +1,410 @@
+package manager.commands.environment;
+
+import codex.log.Logger;
+import codex.utils.Runtime;
+import java.io.*;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.MessageFormat;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Registry of processes launched by environment commands. Keeps the tail of each process output,
+ * periodically samples CPU time and resident memory of the processes and terminates all of them
+ * when the application exits.
+ */
+public final class ProcessSupervisor {
+
+    private final static ProcessSupervisor INSTANCE = new ProcessSupervisor();
+    public static ProcessSupervisor getInstance() {
+        return INSTANCE;
+    }
+
+    private final static int  LOG_CAPACITY    = 2000;
+    private final static long SAMPLE_INTERVAL = 3;
+    // Each sample on Windows starts WMI client, so processes are sampled less often there
+    private final static long SAMPLE_INTERVAL_WMI = 15;
+    private final static long KILL_TIMEOUT    = 10;
+
+    private final List<Supervised> instances = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Process supervisor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ProcessSupervisor() {
+        long interval = Runtime.OS.isWindows.get() ? SAMPLE_INTERVAL_WMI : SAMPLE_INTERVAL;
+        sampler.scheduleWithFixedDelay(this::sample, interval, interval, TimeUnit.SECONDS);
+        java.lang.Runtime.getRuntime().addShutdownHook(new Thread(() -> terminate(instances)));
+    }
+
+    /**
+     * Sample resource usage of all alive processes at once.
+     */
+    private void sample() {
+        Map<Long, Supervised> alive = new HashMap<>();
+        instances.forEach(instance -> {
+            if (instance.pid >= 0 && instance.isAlive()) {
+                alive.put(instance.pid, instance);
+            }
+        });
+        if (!alive.isEmpty()) {
+            ResourceProbe.sample(alive.keySet()).forEach((pid, usage) -> alive.get(pid).sampled(usage));
+        }
+    }
+
+    /**
+     * Terminate the processes: all of them are asked to exit at once and then awaited till
+     * the common deadline, the rest are killed.
+     */
+    private static void terminate(Collection<Supervised> instances) {
+        List<Process> processes = new LinkedList<>();
+        instances.forEach(instance -> {
+            Process process = instance.process;
+            if (process != null && process.isAlive()) {
+                process.destroy();
+                processes.add(process);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(KILL_TIMEOUT);
+        try {
+            for (Process process : processes) {
+                process.waitFor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            for (Process process : processes) {
+                if (process.isAlive()) {
+                    process.destroyForcibly();
+                }
+            }
+            for (Process process : processes) {
+                process.waitFor();
+            }
+        } catch (InterruptedException ignore) {}
+    }
+
+    /**
+     * Start the process and put it under supervision.
+     * @param title Name of the process to be shown in the instances view.
+     * @param launcher Provider of process builder, called on each (re)start.
+     */
+    public Supervised launch(String title, Supplier<ProcessBuilder> launcher) throws IOException {
+        return launch(title, launcher, () -> {});
+    }
+
+    /**
+     * Start the process and put it under supervision.
+     * @param title Name of the process to be shown in the instances view.
+     * @param launcher Provider of process builder, called on each (re)start.
+     * @param onExit Action to be called each time the started process exits.
+     */
+    public Supervised launch(String title, Supplier<ProcessBuilder> launcher, Runnable onExit) throws IOException {
+        Supervised instance = new Supervised(title, launcher, onExit);
+        instances.add(instance);
+        try {
+            instance.start();
+        } catch (IOException e) {
+            instances.remove(instance);
+            throw e;
+        }
+        return instance;
+    }
+
+    /**
+     * Returns list of supervised processes.
+     */
+    public List<Supervised> getInstances() {
+        return new ArrayList<>(instances);
+    }
+
+
+    public final class Supervised {
+
+        private final String title;
+        private final Supplier<ProcessBuilder> launcher;
+        private final Runnable onExit;
+        private final Deque<String> output = new ArrayDeque<>(LOG_CAPACITY);
+
+        private volatile Process process;
+        private volatile long    pid = -1;
+        private volatile boolean restarting = false, terminated = false;
+        private volatile LocalDateTime startTime;
+        private volatile long  startNanos, launchMillis = -1;
+        private volatile int   restarts = 0;
+        private volatile long  rssBytes = -1;
+        private volatile float cpuLoad  = -1;
+        private long prevCpuNanos = -1, prevSampleNanos;
+
+        private Supervised(String title, Supplier<ProcessBuilder> launcher, Runnable onExit) {
+            this.title    = title;
+            this.launcher = launcher;
+            this.onExit   = onExit;
+        }
+
+        private synchronized void start() throws IOException {
+            Process started = launcher.get().start();
+            process   = started;
+            pid       = resolvePid(started);
+            startTime = LocalDateTime.now();
+            startNanos   = System.nanoTime();
+            launchMillis = -1;
+            rssBytes  = -1;
+            cpuLoad   = -1;
+            prevCpuNanos = -1;
+            append(MessageFormat.format("--- Process started (PID: {0}) ---", String.valueOf(pid)));
+
+            Thread stdErr = new Thread(() -> consume(started.getErrorStream(), "[ERR] "), title + ": stderr");
+            Thread stdOut = new Thread(() -> {
+                consume(started.getInputStream(), "");
+                try {
+                    started.waitFor();
+                } catch (InterruptedException ignore) {}
+                stopped(started);
+            }, title + ": stdout");
+            stdErr.setDaemon(true);
+            stdOut.setDaemon(true);
+            stdErr.start();
+            stdOut.start();
+        }
+
+        private void consume(InputStream stream, String prefix) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charset.defaultCharset()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (launchMillis < 0) {
+                        launched();
+                    }
+                    append(prefix.concat(line));
+                }
+            } catch (IOException e) {
+                // Stream closed
+            }
+        }
+
+        private synchronized void launched() {
+            if (launchMillis < 0) {
+                launchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                Logger.getLogger().debug("Process ''{0}'' launched in {1} ms", title, launchMillis);
+            }
+        }
+
+        private void append(String line) {
+            synchronized (output) {
+                if (output.size() == LOG_CAPACITY) {
+                    output.removeFirst();
+                }
+                output.addLast(line);
+            }
+        }
+
+        private void stopped(Process stopped) {
+            append(MessageFormat.format("--- Process finished (exit code: {0}) ---", stopped.exitValue()));
+            onExit.run();
+            synchronized (this) {
+                if (stopped == process && !restarting) {
+                    terminated = true;
+                    instances.remove(this);
+                    notifyAll();
+                }
+            }
+        }
+
+        private void sampled(long[] usage) {
+            long now = System.nanoTime();
+            if (prevCpuNanos >= 0 && now > prevSampleNanos) {
+                cpuLoad = 100f * (usage[0] - prevCpuNanos) / (now - prevSampleNanos);
+            }
+            prevCpuNanos    = usage[0];
+            prevSampleNanos = now;
+            rssBytes        = usage[1];
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public long getPid() {
+            return pid;
+        }
+
+        public LocalDateTime getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * Returns time from the process start till its first output line (milliseconds)
+         * or -1 if the process has not printed anything yet.
+         */
+        public long getLaunchTime() {
+            return launchMillis;
+        }
+
+        public int getRestarts() {
+            return restarts;
+        }
+
+        /**
+         * Returns resident memory size of the process (bytes) or -1 if it is unknown.
+         */
+        public long getResidentMemory() {
+            return rssBytes;
+        }
+
+        /**
+         * Returns CPU load of the process (percents of one core) or -1 if it is unknown.
+         */
+        public float getCpuLoad() {
+            return cpuLoad;
+        }
+
+        public boolean isAlive() {
+            return process.isAlive();
+        }
+
+        /**
+         * Returns lines of the process output kept in the buffer.
+         */
+        public List<String> getOutput() {
+            synchronized (output) {
+                return new ArrayList<>(output);
+            }
+        }
+
+        /**
+         * Wait for the process termination (restarts are not considered as termination).
+         */
+        public synchronized void waitFor() throws InterruptedException {
+            while (!terminated) {
+                wait();
+            }
+        }
+
+        public void kill() {
+            new Thread(() -> terminate(Collections.singletonList(this))).start();
+        }
+
+        public void restart() {
+            new Thread(() -> {
+                synchronized (this) {
+                    if (terminated) {
+                        return;
+                    }
+                    restarting = true;
+                }
+                try {
+                    terminate(Collections.singletonList(this));
+                    start();
+                    restarts++;
+                } catch (IOException e) {
+                    Logger.getLogger().warn(MessageFormat.format("Unable to restart process ''{0}''", title), e);
+                    synchronized (this) {
+                        terminated = true;
+                        instances.remove(this);
+                        notifyAll();
+                    }
+                } finally {
+                    restarting = false;
+                }
+            }).start();
+        }
+    }
+
+
+    private static long resolvePid(Process process) {
+        try {
+            // Java 9+
+            return (long) Process.class.getMethod("pid").invoke(process);
+        } catch (ReflectiveOperationException e) {
+            try {
+                Field field = process.getClass().getDeclaredField("pid");
+                field.setAccessible(true);
+                return field.getLong(process);
+            } catch (ReflectiveOperationException | RuntimeException ignore) {
+                return -1;
+            }
+        }
+    }
+
+
+    /**
+     * Platform specific reading of process CPU time and resident memory.
+     */
+    private static class ResourceProbe {
+
+        private final static long CLOCK_TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / 100;
+
+        /**
+         * Returns map of process ID to array of CPU time (nanoseconds) and resident memory (bytes).
+         * Processes whose usage is unknown are omitted.
+         */
+        static Map<Long, long[]> sample(Collection<Long> pids) {
+            Map<Long, long[]> usage = new HashMap<>();
+            if (Runtime.OS.isLinux.get()) {
+                pids.forEach(pid -> {
+                    try {
+                        usage.put(pid, sampleProcFs(pid));
+                    } catch (IOException | RuntimeException e) {
+                        // Process has gone or output has unexpected format
+                    }
+                });
+            } else if (Runtime.OS.isWindows.get()) {
+                try {
+                    usage.putAll(sampleWmi(pids));
+                } catch (IOException | RuntimeException e) {
+                    // Output has unexpected format
+                }
+            }
+            return usage;
+        }
+
+        private static long[] sampleProcFs(long pid) throws IOException {
+            String stat = new String(Files.readAllBytes(Paths.get("/proc", String.valueOf(pid), "stat")), Charset.defaultCharset());
+            // Skip "pid (comm)", process name may contain spaces
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            long cpuTicks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+            long rssKb = Files.readAllLines(Paths.get("/proc", String.valueOf(pid), "status")).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                    .findFirst().orElse(-1L);
+            return new long[] {cpuTicks * CLOCK_TICK_NANOS, rssKb < 0 ? -1 : rssKb * 1024};
+        }
+
+        /**
+         * Query all the processes by one WMI client call. Output contains a block of values per
+         * process, blocks are separated by empty lines.
+         */
+        private static Map<Long, long[]> sampleWmi(Collection<Long> pids) throws IOException {
+            StringJoiner condition = new StringJoiner(" or ", "(", ")");
+            pids.forEach(pid -> condition.add("ProcessId=" + pid));
+            Process wmic = new ProcessBuilder(
+                    "wmic", "process", "where", condition.toString(),
+                    "get", "KernelModeTime,ProcessId,UserModeTime,WorkingSetSize", "/value"
+            ).redirectErrorStream(true).start();
+            Map<Long, long[]> usage = new HashMap<>();
+            Map<String, Long> values = new HashMap<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(wmic.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] pair = line.trim().split("=", 2);
+                    if (pair.length == 2 && !pair[1].isEmpty()) {
+                        values.put(pair[0], Long.parseLong(pair[1]));
+                    }
+                    if (values.size() == 4) {
+                        // Times are measured in 100-nanosecond units
+                        usage.put(values.get("ProcessId"), new long[] {
+                                (values.get("KernelModeTime") + values.get("UserModeTime")) * 100,
+                                values.get("WorkingSetSize")
+                        });
+                        values.clear();
+                    }
+                }
+            }
+            return usage;
+        }
+    }
+}
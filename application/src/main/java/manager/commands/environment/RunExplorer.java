@@ -55,7 +55,7 @@ public class RunExplorer extends EntityCommand<Environment> {
     class RunExplorerTask extends AbstractTask<Void> {
 
         private final Environment env;
-        Process process;
+        ProcessSupervisor.Supervised instance;
         
         public RunExplorerTask(Environment env) {
             super(MessageFormat.format(
@@ -69,24 +69,26 @@ public class RunExplorer extends EntityCommand<Environment> {
         @Override
         public Void execute() throws Exception {
             BinarySource source = env.getBinaries();
-            final ProcessBuilder builder = new ProcessBuilder(env.getExplorerCommand(true));
             final File logDir = new File(source.getLocalPath()+File.separator+"logs");
             if (!logDir.exists()) {
                 logDir.mkdirs();
             }
-            builder.directory(logDir);
 
+            ClassDataSharing classSharing = new ClassDataSharing(env, "explorer");
+            instance = ProcessSupervisor.getInstance().launch(
+                    getTitle(),
+                    () -> new ProcessBuilder(classSharing.apply(env.getExplorerCommand(true))).directory(logDir),
+                    classSharing::completed
+            );
             addListener(new ITaskListener() {
                 @Override
                 public void statusChanged(ITask task, Status prevStatus, Status nextStatus) {
                     if (nextStatus.equals(Status.CANCELLED)) {
-                        process.destroy();
+                        instance.kill();
                     }
                 }
             });
-            process = builder.start();
-            process.waitFor();
-            
+            instance.waitFor();
             return null;
         }
 
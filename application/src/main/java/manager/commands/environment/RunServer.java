@@ -55,7 +55,7 @@ public class RunServer extends EntityCommand<Environment> {
     class RunServerTask extends AbstractTask<Void> {
 
         private final Environment env;
-        Process process;
+        ProcessSupervisor.Supervised instance;
         
         RunServerTask(Environment env) {
             super(MessageFormat.format(
@@ -70,24 +70,26 @@ public class RunServer extends EntityCommand<Environment> {
         @Override
         public Void execute() throws Exception {
             BinarySource source = env.getBinaries();
-
-            final ProcessBuilder builder = new ProcessBuilder(env.getServerCommand(true));
             final File logDir = new File(source.getLocalPath()+File.separator+"logs");
             if (!logDir.exists()) {
                 logDir.mkdirs();
             }
-            builder.directory(logDir);
 
+            ClassDataSharing classSharing = new ClassDataSharing(env, "server");
+            instance = ProcessSupervisor.getInstance().launch(
+                    getTitle(),
+                    () -> new ProcessBuilder(classSharing.apply(env.getServerCommand(true))).directory(logDir),
+                    classSharing::completed
+            );
             addListener(new ITaskListener() {
                 @Override
                 public void statusChanged(ITask task, Status prevStatus, Status nextStatus) {
                     if (nextStatus.equals(Status.CANCELLED)) {
-                        process.destroy();
+                        instance.kill();
                     }
                 }
             });
-            process = builder.start();
-            process.waitFor();
+            instance.waitFor();
             return null;
         }
 
@@ -0,0 +1,177 @@
+package manager.commands.environment;
+
+import codex.command.EntityCommand;
+import codex.component.button.PushButton;
+import codex.component.dialog.Dialog;
+import codex.type.IComplexType;
+import codex.utils.FileUtils;
+import codex.utils.ImageUtils;
+import codex.utils.Language;
+import manager.nodes.EnvironmentRoot;
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.MatteBorder;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class RunningInstances extends EntityCommand<EnvironmentRoot> {
+
+    private final static ImageIcon ICON_KILL    = ImageUtils.resize(ImageUtils.getByPath("/images/stop.png"), 26, 26);
+    private final static ImageIcon ICON_RESTART = ImageUtils.resize(ImageUtils.getByPath("/images/update.png"), 26, 26);
+    private final static int REFRESH_INTERVAL = 1000;
+
+    public RunningInstances() {
+        super(
+                "instances",
+                "title",
+                ImageUtils.getByPath("/images/launch.png"),
+                Language.get(RunningInstances.class, "title"),
+                null
+        );
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.System;
+    }
+
+    @Override
+    public void execute(EnvironmentRoot context, Map<String, IComplexType> params) {
+        InstancesModel tableModel = new InstancesModel();
+        JTable table = new JTable(tableModel);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setRowHeight((int) (table.getRowHeight() * 1.5));
+        table.getColumnModel().getColumn(0).setPreferredWidth(350);
+
+        JTextArea output = new JTextArea();
+        output.setEditable(false);
+        output.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        PushButton kill = new PushButton(ICON_KILL, null);
+        kill.setHint(Language.get(RunningInstances.class, "command@kill"));
+        kill.addActionListener(event -> getSelected(table, tableModel).kill());
+
+        PushButton restart = new PushButton(ICON_RESTART, null);
+        restart.setHint(Language.get(RunningInstances.class, "command@restart"));
+        restart.addActionListener(event -> getSelected(table, tableModel).restart());
+
+        Runnable showSelected = () -> {
+            ProcessSupervisor.Supervised selected = getSelected(table, tableModel);
+            kill.setEnabled(selected != null);
+            restart.setEnabled(selected != null);
+            String text = selected == null ? "" : String.join("\n", selected.getOutput());
+            if (!text.equals(output.getText())) {
+                output.setText(text);
+                output.setCaretPosition(text.length());
+            }
+        };
+        Runnable refresh = () -> {
+            ProcessSupervisor.Supervised selected = getSelected(table, tableModel);
+            tableModel.setInstances(ProcessSupervisor.getInstance().getInstances());
+            int row = tableModel.instances.indexOf(selected);
+            if (row >= 0 && table.getSelectedRow() != row) {
+                table.getSelectionModel().setSelectionInterval(row, row);
+            }
+            showSelected.run();
+        };
+        table.getSelectionModel().addListSelectionListener(event -> {
+            if (!event.getValueIsAdjusting()) {
+                showSelected.run();
+            }
+        });
+        Timer timer = new Timer(REFRESH_INTERVAL, event -> refresh.run());
+        refresh.run();
+        timer.start();
+
+        JPanel commands = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        commands.add(kill);
+        commands.add(restart);
+
+        JSplitPane content = new JSplitPane(
+                JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(table) {{
+                    getViewport().setBackground(Color.WHITE);
+                    setBorder(new MatteBorder(1, 1, 1, 1, Color.LIGHT_GRAY));
+                }},
+                new JScrollPane(output) {{
+                    setBorder(new MatteBorder(1, 1, 1, 1, Color.LIGHT_GRAY));
+                }}
+        );
+        content.setResizeWeight(0.4);
+        content.setBorder(null);
+
+        Dialog dialog = new Dialog(
+                Dialog.findNearestWindow(),
+                getIcon(),
+                Language.get(RunningInstances.class, "title"),
+                new JPanel(new BorderLayout()) {{
+                    setBorder(new EmptyBorder(5, 5, 5, 5));
+                    add(commands, BorderLayout.NORTH);
+                    add(content, BorderLayout.CENTER);
+                }},
+                event -> timer.stop(),
+                Dialog.Default.BTN_CLOSE.newInstance()
+        );
+        dialog.setPreferredSize(new Dimension(900, 600));
+        dialog.setVisible(true);
+    }
+
+    private static ProcessSupervisor.Supervised getSelected(JTable table, InstancesModel model) {
+        int row = table.getSelectedRow();
+        return row < 0 || row >= model.instances.size() ? null : model.instances.get(row);
+    }
+
+
+    private static class InstancesModel extends AbstractTableModel {
+
+        private final static String[] COLUMNS = new String[] {"column@title", "column@pid", "column@uptime", "column@launch", "column@cpu", "column@memory", "column@restarts"};
+        private List<ProcessSupervisor.Supervised> instances = Collections.emptyList();
+
+        void setInstances(List<ProcessSupervisor.Supervised> instances) {
+            boolean structureChanged = !instances.equals(this.instances);
+            this.instances = instances;
+            if (structureChanged) {
+                fireTableDataChanged();
+            } else if (!instances.isEmpty()) {
+                fireTableRowsUpdated(0, instances.size() - 1);
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return instances.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return Language.get(RunningInstances.class, COLUMNS[column]);
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            ProcessSupervisor.Supervised instance = instances.get(row);
+            switch (column) {
+                case 0: return instance.getTitle();
+                case 1: return instance.getPid() < 0 ? "?" : String.valueOf(instance.getPid());
+                case 2:
+                    Duration uptime = Duration.between(instance.getStartTime(), LocalDateTime.now());
+                    return String.format("%d:%02d:%02d", uptime.toHours(), uptime.toMinutes() % 60, uptime.getSeconds() % 60);
+                case 3: return instance.getLaunchTime() < 0 ? "?" : String.format("%.1f s", instance.getLaunchTime() / 1000f);
+                case 4: return instance.getCpuLoad() < 0 ? "?" : String.format("%.1f %%", instance.getCpuLoad());
+                case 5: return instance.getResidentMemory() < 0 ? "?" : FileUtils.formatFileSize(instance.getResidentMemory());
+                case 6: return instance.getRestarts();
+                default: return null;
+            }
+        }
+    }
+}
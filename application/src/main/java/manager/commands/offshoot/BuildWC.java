@@ -10,6 +10,7 @@ import codex.task.GroupTask;
 import codex.task.ITask;
 import codex.type.Bool;
 import codex.type.IComplexType;
+import codex.type.Int;
 import codex.utils.ImageUtils;
 import codex.utils.Language;
 import codex.utils.Runtime;
@@ -43,7 +44,8 @@ public class BuildWC extends EntityCommand<Offshoot> {
             ImageUtils.resize(ImageUtils.getByPath("/images/build.png"), .7f),
             SwingConstants.SOUTH_EAST
     );
-    private static final String PARAM_CLEAN = "clean";
+    private static final String PARAM_CLEAN   = "clean";
+    private static final String PARAM_THREADS = "threads";
 
     public static Throwable getRootCause(Throwable exception) {
         return Stream
@@ -62,7 +64,8 @@ public class BuildWC extends EntityCommand<Offshoot> {
                 (offshoot) -> offshoot.getWCStatus().equals(WCStatus.Successful)
         );
         setParameters(
-                new PropertyHolder<>(PARAM_CLEAN, new Bool(Boolean.FALSE), true)
+                new PropertyHolder<>(PARAM_CLEAN, new Bool(Boolean.FALSE), true),
+                new PropertyHolder<>(PARAM_THREADS, new Int(BuildKernelTask.DEFAULT_THREADS), true)
         );
     }
     
@@ -82,6 +85,7 @@ public class BuildWC extends EntityCommand<Offshoot> {
             MessageBox.show(MessageType.ERROR, Language.get(BuildWC.class, "compiler@notfound"));
             return null;
         }
+        Integer threads = (Integer) map.get(PARAM_THREADS).getValue();
         return new GroupTask(
                 MessageFormat.format(
                         "{0}: ''{1}/{2}''",
@@ -89,7 +93,7 @@ public class BuildWC extends EntityCommand<Offshoot> {
                         context.getRepository().getPID(),
                         context.getPID()
                 ),
-                new BuildKernelTask(context),
+                new BuildKernelTask(context, threads == null ? BuildKernelTask.DEFAULT_THREADS : threads),
                 new BuildSourceTask(context, map.get(PARAM_CLEAN).getValue() == Boolean.TRUE)
         );
     }
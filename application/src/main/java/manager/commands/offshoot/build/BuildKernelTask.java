@@ -18,7 +18,10 @@ import java.util.concurrent.atomic.AtomicReference;
 
 public class BuildKernelTask extends AbstractTask<Void> {
 
+    public final static int DEFAULT_THREADS = Math.max(1, Math.min(java.lang.Runtime.getRuntime().availableProcessors(), 4));
+
     private final Offshoot offshoot;
+    private final int      threads;
     private final Thread  hook = new Thread(() -> {
         if (!getStatus().isFinal()) {
             cancel(true);
@@ -26,12 +29,21 @@ public class BuildKernelTask extends AbstractTask<Void> {
     });
 
     public BuildKernelTask(Offshoot offshoot) {
+        this(offshoot, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param offshoot Working copy to build.
+     * @param threads Maximum number of kernel projects built simultaneously.
+     */
+    public BuildKernelTask(Offshoot offshoot, int threads) {
         super(MessageFormat.format(
                 Language.get(BuildWC.class, "command@kernel"),
                 offshoot.getRepository().getPID(),
                 offshoot.getPID()
         ));
         this.offshoot = offshoot;
+        this.threads  = threads;
     }
 
     @Override
@@ -50,6 +62,7 @@ public class BuildKernelTask extends AbstractTask<Void> {
             add(BuildEnvironment.buildClassPath(offshoot));
             add("-Dport="+rmiRegistry.getPort());
             add("-Dpath="+offshoot.getLocalPath());
+            add("-Dthreads="+threads);
             add(KernelBuilder.class.getCanonicalName());
         }};
 
@@ -8,14 +8,23 @@ import java.nio.file.Paths;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.StringJoiner;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import manager.commands.offshoot.BuildWC;
 import manager.xml.FilelistDocument;
 import manager.xml.ProjectDocument;
 import manager.xml.PropertyDocument;
 import manager.xml.SubantDocument;
 import manager.xml.TargetDocument;
-import org.apache.tools.ant.*;
+import org.apache.tools.ant.BuildException;
 import org.apache.xmlbeans.XmlOptions;
 import org.radixware.kernel.common.preferences.KernelParameters;
 import org.radixware.kernel.common.repository.Branch;
@@ -23,12 +32,49 @@ import org.radixware.kernel.common.repository.Layer;
 import org.tmatesoft.svn.core.wc.SVNWCUtil;
 
 public class KernelBuilder {
-    
+
+    // Kernel sub-projects in order of building and sub-projects of the same layer they depend on
+    private static final Map<String, List<String>> SUBPROJECT_DEPENDENCIES = new LinkedHashMap<>();
+    static {
+        SUBPROJECT_DEPENDENCIES.put("common",   Collections.emptyList());
+        SUBPROJECT_DEPENDENCIES.put("server",   Collections.singletonList("common"));
+        SUBPROJECT_DEPENDENCIES.put("explorer", Collections.singletonList("common"));
+        SUBPROJECT_DEPENDENCIES.put("web",      Collections.singletonList("common"));
+    }
+
+    /**
+     * List sub-projects of the layer kernel having own build file. Known sub-projects go first
+     * in order of building, unknown ones are built after them.
+     */
+    private static List<String> listSubprojects(File kernelDir) {
+        File[] dirs = kernelDir.listFiles(dir -> dir.isDirectory() && new File(dir, "build.xml").exists());
+        if (dirs == null) {
+            return Collections.emptyList();
+        }
+        List<String> names = Arrays.stream(dirs).map(File::getName).collect(Collectors.toList());
+        List<String> subprojects = new LinkedList<>();
+        SUBPROJECT_DEPENDENCIES.keySet().stream().filter(names::contains).forEach(subprojects::add);
+        names.stream().filter(name -> !subprojects.contains(name)).sorted().forEach(subprojects::add);
+        return subprojects;
+    }
+
+    /**
+     * Sub-projects of the same layer the given one depends on. Unknown sub-project may use any
+     * of the known ones.
+     */
+    private static List<String> getSubprojectDependencies(String subproject, List<String> subprojects) {
+        List<String> dependencies = SUBPROJECT_DEPENDENCIES.containsKey(subproject) ?
+                SUBPROJECT_DEPENDENCIES.get(subproject) :
+                new LinkedList<>(SUBPROJECT_DEPENDENCIES.keySet());
+        return dependencies.stream().filter(subprojects::contains).collect(Collectors.toList());
+    }
+
     public static void main(String[] args) throws Exception {
         System.setProperty("build.compiler", "extJavac");
 
         final Integer port = Integer.valueOf(System.getProperty("port"));
         final String  path = System.getProperty("path");
+        final Integer threads = Integer.getInteger("threads", 1);
 
         final Registry reg = LocateRegistry.getRegistry(port);
         final IBuildingNotifier notifier = (IBuildingNotifier) reg.lookup(BuildingNotifier.class.getTypeName());
@@ -53,6 +99,7 @@ public class KernelBuilder {
             File localDir = new File(path);
 
             StringJoiner kernels = new StringJoiner("\n");
+            Map<Layer, File> kernelFiles = new LinkedHashMap<>();
             Branch branch = Branch.Factory.loadFromDir(localDir);
             for (Layer layer : branch.getLayers().getInOrder()) {
                 if (layer.getKernel().getDirectory().exists() && !layer.isReadOnly()) {
@@ -60,6 +107,7 @@ public class KernelBuilder {
                     File kernelFile = Paths.get(layer.getDirectory().getAbsolutePath(), "kernel", "build.xml").toFile();
                     if (kernelFile.exists() && SVNWCUtil.isVersionedDirectory(kernelDir)) {
                         kernels.add(layer.getDirectory().getName() + "/kernel/build.xml");
+                        kernelFiles.put(layer, kernelFile);
                     }
                 }
             }
@@ -85,6 +133,7 @@ public class KernelBuilder {
             subAntBuild.addNewTarget().setName(targetBuild.getName());
             subAntBuild.setFilelist((FilelistDocument.Filelist) files.copy());
 
+            // Sequential build file is kept for manual builds
             File buildFile = new File(localDir.getPath()+File.separator+"build.kernel.xml");
             XmlOptions options = new XmlOptions();
             options.setSavePrettyPrintIndent(4);
@@ -93,42 +142,84 @@ public class KernelBuilder {
             File logFile = new File(localDir.getPath()+File.separator+"build.kernel.log");
             PrintStream logStream = new PrintStream(logFile);
 
-            BuildLogger consoleLogger = new NoBannerLogger() {
-                @Override
-                public void taskStarted(BuildEvent event) {
-                    super.taskStarted(event);
-                    try {
-                        notifier.isPaused();
-                    } catch (RemoteException e) {
-                        throw new RuntimeException(e.getMessage());
-                    }
+            Runnable pauseCheck = () -> {
+                try {
+                    notifier.isPaused();
+                } catch (RemoteException e) {
+                    throw new RuntimeException(e.getMessage());
                 }
             };
-            consoleLogger.setErrorPrintStream(logStream);
-            consoleLogger.setOutputPrintStream(logStream);
-            consoleLogger.setMessageOutputLevel(Project.MSG_INFO);
 
-            Project ant = new Project();
-            ant.setUserProperty("ant.file", buildFile.getAbsolutePath());
-            ant.addBuildListener(consoleLogger);
+            // Cleanup of a layer kernel cleans its sub-projects as well
+            ParallelAntExecutor cleaner = new ParallelAntExecutor(threads, logStream, pauseCheck);
+            kernelFiles.forEach((layer, kernelFile) -> cleaner.addProject(
+                    layer.getDirectory().getName(),
+                    kernelFile,
+                    Collections.emptyList()
+            ));
+
+            // Sub-project of a layer kernel depends on the sub-projects of the same layer listed in
+            // SUBPROJECT_DEPENDENCIES and on the same sub-projects of its base layers. Build file of
+            // the whole layer kernel is executed after its sub-projects to finish the packaging.
+            ParallelAntExecutor builder = new ParallelAntExecutor(threads, logStream, pauseCheck);
+            Map<Layer, List<String>> layerSubprojects = new HashMap<>();
+            kernelFiles.forEach((layer, kernelFile) -> {
+                String layerName = layer.getDirectory().getName();
+                List<String> subprojects = listSubprojects(kernelFile.getParentFile());
+                layerSubprojects.put(layer, subprojects);
+
+                List<Layer> baseLayers = kernelFiles.keySet().stream()
+                        .filter(layer::isHigherThan)
+                        .collect(Collectors.toList());
+                for (String subproject : subprojects) {
+                    List<String> dependsOn = new LinkedList<>();
+                    getSubprojectDependencies(subproject, subprojects).forEach(
+                            dependency -> dependsOn.add(layerName + "/" + dependency)
+                    );
+                    for (Layer baseLayer : baseLayers) {
+                        List<String> baseSubprojects = layerSubprojects.get(baseLayer);
+                        String baseName = baseLayer.getDirectory().getName();
+                        if (baseSubprojects.isEmpty()) {
+                            dependsOn.add(baseName);
+                        } else {
+                            Stream.concat(Stream.of(subproject), getSubprojectDependencies(subproject, baseSubprojects).stream())
+                                    .filter(baseSubprojects::contains)
+                                    .forEach(dependency -> dependsOn.add(baseName + "/" + dependency));
+                        }
+                    }
+                    builder.addProject(
+                            layerName + "/" + subproject,
+                            new File(new File(kernelFile.getParentFile(), subproject), "build.xml"),
+                            dependsOn
+                    );
+                }
 
-            ProjectHelper projectHelper = ProjectHelper.getProjectHelper();
-            ant.addReference("ant.projectHelper", projectHelper);
-            projectHelper.parse(ant, buildFile);
-            ant.init();
+                List<String> dependsOn = new LinkedList<>();
+                subprojects.forEach(subproject -> dependsOn.add(layerName + "/" + subproject));
+                if (subprojects.isEmpty()) {
+                    baseLayers.forEach(baseLayer -> {
+                        String baseName = baseLayer.getDirectory().getName();
+                        List<String> baseSubprojects = layerSubprojects.get(baseLayer);
+                        if (baseSubprojects.isEmpty()) {
+                            dependsOn.add(baseName);
+                        } else {
+                            baseSubprojects.forEach(dependency -> dependsOn.add(baseName + "/" + dependency));
+                        }
+                    });
+                }
+                builder.addProject(layerName, kernelFile, dependsOn);
+            });
 
             try {
-                ant.fireBuildStarted();
                 notifier.description(Language.get(BuildWC.class, "command@clean"));
-                ant.executeTarget(targetClean.getName());
+                cleaner.execute(targetClean.getName(), false);
 
                 notifier.description(Language.get(BuildWC.class, "command@distributive"));
-                ant.executeTarget(targetBuild.getName());
-
-                ant.fireBuildFinished(null);
+                builder.execute(targetBuild.getName(), true);
             } catch (BuildException e) {
-                ant.fireBuildFinished(e);
                 notifier.error(e);
+            } finally {
+                logStream.close();
             }
         } catch (IOException e) {
             notifier.error(e);
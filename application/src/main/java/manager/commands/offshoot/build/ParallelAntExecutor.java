@@ -0,0 +1,159 @@
+package manager.commands.offshoot.build;
+
+import org.apache.tools.ant.*;
+import org.apache.tools.ant.util.DateUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executes a target of several independent Ant projects with bounded parallelism. A project is
+ * started as soon as all projects it depends on are built. Output of each project is buffered
+ * and written to the log in order of registration, so the log looks like a sequential build.
+ */
+class ParallelAntExecutor {
+
+    private final int threads;
+    private final PrintStream log;
+    private final Runnable onTaskStarted;
+    private final List<Module> modules = new LinkedList<>();
+
+    /**
+     * @param threads Maximum number of projects built simultaneously.
+     * @param log Stream to replay output of the projects into.
+     * @param onTaskStarted Action to be called before each Ant task (i.e. pause check).
+     */
+    ParallelAntExecutor(int threads, PrintStream log, Runnable onTaskStarted) {
+        this.threads = Math.max(1, threads);
+        this.log = log;
+        this.onTaskStarted = onTaskStarted;
+    }
+
+    /**
+     * Register the project. Projects it depends on must be registered earlier.
+     * @param name Name of the project to be shown in the log.
+     * @param buildFile Ant build file of the project.
+     * @param dependsOn Names of the projects to be built before this one.
+     */
+    void addProject(String name, File buildFile, Collection<String> dependsOn) {
+        Module module = new Module(name, buildFile);
+        modules.stream()
+                .filter(registered -> dependsOn.contains(registered.name))
+                .forEach(module.dependencies::add);
+        modules.add(module);
+    }
+
+    /**
+     * Execute the target in all registered projects.
+     * @param target Name of the target.
+     * @param respectDependencies Whether to wait for dependencies of the project or not (i.e.
+     * cleanup targets are independent).
+     * @throws BuildException Exception of the first failed project. Projects that have not been
+     * started by that moment are skipped.
+     */
+    void execute(String target, boolean respectDependencies) throws BuildException {
+        AtomicInteger threadNum = new AtomicInteger(0);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Ant worker #" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicReference<BuildException> failure = new AtomicReference<>();
+        Map<Module, CompletableFuture<Void>> futures = new HashMap<>();
+        for (Module module : modules) {
+            CompletableFuture<?>[] dependencies = respectDependencies ?
+                    module.dependencies.stream().map(futures::get).toArray(CompletableFuture[]::new) :
+                    new CompletableFuture[0];
+            futures.put(module, CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                if (failure.get() == null) {
+                    module.build(target, failure);
+                }
+            }, pool));
+        }
+        try {
+            for (Module module : modules) {
+                try {
+                    futures.get(module).join();
+                } catch (CompletionException | CancellationException e) {
+                    // Failure is stored in the reference
+                }
+                module.replay(log);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+
+    private class Module {
+
+        private final String name;
+        private final File   buildFile;
+        private final List<Module> dependencies = new LinkedList<>();
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        Module(String name, File buildFile) {
+            this.name = name;
+            this.buildFile = buildFile;
+        }
+
+        void build(String target, AtomicReference<BuildException> failure) {
+            output.reset();
+            PrintStream outStream = new PrintStream(output, true);
+            outStream.println(MessageFormat.format("--- {0}: {1} ---", name, target));
+
+            BuildLogger logger = new NoBannerLogger() {
+                @Override
+                public void taskStarted(BuildEvent event) {
+                    super.taskStarted(event);
+                    onTaskStarted.run();
+                }
+            };
+            logger.setErrorPrintStream(outStream);
+            logger.setOutputPrintStream(outStream);
+            logger.setMessageOutputLevel(Project.MSG_INFO);
+
+            long started = System.currentTimeMillis();
+            Project ant = new Project();
+            ant.setUserProperty("ant.file", buildFile.getAbsolutePath());
+            ant.addBuildListener(logger);
+            try {
+                ant.fireBuildStarted();
+                ant.init();
+                ProjectHelper projectHelper = ProjectHelper.getProjectHelper();
+                ant.addReference("ant.projectHelper", projectHelper);
+                projectHelper.parse(ant, buildFile);
+                ant.executeTarget(target);
+                ant.fireBuildFinished(null);
+            } catch (BuildException e) {
+                ant.fireBuildFinished(e);
+                failure.compareAndSet(null, e);
+                throw e;
+            } catch (RuntimeException e) {
+                BuildException exception = new BuildException(e);
+                ant.fireBuildFinished(exception);
+                failure.compareAndSet(null, exception);
+                throw exception;
+            } finally {
+                outStream.println(MessageFormat.format(
+                        "--- {0}: {1} took {2} ---",
+                        name, target, DateUtils.formatElapsedTime(System.currentTimeMillis() - started)
+                ));
+            }
+        }
+
+        void replay(PrintStream stream) {
+            stream.print(output.toString());
+            stream.flush();
+        }
+    }
+}
@@ -10,6 +10,7 @@ import codex.utils.Language;
 import java.nio.file.Path;
 import java.util.List;
 import manager.commands.common.DiskUsageReport;
+import manager.utils.DirectoryRemover;
 
 public final class Common extends Catalog {
     
@@ -37,11 +38,13 @@ public final class Common extends Catalog {
                     switch (propName) {
                         case PROP_WORK_DIR:
                             childrenList().forEach((child) -> setChildMode(child, getWorkDir() != null));
+                            DirectoryRemover.sweepTrash(getWorkDir());
                             break;
                     }
                 });          
             }
         });
+        DirectoryRemover.sweepTrash(getWorkDir());
     }
     
     public final Path getWorkDir() {
@@ -3,6 +3,7 @@ package manager.nodes;
 import codex.explorer.tree.INode;
 import codex.model.Access;
 import codex.model.Entity;
+import codex.model.EntityDefinition;
 import codex.property.PropertyHolder;
 import codex.type.ArrStr;
 import codex.type.EntityRef;
@@ -12,6 +13,7 @@ import java.util.*;
 import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
+@EntityDefinition(autoGenerated = true, lazy = true)
 @RepositoryBranch.Branch(remoteDir = "dev", localDir = "sources", hasArchive = false)
 public class Development extends RepositoryBranch {
 
@@ -45,6 +47,7 @@ public class Development extends RepositoryBranch {
     @Override
     public void unloadBranch() {
         new LinkedList<>(childrenList()).forEach(this::detachForce);
+        deferChildren();
         getRepository().detach(this);
     }
 
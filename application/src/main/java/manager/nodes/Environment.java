@@ -149,7 +149,22 @@ public class Environment extends Entity implements INodeListener {
                         Repository repository = getRepository(true);
                         List<Release> values = new LinkedList<>();
                         if (repository != null) {
-                            newInstance(ReleaseList.class, repository.toRef(), null).childrenList().forEach(iNode -> {
+                            ReleaseList releaseList = newInstance(ReleaseList.class, repository.toRef(), null);
+                            // Releases are listed from SVN in background, the popup is rebuilt when they are loaded
+                            INodeListener onLoad = new INodeListener() {
+                                @Override
+                                public void childListChanged(INode parentNode) {
+                                    releaseList.removeNodeListener(this);
+                                    refreshValues();
+                                }
+                            };
+                            releaseList.addNodeListener(onLoad);
+                            if (releaseList.isChildrenDeferred()) {
+                                releaseList.ensureChildrenLoaded();
+                                return values;
+                            }
+                            releaseList.removeNodeListener(onLoad);
+                            releaseList.childrenList().forEach(iNode -> {
                                 values.add((Release) iNode);
                             });
                         }
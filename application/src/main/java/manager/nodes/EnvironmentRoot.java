@@ -3,13 +3,16 @@ package manager.nodes;
 import codex.mask.DataSetMask;
 import codex.model.Access;
 import codex.model.Catalog;
+import codex.model.CommandRegistry;
 import codex.model.Entity;
 import codex.supplier.IDataSupplier;
 import codex.supplier.RowSelector;
 import codex.type.ArrStr;
+import codex.type.Bool;
 import codex.utils.ImageUtils;
 import codex.utils.Language;
 import codex.utils.Runtime;
+import manager.commands.environment.RunningInstances;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -23,6 +26,7 @@ public class EnvironmentRoot extends Catalog {
     public final static String PROP_JVM_SOURCE    = "jvmSource";
     public final static String PROP_JVM_SERVER    = "jvmServer";
     public final static String PROP_JVM_EXPLORER  = "jvmExplorer";
+    public final static String PROP_CLASS_SHARING = "classSharing";
     public final static String PROP_STARTER_OPTS  = "starterOpts";
     public final static String PROP_SERVER_OPTS   = "serverOpts";
     public final static String PROP_EXPLORER_OPTS = "explorerOpts";
@@ -43,6 +47,10 @@ public class EnvironmentRoot extends Catalog {
             "{0} ({1})"
     );
     
+    static {
+        CommandRegistry.getInstance().registerCommand(RunningInstances.class);
+    }
+
     public EnvironmentRoot() {
         super(null, ImageUtils.getByPath("/images/system.png"), null, Language.get("desc"));
         
@@ -50,6 +58,7 @@ public class EnvironmentRoot extends Catalog {
         model.addUserProp(PROP_JVM_SOURCE,   new ArrStr().setMask(jvmSelector), false, Access.Select);
         model.addUserProp(PROP_JVM_SERVER,   new ArrStr("-Xmx2G"), false, Access.Select);
         model.addUserProp(PROP_JVM_EXPLORER, new ArrStr("-Xmx1G"), false, Access.Select);
+        model.addUserProp(PROP_CLASS_SHARING, new Bool(false), false, Access.Select);
         model.addUserProp(PROP_STARTER_OPTS, new ArrStr(Collections.singletonList("-disableHardlinks")), true, Access.Select);
         model.addUserProp(PROP_SERVER_OPTS,  new ArrStr(Arrays.asList(
                 "-switchEasVerChecksOff",
@@ -64,7 +73,7 @@ public class EnvironmentRoot extends Catalog {
         )), true, Access.Select);
 
         // Property settings
-        model.addPropertyGroup(Language.get("group@jvm"), PROP_JVM_SOURCE, PROP_JVM_SERVER, PROP_JVM_EXPLORER);
+        model.addPropertyGroup(Language.get("group@jvm"), PROP_JVM_SOURCE, PROP_JVM_SERVER, PROP_JVM_EXPLORER, PROP_CLASS_SHARING);
         model.addPropertyGroup(Language.get("group@app"), PROP_STARTER_OPTS, PROP_SERVER_OPTS, PROP_EXPLORER_OPTS);
     }
 
@@ -91,6 +100,10 @@ public class EnvironmentRoot extends Catalog {
         return (List<String>) model.getValue(PROP_JVM_EXPLORER);
     }
     
+    public final boolean isClassSharingEnabled() {
+        return model.getValue(PROP_CLASS_SHARING) == Boolean.TRUE;
+    }
+
     public final void setJvmServer(List<String> value) {
         model.setValue(PROP_JVM_SERVER, value);
     }
@@ -23,6 +23,7 @@ import manager.commands.offshoot.*;
 import manager.svn.SVN;
 import manager.type.BuildStatus;
 import manager.type.WCStatus;
+import manager.utils.DirectoryRemover;
 import org.apache.commons.io.FileDeleteStrategy;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
@@ -33,16 +34,13 @@ import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class Offshoot extends BinarySource {
@@ -277,7 +275,16 @@ public class Offshoot extends BinarySource {
 
     public class DeleteOffshoot extends AbstractTask<Void> {
 
+        private final long knownSize;
+
         public DeleteOffshoot() {
+            this(0);
+        }
+
+        /**
+         * @param knownSize Size of the working copy if it is already calculated (i.e. by disk usage report).
+         */
+        public DeleteOffshoot(long knownSize) {
             super(Language.get(Offshoot.class, "delete@task.title") + ": "+Offshoot.this.getLocalPath());
             addListener(new ITaskListener() {
                 @Override
@@ -296,6 +303,7 @@ public class Offshoot extends BinarySource {
                     Offshoot.this.getLock().release();
                 }
             });
+            this.knownSize = knownSize;
         }
 
         @Override
@@ -313,50 +321,28 @@ public class Offshoot extends BinarySource {
             Offshoot.this.setWCLoaded(false);
             Offshoot.this.model.commit(false);
 
-            setProgress(0, Language.get(Offshoot.class, "delete@task.calc"));
-            long totalFiles = Files.walk(Paths.get(wcPath)).count();
-
-            AtomicInteger processed = new AtomicInteger(0);
-            Files.walkFileTree(Paths.get(wcPath), new SimpleFileVisitor<Path>() {
-
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    return processPath(file);
-                }
-
-                @Override
-                public FileVisitResult visitFileFailed(Path file, IOException exc) {
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
-                    return processPath(dir);
-                }
-
-                private FileVisitResult processPath(Path path) {
-                    checkPaused();
-                    if (isCancelled()) {
-                        return FileVisitResult.TERMINATE;
-                    }
+            new DirectoryRemover(this, Language.get(Offshoot.class, "delete@task.progress")).deleteViaTrash(
+                    Paths.get(wcPath),
+                    knownSize,
+                    new DirectoryRemover.ITrashListener() {
+                        @Override
+                        public void movedToTrash() {
+                            SwingUtilities.invokeLater(() -> {
+                                setWCStatus(WCStatus.Absent);
+                                getWCStatus();
+                            });
+                        }
 
-                    try {
-                        FileDeleteStrategy.NORMAL.delete(path.toFile());
-                        processed.addAndGet(1);
-                        String fileName = path.toString().replace(wcPath + File.separator, "");
-                        setProgress(
-                                (int) (processed.get() * 100 / totalFiles),
-                                MessageFormat.format(
-                                        Language.get(Offshoot.class, "delete@task.progress"),
-                                        fileName
-                                )
-                        );
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
+                        @Override
+                        public void restoredFromTrash() {
+                            WCStatus status = getWorkingCopyStatus();
+                            SwingUtilities.invokeLater(() -> {
+                                setWCStatus(status);
+                                getWCStatus();
+                            });
+                        }
                     }
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+            );
 
             try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(Paths.get(wcPath).getParent())) {
                 if (!dirStream.iterator().hasNext()) {
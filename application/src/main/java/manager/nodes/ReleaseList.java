@@ -1,10 +1,12 @@
 package manager.nodes;
 
 import codex.model.Entity;
+import codex.model.EntityDefinition;
 import codex.type.EntityRef;
 import codex.utils.ImageUtils;
 import java.util.LinkedList;
 
+@EntityDefinition(autoGenerated = true, lazy = true)
 @RepositoryBranch.Branch(remoteDir = "releases", localDir = "releases", hasArchive = true)
 public class ReleaseList extends RepositoryBranch {
 
@@ -18,12 +20,13 @@ public class ReleaseList extends RepositoryBranch {
 
     @Override
     public void loadBranch() {
-        loadChildren();
+        // Releases are read on first access
     }
 
     @Override
     public void unloadBranch() {
         new LinkedList<>(childrenList()).forEach(this::detach);
+        deferChildren();
     }
 
     @Override
@@ -218,7 +218,7 @@ public class Repository extends Entity {
     private List<RepositoryBranch> getLocalBranches() {
         return BRANCHES.values().stream()
                 .map(branchClass -> (RepositoryBranch) Entity.newInstance(branchClass, this.toRef(), null))
-                .filter(branchClass -> !CAS.readCatalogEntries(this.getID(), branchClass.getChildClass()).isEmpty())
+                .filter(branchClass -> !CAS.readCatalogIndex(this.getID(), branchClass.getChildClass()).isEmpty())
                 .collect(Collectors.toList());
     }
 
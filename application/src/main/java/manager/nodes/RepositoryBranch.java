@@ -57,7 +57,7 @@ public abstract class RepositoryBranch extends Catalog {
     public abstract Class<? extends Entity> getChildClass();
 
     @Override
-    public void loadChildren() {
+    protected void readChildren() {
         if (getRepository().isRepositoryOnline(false)) {
             getDirectories().stream()
                     .map(subDir -> {
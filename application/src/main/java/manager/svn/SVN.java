@@ -248,6 +248,25 @@ public class SVN {
         return new ByteArrayInputStream(baos.toByteArray());
     }
 
+    public static Map<String, String> getChecksums(String url, Collection<String> paths, ISVNAuthenticationManager authMgr) throws SVNException {
+        SVNRepositoryFactoryImpl.setup();
+        SVNRepository repository = SVNRepositoryFactory.create(SVNURL.parseURIEncoded(url));
+        repository.setAuthenticationManager(authMgr);
+        repository.setTunnelProvider(SVNWCUtil.createDefaultOptions(true));
+
+        Map<String, String> checksums = new HashMap<>();
+        try {
+            for (String path : paths) {
+                SVNProperties properties = new SVNProperties();
+                repository.getFile(path, -1, properties, null);
+                checksums.put(path, properties.getStringValue(SVNProperty.CHECKSUM));
+            }
+        } finally {
+            repository.closeSession();
+        }
+        return checksums;
+    }
+
     public static SVNRevision getMinimalRevision(String url, ISVNAuthenticationManager authMgr) throws SVNException {
         final SVNClientManager clientMgr = SVNClientManager.newInstance(new DefaultSVNOptions(), authMgr);
         AtomicReference<SVNLogEntry> logEntry = new AtomicReference<>();
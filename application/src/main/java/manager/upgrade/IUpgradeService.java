@@ -21,5 +21,7 @@ public interface IUpgradeService extends IRemoteService {
     public RemoteInputStream getUpgradeFileStream() throws RemoteException;
     
     public String getUpgradeFileChecksum() throws RemoteException;
+
+    public String getUpgradeFileChecksum(String algorithm) throws RemoteException;
     
 }
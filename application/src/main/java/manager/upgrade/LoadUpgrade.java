@@ -20,6 +20,7 @@ import codex.utils.ImageUtils;
 import codex.utils.Language;
 import codex.utils.Runtime;
 import manager.upgrade.stream.RemoteInputStream;
+import manager.utils.ArtifactChecksum;
 import manager.utils.Versioning;
 import manager.xml.VersionsDocument;
 import org.apache.commons.io.FilenameUtils;
@@ -32,6 +33,8 @@ import javax.xml.bind.DatatypeConverter;
 import java.awt.*;
 import java.io.*;
 import java.nio.channels.FileChannel;
+import java.rmi.RemoteException;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -307,13 +310,17 @@ class LoadUpgrade extends AbstractTask<Void> {
             for (Instance provider : providers) {
                 try {
                     IUpgradeService remoteUpService = new ConnectInstance(provider).process();
-                    Pair<RemoteInputStream, String> streamData = new CreateRemoteStream(remoteUpService).process();
+                    CreateRemoteStream createStream = new CreateRemoteStream(remoteUpService);
+                    Pair<RemoteInputStream, String> streamData = createStream.process();
                     try (
                             FileOutputStream outputStream = new FileOutputStream(upgradedFile);
                             RemoteInputStream inputStream = streamData.getKey();
                     ) {
                         String remoteCRC = streamData.getValue();
-                        String localCRC  = new LoadFile(inputStream, outputStream, percent -> setProgress(percent, getDescription())).process();
+                        String localCRC  = new LoadFile(
+                                inputStream, outputStream, createStream.getAlgorithm(),
+                                percent -> setProgress(percent, getDescription())
+                        ).process();
                         if (new CheckCRC(remoteCRC, localCRC).process()) {
                             dialogButton.setEnabled(true);
                             return upgradedFile;
@@ -386,14 +393,27 @@ class LoadUpgrade extends AbstractTask<Void> {
     private static class CreateRemoteStream extends ExecPhase<Pair<RemoteInputStream, String>> {
 
         private final IUpgradeService service;
+        private ArtifactChecksum.Algorithm algorithm = ArtifactChecksum.Algorithm.SHA256;
+
         CreateRemoteStream(IUpgradeService service) {
             super(Language.get(UpgradeUnit.class, "process@stream"));
             this.service = service;
         }
 
+        ArtifactChecksum.Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
         @Override
         protected Pair<String, Pair<RemoteInputStream, String>> execute() throws Exception {
-            String          remoteChecksum = service.getUpgradeFileChecksum();
+            String remoteChecksum;
+            try {
+                remoteChecksum = service.getUpgradeFileChecksum(algorithm.getName());
+            } catch (RemoteException e) {
+                // Instances of previous versions provide MD5 checksum only
+                algorithm = ArtifactChecksum.Algorithm.MD5;
+                remoteChecksum = service.getUpgradeFileChecksum();
+            }
             RemoteInputStream remoteStream = service.getUpgradeFileStream();
             return new Pair<>(
                     MessageFormat.format(
@@ -410,28 +430,30 @@ class LoadUpgrade extends AbstractTask<Void> {
 
         private final InputStream  inputStream;
         private final OutputStream outputStream;
+        private final ArtifactChecksum.Algorithm algorithm;
         private final Consumer<Integer> progress;
-        LoadFile(InputStream inputStream, OutputStream outputStream, Consumer<Integer> progress) {
+        LoadFile(InputStream inputStream, OutputStream outputStream, ArtifactChecksum.Algorithm algorithm, Consumer<Integer> progress) {
             super(Language.get(UpgradeUnit.class, "process@load"));
             this.inputStream  = inputStream;
             this.outputStream = outputStream;
+            this.algorithm    = algorithm;
             this.progress     = progress;
         }
 
         @Override
         protected Pair<String, String> execute() throws Exception {
             long  fileSize = inputStream.available();
-            final MessageDigest localChecksum = MessageDigest.getInstance("MD5");
+            final MessageDigest localChecksum = MessageDigest.getInstance(algorithm.getName());
             try {
-                byte[] data = new byte[1024];
+                DigestInputStream digestStream = new DigestInputStream(inputStream, localChecksum);
+                byte[] data = new byte[64 * 1024];
                 long totalRead = 0;
-                int bytesRead = inputStream.read(data);
+                int bytesRead = digestStream.read(data);
                 while (bytesRead != -1) {
                     totalRead = totalRead + bytesRead;
                     outputStream.write(data, 0, bytesRead);
-                    localChecksum.update(data, 0, bytesRead);
                     progress.accept((int) (100 * totalRead / fileSize));
-                    bytesRead = inputStream.read(data);
+                    bytesRead = digestStream.read(data);
                 }
                 return new Pair<>(null, DatatypeConverter.printHexBinary(localChecksum.digest()));
             } catch (IOException e) {
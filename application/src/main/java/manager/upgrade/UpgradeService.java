@@ -22,19 +22,16 @@ import codex.utils.Language;
 import codex.utils.Runtime;
 import manager.upgrade.stream.RemoteInputStream;
 import manager.upgrade.stream.RemoteInputStreamServer;
+import manager.utils.ArtifactChecksum;
 import manager.xml.Change;
 import manager.xml.Version;
 import manager.xml.VersionList;
 import manager.xml.VersionsDocument;
 import org.apache.xmlbeans.XmlException;
 import javax.swing.*;
-import javax.xml.bind.DatatypeConverter;
 import java.io.*;
-import java.nio.file.Files;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.concurrent.Semaphore;
@@ -182,11 +179,16 @@ public class UpgradeService extends AbstractRemoteService<UpgradeServiceOptions,
     
     @Override
     public String getUpgradeFileChecksum() throws RemoteException {
+        return getUpgradeFileChecksum(ArtifactChecksum.Algorithm.MD5.getName());
+    }
+
+    @Override
+    public String getUpgradeFileChecksum(String algorithm) throws RemoteException {
         try {
-            byte[] b = Files.readAllBytes(Runtime.APP.jarFile.get().toPath());
-            byte[] hash = MessageDigest.getInstance("MD5").digest(b);
-            return DatatypeConverter.printHexBinary(hash);
-        } catch (IOException | NoSuchAlgorithmException e) {
+            return ArtifactChecksum.get(Runtime.APP.jarFile.get(), ArtifactChecksum.Algorithm.forName(algorithm));
+        } catch (IllegalArgumentException e) {
+            throw new RemoteException(e.getMessage());
+        } catch (IOException e) {
             //
         }
         return null;
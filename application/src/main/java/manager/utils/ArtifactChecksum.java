@@ -0,0 +1,239 @@
+package manager.utils;
+
+import codex.log.Logger;
+import javax.xml.bind.DatatypeConverter;
+import java.io.*;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checksums of artifacts (application and plugin jars) distributed among instances. All supported
+ * digests are calculated in a single streaming pass and cached by file path, size and modification
+ * time; cache entries are also dropped by a file watcher as soon as the file is changed.
+ * The cache is saved next to the plugins directory, so checksums of unchanged artifacts are not
+ * recalculated after restart.
+ */
+public final class ArtifactChecksum {
+
+    public enum Algorithm {
+        MD5("MD5"), SHA256("SHA-256");
+
+        private final String name;
+
+        Algorithm(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Algorithm forName(String name) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.name.equalsIgnoreCase(name)) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported checksum algorithm: " + name);
+        }
+    }
+
+    private final static int  BUFFER_SIZE = 64 * 1024;
+    private final static Path CACHE_FILE  = Paths.get("plugins.checksums");
+
+    private final static Map<Path, Entry> CACHE = load();
+    private final static Set<Path> WATCHED_DIRS = ConcurrentHashMap.newKeySet();
+    private static WatchService watchService;
+
+    private ArtifactChecksum() {}
+
+    /**
+     * Returns hexadecimal checksum of the file.
+     * @param file Artifact file.
+     * @param algorithm Digest algorithm.
+     */
+    public static String get(File file, Algorithm algorithm) throws IOException {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+
+        Entry entry = CACHE.get(path);
+        if (entry == null || entry.size != size || entry.modified != modified) {
+            entry = calculate(path, size, modified);
+            CACHE.put(path, entry);
+            save();
+            watch(path.getParent());
+        }
+        return entry.digests.get(algorithm);
+    }
+
+    /**
+     * Drops cached checksums of the file.
+     */
+    public static void invalidate(File file) {
+        CACHE.remove(file.toPath().toAbsolutePath().normalize());
+    }
+
+    private static Entry calculate(Path path, long size, long modified) throws IOException {
+        Map<Algorithm, MessageDigest> digests = new EnumMap<>(Algorithm.class);
+        for (Algorithm algorithm : Algorithm.values()) {
+            try {
+                digests.put(algorithm, MessageDigest.getInstance(algorithm.name));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        InputStream stream = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        for (MessageDigest digest : digests.values()) {
+            stream = new DigestInputStream(stream, digest);
+        }
+        try (InputStream in = stream) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            //noinspection StatementWithEmptyBody
+            while (in.read(buffer) != -1);
+        }
+        Map<Algorithm, String> result = new EnumMap<>(Algorithm.class);
+        digests.forEach((algorithm, digest) -> result.put(algorithm, DatatypeConverter.printHexBinary(digest.digest())));
+        return new Entry(size, modified, result);
+    }
+
+    /**
+     * Reads saved cache entries. Entries are validated on access, so unreadable or outdated
+     * entries are just calculated again.
+     */
+    private static Map<Path, Entry> load() {
+        Map<Path, Entry> cache = new ConcurrentHashMap<>();
+        if (Files.isRegularFile(CACHE_FILE)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(CACHE_FILE)) {
+                properties.load(in);
+            } catch (IOException e) {
+                Logger.getLogger().debug("Unable to read checksum cache ''{0}'': {1}", CACHE_FILE, e.getMessage());
+            }
+            properties.stringPropertyNames().forEach(key -> {
+                Entry entry = Entry.parse(properties.getProperty(key));
+                if (entry != null) {
+                    cache.put(Paths.get(key), entry);
+                }
+            });
+        }
+        return cache;
+    }
+
+    /**
+     * Writes cache entries to a temporary file which replaces the cache file.
+     */
+    private static synchronized void save() {
+        Properties properties = new Properties();
+        CACHE.forEach((path, entry) -> properties.setProperty(path.toString(), entry.format()));
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(CACHE_FILE.toAbsolutePath().getParent(), CACHE_FILE.getFileName().toString(), null);
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "Artifact checksums");
+            }
+            Files.move(temp, CACHE_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Logger.getLogger().debug("Unable to save checksum cache ''{0}'': {1}", CACHE_FILE, e.getMessage());
+            try {
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignore) {}
+        }
+    }
+
+    private static void watch(Path dir) {
+        if (dir == null || !WATCHED_DIRS.add(dir)) {
+            return;
+        }
+        try {
+            synchronized (ArtifactChecksum.class) {
+                if (watchService == null) {
+                    watchService = FileSystems.getDefault().newWatchService();
+                    Thread watcher = new Thread(ArtifactChecksum::processEvents, "Artifact checksum watcher");
+                    watcher.setDaemon(true);
+                    watcher.start();
+                }
+            }
+            dir.register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE
+            );
+        } catch (IOException e) {
+            // Cache entries are still validated by size and modification time
+            Logger.getLogger().debug("Unable to watch directory ''{0}'': {1}", dir, e.getMessage());
+        }
+    }
+
+    private static void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    CACHE.keySet().removeIf(path -> dir.equals(path.getParent()));
+                } else {
+                    CACHE.remove(dir.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                WATCHED_DIRS.remove(dir);
+            }
+        }
+    }
+
+
+    private static final class Entry {
+
+        private final long size, modified;
+        private final Map<Algorithm, String> digests;
+
+        private Entry(long size, long modified, Map<Algorithm, String> digests) {
+            this.size     = size;
+            this.modified = modified;
+            this.digests  = digests;
+        }
+
+        /**
+         * Saved form of the entry: {@code size;modified;MD5;SHA-256}.
+         */
+        private String format() {
+            StringBuilder builder = new StringBuilder().append(size).append(';').append(modified);
+            for (Algorithm algorithm : Algorithm.values()) {
+                builder.append(';').append(digests.get(algorithm));
+            }
+            return builder.toString();
+        }
+
+        private static Entry parse(String value) {
+            String[] parts = value.split(";");
+            if (parts.length != 2 + Algorithm.values().length) {
+                return null;
+            }
+            try {
+                Map<Algorithm, String> digests = new EnumMap<>(Algorithm.class);
+                for (Algorithm algorithm : Algorithm.values()) {
+                    digests.put(algorithm, parts[2 + algorithm.ordinal()]);
+                }
+                return new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), digests);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
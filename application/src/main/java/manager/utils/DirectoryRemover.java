@@ -0,0 +1,305 @@
+package manager.utils;
+
+import codex.log.Logger;
+import codex.task.CancelException;
+import codex.task.ITask;
+import codex.utils.FileUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.MessageFormat;
+import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Recursive directory removal bound to a task: the tree is traversed once, subdirectories are
+ * deleted in parallel by a bounded fork/join pool of the deletion, progress is calculated by deleted bytes if
+ * the size of the directory is known in advance (otherwise by processed top-level entries).
+ */
+public class DirectoryRemover {
+
+    private final static String  TRASH_SUFFIX  = ".trash";
+    private final static Pattern TRASH_PATTERN = Pattern.compile("^\\..+\\.\\d+\\.trash$");
+    private final static int     TRASH_DEPTH   = 4;
+    private final static long   REPORT_INTERVAL = TimeUnit.MILLISECONDS.toNanos(200);
+    private final static int    PARALLELISM = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+
+    private final ITask  task;
+    private final String progressFormat;
+
+    private final AtomicLong    deletedBytes = new AtomicLong(0);
+    private final AtomicInteger deletedRoots = new AtomicInteger(0);
+    private final AtomicLong    lastReport   = new AtomicLong(0);
+    private long totalBytes;
+    private int  totalRoots;
+
+    /**
+     * @param task Task to check for pause or cancellation and to report progress to.
+     * @param progressFormat Format of progress description, receives deleted path (as {0})
+     * and size of deleted data (as {1}).
+     */
+    public DirectoryRemover(ITask task, String progressFormat) {
+        this.task = task;
+        this.progressFormat = progressFormat;
+    }
+
+    /**
+     * Rename the directory to a hidden sibling (tombstone), so it disappears from its original
+     * location immediately and can be physically deleted afterwards.
+     * @return Path of the tombstone or the original path if the directory can not be renamed
+     * (i.e. some files are locked).
+     */
+    public static Path moveToTrash(Path directory) {
+        Path tombstone = directory.resolveSibling(MessageFormat.format(
+                ".{0}.{1}{2}", directory.getFileName(), String.valueOf(System.currentTimeMillis()), TRASH_SUFFIX
+        ));
+        try {
+            return Files.move(directory, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            return directory;
+        }
+    }
+
+    /**
+     * Move the tombstone back to the original location of the directory (if it is still free),
+     * so the data left after failed or cancelled deletion stays reachable.
+     * @return True if the directory has been restored.
+     */
+    public static boolean restoreFromTrash(Path tombstone, Path directory) {
+        if (tombstone.equals(directory) || !Files.exists(tombstone) || Files.exists(directory)) {
+            return false;
+        }
+        try {
+            Files.move(tombstone, directory, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            Logger.getLogger().warn("Unable to restore directory ''{0}'' from ''{1}''", directory, tombstone);
+            return false;
+        }
+    }
+
+    /**
+     * Delete tombstones left by interrupted deletions (i.e. the application has been closed
+     * while the task was running). The tree is scanned in a background thread.
+     * @param root Directory to look for tombstones in (up to {@link #TRASH_DEPTH} levels).
+     */
+    public static void sweepTrash(Path root) {
+        if (root == null || !Files.isDirectory(root)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            List<Path> tombstones = new LinkedList<>();
+            try {
+                Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), TRASH_DEPTH, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        if (TRASH_PATTERN.matcher(dir.getFileName().toString()).matches()) {
+                            tombstones.add(dir);
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                return;
+            }
+            tombstones.forEach(tombstone -> {
+                try {
+                    Files.walkFileTree(tombstone, new SimpleFileVisitor<Path>() {
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                            Files.delete(file);
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                            Files.delete(dir);
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+                    Logger.getLogger().debug("Stale tombstone ''{0}'' deleted", tombstone);
+                } catch (IOException e) {
+                    Logger.getLogger().warn("Unable to delete stale tombstone ''{0}'': {1}", tombstone, e.getMessage());
+                }
+            });
+        }, "Trash sweeper");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Move the directory to trash and delete it. If deletion fails or is cancelled, the rest of
+     * the directory is moved back to its original location.
+     * @param directory Directory to delete.
+     * @param knownSize Size of the directory (from a size index) or 0 if it is unknown.
+     */
+    public void deleteViaTrash(Path directory, long knownSize) throws IOException {
+        deleteViaTrash(directory, knownSize, null);
+    }
+
+    /**
+     * Move the directory to trash and delete it. If deletion fails or is cancelled, the rest of
+     * the directory is moved back to its original location.
+     * @param directory Directory to delete.
+     * @param knownSize Size of the directory (from a size index) or 0 if it is unknown.
+     * @param listener Listener to hide the entry of the directory as soon as it is moved to
+     * trash and to show it again if the directory is restored (may be null).
+     */
+    public void deleteViaTrash(Path directory, long knownSize, ITrashListener listener) throws IOException {
+        Path tombstone = moveToTrash(directory);
+        boolean moved = !tombstone.equals(directory);
+        if (moved && listener != null) {
+            listener.movedToTrash();
+        }
+        boolean deleted = false;
+        try {
+            delete(tombstone, knownSize);
+            deleted = true;
+        } finally {
+            if (!deleted && restoreFromTrash(tombstone, directory) && listener != null) {
+                listener.restoredFromTrash();
+            }
+        }
+    }
+
+    /**
+     * Delete the directory with all its content.
+     * @param directory Directory to delete.
+     * @param knownSize Size of the directory (from a size index) or 0 if it is unknown.
+     */
+    public void delete(Path directory, long knownSize) throws IOException {
+        totalBytes = knownSize;
+        if (totalBytes <= 0) {
+            String[] roots = directory.toFile().list();
+            totalRoots = roots == null ? 0 : roots.length;
+        }
+        // Own pool of the deletion: paused task blocks only its own workers
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        try {
+            pool.invoke(new DeleteAction(directory, true));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+        if (task.isCancelled()) {
+            throw new CancelException();
+        }
+    }
+
+    private void report(Path path, boolean force) {
+        long now  = System.nanoTime();
+        long last = lastReport.get();
+        if ((force || now - last > REPORT_INTERVAL) && lastReport.compareAndSet(last, now)) {
+            int percent;
+            if (totalBytes > 0) {
+                percent = (int) Math.min(100, deletedBytes.get() * 100 / totalBytes);
+            } else {
+                percent = totalRoots == 0 ? 100 : Math.min(100, deletedRoots.get() * 100 / totalRoots);
+            }
+            task.setProgress(percent, MessageFormat.format(
+                    progressFormat, path.getFileName(), FileUtils.formatFileSize(deletedBytes.get())
+            ));
+        }
+    }
+
+
+    /**
+     * Listener of the directory being deleted via trash.
+     */
+    public interface ITrashListener {
+
+        /**
+         * The directory has been moved to trash and is not reachable by its path anymore.
+         */
+        void movedToTrash();
+
+        /**
+         * Deletion has failed or has been cancelled and the directory has been moved back.
+         */
+        void restoredFromTrash();
+    }
+
+
+    private class DeleteAction extends RecursiveAction {
+
+        private final Path    directory;
+        private final boolean root;
+
+        DeleteAction(Path directory, boolean root) {
+            this.directory = directory;
+            this.root = root;
+        }
+
+        @Override
+        protected void compute() {
+            task.checkPaused();
+            if (task.isCancelled()) {
+                return;
+            }
+            List<DeleteAction> subActions = new LinkedList<>();
+            try {
+                try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(directory)) {
+                    for (Path path : dirStream) {
+                        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attrs.isDirectory()) {
+                            DeleteAction subAction = new DeleteAction(path, false);
+                            subAction.fork();
+                            subActions.add(subAction);
+                        } else {
+                            task.checkPaused();
+                            if (task.isCancelled()) {
+                                break;
+                            }
+                            deleteFile(path);
+                            deletedBytes.addAndGet(attrs.size());
+                            if (root) {
+                                deletedRoots.incrementAndGet();
+                            }
+                            report(path, false);
+                        }
+                    }
+                }
+                subActions.forEach(subAction -> {
+                    subAction.join();
+                    if (root) {
+                        deletedRoots.incrementAndGet();
+                    }
+                });
+                if (!task.isCancelled()) {
+                    deleteFile(directory);
+                    report(directory, root);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void deleteFile(Path path) throws IOException {
+            try {
+                Files.delete(path);
+            } catch (AccessDeniedException e) {
+                // Read-only files can not be deleted on some platforms
+                File file = path.toFile();
+                if (!file.setWritable(true) || !file.delete()) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
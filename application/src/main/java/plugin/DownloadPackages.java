@@ -46,6 +46,37 @@ class DownloadPackages extends EntityGroupCommand<RemotePackageView> {
     );
 
     static boolean installPackage(IPluginLoaderService.RemotePackage remotePackage) {
+        PackageDownload download = PackageDownload.prepare(remotePackage);
+        if (download != null) {
+            TaskOutput.put(
+                    Level.Debug,
+                    fillStepResult(
+                            Language.get(DownloadPackages.class, "task@package.provider"),
+                            String.valueOf(download.getSourceCount()),
+                            null
+                    )
+            );
+            try {
+                File loadedFile = download.load(PluginManager.getInstance().getPluginLoader().getPluginDir());
+                TaskOutput.put(Level.Debug, fillStepResult(
+                        STEP_DOWNLOAD,
+                        MessageFormat.format(
+                                Language.get(DownloadPackages.class, "step@load.chunks"),
+                                download.getChunkCount() - download.getResumedChunks(),
+                                download.getChunkCount()
+                        ),
+                        null
+                ));
+                TaskOutput.put(Level.Debug, fillStepResult(STEP_CHECKSUM, null, null));
+                installLoadedFile(loadedFile);
+                return true;
+            } catch (Exception e) {
+                Logger.getLogger().warn("Unable to download updated package: {0}", e.getMessage());
+                TaskOutput.put(Level.Warn, fillStepResult(STEP_DOWNLOAD, null, e));
+            }
+        }
+
+        // Providers of previous versions serve the package as a stream only
         for (Instance provider : remotePackage.getInstances()) {
             TaskOutput.put(
                     Level.Debug,
@@ -59,19 +90,7 @@ class DownloadPackages extends EntityGroupCommand<RemotePackageView> {
                 IPluginLoaderService pluginLoader = (IPluginLoaderService) provider.getService(PluginLoaderService.class);
                 File loadedFile = loadPackageFile(pluginLoader, remotePackage);
                 if (loadedFile != null) {
-                    try {
-                        installPackageFile(loadedFile);
-                        TaskOutput.put(Level.Debug, fillStepResult(STEP_INSTALL, null, null));
-                    } catch (Exception e) {
-                        Logger.getLogger().warn("Unable to install the update", e);
-                        TaskOutput.put(
-                                Level.Warn,
-                                fillStepResult(STEP_INSTALL, null, new Error(Language.get(DownloadPackages.class, "error@metainfo")))
-                        );
-                        if (!loadedFile.delete()) {
-                            loadedFile.deleteOnExit();
-                        }
-                    }
+                    installLoadedFile(loadedFile);
                     return true;
                 }
             } catch (RemoteException | NotBoundException e) {
@@ -82,6 +101,22 @@ class DownloadPackages extends EntityGroupCommand<RemotePackageView> {
         return false;
     }
 
+    private static void installLoadedFile(File loadedFile) {
+        try {
+            installPackageFile(loadedFile);
+            TaskOutput.put(Level.Debug, fillStepResult(STEP_INSTALL, null, null));
+        } catch (Exception e) {
+            Logger.getLogger().warn("Unable to install the update", e);
+            TaskOutput.put(
+                    Level.Warn,
+                    fillStepResult(STEP_INSTALL, null, new Error(Language.get(DownloadPackages.class, "error@metainfo")))
+            );
+            if (!loadedFile.delete()) {
+                loadedFile.deleteOnExit();
+            }
+        }
+    }
+
     private static File loadPackageFile(IPluginLoaderService pluginLoader, IPluginLoaderService.RemotePackage remotePackage) {
         try {
             String remoteChecksumStr = pluginLoader.getPackageFileChecksum(remotePackage.getId(), remotePackage.getVersion());
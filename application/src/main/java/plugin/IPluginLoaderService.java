@@ -12,10 +12,17 @@ import codex.utils.Language;
 import manager.upgrade.stream.RemoteInputStream;
 import manager.xml.VersionsDocument;
 import javax.swing.*;
+import javax.xml.bind.DatatypeConverter;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.rmi.RemoteException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.List;
@@ -36,6 +43,10 @@ public interface IPluginLoaderService extends IRemoteService {
 
     RemoteInputStream getPackageFileStream(String pluginId, String pluginVersion)  throws RemoteException;
 
+    PackageManifest getPackageManifest(String pluginId, String pluginVersion) throws RemoteException;
+
+    byte[] readPackageFile(String pluginId, String pluginVersion, long offset, int length) throws RemoteException;
+
 
     class RemotePackage implements Serializable {
         private static final long serialVersionUID = -3332763603180744471L;
@@ -124,6 +135,80 @@ public interface IPluginLoaderService extends IRemoteService {
     }
 
 
+    class PackageManifest implements Serializable {
+        private static final long serialVersionUID = 5170823392051372814L;
+
+        final static int CHUNK_SIZE = 256 * 1024;
+
+        private final String   checksum;
+        private final long     size;
+        private final int      chunkSize;
+        private final String[] chunks;
+
+        PackageManifest(File file) throws IOException {
+            size = file.length();
+            chunkSize = CHUNK_SIZE;
+            chunks = new String[(int) ((size + chunkSize - 1) / chunkSize)];
+
+            MessageDigest fileDigest = getDigest();
+            byte[] buffer = new byte[chunkSize];
+            try (InputStream in = new FileInputStream(file)) {
+                for (int chunk = 0; chunk < chunks.length; chunk++) {
+                    int length = getChunkLength(chunk), read = 0;
+                    while (read < length) {
+                        int count = in.read(buffer, read, length - read);
+                        if (count < 0) {
+                            throw new IOException("Unexpected end of file: " + file);
+                        }
+                        read += count;
+                    }
+                    fileDigest.update(buffer, 0, length);
+                    chunks[chunk] = digest(buffer, 0, length);
+                }
+            }
+            checksum = DatatypeConverter.printHexBinary(fileDigest.digest());
+        }
+
+        String getChecksum() {
+            return checksum;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        int getChunkCount() {
+            return chunks.length;
+        }
+
+        long getChunkOffset(int chunk) {
+            return (long) chunk * chunkSize;
+        }
+
+        int getChunkLength(int chunk) {
+            return (int) Math.min(chunkSize, size - getChunkOffset(chunk));
+        }
+
+        String getChunkChecksum(int chunk) {
+            return chunks[chunk];
+        }
+
+        static String digest(byte[] data, int offset, int length) {
+            MessageDigest digest = getDigest();
+            digest.update(data, offset, length);
+            return DatatypeConverter.printHexBinary(digest.digest());
+        }
+
+        static MessageDigest getDigest() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+
     class RemotePlugin implements Serializable {
         private static final long serialVersionUID = 1808014886861935479L;
 
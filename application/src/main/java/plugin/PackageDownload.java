@@ -0,0 +1,201 @@
+package plugin;
+
+import codex.instance.Instance;
+import codex.log.Logger;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.security.MessageDigest;
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.bind.DatatypeConverter;
+
+final class PackageDownload {
+
+    private final static int MAX_CONNECTIONS = Integer.getInteger("plugin.downloadConnections", 4);
+
+    private final IPluginLoaderService.RemotePackage   remotePackage;
+    private final IPluginLoaderService.PackageManifest manifest;
+    private final List<IPluginLoaderService> sources;
+    private int resumedChunks = 0;
+
+    /**
+     * Returns download of the package from providers that advertise the same file checksum
+     * or null if none of providers supports chunked download.
+     */
+    static PackageDownload prepare(IPluginLoaderService.RemotePackage remotePackage) {
+        Map<String, IPluginLoaderService.PackageManifest> manifests = new HashMap<>();
+        Map<String, List<IPluginLoaderService>> sources = new LinkedHashMap<>();
+        for (Instance provider : remotePackage.getInstances()) {
+            try {
+                IPluginLoaderService pluginLoader = (IPluginLoaderService) provider.getService(PluginLoaderService.class);
+                IPluginLoaderService.PackageManifest manifest = pluginLoader.getPackageManifest(remotePackage.getId(), remotePackage.getVersion());
+                manifests.putIfAbsent(manifest.getChecksum(), manifest);
+                sources.computeIfAbsent(manifest.getChecksum(), checksum -> new LinkedList<>()).add(pluginLoader);
+            } catch (RemoteException | NotBoundException e) {
+                Logger.getLogger().debug("Chunked download from {0} is not available: {1}", provider, e.getMessage());
+            }
+        }
+        return sources.entrySet().stream()
+                .max(Comparator.comparingInt(entry -> entry.getValue().size()))
+                .map(entry -> new PackageDownload(remotePackage, manifests.get(entry.getKey()), entry.getValue()))
+                .orElse(null);
+    }
+
+    private PackageDownload(
+            IPluginLoaderService.RemotePackage remotePackage,
+            IPluginLoaderService.PackageManifest manifest,
+            List<IPluginLoaderService> sources
+    ) {
+        this.remotePackage = remotePackage;
+        this.manifest = manifest;
+        this.sources  = sources;
+    }
+
+    int getSourceCount() {
+        return sources.size();
+    }
+
+    int getChunkCount() {
+        return manifest.getChunkCount();
+    }
+
+    int getResumedChunks() {
+        return resumedChunks;
+    }
+
+    /**
+     * Loads missing chunks of the partial file, verifies the whole file and moves it to the target directory.
+     * The partial file is kept on failure to resume the download later.
+     */
+    File load(File targetDir) throws Exception {
+        String fileName = MessageFormat.format("{0}-{1}.jar", remotePackage.getTitle(), remotePackage.getVersion());
+        File targetFile = new File(targetDir, fileName);
+        File partFile   = new File(targetDir, fileName.concat(".part"));
+
+        try (FileChannel channel = FileChannel.open(
+                partFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+        )) {
+            if (channel.size() > manifest.getSize()) {
+                channel.truncate(manifest.getSize());
+            }
+            Queue<Integer> pending = new ConcurrentLinkedQueue<>(getMissingChunks(channel));
+            resumedChunks = manifest.getChunkCount() - pending.size();
+            if (!pending.isEmpty()) {
+                loadChunks(channel, pending);
+            }
+            if (!pending.isEmpty()) {
+                throw new IOException(MessageFormat.format("Unable to load {0} chunk(s) of {1}", pending.size(), fileName));
+            }
+            channel.force(true);
+
+            String checksum = getChecksum(channel);
+            if (!checksum.equals(manifest.getChecksum())) {
+                channel.truncate(0);
+                throw new IOException(MessageFormat.format(
+                        "Checksum verification error: expected={0}, loaded={1}",
+                        manifest.getChecksum(), checksum
+                ));
+            }
+        }
+        try {
+            Files.move(partFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return targetFile;
+    }
+
+    private List<Integer> getMissingChunks(FileChannel channel) throws IOException {
+        List<Integer> missing = new LinkedList<>();
+        for (int chunk = 0; chunk < manifest.getChunkCount(); chunk++) {
+            long offset = manifest.getChunkOffset(chunk);
+            int  length = manifest.getChunkLength(chunk);
+            if (offset + length > channel.size()) {
+                missing.add(chunk);
+            } else {
+                byte[] data = read(channel, offset, length);
+                if (!IPluginLoaderService.PackageManifest.digest(data, 0, length).equals(manifest.getChunkChecksum(chunk))) {
+                    missing.add(chunk);
+                }
+            }
+        }
+        return missing;
+    }
+
+    private void loadChunks(FileChannel channel, Queue<Integer> pending) throws InterruptedException {
+        int connections = Math.min(MAX_CONNECTIONS, pending.size());
+        AtomicInteger threadNum = new AtomicInteger(0);
+        ExecutorService executor = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "Package loader #" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Sources are taken starting from random one to spread load among the peers
+        int firstSource = ThreadLocalRandom.current().nextInt(sources.size());
+        List<Callable<Void>> loaders = new LinkedList<>();
+        for (int connection = 0; connection < connections; connection++) {
+            IPluginLoaderService source = sources.get((firstSource + connection) % sources.size());
+            loaders.add(() -> {
+                // Chunk failed by the source is returned to the queue to be taken by another connection
+                Integer chunk;
+                while ((chunk = pending.poll()) != null) {
+                    try {
+                        loadChunk(source, channel, chunk);
+                    } catch (IOException e) {
+                        pending.add(chunk);
+                        Logger.getLogger().debug("Unable to load chunk #{0} of package {1}: {2}", chunk, remotePackage, e.getMessage());
+                        break;
+                    }
+                }
+                return null;
+            });
+        }
+        try {
+            executor.invokeAll(loaders);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void loadChunk(IPluginLoaderService source, FileChannel channel, int chunk) throws IOException {
+        long offset = manifest.getChunkOffset(chunk);
+        int  length = manifest.getChunkLength(chunk);
+        byte[] data = source.readPackageFile(remotePackage.getId(), remotePackage.getVersion(), offset, length);
+        if (data.length != length || !IPluginLoaderService.PackageManifest.digest(data, 0, length).equals(manifest.getChunkChecksum(chunk))) {
+            throw new IOException(MessageFormat.format("Chunk #{0} checksum mismatch", chunk));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    private String getChecksum(FileChannel channel) throws IOException {
+        MessageDigest digest = IPluginLoaderService.PackageManifest.getDigest();
+        for (int chunk = 0; chunk < manifest.getChunkCount(); chunk++) {
+            digest.update(read(channel, manifest.getChunkOffset(chunk), manifest.getChunkLength(chunk)));
+        }
+        return DatatypeConverter.printHexBinary(digest.digest());
+    }
+
+    private static byte[] read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.array();
+    }
+}
@@ -7,19 +7,26 @@ import codex.service.RemoteServiceControl;
 import codex.utils.LocaleContextHolder;
 import manager.upgrade.stream.RemoteInputStream;
 import manager.upgrade.stream.RemoteInputStreamServer;
+import manager.utils.ArtifactChecksum;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.rmi.RemoteException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public final class PluginLoaderService extends AbstractRemoteService<PluginLoaderOptions, RemoteServiceControl> implements IPluginLoaderService {
 
+    private final static int MAX_READ_LENGTH = 4 * 1024 * 1024;
+
     private final List<IPublicationListener> listeners = new LinkedList<>();
+    private final Map<File, PackageManifest> manifests = new ConcurrentHashMap<>();
 
     public PluginLoaderService() throws RemoteException {}
 
@@ -68,6 +75,45 @@ public final class PluginLoaderService extends AbstractRemoteService<PluginLoade
         }
     }
 
+    @Override
+    public PackageManifest getPackageManifest(String pluginId, String pluginVersion) throws RemoteException {
+        File file = getPackageFile(pluginId, pluginVersion);
+        try {
+            String checksum = ArtifactChecksum.get(file, ArtifactChecksum.Algorithm.MD5);
+            PackageManifest manifest = manifests.get(file);
+            if (manifest == null || !manifest.getChecksum().equals(checksum)) {
+                manifest = new PackageManifest(file);
+                manifests.put(file, manifest);
+            }
+            return manifest;
+        } catch (IOException e) {
+            throw new RemoteException("Unable to read package file", e);
+        }
+    }
+
+    @Override
+    public byte[] readPackageFile(String pluginId, String pluginVersion, long offset, int length) throws RemoteException {
+        if (length < 0 || length > MAX_READ_LENGTH) {
+            throw new RemoteException("Invalid read length: " + length);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(getPackageFile(pluginId, pluginVersion), "r")) {
+            byte[] data = new byte[(int) Math.max(0, Math.min(length, file.length() - offset))];
+            file.seek(offset);
+            file.readFully(data);
+            return data;
+        } catch (IOException e) {
+            throw new RemoteException("Unable to read package file", e);
+        }
+    }
+
+    private File getPackageFile(String pluginId, String pluginVersion) throws RemoteException {
+        PluginPackage pluginPackage = PluginManager.getInstance().getPluginLoader().getPackageById(pluginId);
+        if (pluginPackage == null || !pluginPackage.getVersion().equals(pluginVersion)) {
+            throw new RemoteException("Version mismatch");
+        }
+        return new File(pluginPackage.getUrl().getFile());
+    }
+
     synchronized void addPublicationListener(IPublicationListener listener) {
         listeners.add(listener);
     }
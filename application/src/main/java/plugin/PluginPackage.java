@@ -1,19 +1,16 @@
 package plugin;
 
 import codex.type.IComplexType;
+import manager.utils.ArtifactChecksum;
 import manager.xml.VersionsDocument;
 import org.apache.xmlbeans.XmlException;
 import org.atteo.classindex.ClassIndex;
-import javax.xml.bind.DatatypeConverter;
 import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.security.MessageDigest;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.jar.Attributes;
@@ -119,9 +116,7 @@ public final class PluginPackage {
     }
 
     String getCheckSum() throws Exception {
-        byte[] b = Files.readAllBytes(Paths.get(getUrl().toURI()));
-        byte[] hash = MessageDigest.getInstance("MD5").digest(b);
-        return DatatypeConverter.printHexBinary(hash);
+        return ArtifactChecksum.get(new File(getUrl().toURI()), ArtifactChecksum.Algorithm.MD5);
     }
 
     private List<PluginHandler<? extends IPlugin>> loadPlugins() throws IOException {
@@ -34,6 +34,7 @@ public final class ConfigStoreService extends AbstractService<ConfigServiceOptio
 
     private Connection connection;
     private final Map<String, TableInfo> tableRegistry = new HashMap<>();
+    private boolean transaction = false;
 
     // Контексты
     @LoggingSource(debugOption = true)
@@ -186,7 +187,7 @@ public final class ConfigStoreService extends AbstractService<ConfigServiceOptio
                     dumpContextAllowed ? "\n".concat(tableRegistry.get(className).toString()) : ""
             );
             connection.releaseSavepoint(savepoint);
-            connection.commit();
+            commit();
         } catch (SQLException e) {
             Logger.getContextLogger(DdlContext.class).error(MessageFormat.format("Unable to create class catalog ''{0}''", className), e);
             try {
@@ -289,7 +290,7 @@ public final class ConfigStoreService extends AbstractService<ConfigServiceOptio
                 }
             }
             connection.releaseSavepoint(savepoint);
-            connection.commit();
+            commit();
             return keys;
         } catch (SQLException e) {
             Logger.getLogger().error("Unable to save instance ''{0}'' to class catalog ''{1}'': {2}", PID, className, e.getMessage());
@@ -344,7 +345,7 @@ public final class ConfigStoreService extends AbstractService<ConfigServiceOptio
                         className, ID, properties
                 );
                 connection.releaseSavepoint(savepoint);
-                connection.commit();
+                commit();
             } catch (SQLException e) {
                 Logger.getLogger().error("Unable to update catalog entry: {0}", e.getMessage());
                 try {
@@ -358,6 +359,42 @@ public final class ConfigStoreService extends AbstractService<ConfigServiceOptio
         }
     }
     
+    @Override
+    public synchronized void runInTransaction(ITransaction transaction) throws Exception {
+        if (this.transaction) {
+            transaction.run();
+            return;
+        }
+        Savepoint savepoint = connection.setSavepoint("TRANSACTION");
+        this.transaction = true;
+        try {
+            transaction.run();
+            this.transaction = false;
+            connection.releaseSavepoint(savepoint);
+            connection.commit();
+        } catch (Exception e) {
+            this.transaction = false;
+            Logger.getLogger().error("Unable to complete transaction: {0}", e.getMessage());
+            try {
+                Logger.getLogger().warn("Perform rollback");
+                connection.rollback(savepoint);
+            } catch (SQLException e1) {
+                Logger.getLogger().error("Unable to rollback database", e1);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Фиксация изменений, если они не выполняются в рамках транзакции
+     * {@link #runInTransaction(ITransaction)}.
+     */
+    private void commit() throws SQLException {
+        if (!transaction) {
+            connection.commit();
+        }
+    }
+
     @Override
     public boolean isInstanceExists(Class clazz, Integer ID) {
         return !readClassInstance(clazz, ID).isEmpty();
@@ -426,6 +463,83 @@ public final class ConfigStoreService extends AbstractService<ConfigServiceOptio
         return rowData;
     }
 
+    @Override
+    public List<Map<String, String>> readClassInstances(Class clazz, List<String> columns, String condition, String order, int limit, Object... params) {
+        List<Map<String, String>> rows = new LinkedList<>();
+        final String className = clazz.getSimpleName().toUpperCase();
+        if (tableRegistry.containsKey(className)) {
+            final String selectSQL = MessageFormat.format(
+                    "SELECT {0} FROM {1} WHERE {2} ORDER BY {3} LIMIT ?",
+                    columns.stream().map(column -> "[".concat(column).concat("]")).collect(Collectors.joining(", ")),
+                    className, condition, order
+            );
+            Logger.getContextLogger(QueryContext.class).debug(
+                    "Select query: {0}",
+                    IDatabaseAccessService.prepareTraceSQL(selectSQL, params, limit)
+            );
+            try (PreparedStatement select = connection.prepareStatement(selectSQL)) {
+                select.setFetchSize(limit);
+                for (int paramIdx = 0; paramIdx < params.length; paramIdx++) {
+                    select.setObject(paramIdx + 1, params[paramIdx]);
+                }
+                select.setInt(params.length + 1, limit);
+                try (ResultSet selectRS = select.executeQuery()) {
+                    ResultSetMetaData meta = selectRS.getMetaData();
+                    while (selectRS.next()) {
+                        Map<String, String> rowData = new LinkedHashMap<>();
+                        for (int colIdx = 1; colIdx <= meta.getColumnCount(); colIdx++) {
+                            rowData.put(meta.getColumnName(colIdx), selectRS.getString(colIdx));
+                        }
+                        rows.add(rowData);
+                    }
+                }
+            } catch (SQLException e) {
+                Logger.getLogger().error("Unable to read catalog", e);
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public int countClassInstances(Class clazz, String condition, Object... params) {
+        final String className = clazz.getSimpleName().toUpperCase();
+        if (tableRegistry.containsKey(className)) {
+            final String selectSQL = MessageFormat.format("SELECT COUNT(*) FROM {0} WHERE {1}", className, condition);
+            try (PreparedStatement select = connection.prepareStatement(selectSQL)) {
+                for (int paramIdx = 0; paramIdx < params.length; paramIdx++) {
+                    select.setObject(paramIdx + 1, params[paramIdx]);
+                }
+                try (ResultSet selectRS = select.executeQuery()) {
+                    if (selectRS.next()) {
+                        return selectRS.getInt(1);
+                    }
+                }
+            } catch (SQLException e) {
+                Logger.getLogger().error("Unable to read catalog", e);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public synchronized void createClassIndex(Class clazz, String... columns) throws Exception {
+        final String className = clazz.getSimpleName().toUpperCase();
+        final String indexSQL = MessageFormat.format(
+                "CREATE INDEX IF NOT EXISTS IDX_{0}_{1} ON {0} ({2})",
+                className,
+                String.join("_", columns).toUpperCase(),
+                Arrays.stream(columns).map(column -> "["+column+"]").collect(Collectors.joining(", "))
+        );
+        Logger.getContextLogger(QueryContext.class).debug("Create index query: {0}", indexSQL);
+        try (final Statement index = connection.createStatement()) {
+            index.executeUpdate(indexSQL);
+            commit();
+        } catch (SQLException e) {
+            Logger.getContextLogger(DdlContext.class).error(MessageFormat.format("Unable to create index of class catalog ''{0}''", className), e);
+            throw e;
+        }
+    }
+
     @Override
     public <E extends Entity> List<EntityRef<E>> readCatalogEntries(Integer ownerId, Class<E> entityClass) {
         final List<EntityRef<E>> references = new LinkedList<>();
@@ -457,6 +571,35 @@ public final class ConfigStoreService extends AbstractService<ConfigServiceOptio
         return references;
     }
 
+    @Override
+    public Map<Integer, String> readCatalogIndex(Integer ownerId, Class<? extends Entity> entityClass) {
+        final Map<Integer, String> index = new LinkedHashMap<>();
+        final String className = entityClass.getSimpleName().toUpperCase();
+
+        if (tableRegistry.containsKey(className)) {
+            final String selectSQL;
+            if (ownerId != null) {
+                selectSQL = MessageFormat.format("SELECT [ID], [PID] FROM {0} WHERE [OWN] = ? ORDER BY [SEQ]", className);
+            } else {
+                selectSQL = MessageFormat.format("SELECT [ID], [PID] FROM {0} WHERE [OWN] IS NULL ORDER BY [SEQ]", className);
+            }
+            try (PreparedStatement select = connection.prepareStatement(selectSQL)) {
+                select.setFetchSize(100);
+                if (ownerId != null) {
+                    select.setInt(1, ownerId);
+                }
+                try (ResultSet selectRS = select.executeQuery()) {
+                    while (selectRS.next()) {
+                        index.put(selectRS.getInt(1), selectRS.getString(2));
+                    }
+                }
+            } catch (SQLException e) {
+                Logger.getLogger().error("Unable to read catalog", e);
+            }
+        }
+        return index;
+    }
+
     @Override
     public <E extends Entity> List<EntityRef<E>> readCatalogEntries(Class<E> entityClass) {
         final List<EntityRef<E>> references = new LinkedList<>();
@@ -544,7 +687,7 @@ public final class ConfigStoreService extends AbstractService<ConfigServiceOptio
             delete.executeUpdate();
             
             connection.releaseSavepoint(savepoint);
-            connection.commit();
+            commit();
             Logger.getLogger().debug(MessageFormat.format(
                     "Deleted catalog {0} entry: #{1}-{2}", className, ID, PID
             ));
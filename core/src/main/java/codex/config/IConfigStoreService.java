@@ -37,6 +37,46 @@ public interface IConfigStoreService extends IService {
      */
     default void updateClassInstance(Class clazz, Integer ID, Map<String, IComplexType> properties) throws Exception {}
     
+    /**
+     * Выборка записей каталога одним запросом.
+     * @param clazz Класс сущности.
+     * @param columns Список читаемых колонок.
+     * @param condition Условие отбора (выражение SQL, может содержать параметры).
+     * @param order Порядок сортировки (выражение SQL).
+     * @param limit Максимальное количество записей.
+     * @param params Значения параметров условия.
+     * @return Список записей, каждая запись - карта значений колонок.
+     */
+    default List<Map<String, String>> readClassInstances(Class clazz, List<String> columns, String condition, String order, int limit, Object... params) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Количество записей каталога, удовлетворяющих условию.
+     * @param clazz Класс сущности.
+     * @param condition Условие отбора (выражение SQL, может содержать параметры).
+     * @param params Значения параметров условия.
+     */
+    default int countClassInstances(Class clazz, String condition, Object... params) {
+        return 0;
+    }
+
+    /**
+     * Создать индекс каталога по указанным колонкам, если он не существует.
+     * @param clazz Класс сущности.
+     * @param columns Список колонок.
+     */
+    default void createClassIndex(Class clazz, String... columns) throws Exception {}
+
+    /**
+     * Выполнить изменения каталога в одной транзакции: изменения, выполненные действием,
+     * фиксируются по его завершении либо откатываются, если действие завершилось ошибкой.
+     * @param transaction Действие, изменяющее каталог.
+     */
+    default void runInTransaction(ITransaction transaction) throws Exception {
+        transaction.run();
+    }
+
     /**
      * Проверка существования сущности в каталоге.
      * @param clazz Класс сущности.
@@ -85,6 +125,16 @@ public interface IConfigStoreService extends IService {
     default <E extends Entity> List<EntityRef<E>> readCatalogEntries(Class<E> entityClass) {
         return Collections.emptyList();
     }
+
+    /**
+     * Получить индекс сущностей каталога одним запросом: идентификаторы и наименования
+     * сущностей в порядке их следования.
+     * @param ownerId Идентификатор владельца сущности.
+     * @param entityClass Класс сущности.
+     */
+    default Map<Integer, String> readCatalogIndex(Integer ownerId, Class<? extends Entity> entityClass) {
+        return Collections.emptyMap();
+    }
     
     /**
      * Удалить запись в каталоге по её уникальному ключу.
@@ -125,6 +175,14 @@ public interface IConfigStoreService extends IService {
         return "Configuration Access Service";
     }
 
+    /**
+     * Действие, выполняемое в транзакции.
+     */
+    @FunctionalInterface
+    interface ITransaction {
+        void run() throws Exception;
+    }
+
     /**
      * Класс содержащий основную информацию о ссылке.
      */
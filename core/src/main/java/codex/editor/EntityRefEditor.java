@@ -206,6 +206,19 @@ public class EntityRefEditor<T extends Entity> extends AbstractEditor<EntityRef<
         comboBox.addActionListener(EntityRefEditor.this);
     }
 
+    /**
+     * Перестроение открытого списка значений, например, после фоновой загрузки сущностей,
+     * недоступных в момент его открытия.
+     */
+    protected final void refreshValues() {
+        SwingUtilities.invokeLater(() -> {
+            if (comboBox.isPopupVisible()) {
+                comboBox.hidePopup();
+                comboBox.showPopup();
+            }
+        });
+    }
+
     @Override
     public void addCommand(EditorCommand<EntityRef<T>, T> command) {
         super.addCommand(command);
@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -17,7 +18,7 @@ public abstract class AbstractNode implements INode {
     private INode parent = null; 
     private int   mode   = MODE_ENABLED + MODE_SELECTABLE;
     private final List<INode>         children = Collections.synchronizedList(new LinkedList<>());
-    private final List<INodeListener> nodeListeners = new LinkedList<>();
+    private final CopyOnWriteArrayList<INodeListener> nodeListeners = new CopyOnWriteArrayList<>();
     
     /**
      * Возвращает перечисление потомков узла.
@@ -56,7 +57,14 @@ public abstract class AbstractNode implements INode {
      * Гнерирует событие изменения узла.
      */
     protected final void fireChangeEvent() {
-        new LinkedList<>(nodeListeners).forEach((listener) -> listener.childChanged(this));
+        nodeListeners.forEach((listener) -> listener.childChanged(this));
+    }
+
+    /**
+     * Генерирует событие замены списка дочерних узлов.
+     */
+    protected final void fireChildListChanged() {
+        nodeListeners.forEach((listener) -> listener.childListChanged(this));
     }
     
     @Override
@@ -88,25 +96,19 @@ public abstract class AbstractNode implements INode {
 
     @Override
     public final void addNodeListener(INodeListener listener) {
-        synchronized (nodeListeners) {
-            if (!nodeListeners.contains(listener)) {
-                nodeListeners.add(listener);
-            }
-        }
+        nodeListeners.addIfAbsent(listener);
     }
     
     @Override
     public final void removeNodeListener(INodeListener listener) {
-        synchronized (nodeListeners) {
-            nodeListeners.remove(listener);
-        }
+        nodeListeners.remove(listener);
     }
     
     @Override
     public void attach(INode child) {
         child.setParent(this);
         children.add(child);
-        new LinkedList<>(nodeListeners).forEach((listener) -> listener.childInserted(this, child));
+        nodeListeners.forEach((listener) -> listener.childInserted(this, child));
     }
     
     @Override
@@ -114,7 +116,7 @@ public abstract class AbstractNode implements INode {
         if (position >= 0 && position < children.size() && getIndex(child) != position) {
             children.remove(child);
             children.add(position, child);
-            new LinkedList<>(nodeListeners).forEach((listener) -> listener.childMoved(this, child));
+            nodeListeners.forEach((listener) -> listener.childMoved(this, child));
         }
     }
 
@@ -126,7 +128,7 @@ public abstract class AbstractNode implements INode {
 
         nextChild.setParent(this);
         children.add(index, nextChild);
-        new LinkedList<>(nodeListeners).forEach((listener) -> listener.childReplaced(prevChild, nextChild));
+        nodeListeners.forEach((listener) -> listener.childReplaced(prevChild, nextChild));
     }
 
     @Override
@@ -135,7 +137,7 @@ public abstract class AbstractNode implements INode {
             int index = children.indexOf(child);
             children.remove(child);
             child.setParent(null);
-            new LinkedList<>(nodeListeners).forEach((listener) -> listener.childDeleted(this, child, index));
+            nodeListeners.forEach((listener) -> listener.childDeleted(this, child, index));
         }
     }
     
@@ -151,7 +153,16 @@ public abstract class AbstractNode implements INode {
                     super.acquire();
                     fireChangeEvent();
                 }
-                
+
+                @Override
+                public boolean tryAcquire() {
+                    boolean acquired = super.tryAcquire();
+                    if (acquired) {
+                        fireChangeEvent();
+                    }
+                    return acquired;
+                }
+
                 @Override
                 public void release() {
                     if (availablePermits() == 0) {
@@ -28,6 +28,12 @@ public interface INodeListener {
     default void childMoved(INode parentNode, INode childNode)  {}
 
     default void childReplaced(INode prevChild, INode nextChild) {}
+
+    /**
+     * Список дочерних узлов изменен целиком (например, завершена отложенная загрузка).
+     * @param parentNode Родительский узел.
+     */
+    default void childListChanged(INode parentNode) {}
     
     /**
      * Дочерний узел изменен.
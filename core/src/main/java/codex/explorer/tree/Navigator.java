@@ -9,12 +9,17 @@ import codex.utils.Language;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeExpansionEvent;
 import javax.swing.event.TreeSelectionEvent;
+import javax.swing.event.TreeWillExpandListener;
+import javax.swing.tree.ExpandVetoException;
 import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Дерево навигации проводника.
@@ -24,6 +29,7 @@ public final class Navigator extends JTree implements IModelListener, INodeListe
     private TreePath path;
     private String   unitName;
     private final List<INavigateListener> listeners = new LinkedList<>();
+    private final Set<INode> expandOnLoad = new HashSet<>();
 
     /**
      * Конструктор дерева.
@@ -62,6 +68,21 @@ public final class Navigator extends JTree implements IModelListener, INodeListe
                 new LinkedList<>(listeners).forEach((listener) -> SwingUtilities.invokeLater(() -> listener.nodeChanged(path)));
             }
         }));
+        addTreeWillExpandListener(new TreeWillExpandListener() {
+            @Override
+            public void treeWillExpand(TreeExpansionEvent event) throws ExpandVetoException {
+                Object node = event.getPath().getLastPathComponent();
+                if (node instanceof Entity && ((Entity) node).isChildrenDeferred()) {
+                    // Узел раскрывается после загрузки потомков, до этого у него только заглушка
+                    expandOnLoad.add((INode) node);
+                    ((Entity) node).ensureChildrenLoaded();
+                    throw new ExpandVetoException(event);
+                }
+            }
+
+            @Override
+            public void treeWillCollapse(TreeExpansionEvent event) {}
+        });
         getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
         setCellRenderer(new GeneralRenderer());
     }
@@ -79,6 +100,15 @@ public final class Navigator extends JTree implements IModelListener, INodeListe
         super.setModel(model);
         if (model instanceof NodeTreeModel) {
             model.addTreeModelListener(new TreeModelHandler() {
+                @Override
+                public void treeStructureChanged(TreeModelEvent e) {
+                    super.treeStructureChanged(e);
+                    if (e.getTreePath() != null && expandOnLoad.remove(e.getTreePath().getLastPathComponent())) {
+                        TreePath loadedPath = e.getTreePath();
+                        SwingUtilities.invokeLater(() -> expandPath(loadedPath));
+                    }
+                }
+
                 @Override
                 public void treeNodesInserted(TreeModelEvent e) {
                     if (e.getTreePath().getLastPathComponent() == model.getRoot())
@@ -3,16 +3,74 @@ package codex.explorer.tree;
 import codex.model.Entity;
 import codex.model.EntityModel;
 import codex.model.IModelListener;
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import javax.swing.tree.TreeNode;
+import java.util.*;
 
 /**
- * Модель дерева проводника.
+ * Модель дерева проводника. События узлов накапливаются и передаются дереву в потоке EDT
+ * пакетами: одно событие со всеми индексами на каждую непрерывную серию вставок или удалений
+ * дочерних узлов родительского узла, повторные изменения одного узла объединяются. Пакеты
+ * узлов, для которых открыт сеанс обновления (см. {@link NodeTreeModel#beginUpdate(INode)}),
+ * передаются только после его завершения. Дерево читает потомков из снимка списка, который
+ * продвигается вместе с передачей пакетов, поэтому индексы событий всегда согласованы с
+ * ответами модели.
+ * До загрузки потомков отложенного каталога (см. {@link Entity#isChildrenDeferred()}) дерево
+ * видит у него единственный узел-заглушку.
  */
 public final class NodeTreeModel extends DefaultTreeModel implements Iterable<INode>, INodeListener, IModelListener {
 
+    private final static Map<INode, Integer> UPDATING = new HashMap<>();
+    private final static Set<NodeTreeModel>  MODELS = Collections.newSetFromMap(new WeakHashMap<>());
+    private final static TreeNode PLACEHOLDER = new DefaultMutableTreeNode(null, false);
+
+    /**
+     * Открыть сеанс обновления списка дочерних узлов. События узла будут переданы дереву
+     * одним пакетом после вызова {@link NodeTreeModel#endUpdate(INode)}.
+     * @param parentNode Родительский узел.
+     */
+    public static void beginUpdate(INode parentNode) {
+        synchronized (UPDATING) {
+            UPDATING.merge(parentNode, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Завершить сеанс обновления списка дочерних узлов.
+     * @param parentNode Родительский узел.
+     */
+    public static void endUpdate(INode parentNode) {
+        synchronized (UPDATING) {
+            if (UPDATING.computeIfPresent(parentNode, (node, depth) -> depth > 1 ? depth - 1 : null) != null) {
+                return;
+            }
+        }
+        List<NodeTreeModel> models;
+        synchronized (MODELS) {
+            models = new LinkedList<>(MODELS);
+        }
+        models.forEach(model -> {
+            synchronized (model.pending) {
+                if (model.pending.containsKey(parentNode)) {
+                    model.scheduleFlush();
+                }
+            }
+        });
+    }
+
+    private static boolean isUpdating(INode parentNode) {
+        synchronized (UPDATING) {
+            return UPDATING.containsKey(parentNode);
+        }
+    }
+
+    private final Map<INode, Batch>       pending   = new LinkedHashMap<>();
+    private final Set<INode>              changed   = new LinkedHashSet<>();
+    private final Map<INode, List<INode>> snapshots = new HashMap<>();
+    private boolean flushScheduled = false;
+
     /**
      * Конструктор модели дерева.
      * @param root Корневой узел дерева.
@@ -24,6 +82,9 @@ public final class NodeTreeModel extends DefaultTreeModel implements Iterable<IN
             root.childrenList().forEach(childNode -> childNode.addNodeListener(this));
         }
         ((Entity) root).model.addModelListener(this);
+        synchronized (MODELS) {
+            MODELS.add(this);
+        }
     }
 
     @Override
@@ -33,41 +94,96 @@ public final class NodeTreeModel extends DefaultTreeModel implements Iterable<IN
 
     @Override
     public void childInserted(INode parentNode, INode childNode) {
-        nodesWereInserted(
-                parentNode,
-                new int[] {parentNode.getIndex(childNode)}
-        );
         childNode.addNodeListener(this);
         ((Entity) childNode).model.addModelListener(this);
+        queueOperation(parentNode, new Operation(Operation.INSERT, childNode, null, parentNode.getIndex(childNode)));
     }
 
     @Override
     public void childDeleted(INode parentNode, INode childNode, int index) {
         childNode.removeNodeListener(this);
         ((Entity) childNode).model.removeModelListener(this);
-        nodesWereRemoved(
-                parentNode,
-                new int[] {index},
-                new Object[] {childNode}
-        );
+        synchronized (pending) {
+            changed.remove(childNode);
+        }
+        queueOperation(parentNode, new Operation(Operation.DELETE, childNode, null, index));
     }
 
     @Override
     public void childReplaced(INode prevChild, INode nextChild) {
-        nodeChanged(nextChild);
         nextChild.addNodeListener(this);
         ((Entity) prevChild).model.removeModelListener(this);
         ((Entity) nextChild).model.addModelListener(this);
+        INode parentNode = (INode) nextChild.getParent();
+        if (parentNode != null) {
+            queueOperation(parentNode, new Operation(Operation.REPLACE, nextChild, prevChild, parentNode.getIndex(nextChild)));
+        }
     }
 
     @Override
     public void childMoved(INode parentNode, INode childNode) {
-        nodeStructureChanged(parentNode);
+        queueStructureChange(parentNode);
+    }
+
+    @Override
+    public void childListChanged(INode parentNode) {
+        queueStructureChange(parentNode);
     }
 
     @Override
     public void childChanged(INode node) {
-        nodeChanged(node);
+        queueChange(node);
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        if (isDeferred(parent)) {
+            return 1;
+        }
+        return parent instanceof INode ? getSnapshot((INode) parent).size() : super.getChildCount(parent);
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        if (isDeferred(parent)) {
+            return PLACEHOLDER;
+        }
+        return parent instanceof INode ? getSnapshot((INode) parent).get(index) : super.getChild(parent, index);
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (child == PLACEHOLDER) {
+            return isDeferred(parent) ? 0 : -1;
+        }
+        if (parent instanceof INode && child instanceof INode && !isDeferred(parent)) {
+            return indexOf(getSnapshot((INode) parent), (INode) child);
+        }
+        return super.getIndexOfChild(parent, child);
+    }
+
+    private static boolean isDeferred(Object node) {
+        return node instanceof Entity && ((Entity) node).isChildrenDeferred();
+    }
+
+    /**
+     * Список потомков узла в том виде, в котором он известен дереву. Создается из текущего
+     * списка при первом обращении дерева к узлу и далее изменяется только в потоке EDT при
+     * передаче дереву очередной серии событий.
+     */
+    private List<INode> getSnapshot(INode parentNode) {
+        synchronized (pending) {
+            return snapshots.computeIfAbsent(parentNode, node -> new ArrayList<>(node.childrenList()));
+        }
+    }
+
+    private static int indexOf(List<INode> list, INode node) {
+        for (int index = 0; index < list.size(); index++) {
+            if (list.get(index) == node) {
+                return index;
+            }
+        }
+        return -1;
     }
 
     @Override
@@ -75,7 +191,7 @@ public final class NodeTreeModel extends DefaultTreeModel implements Iterable<IN
         getRoot().flattened()
                 .filter((node) -> ((Entity) node).model == model)
                 .findFirst()
-                .ifPresent(this::nodeChanged);
+                .ifPresent(this::queueChange);
     }
 
     @Override
@@ -83,7 +199,206 @@ public final class NodeTreeModel extends DefaultTreeModel implements Iterable<IN
         getRoot().flattened()
                 .filter((node) -> ((Entity) node).model == model)
                 .findFirst()
-                .ifPresent(this::nodeChanged);
+                .ifPresent(this::queueChange);
+    }
+
+    @Override
+    public void nodeStructureChanged(TreeNode node) {
+        discardPending(node);
+        super.nodeStructureChanged(node);
+    }
+
+    @Override
+    public void reload(TreeNode node) {
+        discardPending(node);
+        super.reload(node);
+    }
+
+    private void queueOperation(INode parentNode, Operation operation) {
+        synchronized (pending) {
+            Batch batch = pending.computeIfAbsent(parentNode, node -> new Batch());
+            if (!batch.structureChanged) {
+                batch.operations.add(operation);
+            }
+            scheduleFlush();
+        }
+    }
+
+    private void queueChange(INode node) {
+        synchronized (pending) {
+            if (changed.add(node)) {
+                scheduleFlush();
+            }
+        }
+    }
+
+    private void queueStructureChange(INode parentNode) {
+        synchronized (pending) {
+            Batch batch = pending.computeIfAbsent(parentNode, node -> new Batch());
+            batch.structureChanged = true;
+            batch.operations.clear();
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    /**
+     * Структура поддерева будет перечитана деревом полностью, накопленные события и снимки
+     * списков потомков не нужны.
+     */
+    private void discardPending(TreeNode node) {
+        if (node == null) {
+            return;
+        }
+        synchronized (pending) {
+            pending.keySet().removeIf(parentNode -> parentNode == node || parentNode.getPath().contains(node));
+            snapshots.keySet().removeIf(parentNode -> parentNode == node || parentNode.getPath().contains(node));
+        }
+    }
+
+    private void flush() {
+        Map<INode, Batch> batches = new LinkedHashMap<>();
+        Map<INode, List<INode>> changes = new LinkedHashMap<>();
+        synchronized (pending) {
+            flushScheduled = false;
+            pending.entrySet().removeIf(entry -> {
+                if (isUpdating(entry.getKey())) {
+                    return false;
+                }
+                batches.put(entry.getKey(), entry.getValue());
+                return true;
+            });
+            changed.removeIf(node -> {
+                INode parentNode = (INode) node.getParent();
+                if (parentNode != null && pending.containsKey(parentNode)) {
+                    // Узел еще не передан дереву
+                    return false;
+                }
+                if (parentNode != null || node == getRoot()) {
+                    changes.computeIfAbsent(parentNode, key -> new LinkedList<>()).add(node);
+                }
+                return true;
+            });
+        }
+
+        batches.forEach((parentNode, batch) -> {
+            List<INode> snapshot;
+            boolean     visible;
+            synchronized (pending) {
+                snapshot = batch.structureChanged ? null : snapshots.get(parentNode);
+                visible  = parentNode == getRoot() || snapshots.containsKey((INode) parentNode.getParent());
+            }
+            if (snapshot != null) {
+                deliver(parentNode, snapshot, batch.operations);
+            } else if (visible) {
+                // Дерево еще не читало потомков узла либо список изменен целиком: узел
+                // перечитывается по текущему списку
+                nodeStructureChanged(parentNode);
+            }
+        });
+        changes.forEach((parentNode, nodes) -> {
+            if (parentNode == null) {
+                nodeChanged(getRoot());
+            } else {
+                List<INode> snapshot;
+                synchronized (pending) {
+                    snapshot = snapshots.get(parentNode);
+                }
+                if (snapshot != null) {
+                    int[] indices = nodes.stream().mapToInt(node -> indexOf(snapshot, node)).filter(index -> index >= 0).sorted().toArray();
+                    if (indices.length > 0) {
+                        nodesChanged(parentNode, indices);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Применение операций к снимку списка потомков и передача дереву событий. Каждая
+     * непрерывная серия однотипных операций передается одним событием, индексы которого
+     * соответствуют снимку на момент передачи. Операции, уже учтенные в снимке (он был
+     * создан позже изменения), пропускаются.
+     */
+    private void deliver(INode parentNode, List<INode> snapshot, List<Operation> operations) {
+        int start = 0;
+        while (start < operations.size()) {
+            int kind = operations.get(start).kind;
+            int end  = start;
+            while (end < operations.size() && operations.get(end).kind == kind) {
+                end++;
+            }
+            List<Operation> run = operations.subList(start, end);
+            start = end;
+
+            SortedMap<Integer, INode> delivered = new TreeMap<>();
+            switch (kind) {
+                case Operation.INSERT:
+                    List<INode> inserted = new LinkedList<>();
+                    for (Operation operation : run) {
+                        if (indexOf(snapshot, operation.node) < 0) {
+                            snapshot.add(Math.max(0, Math.min(operation.index, snapshot.size())), operation.node);
+                            inserted.add(operation.node);
+                        }
+                    }
+                    inserted.forEach(node -> delivered.put(indexOf(snapshot, node), node));
+                    if (!delivered.isEmpty()) {
+                        fireTreeNodesInserted(this, getPathToRoot(parentNode), toIndices(delivered), delivered.values().toArray());
+                    }
+                    break;
+
+                case Operation.DELETE:
+                    for (Operation operation : run) {
+                        int index = indexOf(snapshot, operation.node);
+                        if (index >= 0) {
+                            snapshot.remove(index);
+                            // Индекс приводится к снимку до начала серии
+                            for (int removedIndex : delivered.keySet()) {
+                                if (removedIndex <= index) {
+                                    index++;
+                                } else {
+                                    break;
+                                }
+                            }
+                            delivered.put(index, operation.node);
+                        }
+                    }
+                    if (!delivered.isEmpty()) {
+                        Set<INode> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+                        removed.addAll(delivered.values());
+                        synchronized (pending) {
+                            snapshots.keySet().removeIf(node -> node.getPath().stream().anyMatch(removed::contains));
+                        }
+                        fireTreeNodesRemoved(this, getPathToRoot(parentNode), toIndices(delivered), delivered.values().toArray());
+                    }
+                    break;
+
+                default:
+                    for (Operation operation : run) {
+                        int index = indexOf(snapshot, operation.prevNode);
+                        if (index >= 0) {
+                            snapshot.set(index, operation.node);
+                            delivered.put(index, operation.node);
+                            synchronized (pending) {
+                                snapshots.remove(operation.prevNode);
+                            }
+                        }
+                    }
+                    if (!delivered.isEmpty()) {
+                        fireTreeNodesChanged(this, getPathToRoot(parentNode), toIndices(delivered), delivered.values().toArray());
+                    }
+            }
+        }
+    }
+
+    private static int[] toIndices(SortedMap<Integer, INode> nodes) {
+        return nodes.keySet().stream().mapToInt(Integer::intValue).toArray();
     }
 
     @Override
@@ -122,4 +437,30 @@ public final class NodeTreeModel extends DefaultTreeModel implements Iterable<IN
             return iterator.next();
         }
     }
+
+
+    private static class Batch {
+        private final List<Operation> operations = new ArrayList<>();
+        private boolean structureChanged = false;
+    }
+
+    /**
+     * Изменение списка потомков, еще не переданное дереву.
+     */
+    private static class Operation {
+        private final static int INSERT  = 0;
+        private final static int DELETE  = 1;
+        private final static int REPLACE = 2;
+
+        private final int   kind;
+        private final INode node, prevNode;
+        private final int   index;
+
+        private Operation(int kind, INode node, INode prevNode, int index) {
+            this.kind     = kind;
+            this.node     = node;
+            this.prevNode = prevNode;
+            this.index    = index;
+        }
+    }
 }
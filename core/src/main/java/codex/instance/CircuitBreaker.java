@@ -0,0 +1,61 @@
+package codex.instance;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Автоматический выключатель обращений к удаленной инстанции. После нескольких ошибок подряд
+ * обращения отклоняются без сетевого взаимодействия в течение заданного периода, по его
+ * истечении пропускается одно пробное обращение.
+ */
+@ThreadSafe
+final class CircuitBreaker {
+
+    private final static int  FAILURE_THRESHOLD = Integer.getInteger("ics.breakerThreshold", 3);
+    private final static long OPEN_PERIOD       = Integer.getInteger("ics.breakerPeriod", 30000);
+
+    private int  failures  = 0;
+    private long openUntil = 0;
+    private boolean probing = false;
+
+    /**
+     * Возвращает признак допустимости обращения.
+     */
+    synchronized boolean allowRequest() {
+        if (openUntil == 0) {
+            return true;
+        }
+        if (System.currentTimeMillis() >= openUntil && !probing) {
+            probing = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает признак отключения обращений.
+     */
+    synchronized boolean isOpen() {
+        return openUntil != 0;
+    }
+
+    synchronized void success() {
+        failures  = 0;
+        openUntil = 0;
+        probing   = false;
+    }
+
+    synchronized void failure() {
+        failures++;
+        if (probing || failures >= FAILURE_THRESHOLD) {
+            trip();
+        }
+    }
+
+    /**
+     * Отключить обращения без учета счетчика ошибок.
+     */
+    synchronized void trip() {
+        openUntil = System.currentTimeMillis() + OPEN_PERIOD;
+        probing   = false;
+    }
+}
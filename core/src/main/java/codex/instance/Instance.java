@@ -3,9 +3,14 @@ package codex.instance;
 import codex.service.IRemoteService;
 import codex.service.ServiceRegistry;
 import net.jcip.annotations.ThreadSafe;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.rmi.ConnectException;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
@@ -16,10 +21,12 @@ import java.text.MessageFormat;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Класс-контейнер для хранения информации об удаленной инстанции и 
- * обращения к её сервисам.
+ * обращения к её сервисам. Ссылки на сетевые сервисы кэшируются и сбрасываются при ошибке
+ * обращения, обращения к недоступной инстанции отклоняются автоматическим выключателем.
  */
 @ThreadSafe
 public final class Instance implements IInstanceCommunicationService {
@@ -29,6 +36,13 @@ public final class Instance implements IInstanceCommunicationService {
     final InetAddress  address;
     final int rpcPort, kcaPort;
 
+    private final static int REGISTRY_TIMEOUT = Integer.getInteger("ics.registryTimeout", 500);
+
+    private final CircuitBreaker breaker = new CircuitBreaker();
+    private final Map<String, IRemoteService> stubs = new ConcurrentHashMap<>();
+    private volatile Registry registry;
+    private volatile boolean  listed = false;
+
     public static Instance getRemoteInstance() {
         try {
             String clientIP = RemoteServer.getClientHost();
@@ -81,11 +95,17 @@ public final class Instance implements IInstanceCommunicationService {
     }
 
     private Registry getRegistry() throws RemoteException {
-        return LocateRegistry.getRegistry(address.getHostAddress(), rpcPort, (host, port) -> {
-            Socket s = new Socket(host, port);
-            s.setSoTimeout(500);
-            return s;
-        });
+        Registry registry = this.registry;
+        if (registry == null) {
+            registry = LocateRegistry.getRegistry(address.getHostAddress(), rpcPort, (host, port) -> {
+                Socket socket = new Socket();
+                socket.connect(new InetSocketAddress(host, port), MultihomeRMIClientSocketFactory.CONNECT_TIMEOUT);
+                socket.setSoTimeout(REGISTRY_TIMEOUT);
+                return socket;
+            });
+            this.registry = registry;
+        }
+        return registry;
     }
 
     /**
@@ -93,14 +113,22 @@ public final class Instance implements IInstanceCommunicationService {
      */
     @Override
     public Map<String, IRemoteService> getServices() throws RemoteException {
-        final Map<String, IRemoteService> registered = new HashMap<>();
-        final Registry registry = getRegistry();
-        for (String className : registry.list()) {
+        if (!listed) {
+            String[] classNames;
             try {
-                registered.put(className, (IRemoteService) registry.lookup(className));
-            } catch (NotBoundException ignore) {}
+                classNames = invoke(() -> getRegistry().list());
+            } catch (NotBoundException e) {
+                // Получение списка имен реестра не выбрасывает исключение
+                classNames = new String[0];
+            }
+            for (String className : classNames) {
+                try {
+                    getService(className);
+                } catch (NotBoundException ignore) {}
+            }
+            listed = true;
         }
-        return registered;
+        return new HashMap<>(stubs);
     }
     
     @Override
@@ -110,7 +138,98 @@ public final class Instance implements IInstanceCommunicationService {
     
     @Override
     public IRemoteService getService(String className) throws RemoteException, NotBoundException {
-        return (IRemoteService) getRegistry().lookup(className);
+        IRemoteService stub = stubs.get(className);
+        if (stub == null) {
+            stub = wrap(className, invoke(() -> (IRemoteService) getRegistry().lookup(className)));
+            stubs.put(className, stub);
+        }
+        return stub;
+    }
+
+    /**
+     * Сброс кэша ссылок на сервисы и состояния выключателя. Вызывается при изменении
+     * состава подключенных инстанций.
+     */
+    void reset() {
+        invalidate();
+        breaker.success();
+    }
+
+    /**
+     * Отключение обращений к инстанции, признанной недоступной.
+     */
+    void markUnhealthy() {
+        invalidate();
+        breaker.trip();
+    }
+
+    private void invalidate() {
+        listed   = false;
+        registry = null;
+        stubs.clear();
+    }
+
+    private <T> T invoke(IRemoteCall<T> call) throws RemoteException, NotBoundException {
+        checkAvailable();
+        try {
+            T result = call.call();
+            breaker.success();
+            return result;
+        } catch (RemoteException e) {
+            breaker.failure();
+            invalidate();
+            throw e;
+        } catch (NotBoundException | RuntimeException e) {
+            // Реестр ответил, связь с инстанцией есть
+            breaker.success();
+            throw e;
+        }
+    }
+
+    private void checkAvailable() throws ConnectException {
+        if (!breaker.allowRequest()) {
+            throw new ConnectException(MessageFormat.format("Instance {0} is not available", this));
+        }
+    }
+
+    /**
+     * Обертка ссылки на сервис, учитывающая результаты обращений в состоянии выключателя.
+     */
+    private IRemoteService wrap(String className, IRemoteService remote) {
+        ClassLoader classLoader = remote.getClass().getClassLoader();
+        return (IRemoteService) Proxy.newProxyInstance(
+                classLoader == null ? Instance.class.getClassLoader() : classLoader,
+                remote.getClass().getInterfaces(),
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getDeclaringClass() == Object.class) {
+                            return method.invoke(remote, args);
+                        }
+                        checkAvailable();
+                        try {
+                            Object result = method.invoke(remote, args);
+                            breaker.success();
+                            return result;
+                        } catch (InvocationTargetException e) {
+                            if (e.getCause() instanceof RemoteException) {
+                                breaker.failure();
+                                stubs.remove(className);
+                                listed = false;
+                            } else {
+                                // Прикладная ошибка: инстанция ответила, пробный вызов успешен
+                                breaker.success();
+                            }
+                            throw e.getCause();
+                        }
+                    }
+                }
+        );
+    }
+
+    @FunctionalInterface
+    private interface IRemoteCall<T> {
+        T call() throws RemoteException, NotBoundException;
     }
 
     @Override
@@ -8,22 +8,39 @@ import java.io.*;
 import java.net.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 import net.jcip.annotations.ThreadSafe;
 import org.apache.xmlbeans.XmlException;
 
 /**
- * Сервер поиска и подключения инстанций. Реализует сетевой обмен пакета между инстанциями
- * установку постоянных соединений и отслеживание обрывов.
+ * Сервер поиска инстанций. Инстанции периодически рассылают multicast-пакеты присутствия
+ * (heartbeat) со случайным отклонением интервала, чтобы пакеты разных инстанций не совпадали
+ * по времени. Инстанция, от которой не поступало пакетов дольше таймаута подозрения, считается
+ * недоступной и удаляется из реестра.
+ * Для совместимости с предыдущими версиями при запуске рассылается также XML эхо-пакет и
+ * принимаются XML эхо-пакеты других инстанций: с такими инстанциями устанавливается постоянное
+ * соединение (в обе стороны через порт kcaPort), обрыв которого означает их отключение.
  */
 @ThreadSafe
 class LookupServer {
-    
+
     private final static Integer GROUP_PORT = 4445;
     private final static String  GROUP_ADDR = "230.0.0.0";
 
-    private final List<Instance> instances  = new LinkedList<>();
+    private final static long   HEARTBEAT_PERIOD = Integer.getInteger("ics.heartbeatPeriod", 5000);
+    private final static double HEARTBEAT_JITTER = 0.2;
+    private final static long   SUSPECT_TIMEOUT  = HEARTBEAT_PERIOD * 2 + HEARTBEAT_PERIOD / 2;
+    private final static long   FAILURE_TIMEOUT  = HEARTBEAT_PERIOD * 4;
+
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
 
+    private final Map<NetworkInterface, InetAddress> interfaces;
+    private final boolean  acceptLocal;
     private final Discover discover;
 
     // Контексты
@@ -37,52 +54,196 @@ class LookupServer {
      * в сетевых пакетах.
      */
     LookupServer(int rpcPort) throws IOException {
+        this(rpcPort, InstanceCommunicationService.IFACE_ADDRS, false);
+    }
+
+    /**
+     * Конструктор сервера, работающего через заданные сетевые интерфейсы.
+     * @param rpcPort Номер порта локально реестра сетевых сервисов.
+     * @param interfaces Интерфейсы для приема и рассылки multicast-пакетов.
+     * @param acceptLocal Принимать пакеты с локальных адресов (например, от нескольких
+     * инстанций на одном хосте). Собственные пакеты инстанции отбрасываются в любом случае.
+     */
+    LookupServer(int rpcPort, Map<NetworkInterface, InetAddress> interfaces, boolean acceptLocal) throws IOException {
+        this.interfaces  = interfaces;
+        this.acceptLocal = acceptLocal;
         discover = new Discover(rpcPort);
     }
-    
+
     /**
      * Запуск сервера.
      */
     final void start() {
        discover.start();
     }
-    
+
+    /**
+     * Остановка сервера.
+     * @param leave Разослать пакет отключения. Иначе остальные инстанции обнаружат отключение
+     * по отсутствию пакетов присутствия.
+     */
+    final void stop(boolean leave) {
+        discover.shutdown(leave);
+    }
+
     /**
      * Возвращает список подключенных инстанций.
      */
     List<Instance> getInstances() {
-        synchronized (instances) {
-            return new LinkedList<>(instances);
-        }
+        return members.values().stream()
+                .map(member -> member.instance)
+                .collect(Collectors.toList());
     }
-    
+
     /**
-     * Добавляет инстанцию в список подключенных.
+     * Вызывается при добавлении инстанции в список подключенных.
      */
-    protected void linkInstance(Instance instance) {
-        synchronized (instances) {
-            if (instances.stream().noneMatch(registered -> registered.equals(instance))) {
-                instances.add(instance);
-            }
+    protected void linkInstance(Instance instance) {}
+
+    /**
+     * Вызывается при удалении инстанции из списка подключенных.
+     */
+    protected void unlinkInstance(Instance instance) {}
+
+    /**
+     * Вызывается, когда инстанция перестала присылать пакеты присутствия и подозревается
+     * в отключении.
+     */
+    protected void suspectInstance(Instance instance) {}
+
+    /**
+     * Ключ инстанции в реестре.
+     */
+    private static String getKey(String host, String user, int rpcPort) {
+        return MessageFormat.format("{0}/{1}:{2}", host, user, String.valueOf(rpcPort));
+    }
+
+
+    /**
+     * Запись реестра инстанций.
+     */
+    private static final class Member {
+
+        private final Instance instance;
+        private final boolean  legacy;
+        private volatile long  lastSeen = System.currentTimeMillis();
+        private volatile boolean suspected = false;
+
+        private Member(Instance instance, boolean legacy) {
+            this.instance = instance;
+            this.legacy   = legacy;
         }
     }
-    
+
+
     /**
-     * Удаляет инстанцию из списка подключенных.
+     * Содержимое эхо-пакета.
+     * Двоичный формат пакета:
+     * <pre>{@code
+     * short magic | byte version | byte flags | short rpcPort | UTF host | UTF user
+     * }</pre>
+     * Пакеты, не начинающиеся с сигнатуры, разбираются как XML-документ предыдущих версий:
+     * <pre>{@code
+     * <Echo host="..." user="..." rpcPort="..." kcaPort="..."/>
+     * }</pre>
      */
-    protected void unlinkInstance(Instance instance) {
-        synchronized (instances) {
-            instances.remove(instance);
+    private static final class Echo {
+
+        private final static short MAGIC   = (short) 0xEC01;
+        private final static byte  VERSION = 1;
+
+        private final static byte FLAG_HELLO = 0x1;
+        private final static byte FLAG_LEAVE = 0x2;
+
+        private final String host, user;
+        private final int    rpcPort, kcaPort;
+        private final byte   flags;
+        private final boolean legacy;
+
+        private Echo(String host, String user, int rpcPort, int kcaPort, byte flags, boolean legacy) {
+            this.host    = host;
+            this.user    = user;
+            this.rpcPort = rpcPort;
+            this.kcaPort = kcaPort;
+            this.flags   = flags;
+            this.legacy  = legacy;
+        }
+
+        private boolean hasFlag(byte flag) {
+            return (flags & flag) == flag;
+        }
+
+        private String getKey() {
+            return LookupServer.getKey(host, user, rpcPort);
+        }
+
+        private byte[] encode() {
+            try (
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+                DataOutputStream out = new DataOutputStream(bytes)
+            ) {
+                out.writeShort(MAGIC);
+                out.writeByte(VERSION);
+                out.writeByte(flags);
+                out.writeShort(rpcPort);
+                out.writeUTF(host);
+                out.writeUTF(user);
+                out.flush();
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private byte[] encodeXml() {
+            final EchoDocument echoRequest = EchoDocument.Factory.newInstance();
+            final EchoDocument.Echo echo = echoRequest.addNewEcho();
+            echo.setHost(host);
+            echo.setUser(user);
+            echo.setRpcPort(rpcPort);
+            echo.setKcaPort(kcaPort);
+            return echoRequest.xmlText().getBytes();
+        }
+
+        private Echo withFlags(byte flags) {
+            return new Echo(host, user, rpcPort, kcaPort, flags, legacy);
+        }
+
+        private static Echo decode(byte[] data) {
+            if (data.length >= 4 && ByteBuffer.wrap(data).getShort() == MAGIC) {
+                try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 2, data.length - 2))) {
+                    if (in.readByte() != VERSION) {
+                        return null;
+                    }
+                    byte flags   = in.readByte();
+                    int  rpcPort = in.readUnsignedShort();
+                    return new Echo(in.readUTF(), in.readUTF(), rpcPort, 0, flags, false);
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+            try {
+                EchoDocument.Echo echo = EchoDocument.Factory.parse(new ByteArrayInputStream(data)).getEcho();
+                return new Echo(echo.getHost(), echo.getUser(), echo.getRpcPort(), echo.getKcaPort(), (byte) 0, true);
+            } catch (XmlException | IOException e) {
+                Logger.getContextLogger(NetContext.class).debug("Unrecognized echo packet: {0}", new String(data, StandardCharsets.UTF_8));
+            }
+            return null;
         }
     }
 
+
     private class Discover extends Thread {
 
-        private final int rpcPort, kcaPort;
+        private final Echo localEcho;
         private final InetAddress group = InetAddress.getByName(GROUP_ADDR);
-        private final DatagramChannel     udpChannel = DatagramChannel.open(StandardProtocolFamily.INET);
+        private final DatagramChannel udpChannel = DatagramChannel.open(StandardProtocolFamily.INET);
         private final ServerSocketChannel tcpChannel = ServerSocketChannel.open();
-        private final Selector            selector   = Selector.open();
+        private final MulticastSocket mcastSocket = new MulticastSocket();
+        private final Selector        selector   = Selector.open();
+
+        private long nextHeartbeat = 0;
+        private volatile boolean running = true;
 
         private Discover(int rpcPort) throws IOException {
             setDaemon(true);
@@ -91,16 +252,15 @@ class LookupServer {
             udpChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
             udpChannel.bind(new InetSocketAddress(GROUP_PORT));
             udpChannel.configureBlocking(false);
-            for (NetworkInterface netInterface : InstanceCommunicationService.IFACE_ADDRS.keySet()) {
+            for (NetworkInterface netInterface : interfaces.keySet()) {
                 udpChannel.setOption(StandardSocketOptions.IP_MULTICAST_IF, netInterface);
                 udpChannel.join(group, netInterface);
             }
-
-            tcpChannel.configureBlocking( false );
+            // Порт постоянного соединения для инстанций предыдущих версий
+            tcpChannel.configureBlocking(false);
             tcpChannel.socket().bind(new InetSocketAddress(0));
 
-            this.rpcPort = rpcPort;
-            this.kcaPort = tcpChannel.socket().getLocalPort();
+            localEcho = new Echo(getHostName(), getUserName(), rpcPort, tcpChannel.socket().getLocalPort(), (byte) 0, false);
         }
 
         @Override
@@ -108,17 +268,21 @@ class LookupServer {
             try {
                 udpChannel.register(selector, SelectionKey.OP_READ,   new UdpServerHandler());
                 tcpChannel.register(selector, SelectionKey.OP_ACCEPT, new TcpServerHandler());
-                broadcast(prepareEcho());
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> broadcast(localEcho.withFlags(Echo.FLAG_LEAVE).encode())));
+                broadcast(localEcho.withFlags(Echo.FLAG_HELLO).encode());
+                // Инстанции предыдущих версий не разбирают двоичный пакет
+                broadcast(localEcho.encodeXml());
+                nextHeartbeat = nextHeartbeatTime();
 
-                while (true) {
+                while (running) {
                     try {
-                        selector.select();
+                        selector.select(Math.max(1, nextHeartbeat - System.currentTimeMillis()));
                         Set<SelectionKey> events = selector.selectedKeys();
                         new HashSet<>(events).forEach(event -> {
                             events.remove(event);
                             if (event.isValid()) {
                                 if (event.isAcceptable()) {
-                                    ServerSocketHandler socketHandler = (ServerSocketHandler) event.attachment();
+                                    TcpServerHandler socketHandler = (TcpServerHandler) event.attachment();
                                     socketHandler.accept(event);
                                 } else if (event.isConnectable()) {
                                     ClientSocketHandler socketHandler = (ClientSocketHandler) event.attachment();
@@ -132,60 +296,136 @@ class LookupServer {
                                 }
                             }
                         });
+                        if (System.currentTimeMillis() >= nextHeartbeat) {
+                            broadcast(localEcho.encode());
+                            checkMembers();
+                            nextHeartbeat = nextHeartbeatTime();
+                        }
                     } catch (Throwable e) {
                         e.printStackTrace();
                     }
                 }
             } catch (IOException e) {
                 Logger.getLogger().warn("Unable to start discover thread", e);
+            } finally {
+                close();
+            }
+        }
+
+        private void shutdown(boolean leave) {
+            if (leave) {
+                broadcast(localEcho.withFlags(Echo.FLAG_LEAVE).encode());
             }
+            running = false;
+            selector.wakeup();
+        }
+
+        private void close() {
+            for (Closeable closeable : Arrays.asList(selector, udpChannel, tcpChannel, mcastSocket)) {
+                try {
+                    closeable.close();
+                } catch (IOException ignore) {}
+            }
+        }
+
+        private long nextHeartbeatTime() {
+            double jitter = ThreadLocalRandom.current().nextDouble(-HEARTBEAT_JITTER, HEARTBEAT_JITTER);
+            return System.currentTimeMillis() + (long) (HEARTBEAT_PERIOD * (1 + jitter));
         }
 
         /**
-         * Посылка multicast-пакета для поиска запущенных инстанций.
+         * Посылка multicast-пакета всем инстанциям группы.
          * @param data Байт-массив пакета.
          */
         private void broadcast(byte[] data) {
             DatagramPacket datagramPacket = new DatagramPacket(data, data.length, group, GROUP_PORT);
-            try (MulticastSocket mcastSenderSocket = new MulticastSocket()) {
-                for (InetAddress address : InstanceCommunicationService.IFACE_ADDRS.values()) {
-                    Logger.getContextLogger(NetContext.class).debug("Send multicast request packet to interface: {0}", address.getHostAddress());
-                    mcastSenderSocket.setInterface(address);
-                    mcastSenderSocket.send(datagramPacket);
+            synchronized (mcastSocket) {
+                for (InetAddress address : interfaces.values()) {
+                    try {
+                        mcastSocket.setInterface(address);
+                        mcastSocket.send(datagramPacket);
+                    } catch (IOException e) {
+                        Logger.getContextLogger(NetContext.class).debug(
+                                "Unable to send multicast packet to interface {0}: {1}",
+                                address.getHostAddress(), e.getMessage()
+                        );
+                    }
                 }
+            }
+        }
+
+        /**
+         * Ответ инстанции, приславшей пакет первого запуска, чтобы она узнала о локальной
+         * инстанции не дожидаясь очередной рассылки.
+         */
+        private void reply(InetAddress address) {
+            try {
+                udpChannel.send(ByteBuffer.wrap(localEcho.encode()), new InetSocketAddress(address, GROUP_PORT));
             } catch (IOException e) {
-                Logger.getLogger().warn("ICS: Send request packet error", e);
+                Logger.getContextLogger(NetContext.class).debug("Unable to send reply packet to {0}: {1}", address.getHostAddress(), e.getMessage());
             }
         }
 
         /**
-         * Подготовка байт-массива эхо-пакета.
-         * Пакет представляет собой XML-документ вида:
-         * <pre>{@code
-         * <Echo host="..." user="..." rpcPort="..." kcaPort="..."/>
-         * где
-         * * host - Имя локального хоста
-         * * user - Имя локального пользователя
-         * * rpcPort - Номер порта реестра сетевых сервисов (RMI).
-         * * kcaPort - Номер порта для установки постоянного соединения.
-         * }</pre>
+         * Проверка времени последнего пакета инстанций реестра.
          */
-        private byte[] prepareEcho() {
-            final EchoDocument echoRequest = EchoDocument.Factory.newInstance();
-            final EchoDocument.Echo echo = echoRequest.addNewEcho();
+        private void checkMembers() {
+            long now = System.currentTimeMillis();
+            members.forEach((key, member) -> {
+                if (member.legacy) {
+                    return;
+                }
+                long silence = now - member.lastSeen;
+                if (silence > FAILURE_TIMEOUT) {
+                    Logger.getContextLogger(NetContext.class).debug("Instance {0} is not responding", member.instance);
+                    leave(key);
+                } else if (silence > SUSPECT_TIMEOUT && !member.suspected) {
+                    member.suspected = true;
+                    member.instance.markUnhealthy();
+                    suspectInstance(member.instance);
+                    Logger.getContextLogger(NetContext.class).debug("Instance {0} is suspected to be down", member.instance);
+                }
+            });
+        }
+
+        private void join(String key, Member member) {
+            if (members.putIfAbsent(key, member) == null) {
+                linkInstance(member.instance);
+            }
+        }
+
+        private void leave(String key) {
+            Member member = members.remove(key);
+            if (member != null) {
+                member.instance.reset();
+                unlinkInstance(member.instance);
+            }
+        }
+
+        /**
+         * Удаление инстанции при обрыве постоянного соединения. Инстанции, рассылающие пакеты
+         * присутствия, не удаляются.
+         */
+        private void leaveLegacy(String key) {
+            Member member = members.get(key);
+            if (member != null && member.legacy && members.remove(key, member)) {
+                member.instance.reset();
+                unlinkInstance(member.instance);
+            }
+        }
+
+        private String getHostName() {
             try {
-                echo.setHost(InetAddress.getLocalHost().getCanonicalHostName());
+                return InetAddress.getLocalHost().getCanonicalHostName();
             } catch (IOException e) {
                 e.printStackTrace();
+                return "";
             }
-            echo.setUser(getUserName());
-            echo.setRpcPort(rpcPort);
-            echo.setKcaPort(kcaPort);
-            return echoRequest.xmlText().getBytes();
         }
 
         private String getUserName() {
-            return System.getenv().get("USERNAME");
+            String user = System.getenv().get("USERNAME");
+            return user == null ? "" : user;
         }
 
 
@@ -193,27 +433,12 @@ class LookupServer {
             abstract void read(SelectionKey event);
         }
 
-        private abstract class ServerSocketHandler extends SocketHandler {
-            final EchoDocument parseMessage(byte[] data) {
-                try {
-                    return EchoDocument.Factory.parse(new ByteArrayInputStream(data));
-                } catch (XmlException | IOException e) {
-                    e.printStackTrace();
-                }
-                return null;
-            }
-
-            abstract void accept(SelectionKey event);
-        }
-
         private abstract class ClientSocketHandler extends SocketHandler {
 
             private final Instance instance;
-            private final boolean  sendEcho;
 
-            ClientSocketHandler(Instance instance, boolean sendEcho) {
+            ClientSocketHandler(Instance instance) {
                 this.instance = instance;
-                this.sendEcho = sendEcho;
             }
 
             abstract void connect(SelectionKey event);
@@ -222,17 +447,14 @@ class LookupServer {
             protected final Instance getInstance() {
                 return instance;
             }
-
-            protected final boolean needEcho() {
-                return sendEcho;
-            }
         }
 
-        private class UdpServerHandler extends ServerSocketHandler {
+        private class UdpServerHandler extends SocketHandler {
+
+            private final ByteBuffer buffer = ByteBuffer.allocate(512);
 
             @Override
             void read(SelectionKey event) {
-                final ByteBuffer buffer = ByteBuffer.allocate(256);
                 buffer.clear();
                 DatagramChannel datagramChannel = (DatagramChannel) event.channel();
                 try {
@@ -245,137 +467,150 @@ class LookupServer {
             }
 
             private boolean isRemoteMessage(InetSocketAddress remoteAddress) {
-                return InstanceCommunicationService.IFACE_ADDRS.values().stream()
+                return acceptLocal || interfaces.values().stream()
                         .noneMatch(localAddress -> localAddress.getHostAddress().equals(remoteAddress.getHostString()));
             }
 
-            final void processMessage(InetSocketAddress remoteAddress, byte[] data) {
-                if (remoteAddress != null && isRemoteMessage(remoteAddress)) {
-                    EchoDocument message = parseMessage(data);
-                    if (message != null) {
+            private void processMessage(InetSocketAddress remoteAddress, byte[] data) {
+                if (remoteAddress == null || !isRemoteMessage(remoteAddress)) {
+                    return;
+                }
+                Echo echo = Echo.decode(data);
+                if (echo == null) {
+                    return;
+                }
+                String key = echo.getKey();
+                if (key.equals(localEcho.getKey())) {
+                    return;
+                }
+                if (echo.legacy) {
+                    if (!members.containsKey(key)) {
+                        Logger.getContextLogger(NetContext.class).debug(
+                                "Received legacy echo packet from {0} ({1})",
+                                echo.host, remoteAddress.getHostString()
+                        );
+                        connectLegacy(remoteAddress.getAddress(), echo);
+                    }
+                } else if (echo.hasFlag(Echo.FLAG_LEAVE)) {
+                    Logger.getContextLogger(NetContext.class).debug("Instance {0} ({1}) left", echo.host, remoteAddress.getHostString());
+                    leave(key);
+                } else {
+                    Member member = members.get(key);
+                    if (member == null) {
                         Logger.getContextLogger(NetContext.class).debug(
-                                "Received echo packet from {0} ({1})\nData: {2}",
-                                message.getEcho().getHost(),
-                                remoteAddress.getHostString(),
-                                new String(data)
+                                "Received heartbeat packet from new instance {0} ({1})",
+                                echo.host, remoteAddress.getHostString()
                         );
-                        try {
-                            SocketChannel socketChannel = SocketChannel.open();
-                            socketChannel.configureBlocking(false);
-                            socketChannel.socket().setSoTimeout(1000);
-                            socketChannel.register(
-                                    selector,
-                                    SelectionKey.OP_CONNECT,
-                                    new TcpClientHandler(
-                                            new Instance(
-                                                    remoteAddress.getAddress(),
-                                                    message.getEcho().getHost(),
-                                                    message.getEcho().getUser(),
-                                                    message.getEcho().getRpcPort(),
-                                                    message.getEcho().getKcaPort()
-                                            ),
-                                            true
-                                    )
-                            );
-                            socketChannel.connect(new InetSocketAddress(
-                                    remoteAddress.getAddress(),
-                                    message.getEcho().getKcaPort()
-                            ));
-                        } catch (IOException e) {
-                            Logger.getLogger().warn("Unexpected error", e);
+                        join(key, new Member(
+                                new Instance(remoteAddress.getAddress(), echo.host, echo.user, echo.rpcPort, echo.kcaPort),
+                                false
+                        ));
+                    } else {
+                        member.lastSeen = System.currentTimeMillis();
+                        if (member.suspected) {
+                            member.suspected = false;
+                            member.instance.reset();
                         }
                     }
+                    if (echo.hasFlag(Echo.FLAG_HELLO)) {
+                        reply(remoteAddress.getAddress());
+                    }
                 }
             }
 
-            @Override
-            void accept(SelectionKey event) {
-                throw new IllegalStateException();
-            }
-        }
-
-        private class TcpServerHandler extends ServerSocketHandler {
-
-            @Override
-            void read(SelectionKey event) {
-                final ByteBuffer buffer = ByteBuffer.allocate(256);
-                buffer.clear();
-                SocketChannel socketChannel = (SocketChannel) event.channel();
+            /**
+             * Установка постоянного соединения с инстанцией предыдущей версии.
+             */
+            private void connectLegacy(InetAddress address, Echo echo) {
                 try {
-                    InetSocketAddress remoteAddress = (InetSocketAddress) socketChannel.getRemoteAddress();
-                    socketChannel.read(buffer);
-                    buffer.flip();
-                    processMessage(
-                            socketChannel,
-                            remoteAddress,
-                            Arrays.copyOf(buffer.array(), buffer.remaining())
+                    SocketChannel socketChannel = SocketChannel.open();
+                    socketChannel.configureBlocking(false);
+                    socketChannel.socket().setSoTimeout(1000);
+                    socketChannel.register(
+                            selector,
+                            SelectionKey.OP_CONNECT,
+                            new TcpClientHandler(new Instance(address, echo.host, echo.user, echo.rpcPort, echo.kcaPort))
                     );
-                } catch (IOException ignore) {}
+                    socketChannel.connect(new InetSocketAddress(address, echo.kcaPort));
+                } catch (IOException e) {
+                    Logger.getLogger().warn("Unexpected error", e);
+                }
             }
+        }
+
+        /**
+         * Прием постоянных соединений от инстанций предыдущих версий, получивших XML эхо-пакет.
+         * Первым пакетом соединения инстанция присылает свой эхо-пакет.
+         */
+        private class TcpServerHandler extends SocketHandler {
 
-            @Override
             void accept(SelectionKey event) {
                 ServerSocketChannel serverSocketChannel = (ServerSocketChannel) event.channel();
                 try {
                     SocketChannel socketChannel = serverSocketChannel.accept();
-                    socketChannel.configureBlocking(false);
-                    socketChannel.register(
-                            selector,
-                            SelectionKey.OP_READ,
-                            this
-                    );
+                    if (socketChannel != null) {
+                        socketChannel.configureBlocking(false);
+                        socketChannel.register(selector, SelectionKey.OP_READ, this);
+                    }
                 } catch (IOException e) {
                     Logger.getLogger().warn("Unexpected error", e);
                 }
             }
 
-            final synchronized void processMessage(SocketChannel socketChannel, InetSocketAddress remoteAddress, byte[] data) throws ClosedChannelException {
-                if (remoteAddress != null) {
-                    EchoDocument message = parseMessage(data);
-                    if (message != null) {
-                        Logger.getContextLogger(NetContext.class).debug(
-                                "Received echo packet from {0} ({1})\nData: {2}",
-                                message.getEcho().getHost(),
-                                remoteAddress.getHostString(),
-                                new String(data)
-                        );
-                        Instance instance = new Instance(
-                                remoteAddress.getAddress(),
-                                message.getEcho().getHost(),
-                                message.getEcho().getUser(),
-                                message.getEcho().getRpcPort(),
-                                message.getEcho().getKcaPort()
-                        );
-                        socketChannel.register(
-                                selector,
-                                SelectionKey.OP_READ,
-                                new TcpClientHandler(instance, false)
-                        );
-                        linkInstance(instance);
+            @Override
+            void read(SelectionKey event) {
+                final ByteBuffer buffer = ByteBuffer.allocate(512);
+                SocketChannel socketChannel = (SocketChannel) event.channel();
+                try {
+                    InetSocketAddress remoteAddress = (InetSocketAddress) socketChannel.getRemoteAddress();
+                    if (socketChannel.read(buffer) < 0) {
+                        throw new EOFException();
                     }
+                    buffer.flip();
+                    Echo echo = Echo.decode(Arrays.copyOf(buffer.array(), buffer.remaining()));
+                    if (echo == null || remoteAddress == null) {
+                        return;
+                    }
+                    Logger.getContextLogger(NetContext.class).debug(
+                            "Received legacy echo packet from {0} ({1}) via connection",
+                            echo.host, remoteAddress.getHostString()
+                    );
+                    Instance instance = new Instance(remoteAddress.getAddress(), echo.host, echo.user, echo.rpcPort, echo.kcaPort);
+                    // Далее соединение только отслеживается на предмет обрыва
+                    socketChannel.register(selector, SelectionKey.OP_READ, new TcpClientHandler(instance));
+                    join(echo.getKey(), new Member(instance, true));
+                } catch (IOException e) {
+                    event.cancel();
+                    try {
+                        socketChannel.close();
+                    } catch (IOException ignore) {}
                 }
             }
         }
 
         private class TcpClientHandler extends ClientSocketHandler {
 
-            TcpClientHandler(Instance instance, boolean sendEcho) {
-                super(instance, sendEcho);
+            private final String key;
+
+            TcpClientHandler(Instance instance) {
+                super(instance);
+                this.key = LookupServer.getKey(instance.host, instance.user, instance.rpcPort);
             }
 
             @Override
             void read(SelectionKey event) {
                 final ByteBuffer buffer = ByteBuffer.allocate(256);
-                buffer.clear();
                 SocketChannel socketChannel = (SocketChannel) event.channel();
                 try {
-                    socketChannel.read(buffer);
+                    if (socketChannel.read(buffer) < 0) {
+                        throw new EOFException();
+                    }
                 } catch (IOException e) {
                     Logger.getContextLogger(NetContext.class).debug(
                             "Connection lost: {0}:{1}",
                             getInstance().address, String.valueOf(getInstance().kcaPort)
                     );
-                    unlinkInstance(getInstance());
+                    leaveLegacy(key);
                     event.cancel();
                 }
             }
@@ -389,8 +624,8 @@ class LookupServer {
                             "Connection established: {0}:{1}",
                             getInstance().address, String.valueOf(getInstance().kcaPort)
                     );
-                    linkInstance(getInstance());
-                    event.interestOps(needEcho() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+                    join(key, new Member(getInstance(), true));
+                    event.interestOps(SelectionKey.OP_WRITE);
                 } catch (IOException e) {
                     Logger.getContextLogger(NetContext.class).debug(
                             "Unable to establish connection: {0}:{1}",
@@ -408,7 +643,7 @@ class LookupServer {
                             "Sent response packet: {0}:{1}",
                             getInstance().address, String.valueOf(getInstance().kcaPort)
                     );
-                    socketChannel.write(ByteBuffer.wrap(prepareEcho()));
+                    socketChannel.write(ByteBuffer.wrap(localEcho.encodeXml()));
                 } catch (IOException e) {
                     Logger.getLogger().warn("Unexpected error", e);
                 } finally {
@@ -417,4 +652,4 @@ class LookupServer {
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -19,6 +19,13 @@ public class MultihomeRMIClientSocketFactory implements RMIClientSocketFactory,
     
     private static final long serialVersionUID = 7033753601964541325L;
 
+    /**
+     * Таймауты соединения и чтения (миллисекунды) сокетов обращения к сетевым сервисам.
+     * Нулевой таймаут чтения означает ожидание без ограничения.
+     */
+    static final int CONNECT_TIMEOUT = Integer.getInteger("ics.connectTimeout", 3000);
+    static final int READ_TIMEOUT    = Integer.getInteger("ics.readTimeout", 0);
+
     private final String[] hosts;
 
     public MultihomeRMIClientSocketFactory(final String[] hosts) {
@@ -28,14 +35,19 @@ public class MultihomeRMIClientSocketFactory implements RMIClientSocketFactory,
     @Override
     public Socket createSocket(String hostString, final int port) throws IOException {
         if (hosts.length < 2) {
-            return this.factory().createSocket(hostString, port);
+            if (RMISocketFactory.getSocketFactory() != null) {
+                return this.factory().createSocket(hostString, port);
+            }
+            final Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(hostString, port), CONNECT_TIMEOUT);
+            socket.setSoTimeout(READ_TIMEOUT);
+            return socket;
         }
         final List<IOException> exceptions = new ArrayList<>();
         final Selector selector = Selector.open();
         for (final String host : hosts) {
             final SocketChannel channel = SocketChannel.open();
             channel.configureBlocking(false);
-            channel.socket().setSoTimeout(1000);
             channel.register(selector, SelectionKey.OP_CONNECT);
             final SocketAddress addr = new InetSocketAddress(host, port);
             channel.connect(addr);
@@ -47,7 +59,7 @@ public class MultihomeRMIClientSocketFactory implements RMIClientSocketFactory,
             if (selector.keys().isEmpty()) {
                 throw new IOException("Connection failed for " + hostString + ": " + exceptions);
             }
-            selector.select(1000);
+            selector.select(CONNECT_TIMEOUT);
             final Set<SelectionKey> keys = selector.selectedKeys();
             if (keys.isEmpty()) {
                 throw new IOException("Selection keys unexpectedly empty for " + hostString + "[exceptions: " + exceptions + "]");
@@ -76,6 +88,7 @@ public class MultihomeRMIClientSocketFactory implements RMIClientSocketFactory,
         final Socket socket = connectedChannel.socket();
         try {
             if (RMISocketFactory.getSocketFactory() == null) {
+                socket.setSoTimeout(READ_TIMEOUT);
                 return socket;
             }
             String host = socket.getInetAddress().getHostAddress();
@@ -12,6 +12,7 @@ import codex.editor.BoolEditor;
 import codex.editor.IEditor;
 import codex.explorer.tree.AbstractNode;
 import codex.explorer.tree.INode;
+import codex.explorer.tree.NodeTreeModel;
 import codex.log.Logger;
 import codex.presentation.AncestorAdapter;
 import codex.presentation.EditorPage;
@@ -61,6 +62,7 @@ public abstract class Entity extends AbstractNode implements IPropertyChangeList
     private static final Boolean DEV_MODE = "1".equals(java.lang.System.getProperty("showSysProps"));
     private static final EntityCache     CACHE = EntityCache.getInstance();
     private static final CommandRegistry COMMAND_REGISTRY = CommandRegistry.getInstance();
+    private static final int PAGE_SIZE = Integer.getInteger("explorer.childrenPage", 200);
 
     private       String    title;
     private final ImageIcon icon;
@@ -71,6 +73,9 @@ public abstract class Entity extends AbstractNode implements IPropertyChangeList
     private EditorPage           editorPage;
     private EditorPresentation   editorPresentation;
     private SelectorPresentation selectorPresentation;
+    private final AtomicBoolean  childrenRequested = new AtomicBoolean(false);
+    private volatile boolean     childrenLoaded = false;
+    private final Object         childrenLock   = new Object();
      
     /**
      * Модель сущности, контейнер всех её свойств.
@@ -261,7 +266,7 @@ public abstract class Entity extends AbstractNode implements IPropertyChangeList
     public void setParent(INode parent) {
         super.setParent(parent);
         if (parent != null && getChildClass() != null) {
-            if (!Entity.getDefinition(getChildClass()).autoGenerated())
+            if (!Entity.getDefinition(getChildClass()).autoGenerated() && !Entity.getDefinition(getClass()).lazy())
                 loadChildren();
         }
         if (parent != null && isOverridable()) {
@@ -288,19 +293,129 @@ public abstract class Entity extends AbstractNode implements IPropertyChangeList
     public void loadChildren() {
         List<Class<? extends Entity>> classCatalog = getClassCatalog();
         if (!classCatalog.isEmpty()) {
-            ITask loadChildren = new LoadChildren();
-            final int prevMode = getMode();
-            loadChildren.addListener(new ITaskListener() {
-                @Override
-                public void afterExecute(ITask task) {
-                    setMode(prevMode);
+            startLoading(() -> {});
+        }
+    }
+
+    /**
+     * Чтение и присоединение дочерних сущностей в текущем потоке. Каталоги, формирующие список
+     * потомков не из базы конфигурации, переопределяют этот метод.
+     */
+    protected void readChildren() {
+        EntityRef ownerRef = Entity.findOwner(this);
+        Set<INode> attached = new HashSet<>(childrenList());
+        int count = 0;
+        NodeTreeModel.beginUpdate(this);
+        try {
+            for (Class<? extends Entity> catalogClass : getClassCatalog()) {
+                // Индекс каталога читается одним запросом, владелец у всех потомков общий
+                Map<Integer, String> index = model.getConfigService().readCatalogIndex(ownerRef == null ? null : ownerRef.getId(), catalogClass);
+                for (String PID : index.values()) {
+                    Entity child = Entity.newInstance(catalogClass, ownerRef, PID);
+                    if (child != null && attached.add(child)) {
+                        attach(child);
+                        // Дерево получает потомков порциями, не дожидаясь загрузки всего каталога
+                        if (++count % PAGE_SIZE == 0) {
+                            NodeTreeModel.endUpdate(this);
+                            NodeTreeModel.beginUpdate(this);
+                        }
+                    }
                 }
-            });
-            ServiceRegistry.getInstance().lookupService(ITaskExecutorService.class).quietTask(loadChildren);
-            setMode(MODE_LOADING);
+            }
+        } finally {
+            NodeTreeModel.endUpdate(this);
+        }
+    }
+
+    private void startLoading(Runnable onFinish) {
+        ITask loadChildren = new LoadChildren();
+        final int prevMode = getMode();
+        loadChildren.addListener(new ITaskListener() {
+            @Override
+            public void afterExecute(ITask task) {
+                setMode(prevMode);
+                onFinish.run();
+            }
+        });
+        ServiceRegistry.getInstance().lookupService(ITaskExecutorService.class).quietTask(loadChildren);
+        setMode(MODE_LOADING);
+    }
+
+    /**
+     * Признак отложенного каталога (см. {@link EntityDefinition#lazy()}), потомки которого еще
+     * не загружены.
+     */
+    public final boolean isChildrenDeferred() {
+        return !childrenLoaded && getChildClass() != null && Entity.getDefinition(getClass()).lazy();
+    }
+
+    /**
+     * Фоновая загрузка дочерних сущностей отложенного каталога при первом обращении к узлу.
+     * По завершении слушатели получают событие {@link codex.explorer.tree.INodeListener#childListChanged(INode)}.
+     */
+    public final void ensureChildrenLoaded() {
+        if (isChildrenDeferred() && childrenRequested.compareAndSet(false, true)) {
+            startLoading(this::setChildrenLoaded);
+        }
+    }
+
+    /**
+     * Загрузка дочерних сущностей отложенного каталога в текущем потоке. Если загрузка уже
+     * выполняется в фоне, метод дожидается ее завершения.
+     */
+    public final void awaitChildren() {
+        if (isChildrenDeferred()) {
+            if (childrenRequested.compareAndSet(false, true)) {
+                try {
+                    synchronized (childrenLock) {
+                        readChildren();
+                    }
+                } finally {
+                    setChildrenLoaded();
+                }
+            } else {
+                synchronized (childrenLock) {
+                    while (!childrenLoaded && childrenRequested.get()) {
+                        try {
+                            childrenLock.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Сброс признака загрузки потомков отложенного каталога: список будет прочитан заново при
+     * следующем обращении к узлу.
+     */
+    protected final void deferChildren() {
+        if (Entity.getDefinition(getClass()).lazy() && childrenRequested.compareAndSet(true, false)) {
+            synchronized (childrenLock) {
+                childrenLoaded = false;
+                childrenLock.notifyAll();
+            }
+            fireChildListChanged();
         }
     }
 
+    private void setChildrenLoaded() {
+        synchronized (childrenLock) {
+            childrenLoaded = true;
+            childrenLock.notifyAll();
+        }
+        fireChildListChanged();
+    }
+
+    @Override
+    public boolean isLeaf() {
+        // До загрузки отложенного каталога дерево видит у него заглушку вместо потомков
+        return !isChildrenDeferred() && super.isLeaf();
+    }
+
     public boolean isOverridable() {
         return true;
     }
@@ -643,6 +758,7 @@ public abstract class Entity extends AbstractNode implements IPropertyChangeList
     @Override
     public final SelectorPresentation getSelectorPresentation() {
         if (getChildClass() == null) return null;
+        ensureChildrenLoaded();
         if (selectorPresentation == null) {
             selectorPresentation = new SelectorPresentation(this);
         }
@@ -935,13 +1051,9 @@ public abstract class Entity extends AbstractNode implements IPropertyChangeList
 
         @Override
         public Void execute() {
-            EntityRef ownerRef = Entity.findOwner(Entity.this);
-            getClassCatalog().forEach(catalogClass -> model.getConfigService().readCatalogEntries(ownerRef == null ? null : ownerRef.getId(), catalogClass)
-                    .forEach(entityRef -> {
-                        if (entityRef != null && !childrenList().contains(entityRef.getValue())) {
-                            attach(entityRef.getValue());
-                        }
-                    }));
+            synchronized (childrenLock) {
+                readChildren();
+            }
             return null;
         }
 
@@ -9,4 +9,9 @@ public @interface EntityDefinition {
     boolean autoGenerated() default false;
     String  title() default "";
     String  icon()  default "";
+    /**
+     * Дочерние сущности загружаются при первом обращении к узлу (раскрытие, выбор в дереве
+     * или отображение селектора), а не при добавлении узла в дерево.
+     */
+    boolean lazy()  default false;
 }
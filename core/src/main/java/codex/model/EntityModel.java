@@ -19,6 +19,7 @@ import codex.utils.Language;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -43,12 +44,14 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
     private final ReferenceTracker              referenceTracker = new ReferenceTracker();
     private final Map<String, String>           databaseValues;
     private final Map<String, Object>           initialValues   = new HashMap<>();
-    private final List<IPropertyChangeListener> changeListeners = new LinkedList<>();
+    private final List<IPropertyChangeListener> changeListeners = new CopyOnWriteArrayList<>();
 
     private final Class<? extends Entity>       entityClass, tableClass;
     private final List<String>                  dynamicProps    = new LinkedList<>();
     private final UndoRegistry                  undoRegistry    = new UndoRegistry();
-    private final List<IModelListener>          modelListeners  = new LinkedList<>();
+    private final List<IModelListener>          modelListeners  = new CopyOnWriteArrayList<>();
+    private final Map<String, Object[]>         pendingChanges  = new LinkedHashMap<>();
+    private int updateDepth = 0;
 
     // Контексты
     @LoggingSource()
@@ -368,8 +371,58 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
         if (!dynamicProps.contains(name)) {
             undoRegistry.put(name, oldValue, newValue);
         }
-        new LinkedList<>(changeListeners).forEach((listener) -> listener.propertyChange(name, oldValue, newValue));
-        new LinkedList<>(modelListeners).forEach((listener)  -> listener.modelChanged(this, getChanges()));
+        synchronized (pendingChanges) {
+            if (updateDepth > 0) {
+                Object[] change = pendingChanges.get(name);
+                if (change == null) {
+                    pendingChanges.put(name, new Object[] {oldValue, newValue});
+                } else {
+                    change[1] = newValue;
+                }
+                return;
+            }
+        }
+        changeListeners.forEach((listener) -> listener.propertyChange(name, oldValue, newValue));
+        modelListeners.forEach((listener)  -> listener.modelChanged(this, getChanges()));
+    }
+
+    /**
+     * Открыть транзакцию изменения свойств. До её завершения слушатели модели и слушатели
+     * свойств (в т.ч. редакторы) не оповещаются, изменения накапливаются по свойствам.
+     * Транзакции могут быть вложенными.
+     */
+    public final void beginUpdate() {
+        synchronized (pendingChanges) {
+            if (updateDepth++ > 0) {
+                return;
+            }
+        }
+        getProperties(Access.Any).forEach(propName -> getProperty(propName).suspendEvents(this));
+    }
+
+    /**
+     * Завершить транзакцию изменения свойств. Слушатели получают по одному событию на каждое
+     * измененное свойство (от исходного значения к итоговому) и одно событие изменения модели,
+     * динамические свойства пересчитываются однократно.
+     */
+    public final void endUpdate() {
+        final Map<String, Object[]> changes;
+        synchronized (pendingChanges) {
+            if (updateDepth == 0 || --updateDepth > 0) {
+                return;
+            }
+            changes = new LinkedHashMap<>(pendingChanges);
+            pendingChanges.clear();
+        }
+        // Слушатели свойств получают по одному событию от исходного значения к итоговому
+        getProperties(Access.Any).forEach(propName -> getProperty(propName).resumeEvents());
+        changes.values().removeIf(change -> Objects.equals(change[0], change[1]));
+        if (!changes.isEmpty()) {
+            dynamicResolver.deferRecalculation(() -> changes.forEach((name, change) ->
+                    changeListeners.forEach((listener) -> listener.propertyChange(name, change[0], change[1]))
+            ));
+            modelListeners.forEach((listener) -> listener.modelChanged(this, getChanges()));
+        }
     }
 
     /**
@@ -548,7 +601,7 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
                     getProperty(name).setValue(undoRegistry.previous(name));
                 }
             });
-            new LinkedList<>(modelListeners).forEach((listener) -> listener.modelRestored(this, changes));
+            modelListeners.forEach((listener) -> listener.modelRestored(this, changes));
         }
     }
 
@@ -565,7 +618,7 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
             if (!changes.isEmpty()) {
                 Logger.getContextLogger(OrmContext.class).debug("Perform partial rollback model {0} {1}", getQualifiedName(), changes);
                 changes.forEach((name) -> getProperty(name).setValue(undoRegistry.previous(name)));
-                new LinkedList<>(modelListeners).forEach((listener) -> listener.modelRestored(this, changes));
+                modelListeners.forEach((listener) -> listener.modelRestored(this, changes));
             }
         }
     }
@@ -643,7 +696,7 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
                     }
                 });
             }
-            new LinkedList<>(modelListeners).forEach((listener) -> listener.modelSaved(this, new LinkedList<>(changes)));
+            modelListeners.forEach((listener) -> listener.modelSaved(this, new LinkedList<>(changes)));
             changes.forEach((propName) -> {
                 List<EditorCommand> commands = getEditor(propName).getCommands();
                 commands.forEach(EditorCommand::activate);
@@ -791,7 +844,7 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
                     }
                 }
             }
-            new LinkedList<>(modelListeners).forEach((listener) -> listener.modelDeleted(this));
+            modelListeners.forEach((listener) -> listener.modelDeleted(this));
             return true;
         } catch (Exception e) {
             return false;
@@ -887,6 +940,51 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
         final Map<String, Supplier>       valueProviders  = new HashMap<>();
         final Map<String, PropertyHolder> propertyHolders = new HashMap<>();
 
+        private Map<PropertyHolder, Supplier> deferred;
+
+        /**
+         * Пересчет значения динамического свойства. Во время рассылки событий транзакции
+         * пересчет откладывается и выполняется однократно, сколько бы базовых свойств ни изменилось.
+         */
+        @SuppressWarnings("unchecked")
+        void recalculate(PropertyHolder propHolder, Supplier valueProvider) {
+            synchronized (this) {
+                if (deferred != null) {
+                    deferred.put(propHolder, valueProvider);
+                    return;
+                }
+            }
+            propHolder.setValue(valueProvider.get());
+        }
+
+        @SuppressWarnings("unchecked")
+        void deferRecalculation(Runnable dispatch) {
+            synchronized (this) {
+                if (deferred != null) {
+                    dispatch.run();
+                    return;
+                }
+                deferred = new LinkedHashMap<>();
+            }
+            final Map<PropertyHolder, Supplier> recalculate;
+            try {
+                dispatch.run();
+            } finally {
+                synchronized (this) {
+                    recalculate = deferred;
+                    deferred = null;
+                }
+            }
+            if (!recalculate.isEmpty()) {
+                beginUpdate();
+                try {
+                    recalculate.forEach((propHolder, valueProvider) -> propHolder.setValue(valueProvider.get()));
+                } finally {
+                    endUpdate();
+                }
+            }
+        }
+
         PropertyHolder newProperty(String name, IComplexType value, Supplier valueProvider, String... baseProps) {
             return newProperty(
                     name,
@@ -914,6 +1012,10 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
                     return EditMode.Programmatic;
                 }
 
+                private void recalculate() {
+                    dynamicResolver.recalculate(this, valueProvider);
+                }
+
                 @Override
                 public synchronized IComplexType getPropValue() {
                     if (!initiated) {
@@ -929,7 +1031,7 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
                                     @Override
                                     public void modelSaved(EntityModel model, List<String> changes) {
                                         if (changes.stream().anyMatch(baseUserProps::contains)) {
-                                            setValue(valueProvider.get());
+                                            recalculate();
                                         }
                                     }
                                 });
@@ -939,11 +1041,11 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
                             final IModelListener refModelListener = new IModelListener() {
                                 @Override
                                 public void modelSaved(EntityModel model, List<String> changes) {
-                                    setValue(valueProvider.get());
+                                    recalculate();
                                 }
                             };
                             final IPropertyChangeListener refPropListener = (name, oldValue, newValue) -> {
-                                setValue(valueProvider.get());
+                                recalculate();
                             };
                             
                             List<String> baseRefProps = Arrays.stream(baseProps)
@@ -984,7 +1086,7 @@ public class EntityModel extends AbstractModel implements IPropertyChangeListene
                             if (!baseDynProps.isEmpty()) {
                                 EntityModel.this.addChangeListener((name, oldValue, newValue) -> {
                                     if (baseDynProps.contains(name)) {
-                                        setValue(valueProvider.get());
+                                        recalculate();
                                     }
                                 });
                                 resolveMap.put(name, baseDynProps);
@@ -19,11 +19,12 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.MatteBorder;
 import javax.swing.event.AncestorEvent;
 import java.awt.*;
-import java.io.IOException;
-import java.sql.SQLException;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -40,10 +41,16 @@ public class MailBox extends AbstractUnit {
         return INSTANCE;
     }
 
+    private static final ExecutorService PAGE_LOADER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Mailbox page loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Queue queue = new Queue();
 
     private MailBox() {
-        MessageInbox.getInstance().addListener(queue::postMessage);
+        MessageInbox.getInstance().addListener(queue::postMessages);
     }
 
     @Override
@@ -75,26 +82,37 @@ public class MailBox extends AbstractUnit {
 
         Queue() {
             super(null, null, "Mail",null);
-            try {
-                inbox = new Inbox();
-                attach(inbox);
-            } catch (IOException | SQLException e) {
-                Logger.getLogger().warn("Unexpected error", e);
-            }
+            inbox = new Inbox();
+            attach(inbox);
         }
 
-        private void postMessage(Message message) {
+        private void postMessages(List<Message> messages) {
+            Map<MailFolder, List<Message>> byFolder = new LinkedHashMap<>();
+            messages.forEach(message -> {
+                MailFolder folder = findFolder(message);
+                if (folder != null) {
+                    byFolder.computeIfAbsent(folder, key -> new LinkedList<>()).add(message);
+                }
+            });
+            byFolder.forEach(MailFolder::moveMessages);
+        }
+
+        private MailFolder findFolder(Message message) {
             for (INode child : childrenList()) {
                 MailFolder folder = (MailFolder) child;
                 if (folder.getCondition().test(message)) {
-                    folder.moveMessages(Collections.singletonList(message));
-                    return;
+                    return folder;
                 }
             }
             Logger.getContextLogger(NotificationService.class).error(
                     "Suitable folder for message {0} not found",
                     message
             );
+            return null;
+        }
+
+        private void postMessage(Message message) {
+            postMessages(Collections.singletonList(message));
         }
     }
 
@@ -102,10 +120,11 @@ public class MailBox extends AbstractUnit {
     private abstract class MailFolder extends Catalog {
 
         protected final MessageSupplier supplier = new MessageSupplier();
+        private final AtomicBoolean pageLoading = new AtomicBoolean(false);
         private final FolderView folderView = new FolderView(this);
         private final Predicate<Message> condition;
 
-        private MailFolder(ImageIcon icon, String title, Predicate<Message> condition) throws IOException, SQLException {
+        private MailFolder(ImageIcon icon, String title, Predicate<Message> condition) {
             super(null, icon, title, null);
             this.condition = condition;
         }
@@ -185,11 +204,38 @@ public class MailBox extends AbstractUnit {
             }
         }
 
-        private void readPrevPage() {
-            List<Message> messages = supplier.getPrev();
-            if (!messages.isEmpty()) {
-                moveMessages(messages);
+        /**
+         * Чтение предыдущей страницы сообщений. Записи читаются и сущности создаются в фоновом
+         * потоке, только для сообщений, которых еще нет в папке. Сообщения добавляются в папку
+         * в потоке интерфейса.
+         * @param onFinish Действие по окончании чтения (в потоке интерфейса).
+         */
+        private void readPrevPage(Runnable onFinish) {
+            if (!pageLoading.compareAndSet(false, true)) {
+                return;
             }
+            PAGE_LOADER.execute(() -> {
+                List<Message> messages = Collections.emptyList();
+                try {
+                    messages = supplier.getPrev().stream()
+                            .filter(row -> getMessageIndex(row.getPID()) < 0)
+                            .map(MessageSupplier.MessageRow::getMessage)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList());
+                } finally {
+                    final List<Message> loaded = messages;
+                    SwingUtilities.invokeLater(() -> {
+                        try {
+                            if (!loaded.isEmpty()) {
+                                moveMessages(loaded);
+                            }
+                        } finally {
+                            pageLoading.set(false);
+                            onFinish.run();
+                        }
+                    });
+                }
+            });
         }
 
         private int getMessageIndex(Message message) {
@@ -201,12 +247,22 @@ public class MailBox extends AbstractUnit {
             }
             return -1;
         }
+
+        private int getMessageIndex(String PID) {
+            int count = getChildCount();
+            for (int idx = 0; idx < count ; idx ++) {
+                if (((Message) getChildAt(idx)).getPID().equals(PID)) {
+                    return idx;
+                }
+            }
+            return -1;
+        }
     }
 
 
     private class Inbox extends MailFolder {
 
-        private Inbox() throws IOException, SQLException {
+        private Inbox() {
             super(
                     ICON_INBOX,
                     Language.get(MailBox.class, "inbox.title"),
@@ -277,11 +333,8 @@ public class MailBox extends AbstractUnit {
                     int current = scrollBar.getModel().getValue();
 
                     if (extent + current == maximum && folder.supplier.available(IDataSupplier.ReadDirection.Backward)) {
-                        SwingUtilities.invokeLater(() -> {
-                            scrollPane.setCursor(new Cursor(Cursor.WAIT_CURSOR));
-                            folder.readPrevPage();
-                            scrollPane.setCursor(new Cursor(Cursor.DEFAULT_CURSOR));
-                        });
+                        scrollPane.setCursor(new Cursor(Cursor.WAIT_CURSOR));
+                        folder.readPrevPage(() -> scrollPane.setCursor(new Cursor(Cursor.DEFAULT_CURSOR)));
                     }
                     onShow.run();
                 }
@@ -1,41 +1,83 @@
 package codex.notification;
 
 import codex.config.IConfigStoreService;
+import codex.log.Logger;
 import codex.model.EntityModel;
 import codex.service.ServiceRegistry;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Входящие сообщения. Сообщения принимаются в очередь из любого потока без блокировок и
+ * обрабатываются одним потоком: сообщения, поступившие в течение короткого интервала,
+ * сохраняются в одной транзакции и передаются слушателям одним списком.
+ */
 public class MessageInbox implements IMessageHandler {
 
+    private final static long BATCH_WINDOW = 200; // Миллисекунды
+
     private final static MessageInbox INSTANCE = new MessageInbox();
     static MessageInbox getInstance() {
         return INSTANCE;
     }
 
     private final List<IInboxListener> listeners = new LinkedList<>();
+    private final Queue<Message> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean  scheduled = new AtomicBoolean(false);
+    private final ScheduledExecutorService consumer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Message inbox");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private MessageInbox() {}
 
     @Override
     public void postMessage(Message message) {
-        new Thread(() -> {
-            synchronized (this) {
-                boolean exists = ServiceRegistry.getInstance().lookupService(IConfigStoreService.class).isInstanceExists(
-                        Message.class, (String) message.model.getUnsavedValue(EntityModel.PID), null
-                );
-                if (!exists) {
+        queue.add(message);
+        if (scheduled.compareAndSet(false, true)) {
+            consumer.schedule(this::processMessages, BATCH_WINDOW, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void processMessages() {
+        // Сообщения, поступившие с этого момента, будут обработаны следующим пакетом
+        scheduled.set(false);
+        Map<String, Message> batch = new LinkedHashMap<>();
+        Message next;
+        while ((next = queue.poll()) != null) {
+            batch.putIfAbsent((String) next.model.getUnsavedValue(EntityModel.PID), next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        IConfigStoreService CAS = ServiceRegistry.getInstance().lookupService(IConfigStoreService.class);
+        List<Message> posted = new LinkedList<>();
+        try {
+            CAS.runInTransaction(() -> batch.forEach((PID, message) -> {
+                if (!CAS.isInstanceExists(Message.class, PID, null)) {
                     try {
                         message.model.commit(false);
-                        synchronized (listeners) {
-                            listeners.forEach(listener -> listener.messagePosted(message));
-                        }
+                        posted.add(message);
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
                 }
+            }));
+        } catch (Exception e) {
+            Logger.getContextLogger(NotificationService.class).warn("Unable to save messages: {0}", e.getMessage());
+            return;
+        }
+        if (!posted.isEmpty()) {
+            synchronized (listeners) {
+                listeners.forEach(listener -> listener.messagesPosted(posted));
             }
-        }).start();
+        }
     }
 
     void addListener(IInboxListener listener) {
@@ -45,6 +87,6 @@ public class MessageInbox implements IMessageHandler {
     }
 
     interface IInboxListener {
-        void messagePosted(Message message);
+        void messagesPosted(List<Message> messages);
     }
 }
@@ -1,70 +1,54 @@
 package codex.notification;
 
-import codex.config.ConfigStoreService;
 import codex.config.IConfigStoreService;
-import codex.log.Logger;
+import codex.model.EntityModel;
 import codex.service.ServiceRegistry;
 import codex.supplier.IDataSupplier;
 import codex.type.DateTime;
 import codex.type.EntityRef;
 import codex.type.IComplexType;
 import codex.type.Str;
-import org.sqlite.JDBC;
-import java.io.File;
-import java.io.IOException;
-import java.sql.*;
 import java.text.MessageFormat;
 import java.util.*;
 
-class MessageSupplier implements IDataSupplier<Message> {
+/**
+ * Поставщик сообщений для просмотра почтового ящика. Страница сообщений читается одним запросом
+ * из общего хранилища конфигурации (только ключевые колонки), поставщик возвращает записи, по
+ * которым сущность сообщения создается только при отображении.
+ */
+class MessageSupplier implements IDataSupplier<MessageSupplier.MessageRow> {
 
     private final static Integer LIMIT = 10;
+    private final static IConfigStoreService CAS = ServiceRegistry.getInstance().lookupService(IConfigStoreService.class);
+    private final static List<String> COLUMNS = Arrays.asList(EntityModel.ID, EntityModel.PID, Message.PROP_CREATED);
 
-    private Connection connection;
-    private Long       prevOffset = Long.MAX_VALUE;
-    private String     filter, query;
-
-    private static File getDatabaseFile() throws IOException {
-        Class<?> optionHolderClass = ConfigStoreService.class;
-        if (ClassLoader.getSystemClassLoader().getResource("META-INF/options/"+ optionHolderClass.getSimpleName()+".properties") != null) {
-            final String fileName = ResourceBundle.getBundle("META-INF/options/"+optionHolderClass.getSimpleName()).getString("file");
-            return new File(System.getProperty("user.home") + fileName);
-        }
-        throw new IOException();
-    }
+    private Long   prevOffset = Long.MAX_VALUE;
+    private String filter, condition;
 
     static {
         try {
-            synchronized (MessageInbox.getInstance()) {
-                ServiceRegistry.getInstance().lookupService(IConfigStoreService.class).buildClassCatalog(
-                        Message.class,
-                        new HashMap<String, IComplexType>() {{
-                            put(Message.PROP_CREATED, new Str());
-                            put(Message.PROP_STATUS, new DateTime());
-                        }}
-                );
-            }
+            CAS.buildClassCatalog(
+                    Message.class,
+                    new HashMap<String, IComplexType>() {{
+                        put(Message.PROP_CREATED, new Str());
+                        put(Message.PROP_STATUS, new DateTime());
+                    }}
+            );
+            CAS.createClassIndex(Message.class, Message.PROP_STATUS);
+            CAS.createClassIndex(Message.class, Message.PROP_CREATED);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    MessageSupplier() throws IOException, SQLException {
-        DriverManager.registerDriver(new JDBC());
-        connection = DriverManager.getConnection("jdbc:sqlite:"+ getDatabaseFile().getPath());
-    }
-
     void setFilter(String filter) {
-        this.filter = filter;
-        this.query  = MessageFormat.format(
-                "SELECT [ID], [time] FROM MESSAGE WHERE [time] < ? AND ({0}) ORDER BY [time] DESC LIMIT ?",
-                filter
-        );
+        this.filter    = filter;
+        this.condition = MessageFormat.format("[{0}] < ? AND ({1})", Message.PROP_CREATED, filter);
     }
 
     @Override
     public boolean ready() {
-        return connection != null;
+        return true;
     }
 
     @Override
@@ -73,33 +57,24 @@ class MessageSupplier implements IDataSupplier<Message> {
     }
 
     @Override
-    public List<Message> getNext() {
+    public List<MessageRow> getNext() {
         return Collections.emptyList();
     }
 
     @Override
-    public List<Message> getPrev() {
-        List<Message> result = new LinkedList<>();
-        synchronized (MessageInbox.getInstance()) {
-            try (PreparedStatement select = connection.prepareStatement(query)) {
-                select.setFetchSize(LIMIT);
-                select.setLong(1, prevOffset);
-                select.setInt(2, LIMIT);
-                try (ResultSet selectRS = select.executeQuery()) {
-                    while (selectRS.next()) {
-                        int msgID = selectRS.getInt(1);
-                        long msgTime = selectRS.getLong(2);
-                        if (msgTime < prevOffset) {
-                            prevOffset = msgTime;
-                        }
-                        Message message = EntityRef.build(Message.class, msgID).getValue();
-                        result.add(message);
-                    }
-                }
-            } catch (SQLException e) {
-                Logger.getLogger().error("Unable to retrieve messages", e);
+    public List<MessageRow> getPrev() {
+        List<MessageRow> result = new LinkedList<>();
+        CAS.readClassInstances(
+                Message.class, COLUMNS, condition,
+                MessageFormat.format("[{0}] DESC", Message.PROP_CREATED),
+                LIMIT, prevOffset
+        ).forEach(values -> {
+            MessageRow row = new MessageRow(values);
+            if (row.getTime() < prevOffset) {
+                prevOffset = row.getTime();
             }
-        }
+            result.add(row);
+        });
         return result;
     }
 
@@ -109,10 +84,38 @@ class MessageSupplier implements IDataSupplier<Message> {
     }
 
     Integer getUnreadMessages() {
-        final String selectSQL = "SELECT COUNT([ID]) FROM MESSAGE WHERE [status] IS NULL";
-        try (ResultSet resultSet = connection.createStatement().executeQuery(selectSQL)) {
-            return resultSet.getInt(1);
-        } catch (SQLException ignore) {}
-        return 0;
+        return CAS.countClassInstances(Message.class, MessageFormat.format("[{0}] IS NULL", Message.PROP_STATUS));
+    }
+
+
+    /**
+     * Запись сообщения в хранилище.
+     */
+    static final class MessageRow {
+
+        private final Integer ID;
+        private final String  PID;
+        private final long    time;
+
+        private MessageRow(Map<String, String> values) {
+            this.ID   = Integer.valueOf(values.get(EntityModel.ID));
+            this.PID  = values.get(EntityModel.PID);
+            this.time = values.get(Message.PROP_CREATED) == null ? 0 : Long.parseLong(values.get(Message.PROP_CREATED));
+        }
+
+        String getPID() {
+            return PID;
+        }
+
+        long getTime() {
+            return time;
+        }
+
+        /**
+         * Создание сущности сообщения.
+         */
+        Message getMessage() {
+            return EntityRef.build(Message.class, ID).getValue();
+        }
     }
 }
@@ -21,6 +21,7 @@ import javax.swing.border.*;
 import javax.swing.event.AncestorEvent;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
@@ -31,6 +32,11 @@ import java.lang.reflect.Method;
 import java.text.MessageFormat;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -49,6 +55,13 @@ public final class SelectorPresentation extends JPanel implements ListSelectionL
     private final static ImageIcon IMAGE_CLONE  = ImageUtils.getByPath("/images/clone.png");
     private final static ImageIcon IMAGE_REMOVE = ImageUtils.getByPath("/images/minus.png");
 
+    private final static int FILTER_DELAY = 300;
+    private final static ExecutorService FILTER_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Selector filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Entity                  entity;
     private final SelectorTableModel      tableModel;
     private final JTable                  table;
@@ -59,6 +72,12 @@ public final class SelectorPresentation extends JPanel implements ListSelectionL
     private final Map<EntityCommand<Entity>,  CommandContextKind> contextCommands = new LinkedHashMap<>();
 
     private final List<IEntitySelectedListener> selectListeners = new LinkedList<>();
+
+    private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+    private volatile boolean    updatePending  = false;
+
+    private final AtomicInteger filterGeneration = new AtomicInteger(0);
+    private volatile Map<Entity, Boolean> filterResult = Collections.synchronizedMap(new IdentityHashMap<>());
     
     /**
      * Конструктор презентации. 
@@ -115,14 +134,39 @@ public final class SelectorPresentation extends JPanel implements ListSelectionL
             sorter.setRowFilter(new RowFilter<TableModel, Integer>() {
                 @Override
                 public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
-                    return ((Catalog) entity).getCurrentFilter().getCondition().test(entity, tableModel.getEntityForRow(entry.getIdentifier()));
+                    // Строки, добавленные после расчета фильтра, проверяются по отдельности
+                    return filterResult.computeIfAbsent(
+                            tableModel.getEntityForRow(entry.getIdentifier()),
+                            child -> ((Catalog) entity).getCurrentFilter().getCondition().test(entity, child)
+                    );
                 }
             });
             final IEditor filterEditor = ((Catalog) entity).getFilterEditor();
             commandPanel.add(Box.createHorizontalGlue());
             commandPanel.add(filterEditor.getEditor());
 
-            entity.model.getProperty(((AbstractEditor) filterEditor).getPropName()).addChangeListener((name, oldValue, newValue) -> sorter.sort());
+            final javax.swing.Timer filterTimer = new javax.swing.Timer(FILTER_DELAY, event -> applyFilter(sorter));
+            filterTimer.setRepeats(false);
+            entity.model.getProperty(((AbstractEditor) filterEditor).getPropName()).addChangeListener((name, oldValue, newValue) -> {
+                // Результаты прежнего фильтра (в т.ч. еще не примененные) более не действительны
+                filterGeneration.incrementAndGet();
+                filterResult = Collections.synchronizedMap(new IdentityHashMap<>());
+                filterTimer.restart();
+            });
+
+            // Измененные строки проверяются повторно
+            sorter.setSortsOnUpdates(true);
+            tableModel.addTableModelListener(event -> {
+                if (event.getType() == TableModelEvent.UPDATE && event.getFirstRow() != TableModelEvent.HEADER_ROW) {
+                    if (event.getLastRow() == Integer.MAX_VALUE) {
+                        filterResult.clear();
+                    } else {
+                        for (int row = event.getFirstRow(); row <= event.getLastRow() && row < tableModel.getRowCount(); row++) {
+                            filterResult.remove(tableModel.getEntityForRow(row));
+                        }
+                    }
+                }
+            });
         } else {
             sorter.setRowFilter(new RowFilter<TableModel, Integer>() {
                 @Override
@@ -137,6 +181,7 @@ public final class SelectorPresentation extends JPanel implements ListSelectionL
         entity.addNodeListener(new INodeListener() {
             @Override
             public void childDeleted(INode parentNode, INode childNode, int index) {
+                filterResult.remove(childNode);
                 tableModel.removeRow(index);
                 // Если родительская сущность не удалена
                 if (entity.getParent() != null) {
@@ -154,20 +199,11 @@ public final class SelectorPresentation extends JPanel implements ListSelectionL
             public void childInserted(INode parentNode, INode childNode) {
                 Entity newEntity = (Entity) childNode;
                 tableModel.addEntity(newEntity);
-                sorter.sort();
             }
 
             @Override
             public void childReplaced(INode prevChild, INode nextChild) {
-                int index = entity.getIndex(nextChild);
-                tableModel.attachListeners((Entity) nextChild);
-
-                EntityModel childModel = ((Entity) nextChild).model;
-                childModel.getProperties(Access.Any).forEach(propName -> {
-                        if (tableModel.findColumn(propName) >= 0) {
-                            tableModel.setValueAt(childModel.getValue(propName), index, tableModel.findColumn(propName));
-                        }
-                });
+                tableModel.replaceEntity(entity.getIndex(nextChild), (Entity) nextChild);
             }
         });
         addAncestorListener(new AncestorAdapter() {
@@ -188,6 +224,52 @@ public final class SelectorPresentation extends JPanel implements ListSelectionL
         activateCommands();
     }
 
+    /**
+     * Отложенное обновление панели команд. Серия событий, поступивших до обновления,
+     * обрабатывается одним обновлением.
+     * @param updateCommands Перестроить список команд.
+     */
+    private void scheduleRefresh(boolean updateCommands) {
+        if (updateCommands) {
+            updatePending = true;
+        }
+        if (refreshPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                refreshPending.set(false);
+                if (updatePending) {
+                    updatePending = false;
+                    updateCommands();
+                }
+                activateCommands();
+            });
+        }
+    }
+
+    /**
+     * Расчет фильтра строк в фоновом потоке по снимку списка дочерних сущностей. Результат
+     * применяется одной сортировкой, если за время расчета фильтр не был изменен повторно.
+     */
+    private void applyFilter(TableRowSorter<TableModel> sorter) {
+        final int generation = filterGeneration.incrementAndGet();
+        final List<Entity> snapshot = tableModel.getEntities();
+        final BiPredicate<Entity, Entity> condition = ((Catalog) entity).getCurrentFilter().getCondition();
+        FILTER_EXECUTOR.submit(() -> {
+            Map<Entity, Boolean> result = new IdentityHashMap<>();
+            for (Entity child : snapshot) {
+                if (filterGeneration.get() != generation) {
+                    return;
+                }
+                result.put(child, condition.test(entity, child));
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (filterGeneration.get() == generation) {
+                    filterResult = Collections.synchronizedMap(result);
+                    sorter.sort();
+                }
+            });
+        });
+    }
+
     private void updateCommands() {
         Map<EntityCommand<Entity>, CommandContextKind> sysCommands = getSystemCommands();
         boolean updateRequired = !(
@@ -304,7 +386,7 @@ public final class SelectorPresentation extends JPanel implements ListSelectionL
     @Override
     public void valueChanged(ListSelectionEvent event) {
         if (!event.getValueIsAdjusting()) {
-            refresh();
+            scheduleRefresh(true);
             new LinkedList<>(selectListeners).forEach(listener -> listener.selectedEntities(context.get()));
         }
     }
@@ -322,7 +404,7 @@ public final class SelectorPresentation extends JPanel implements ListSelectionL
     
     @Override
     public void childChanged(INode node) {
-        activateCommands();
+        scheduleRefresh(false);
     }
 
     public void enableSorting() {
@@ -492,22 +574,27 @@ public final class SelectorPresentation extends JPanel implements ListSelectionL
             addOverrideCommand(parentModel, childModel, overridableProps);
 
             final List<String> overriddenProps = context.getOverride();
-            Stream.concat(
-                    Stream.of(EntityModel.OVR),
-                    context.model.getProperties(Access.Edit).stream()
-            ).forEach((propName) -> {
-                if ("PID".equals(propName)) {
-                    newEntity.model.setValue(propName, context.model.getValue(propName)+" (1)");
-                } else {
-                    if (!newEntity.model.isPropertyDynamic(propName)) {
-                        if (!(overridableProps.contains(propName) && (overriddenProps == null || !overriddenProps.contains(propName)))) {
-                            if (!newEntity.model.isStateProperty(propName)) {
-                                newEntity.model.setValue(propName, context.model.getValue(propName));
+            newEntity.model.beginUpdate();
+            try {
+                Stream.concat(
+                        Stream.of(EntityModel.OVR),
+                        context.model.getProperties(Access.Edit).stream()
+                ).forEach((propName) -> {
+                    if ("PID".equals(propName)) {
+                        newEntity.model.setValue(propName, context.model.getValue(propName)+" (1)");
+                    } else {
+                        if (!newEntity.model.isPropertyDynamic(propName)) {
+                            if (!(overridableProps.contains(propName) && (overriddenProps == null || !overriddenProps.contains(propName)))) {
+                                if (!newEntity.model.isStateProperty(propName)) {
+                                    newEntity.model.setValue(propName, context.model.getValue(propName));
+                                }
                             }
                         }
                     }
-                }
-            });
+                });
+            } finally {
+                newEntity.model.endUpdate();
+            }
 
             final DialogButton confirmBtn = Dialog.Default.BTN_OK.newInstance();
             final DialogButton declineBtn = Dialog.Default.BTN_CANCEL.newInstance();
@@ -61,7 +61,9 @@ public final class SelectorTable extends JTable implements IEditableTable {
             TableColumn tableColumn = getColumnModel().getColumn(column);
             int colWidth = tableColumn.getMinWidth();
             int colMaxWidth = tableColumn.getMaxWidth();
-            for (int row = 0; row < getRowCount(); row++) {
+            int rowCount = getRowCount();
+            int step = Math.max(1, rowCount / TableColumnAdjuster.MAX_SAMPLE_ROWS);
+            for (int row = 0; row < rowCount; row += step) {
                 TableCellRenderer cellRenderer = getCellRenderer(row, column);
                 Component c = prepareRenderer(cellRenderer, row, column);
                 int width = c.getPreferredSize().width + getIntercellSpacing().width;
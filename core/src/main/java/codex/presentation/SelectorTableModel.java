@@ -11,25 +11,53 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.swing.SwingUtilities;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.AbstractTableModel;
 
-public class SelectorTableModel extends DefaultTableModel implements IModelListener, ISelectorTableModel {
+/**
+ * Модель таблицы селектора. Модель хранит только ссылки на дочерние сущности, значения ячеек
+ * запрашиваются у моделей сущностей при отображении и кэшируются для ограниченного количества
+ * строк. Изменения сущностей отслеживаются общими для всех строк слушателями.
+ */
+public class SelectorTableModel extends AbstractTableModel implements IModelListener, ISelectorTableModel {
 
-    private final List<ColumnInfo> columnModel = new LinkedList<>();
+    private final static int CACHE_SIZE = 1000;
+
+    private final List<ColumnInfo> columnModel = new ArrayList<>();
+    private final List<Entity>     rows = new ArrayList<>();
     private final Entity rootEntity;
-    
+
+    private final Map<Entity, Object[]> valueCache = new LinkedHashMap<Entity, Object[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Entity, Object[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final INodeListener rowNodeListener = new INodeListener() {
+        @Override
+        public void childChanged(INode node) {
+            int rowIdx = getRowIndex((Entity) node);
+            if (rowIdx >= 0) {
+                fireTableRowsUpdated(rowIdx, rowIdx);
+            }
+        }
+    };
+
     public SelectorTableModel(Entity rootEntity) {
         super();
         this.rootEntity = rootEntity;
-        rootEntity.childrenList().forEach((node) -> addEntity((Entity) node));
+        rootEntity.childrenList().forEach((node) -> {
+            Entity entity = (Entity) node;
+            initColumns(entity);
+            rows.add(entity);
+            attachListeners(entity);
+        });
     }
 
-    @Override
-    public void addEntity(Entity entity) {
-        synchronized (this) {
-            if (getColumnCount() == 0) {
-                List<String> visibleProps = getVisibleProperties(entity);
-                columnModel.addAll(visibleProps.stream()
+    private boolean initColumns(Entity entity) {
+        synchronized (columnModel) {
+            if (columnModel.isEmpty()) {
+                columnModel.addAll(getVisibleProperties(entity).stream()
                         .map(propName -> new ColumnInfo(
                                 entity.model.getPropertyType(propName),
                                 propName,
@@ -37,38 +65,141 @@ public class SelectorTableModel extends DefaultTableModel implements IModelListe
                         ))
                         .collect(Collectors.toList())
                 );
-                columnModel.forEach(columnInfo -> addColumn(columnInfo.title));
+                return true;
             }
+            return false;
+        }
+    }
+
+    @Override
+    public void addEntity(Entity entity) {
+        if (initColumns(entity)) {
+            fireTableStructureChanged();
+        }
+        int rowIdx;
+        synchronized (rows) {
+            rows.add(entity);
+            rowIdx = rows.size() - 1;
         }
-        addRow(columnModel.stream().map(columnInfo -> entity.model.getValue(columnInfo.name)).toArray());
         attachListeners(entity);
+        fireTableRowsInserted(rowIdx, rowIdx);
     }
 
-    void attachListeners(Entity entity) {
-        EntityModel childModel  = entity.model;
-        childModel.addModelListener(this);
-        childModel.addChangeListener((name, oldValue, newValue) -> {
-            if (childModel.isPropertyDynamic(name) && findColumn(name) >= 0 && entity.getParent() != null) {
-                setValueAt(newValue, rootEntity.getIndex(entity), findColumn(name));
-            }
-        });
-        entity.addNodeListener(new INodeListener() {
-            @Override
-            public void childChanged(INode node) {
-                int rowCount = getRowCount();
-                for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
-                    if (getEntityForRow(rowIdx).model.equals(childModel)) {
-                        fireTableRowsUpdated(rowIdx, rowIdx);
-                        break;
-                    }
+    /**
+     * Удаление строки таблицы.
+     * @param row Индекс строки.
+     */
+    public void removeRow(int row) {
+        Entity entity;
+        synchronized (rows) {
+            entity = rows.remove(row);
+        }
+        detachListeners(entity);
+        fireTableRowsDeleted(row, row);
+    }
+
+    /**
+     * Замена сущности строки таблицы.
+     * @param row Индекс строки.
+     * @param entity Новая сущность.
+     */
+    public void replaceEntity(int row, Entity entity) {
+        Entity prevEntity;
+        synchronized (rows) {
+            prevEntity = rows.set(row, entity);
+        }
+        detachListeners(prevEntity);
+        attachListeners(entity);
+        fireTableRowsUpdated(row, row);
+    }
+
+    private void attachListeners(Entity entity) {
+        entity.model.addModelListener(this);
+        entity.addNodeListener(rowNodeListener);
+    }
+
+    private void detachListeners(Entity entity) {
+        entity.model.removeModelListener(this);
+        entity.removeNodeListener(rowNodeListener);
+        synchronized (valueCache) {
+            valueCache.remove(entity);
+        }
+    }
+
+    private int getRowIndex(Entity entity) {
+        synchronized (rows) {
+            return rows.indexOf(entity);
+        }
+    }
+
+    private int getRowIndex(EntityModel model) {
+        synchronized (rows) {
+            for (int rowIdx = 0; rowIdx < rows.size(); rowIdx++) {
+                if (rows.get(rowIdx).model == model) {
+                    return rowIdx;
                 }
             }
-        });
+        }
+        return -1;
+    }
+
+    private void invalidateRow(EntityModel model) {
+        int rowIdx = getRowIndex(model);
+        if (rowIdx >= 0) {
+            synchronized (valueCache) {
+                valueCache.remove(getEntityForRow(rowIdx));
+            }
+            fireTableRowsUpdated(rowIdx, rowIdx);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        synchronized (rows) {
+            return rows.size();
+        }
+    }
+
+    @Override
+    public int getColumnCount() {
+        synchronized (columnModel) {
+            return columnModel.size();
+        }
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnModel.get(column).title;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Entity entity = getEntityForRow(row);
+        Object[] values;
+        synchronized (valueCache) {
+            values = valueCache.get(entity);
+            if (values == null) {
+                values = columnModel.stream().map(columnInfo -> entity.model.getValue(columnInfo.name)).toArray();
+                valueCache.put(entity, values);
+            }
+        }
+        return values[column];
+    }
+
+    /**
+     * Возвращает копию списка сущностей строк таблицы.
+     */
+    List<Entity> getEntities() {
+        synchronized (rows) {
+            return Collections.unmodifiableList(new ArrayList<>(rows));
+        }
     }
 
     @Override
     public Entity getEntityForRow(int row) {
-        return (Entity) rootEntity.childrenList().get(row);
+        synchronized (rows) {
+            return rows.get(row);
+        }
     }
 
     @Override
@@ -115,11 +246,16 @@ public class SelectorTableModel extends DefaultTableModel implements IModelListe
         return false;
     }
 
-    @Override
     public void moveRow(int start, int end, int to) {
-        super.moveRow(start, end, to);
-        rootEntity.move(getEntityForRow(start), to);
-        
+        Entity movedEntity = getEntityForRow(start);
+        synchronized (rows) {
+            List<Entity> moved = new ArrayList<>(rows.subList(start, end + 1));
+            rows.subList(start, end + 1).clear();
+            rows.addAll(to, moved);
+        }
+        fireTableRowsUpdated(Math.min(start, to), Math.max(end, to + end - start));
+        rootEntity.move(movedEntity, to);
+
         SwingUtilities.invokeLater(() -> {
             List<Integer> sequences = rootEntity.childrenList().stream()
                 .map((childNode) -> ((Entity) childNode).getSEQ())
@@ -140,21 +276,16 @@ public class SelectorTableModel extends DefaultTableModel implements IModelListe
             });
         });
     }
-    
+
+    @Override
+    public void modelChanged(EntityModel model, List<String> changes) {
+        // Перечитываются значения динамических свойств, значения остальных свойств изменятся после сохранения
+        invalidateRow(model);
+    }
+
     @Override
     public void modelSaved(EntityModel model, List<String> changes) {
-        int rowCount = getRowCount();
-        for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
-            if (getEntityForRow(rowIdx).model.equals(model)) {
-                final int entityIdx = rowIdx;
-                changes.forEach(propName -> {
-                    if (findColumn(propName) >= 0) {
-                        setValueAt(model.getValue(propName), entityIdx, findColumn(propName));
-                    }
-                });
-                break;
-            }
-        }
+        invalidateRow(model);
     }
 
 }
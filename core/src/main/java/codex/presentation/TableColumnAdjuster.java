@@ -23,6 +23,9 @@ import javax.swing.table.*;
  *  of RESIZE_ALL_COLUMNS will work the best.
  */
 public class TableColumnAdjuster implements PropertyChangeListener, TableModelListener {
+	//  Large tables are measured by evenly distributed sample of rows
+	static final int MAX_SAMPLE_ROWS = 200;
+
 	private JTable table;
 	private int spacing;
 	private boolean isColumnHeaderIncluded;
@@ -102,7 +105,9 @@ public class TableColumnAdjuster implements PropertyChangeListener, TableModelLi
 		int preferredWidth = 0;
 		int maxWidth = table.getColumnModel().getColumn(column).getMaxWidth();
 
-		for (int row = 0; row < table.getRowCount(); row++) {
+		int rowCount = table.getRowCount();
+		int step = Math.max(1, rowCount / MAX_SAMPLE_ROWS);
+		for (int row = 0; row < rowCount; row += step) {
 			preferredWidth = Math.max(preferredWidth, getCellDataWidth(row, column));
 			//  We've exceeded the maximum width, no need to check other rows
 			if (preferredWidth >= maxWidth) break;
@@ -8,9 +8,9 @@ import codex.type.EntityRef;
 import codex.type.IComplexType;
 import codex.utils.Language;
 import java.text.MessageFormat;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /** 
  * Класс реализует модель свойства сущности {@link AbstractModel}.
@@ -30,8 +30,13 @@ public class PropertyHolder<T extends IComplexType<V, ? extends IMask<V>>, V> {
     private       boolean  require;
     private T value;
     private PropertyHolder<T, V> inherit;
-    private final List<IPropertyChangeListener> changeListeners = new LinkedList<>();
-    private final List<IPropertyStateListener>  stateListeners  = new LinkedList<>();
+    private final List<IPropertyChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final List<IPropertyStateListener>  stateListeners  = new CopyOnWriteArrayList<>();
+
+    private final Object            suspendLock = new Object();
+    private int                     suspendDepth = 0;
+    private IPropertyChangeListener immediateListener;
+    private Object[]                suspendedChange;
     
     /**
      * Конструктор свойства. Наименование и описание достаются их ресурса локализаии
@@ -244,10 +249,66 @@ public class PropertyHolder<T extends IComplexType<V, ? extends IMask<V>>, V> {
      * @param nextValue Новое значение.
      */
     private void fireChangeEvent(Object prevValue, Object nextValue) {
-        new LinkedList<>(changeListeners).forEach((listener) -> {
+        final IPropertyChangeListener immediate;
+        synchronized (suspendLock) {
+            if (suspendDepth > 0) {
+                if (suspendedChange == null) {
+                    suspendedChange = new Object[] {prevValue, nextValue};
+                } else {
+                    suspendedChange[1] = nextValue;
+                }
+                immediate = immediateListener;
+            } else {
+                immediate = null;
+            }
+        }
+        if (immediate != null) {
+            immediate.propertyChange(name, prevValue, nextValue);
+            return;
+        }
+        changeListeners.forEach((listener) -> {
             listener.propertyChange(name, prevValue, nextValue);
         });
     }
+
+    /**
+     * Приостановить оповещение слушателей об изменении значения. О каждом изменении
+     * оповещается только указанный слушатель (модель-владелец свойства), остальные получат
+     * одно событие при возобновлении. Вызовы могут быть вложенными.
+     * @param immediate Слушатель, оповещаемый без задержки.
+     */
+    public final void suspendEvents(IPropertyChangeListener immediate) {
+        synchronized (suspendLock) {
+            if (suspendDepth++ == 0) {
+                immediateListener = immediate;
+            }
+        }
+    }
+
+    /**
+     * Возобновить оповещение слушателей. Если за время приостановки значение изменилось,
+     * слушатели получают одно событие от исходного значения к итоговому.
+     */
+    public final void resumeEvents() {
+        final IPropertyChangeListener immediate;
+        final Object[] change;
+        synchronized (suspendLock) {
+            if (suspendDepth == 0 || --suspendDepth > 0) {
+                return;
+            }
+            immediate = immediateListener;
+            change = suspendedChange;
+            immediateListener = null;
+            suspendedChange   = null;
+        }
+        if (change != null && !Objects.equals(change[0], change[1])) {
+            changeListeners.forEach((listener) -> {
+                if (listener != immediate) {
+                    listener.propertyChange(name, change[0], change[1]);
+                }
+            });
+        }
+    }
     
     /**
      * Добавление слушателя события изменения состояния свойства.
@@ -260,7 +321,7 @@ public class PropertyHolder<T extends IComplexType<V, ? extends IMask<V>>, V> {
      * Оповещение слушателей об изменении состояния свойства.
      */
     private void fireStatusChangeEvent() {
-        new LinkedList<>(stateListeners).forEach((listener) -> listener.propertyStatusChange(name));
+        stateListeners.forEach((listener) -> listener.propertyStatusChange(name));
     }
     
     /**
@@ -6,15 +6,16 @@ import codex.task.GroupTask;
 import codex.task.ITask;
 import codex.task.ITaskExecutorService;
 import codex.task.ITaskListener;
+import codex.task.Status;
 import codex.type.EntityRef;
 import codex.utils.Language;
 import java.text.MessageFormat;
 import java.util.Collection;
-import java.util.concurrent.CancellationException;
-import java.util.concurrent.ExecutionException;
 
 public abstract class AbstractJob extends Job {
 
+    private final static long LOCK_RETRY = 1000;
+
     static {
         CommandRegistry.getInstance().registerCommand(ExecuteJob.class);
     }
@@ -37,25 +38,34 @@ public abstract class AbstractJob extends Job {
             scheduleTask.addListener(listener);
         }
 
-        new Thread(() -> {
-            try {
-                getLock().acquire();
-                if (foreground) {
-                    ServiceRegistry.getInstance().lookupService(ITaskExecutorService.class).executeTask(scheduleTask);
-                } else {
-                    ServiceRegistry.getInstance().lookupService(ITaskExecutorService.class).enqueueTask(scheduleTask);
-                }
-                scheduleTask.get();
-            } catch (InterruptedException | ExecutionException | CancellationException ignore) {
-                //
-            } finally {
-                getLock().release();
-                switch (scheduleTask.getStatus()) {
-                    case FAILED:    setJobStatus(JobScheduler.JobStatus.Failed);   break;
-                    case FINISHED:  setJobStatus(JobScheduler.JobStatus.Finished); break;
-                    case CANCELLED: setJobStatus(JobScheduler.JobStatus.Canceled); break;
+        scheduleTask.addListener(new ITaskListener() {
+            @Override
+            public void statusChanged(ITask task, Status prevStatus, Status nextStatus) {
+                if (nextStatus.isFinal()) {
+                    getLock().release();
+                    switch (nextStatus) {
+                        case FAILED:    setJobStatus(JobScheduler.JobStatus.Failed);   break;
+                        case FINISHED:  setJobStatus(JobScheduler.JobStatus.Finished); break;
+                        case CANCELLED: setJobStatus(JobScheduler.JobStatus.Canceled); break;
+                    }
                 }
             }
-        }).start();
+        });
+        dispatch(scheduleTask, foreground);
+    }
+
+    private void dispatch(ITask scheduleTask, boolean foreground) {
+        // Execution is postponed while the job is locked (being executed or edited)
+        JobDispatcher.getInstance().submit(() -> {
+            if (!getLock().tryAcquire()) {
+                JobDispatcher.getInstance().submit(() -> dispatch(scheduleTask, foreground), LOCK_RETRY);
+                return;
+            }
+            if (foreground) {
+                ServiceRegistry.getInstance().lookupService(ITaskExecutorService.class).executeTask(scheduleTask);
+            } else {
+                ServiceRegistry.getInstance().lookupService(ITaskExecutorService.class).enqueueTask(scheduleTask);
+            }
+        }, 0);
     }
 }
@@ -4,16 +4,22 @@ import codex.mask.IDateMask;
 import codex.model.*;
 import codex.type.Enum;
 import codex.type.*;
+import codex.utils.ImageUtils;
+import codex.utils.Language;
 import javax.swing.*;
 import java.util.Date;
+import java.util.Objects;
 
 abstract class Job extends PolyMorph {
 
+    private static final ImageIcon IMAGE_NEXT_RUN = ImageUtils.getByPath("/images/next.png");
+
     @PropertyDefinition(state = true)
     private final static String PROP_JOB_STATUS    = "status";
     @PropertyDefinition(state = true)
     private final static String PROP_JOB_FINISH    = "finish";
     private final static String PROP_JOB_RESULT    = "result";
+    private final static String PROP_JOB_NEXT      = "next";
             final static String PROP_JOB_DISABLE   = "disable";
 
     Job(EntityRef owner, String title) {
@@ -37,7 +43,22 @@ abstract class Job extends PolyMorph {
             };
         }, PROP_JOB_STATUS, PROP_JOB_FINISH);
 
-        registerColumnProperties(PROP_JOB_STATUS, PROP_JOB_FINISH, PROP_JOB_DISABLE, PROP_JOB_RESULT);
+        model.addDynamicProp(PROP_JOB_NEXT, new AnyType(), Access.Edit, () -> {
+            Date nextTime = getNextTime();
+            return new Iconified() {
+                @Override
+                public ImageIcon getIcon() {
+                    return nextTime == null ? null : IMAGE_NEXT_RUN;
+                }
+
+                @Override
+                public String toString() {
+                    return nextTime == null ? Language.get(Job.class, "next.empty") : IDateMask.Format.Full.format(nextTime);
+                }
+            };
+        });
+
+        registerColumnProperties(PROP_JOB_STATUS, PROP_JOB_FINISH, PROP_JOB_DISABLE, PROP_JOB_RESULT, PROP_JOB_NEXT);
     }
 
     void setJobStatus(JobScheduler.JobStatus status) {
@@ -60,6 +81,22 @@ abstract class Job extends PolyMorph {
         return model.getUnsavedValue(PROP_JOB_DISABLE) == Boolean.TRUE;
     }
 
+    /**
+     * Ближайшее время запуска по расписаниям задания.
+     */
+    private Date getNextTime() {
+        return childrenList().stream()
+                .filter(iNode -> iNode instanceof Schedule)
+                .map(iNode -> ((Schedule) iNode).getPlannedTime())
+                .filter(Objects::nonNull)
+                .min(Date::compareTo)
+                .orElse(null);
+    }
+
+    void updateNextTime() {
+        model.updateDynamicProps(PROP_JOB_NEXT);
+    }
+
     private Date getJobFinishTime() {
         return (Date) model.getUnsavedValue(PROP_JOB_FINISH);
     }
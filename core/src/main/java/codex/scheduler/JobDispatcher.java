@@ -0,0 +1,83 @@
+package codex.scheduler;
+
+import codex.log.Logger;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общий планировщик заданий. Все расписания и запуски заданий обслуживаются небольшим
+ * фиксированным количеством потоков, сами задания исполняются пулами сервиса задач.
+ * Периодическая проверка сравнивает время планового запуска расписаний с системными часами,
+ * что позволяет обнаружить пропущенные запуски после сна или гибернации компьютера.
+ */
+final class JobDispatcher {
+
+    private final static int  THREAD_COUNT    = 2;
+    private final static long WATCH_PERIOD    = TimeUnit.SECONDS.toMillis(30);
+    private final static JobDispatcher INSTANCE = new JobDispatcher();
+
+    static JobDispatcher getInstance() {
+        return INSTANCE;
+    }
+
+    private final ScheduledExecutorService executor;
+    private final Set<Schedule> schedules = ConcurrentHashMap.newKeySet();
+
+    private JobDispatcher() {
+        AtomicInteger threadNum = new AtomicInteger(0);
+        executor = Executors.newScheduledThreadPool(THREAD_COUNT, runnable -> {
+            Thread thread = new Thread(runnable, "Job scheduler #" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkOverdue, WATCH_PERIOD, WATCH_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Запланировать действие на указанное время.
+     * @param action Действие.
+     * @param time Время запуска по системным часам.
+     */
+    ScheduledFuture<?> schedule(Runnable action, Date time) {
+        return executor.schedule(
+                wrap(action),
+                Math.max(0, time.getTime() - System.currentTimeMillis()),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Выполнить действие потоком планировщика.
+     */
+    ScheduledFuture<?> submit(Runnable action, long delay) {
+        return executor.schedule(wrap(action), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Подключить расписание к проверке пропущенных запусков.
+     */
+    void watch(Schedule schedule) {
+        schedules.add(schedule);
+    }
+
+    void unwatch(Schedule schedule) {
+        schedules.remove(schedule);
+    }
+
+    private void checkOverdue() {
+        Date now = new Date();
+        schedules.forEach(schedule -> schedule.checkOverdue(now));
+    }
+
+    private static Runnable wrap(Runnable action) {
+        return () -> {
+            try {
+                action.run();
+            } catch (Throwable e) {
+                Logger.getLogger().error("Job scheduler error", e);
+            }
+        };
+    }
+}
@@ -56,6 +56,10 @@ abstract class JobTrigger extends PolyMorph implements IContext {
         return !job.isDisabled();
     }
 
+    void updateJobNextTime() {
+        job.updateNextTime();
+    }
+
     void setExtInfo(Object info) {
         model.setValue(PROP_EXT_INFO, info);
     }
@@ -16,7 +16,9 @@ import codex.utils.ImageUtils;
 import codex.utils.Language;
 import javax.swing.*;
 import java.util.*;
-import java.util.Timer;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 public abstract class Schedule extends JobTrigger implements ITaskListener, ClassCatalog.IDomain {
@@ -29,8 +31,15 @@ public abstract class Schedule extends JobTrigger implements ITaskListener, Clas
     private final static String PROP_NEXT = "nextTime";
     private final static String PROP_PASS = "bypass";
 
+    // Случайная задержка запуска, чтобы задания, запланированные на одно время, не стартовали одновременно
+    private final static long MAX_JITTER        = TimeUnit.SECONDS.toMillis(15);
+    // Опоздание запуска, после которого он считается пропущенным
+    private final static long MISFIRE_THRESHOLD = TimeUnit.MINUTES.toMillis(1);
+    private final static int  MAX_CATCH_UP      = 10;
+
     private final Predicate<String> isParameterProperty = propName -> GROUP_PARAMETERS.equals(model.getPropertyGroup(propName));
-    private Timer timer;
+    private volatile ScheduledFuture<?> future;
+    private volatile int catchUp = 0;
 
     public Schedule(EntityRef owner, String title) {
         super(owner, title);
@@ -60,6 +69,7 @@ public abstract class Schedule extends JobTrigger implements ITaskListener, Clas
             public void modelDeleted(EntityModel model) {
                 Logger.getLogger().debug("Purge job schedule: [{0}/{1}]", getJobTitle(), getTitle());
                 reset();
+                updateJobNextTime();
             }
         });
 
@@ -69,20 +79,21 @@ public abstract class Schedule extends JobTrigger implements ITaskListener, Clas
             }
         });
 
-        if (getNextTime() != null && getNextTime().before(new Date()) && getOverdueAction() == OverdueAction.Execute) {
-            createTimerTask().run();
-        } else {
+        try {
+            getLock().acquire();
+        } catch (InterruptedException ignore) {}
+        SwingUtilities.invokeLater(() -> {
             try {
                 getLock().acquire();
-            } catch (InterruptedException ignore) {}
-            SwingUtilities.invokeLater(() -> {
-                try {
-                    getLock().acquire();
+                Date nextTime = getNextTime();
+                if (nextTime != null && nextTime.before(new Date()) && getOverdueAction() != OverdueAction.Postpone) {
+                    misfire(nextTime, new Date());
+                } else {
                     schedule();
-                    getLock().release();
-                } catch (InterruptedException ignore) {}
-            });
-        }
+                }
+                getLock().release();
+            } catch (InterruptedException ignore) {}
+        });
 
         setPropertyRestriction(EntityModel.PID, Access.Any);
     }
@@ -91,6 +102,13 @@ public abstract class Schedule extends JobTrigger implements ITaskListener, Clas
         return (OverdueAction) model.getValue(PROP_PASS);
     }
 
+    /**
+     * Возвращает время следующего запуска, если запуск запланирован.
+     */
+    final Date getPlannedTime() {
+        return future == null ? null : getNextTime();
+    }
+
     private Date getNextTime() {
         return (Date) (model.getUnsavedValue(PROP_NEXT));
     }
@@ -120,7 +138,12 @@ public abstract class Schedule extends JobTrigger implements ITaskListener, Clas
     }
 
     protected abstract String calcTitle();
-    protected abstract Date   calcTime();
+    /**
+     * Расчет времени следующего запуска.
+     * @param last Время предыдущего запуска (может быть NULL).
+     * @param now Текущее время, результат должен быть позже него.
+     */
+    protected abstract Date   calcTime(Date last, Date now);
 
     private void updateTitle() {
         String title = calcTitle();
@@ -128,24 +151,29 @@ public abstract class Schedule extends JobTrigger implements ITaskListener, Clas
     }
 
     private void reset() {
-        if (timer != null) {
-            timer.cancel();
+        ScheduledFuture<?> planned = future;
+        if (planned != null) {
+            planned.cancel(false);
+            future = null;
         }
+        JobDispatcher.getInstance().unwatch(this);
     }
 
     private void schedule() {
         reset();
-        Date nextTime = calcTime();
+        Date nextTime = calcTime(getLastTime(), new Date());
         if (nextTime != null) {
             setNextTime(nextTime);
+            long jitter = ThreadLocalRandom.current().nextLong(MAX_JITTER + 1);
             Logger.getLogger().debug(
-                    "Plan job schedule [{0}/{1}] next execution time: {2}",
+                    "Plan job schedule [{0}/{1}] next execution time: {2} (jitter {3} ms)",
                     getJobTitle(),
                     getTitle(),
-                    IDateMask.Format.Full.format(nextTime)
+                    IDateMask.Format.Full.format(nextTime),
+                    jitter
             );
-            timer = new Timer(true);
-            timer.schedule(createTimerTask(), nextTime);
+            future = JobDispatcher.getInstance().schedule(this::fire, new Date(nextTime.getTime() + jitter));
+            JobDispatcher.getInstance().watch(this);
         }
         setExtInfo(nextTime == null ? null : new Iconified() {
            @Override
@@ -161,31 +189,98 @@ public abstract class Schedule extends JobTrigger implements ITaskListener, Clas
         try {
             model.commit(false);
         } catch (Exception ignore) {}
+        updateJobNextTime();
     }
 
-    private TimerTask createTimerTask() {
-        return new TimerTask() {
-            @Override
-            public void run() {
-                Logger.getLogger().debug("Post job ''{0}'' for execution", getJobTitle());
-                if (!executeJob(Schedule.this)) {
-                    schedule();
-                }
+    /**
+     * Проверка пропущенного запуска по системным часам: запланированная задача планировщика
+     * могла не сработать вовремя, если компьютер находился в режиме сна.
+     */
+    void checkOverdue(Date now) {
+        ScheduledFuture<?> planned = future;
+        Date nextTime = getNextTime();
+        if (planned != null && nextTime != null && isOverdue(nextTime, now) && planned.cancel(false)) {
+            fire();
+        }
+    }
+
+    private void fire() {
+        future = null;
+        JobDispatcher.getInstance().unwatch(this);
+        Date now = new Date();
+        Date nextTime = getNextTime();
+        if (nextTime != null && isOverdue(nextTime, now)) {
+            misfire(nextTime, now);
+        } else {
+            execute();
+        }
+    }
+
+    private void misfire(Date nextTime, Date now) {
+        OverdueAction action = getOverdueAction();
+        Logger.getLogger().debug(
+                "Job schedule [{0}/{1}] missed execution time {2}, action: {3}",
+                getJobTitle(),
+                getTitle(),
+                IDateMask.Format.Full.format(nextTime),
+                action.name()
+        );
+        switch (action) {
+            case Postpone:
+                schedule();
+                break;
+            case CatchUp:
+                catchUp = countMissed(nextTime, now) - 1;
+                execute();
+                break;
+            case Execute:
+                execute();
+                break;
+        }
+    }
+
+    private void execute() {
+        Logger.getLogger().debug("Post job ''{0}'' for execution", getJobTitle());
+        if (!executeJob(this)) {
+            catchUp = 0;
+            schedule();
+        }
+    }
+
+    private int countMissed(Date from, Date now) {
+        int  missed = 1;
+        Date time = from;
+        while (missed < MAX_CATCH_UP) {
+            time = calcTime(time, time);
+            if (time == null || time.after(now)) {
+                break;
             }
-        };
+            missed++;
+        }
+        return missed;
+    }
+
+    private static boolean isOverdue(Date nextTime, Date now) {
+        return now.getTime() - nextTime.getTime() > MAX_JITTER + MISFIRE_THRESHOLD;
     }
 
     @Override
     public void statusChanged(ITask task, Status prevStatus, Status nextStatus) {
         if (nextStatus.isFinal()) {
-            setLastTime(getNextTime());
-            schedule();
+            if (catchUp > 0) {
+                catchUp--;
+                execute();
+            } else {
+                setLastTime(getNextTime());
+                schedule();
+            }
         }
     }
 
     public enum OverdueAction implements Iconified {
 
         Execute(ImageUtils.getByPath("/images/command.png")),
+        CatchUp(ImageUtils.getByPath("/images/update.png")),
         Postpone(ImageUtils.getByPath("/images/daily.png"));
 
         private final String    title;
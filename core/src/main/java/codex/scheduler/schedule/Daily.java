@@ -40,9 +40,7 @@ public class Daily extends Schedule {
     }
 
     @Override
-    protected Date calcTime() {
-        Date now  = new Date();
-        Date last = getLastTime();
+    protected Date calcTime(Date last, Date now) {
         Calendar  calendar = Calendar.getInstance();
 
         Date date = DateTime.trunc(last == null ? now : last);
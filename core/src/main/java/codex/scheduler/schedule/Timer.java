@@ -48,9 +48,7 @@ public class Timer extends Schedule {
     }
 
     @Override
-    protected Date calcTime() {
-        Date now  = new Date();
-        Date last = getLastTime();
+    protected Date calcTime(Date last, Date now) {
         Calendar  calendar = Calendar.getInstance();
 
         Integer   timerAmt = getAmount();
@@ -93,9 +93,7 @@ public class Weekly extends Schedule {
     }
 
     @Override
-    protected Date calcTime() {
-        Date now  = new Date();
-        Date last = getLastTime();
+    protected Date calcTime(Date last, Date now) {
         Calendar  calendar = Calendar.getInstance();
 
         Date date = DateTime.trunc(last == null ? now : last);
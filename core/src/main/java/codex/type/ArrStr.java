@@ -12,8 +12,16 @@ import java.util.*;
 public class ArrStr implements ISerializableType<List<String>, IArrMask> {
     
     private final static IEditorFactory<ArrStr, List<String>> EDITOR_FACTORY = ArrStrEditor::new;
+    private final static int CACHE_SIZE = 1000;
+    private final static java.util.Map<String, String[]> PARSE_CACHE = new LinkedHashMap<String, String[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(java.util.Map.Entry<String, String[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
     
-    private List<String> value;
+    private volatile List<String> value;
+    private volatile String   serialized;
     private IArrMask mask;
     
     /**
@@ -42,20 +50,26 @@ public class ArrStr implements ISerializableType<List<String>, IArrMask> {
 
     @Override
     public List<String> getValue() {
+        decodeSerialized();
+        List<String> value = this.value;
         return value == null ? null : new FormattedList(value);
     }
 
     @Override
-    public void setValue(List<String> value) {
+    public synchronized void setValue(List<String> value) {
         if (value != null && !value.isEmpty()) {
             this.value = new FormattedList(value);
         } else {
             this.value = new FormattedList(new LinkedList<>());
         }
+        serialized = null;
     }
     
     @Override
     public boolean isEmpty() {
+        // Строковое представление пустого списка не обязательно пустое ("0")
+        decodeSerialized();
+        List<String> value = this.value;
         return 
             value == null || 
             value.isEmpty()/* || (
@@ -82,12 +96,32 @@ public class ArrStr implements ISerializableType<List<String>, IArrMask> {
     
     @Override
     public String toString() {
-        return merge(value);
+        // Значение, не изменявшееся после чтения, записывается в исходном виде
+        String asStr = serialized;
+        return asStr != null ? asStr : merge(value);
     }
     
     @Override
-    public void valueOf(String value) {
-        setValue(parse(value));
+    public synchronized void valueOf(String value) {
+        // Разбор откладывается до первого обращения к значению
+        setValue(null);
+        serialized = value;
+    }
+
+    /**
+     * Разбор отложенного строкового представления. Значение публикуется целиком до сброса
+     * строкового представления, поэтому читатель, не заставший строку, видит готовый список.
+     */
+    private void decodeSerialized() {
+        if (serialized != null) {
+            synchronized (this) {
+                String asStr = serialized;
+                if (asStr != null) {
+                    value = new FormattedList(parse(asStr));
+                    serialized = null;
+                }
+            }
+        }
     }
     
     @Override
@@ -114,68 +148,69 @@ public class ArrStr implements ISerializableType<List<String>, IArrMask> {
     }
     
     /**
-     * Преобразование строкового представления массива в объект.
+     * Преобразование строкового представления массива в объект. Результаты разбора кэшируются
+     * по исходной строке, повторное чтение одного и того же значения не требует разбора.
      * @param asStr Исходная строка.
      */
     public static List<String> parse(String asStr) throws IllegalStateException {
-        List<String> values = new LinkedList<>();
-        int size;
-        if (!asStr.isEmpty()) {
-            int pos1 = asStr.indexOf('[');
-            if (pos1 < 0) {
-                pos1 = asStr.length();
+        if (asStr.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String[] items;
+        synchronized (PARSE_CACHE) {
+            items = PARSE_CACHE.get(asStr);
+        }
+        if (items == null) {
+            items = decode(asStr);
+            synchronized (PARSE_CACHE) {
+                PARSE_CACHE.put(asStr, items);
             }
-            try {
-                size = Integer.parseInt(asStr.substring(0, pos1));
-            } catch (NumberFormatException e) {
-                throw new IllegalStateException("Wrong format of array string presentation. Wrong array size format.", e);
+        }
+        return new ArrayList<>(Arrays.asList(items));
+    }
+
+    private static String[] decode(String asStr) throws IllegalStateException {
+        int pos = asStr.indexOf('[');
+        if (pos < 0) {
+            pos = asStr.length();
+        }
+        int size;
+        try {
+            size = Integer.parseInt(asStr.substring(0, pos));
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Wrong format of array string presentation. Wrong array size format.", e);
+        }
+        if (size < 0) {
+            throw new IllegalStateException("Wrong format of array string presentation. Wrong array size format.");
+        }
+        String[] items = new String[size];
+        int count = 0;
+        while (pos < asStr.length()) {
+            int close = asStr.indexOf(']', pos);
+            if (asStr.charAt(pos) != '[' || close < 0) {
+                throw new IllegalStateException("Wrong format of array string presentation");
             }
-            int     pos2 = asStr.indexOf(']', pos1);
-            String  lenStr;
-            int     len;
-            boolean isNull;
-            String  itemAsStr;
-            while (pos2 != -1) {
-                if (pos2 - pos1 < 1) {
-                    throw new IllegalStateException("Wrong format of array string presentation");
-                }
-                try {
-                    lenStr = asStr.substring(pos1 + 1, pos2);
-                    isNull = (lenStr.length() == 0);
-                    if (!isNull) {
-                        len = Integer.parseInt(lenStr);
-                    } else {
-                        len = 0;
-                    }
-                } catch (NumberFormatException e) {
+            int len = 0;
+            for (int idx = pos + 1; idx < close; idx++) {
+                char digit = asStr.charAt(idx);
+                if (digit < '0' || digit > '9') {
                     throw new IllegalStateException("Wrong format of array string presentation. Can't parse item length");
                 }
-                if (!isNull) {
-                    if (len == 0) {
-                        itemAsStr = "";
-                    } else {
-                        if (pos2 + len >= asStr.length()) {
-                            throw new IllegalStateException("Wrong format of array string presentation. Wrong item length.", null);
-                        }
-                        itemAsStr = asStr.substring(pos2 + 1, pos2 + 1 + len);
-                    }
-                    values.add(itemAsStr);
-                } else {
-                    values.add("");
-                }
-                pos1 = pos2 + len + 1;
-                if (pos1 >= asStr.length()) {
-                    break;
-                }
-                pos2 = asStr.indexOf(']', pos1);
+                len = len * 10 + (digit - '0');
             }
-            if (values.size() != size) {
-                throw new IllegalStateException("Wrong format of array string presentation. Wrong array item count.", null);
+            if (close + 1 + len > asStr.length()) {
+                throw new IllegalStateException("Wrong format of array string presentation. Wrong item length.");
             }
-        } else {
-            values.clear();
+            if (count == size) {
+                throw new IllegalStateException("Wrong format of array string presentation. Wrong array item count.");
+            }
+            items[count++] = asStr.substring(close + 1, close + 1 + len);
+            pos = close + 1 + len;
+        }
+        if (count != size) {
+            throw new IllegalStateException("Wrong format of array string presentation. Wrong array item count.");
         }
-        return values;
+        return items;
     }
     
     private class FormattedList extends LinkedList<String> {
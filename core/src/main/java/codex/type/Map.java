@@ -23,7 +23,8 @@ public class Map<K, V> implements ISerializableType<java.util.Map<K, V>, IMask<j
     private final ISerializableType<K, ? extends IMask<K>> keyBuf;
     private final ISerializableType<V, ? extends IMask<V>> valBuf;
 
-    private java.util.Map<K, V> value;
+    private volatile java.util.Map<K, V> value;
+    private volatile String serialized;
     private final V defaultValue;
 
     @SuppressWarnings("unchecked")
@@ -58,16 +59,18 @@ public class Map<K, V> implements ISerializableType<java.util.Map<K, V>, IMask<j
 
     @Override
     public java.util.Map<K, V> getValue() {
+        decodeSerialized();
         return new InternalMap(value);
     }
 
     @Override
-    public void setValue(java.util.Map<K, V> value) {
+    public synchronized void setValue(java.util.Map<K, V> value) {
         if (value != null) {
             this.value = new InternalMap(value);
         } else {
             this.value = new InternalMap();
         }
+        serialized = null;
     }
 
     public java.util.Map.Entry<? extends ISerializableType<K, ? extends IMask<K>>, ? extends ISerializableType<V, ? extends IMask<V>>> newEntry() {
@@ -120,6 +123,7 @@ public class Map<K, V> implements ISerializableType<java.util.Map<K, V>, IMask<j
 
     @Override
     public boolean isEmpty() {
+        decodeSerialized();
         return value == null || value.isEmpty();
     }
 
@@ -129,25 +133,61 @@ public class Map<K, V> implements ISerializableType<java.util.Map<K, V>, IMask<j
     }
 
     @Override
-    public void valueOf(String value) {
+    public synchronized void valueOf(String value) {
         if (value != null && !value.isEmpty()) {
-            List<String> list = ArrStr.parse(value);
-            for (int keyIdx = 0; keyIdx < list.size(); keyIdx = keyIdx+2) {
-                if (keyBuf != null) keyBuf.valueOf(list.get(keyIdx));
-                if (valBuf != null) valBuf.valueOf(list.get(keyIdx+1));
-                if (keyBuf != null) {
-                    this.value.put(keyBuf.getValue(), valBuf == null ? null : valBuf.getValue());
+            if (serialized == null && this.value.isEmpty()) {
+                // Разбор откладывается до первого обращения к значению
+                serialized = value;
+            } else {
+                decodeSerialized();
+                java.util.Map<K, V> merged = new InternalMap(this.value);
+                decode(value, merged);
+                this.value = merged;
+            }
+        }
+    }
+
+    /**
+     * Разбор отложенного строкового представления. Значение собирается в отдельной карте и
+     * публикуется целиком до сброса строкового представления.
+     */
+    private void decodeSerialized() {
+        if (serialized != null) {
+            synchronized (this) {
+                String asStr = serialized;
+                if (asStr != null) {
+                    java.util.Map<K, V> decoded = new InternalMap();
+                    decode(asStr, decoded);
+                    value = decoded;
+                    serialized = null;
                 }
             }
         }
     }
 
+    private void decode(String value, java.util.Map<K, V> target) {
+        List<String> list = ArrStr.parse(value);
+        for (int keyIdx = 0; keyIdx < list.size(); keyIdx = keyIdx+2) {
+            if (keyBuf != null) keyBuf.valueOf(list.get(keyIdx));
+            if (valBuf != null) valBuf.valueOf(list.get(keyIdx+1));
+            if (keyBuf != null) {
+                target.put(keyBuf.getValue(), valBuf == null ? null : valBuf.getValue());
+            }
+        }
+    }
+
     @Override
-    public String toString() {
+    public synchronized String toString() {
+        String asStr = serialized;
+        if (asStr != null) {
+            // Значение, не изменявшееся после чтения, записывается в исходном виде
+            return asStr;
+        }
+        java.util.Map<K, V> value = this.value;
         if (value == null || value.isEmpty()) {
             return "";
         } else {
-            List<String> list = new LinkedList<>();
+            List<String> list = new ArrayList<>(value.size() * 2);
             value.forEach((k, v) -> {
                 keyBuf.setValue(k);
                 valBuf.setValue(v);
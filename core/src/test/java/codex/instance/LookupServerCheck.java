@@ -0,0 +1,117 @@
+package codex.instance;
+
+import codex.log.Logger;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Проверка сервера поиска инстанций: несколько серверов в одной JVM обмениваются пакетами
+ * через multicast на loopback-интерфейсе и проходят этапы подключения, подозрения в отключении,
+ * отключения по таймауту и штатного отключения. Запускается в отдельной JVM:
+ * <pre>
+ * java -cp &lt;classpath&gt; [-Dinstances=4] codex.instance.LookupServerCheck
+ * </pre>
+ * Код завершения 0 - все этапы пройдены, 1 - ошибка, 2 - loopback-интерфейс недоступен.
+ */
+public class LookupServerCheck {
+
+    private static final int  INSTANCES = Math.max(3, Integer.getInteger("instances", 4));
+    private static final long PERIOD    = 300;
+    private static final int  RPC_PORT  = 40000;
+
+    public static void main(String[] args) throws Exception {
+        // До загрузки класса сервера: таймауты вычисляются от периода рассылки
+        System.setProperty("ics.heartbeatPeriod", String.valueOf(PERIOD));
+
+        // Первое обращение к журналу запускает реестр сервисов, что не должно попасть в замер этапов
+        Logger.getLogger();
+
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        if (loopback == null || !loopback.isUp()) {
+            System.out.println("Loopback interface is not available");
+            System.exit(2);
+        }
+
+        List<Probe> probes = new ArrayList<>();
+        for (int i = 0; i < INSTANCES; i++) {
+            probes.add(new Probe(RPC_PORT + i, Collections.singletonMap(loopback, InetAddress.getLoopbackAddress())));
+        }
+        probes.forEach(LookupServer::start);
+
+        // Подключение: каждая инстанция видит все остальные
+        check("join", PERIOD * 10, () -> probes.stream().allMatch(probe -> probe.linked.size() == INSTANCES - 1));
+
+        // Отказ: инстанция перестает рассылать пакеты, не сообщив об отключении
+        Probe failed = probes.remove(probes.size() - 1);
+        failed.stop(false);
+        check("suspect", PERIOD * 6, () -> probes.stream().allMatch(probe -> probe.suspected.contains(failed.rpcPort)));
+        check("fail", PERIOD * 10, () -> probes.stream().allMatch(probe -> !probe.linked.contains(failed.rpcPort)));
+
+        // Штатное отключение: остальные удаляют инстанцию раньше, чем заподозрят ее
+        Probe left = probes.remove(probes.size() - 1);
+        left.stop(true);
+        check("leave", PERIOD * 2, () -> probes.stream().allMatch(probe -> !probe.linked.contains(left.rpcPort)));
+        if (probes.stream().anyMatch(probe -> probe.suspected.contains(left.rpcPort))) {
+            fail("leave", "instance has been suspected before it left");
+        }
+
+        probes.forEach(probe -> probe.stop(true));
+        System.out.println("All stages passed");
+        System.exit(0);
+    }
+
+    private static void check(String stage, long timeout, BooleanSupplier condition) throws InterruptedException {
+        long started = System.currentTimeMillis();
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() - started > timeout) {
+                fail(stage, "timeout " + timeout + " ms");
+            }
+            Thread.sleep(PERIOD / 10);
+        }
+        System.out.println(MessageFormat.format(
+                "Stage ''{0}'' passed in {1} ms", stage, String.valueOf(System.currentTimeMillis() - started)
+        ));
+    }
+
+    private static void fail(String stage, String reason) {
+        System.out.println(MessageFormat.format("Stage ''{0}'' failed: {1}", stage, reason));
+        System.exit(1);
+    }
+
+
+    private static class Probe extends LookupServer {
+
+        private final int rpcPort;
+        private final Set<Integer> linked    = ConcurrentHashMap.newKeySet();
+        private final Set<Integer> suspected = ConcurrentHashMap.newKeySet();
+
+        Probe(int rpcPort, Map<NetworkInterface, InetAddress> interfaces) throws IOException {
+            super(rpcPort, interfaces, true);
+            this.rpcPort = rpcPort;
+        }
+
+        @Override
+        protected void linkInstance(Instance instance) {
+            linked.add(instance.rpcPort);
+        }
+
+        @Override
+        protected void unlinkInstance(Instance instance) {
+            linked.remove(instance.rpcPort);
+        }
+
+        @Override
+        protected void suspectInstance(Instance instance) {
+            suspected.add(instance.rpcPort);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package codex.model;
+
+import codex.config.IConfigStoreService;
+import codex.explorer.tree.INode;
+import codex.explorer.tree.NodeTreeModel;
+import codex.service.ServiceRegistry;
+import codex.type.EntityRef;
+import codex.type.Str;
+import java.io.File;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.*;
+
+/**
+ * Замер раскрытия отложенного каталога (см. {@link EntityDefinition#lazy()}) с большим
+ * количеством потомков. Запускается в отдельной JVM:
+ * <pre>
+ * java -cp &lt;classpath&gt; [-Dentries=5000] codex.model.CatalogExpansionBenchmark
+ * </pre>
+ * База конфигурации создается во временном каталоге, который подставляется вместо
+ * домашнего каталога пользователя. Сущности каталога записываются в базу и вытесняются из
+ * кэша, поэтому при раскрытии они читаются и создаются заново, как при первом раскрытии
+ * узла после запуска приложения. Выводятся время появления первой порции потомков в дереве,
+ * время загрузки всего каталога и наибольшая задержка обработки событий EDT.
+ */
+public class CatalogExpansionBenchmark {
+
+    private static final int  ENTRIES = Integer.getInteger("entries", 5000);
+    private static final long TIMEOUT = TimeUnit.MINUTES.toNanos(5);
+    private static final int  PROBE   = 5;
+
+    public static void main(String[] args) throws Exception {
+        // До первого обращения к реестру сервисов: база конфигурации создается во временном каталоге
+        File home = Files.createTempDirectory("catalog-benchmark").toFile();
+        System.setProperty("user.home", home.getAbsolutePath());
+
+        BenchmarkRoot root = new BenchmarkRoot();
+        long started = System.nanoTime();
+        populate();
+        System.out.println(MessageFormat.format(
+                "Populated {0} entries in {1} ms ({2})",
+                ENTRIES, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), home
+        ));
+
+        AtomicReference<NodeTreeModel> treeModel = new AtomicReference<>();
+        AtomicLong lastTick = new AtomicLong();
+        AtomicLong maxStall = new AtomicLong();
+        Timer probe = new Timer(PROBE, event -> {
+            long now = System.nanoTime();
+            maxStall.accumulateAndGet(now - lastTick.getAndSet(now), Math::max);
+        });
+        SwingUtilities.invokeAndWait(() -> {
+            treeModel.set(new NodeTreeModel(root));
+            new JTree(treeModel.get());
+            lastTick.set(System.nanoTime());
+            probe.start();
+        });
+
+        System.gc();
+        long usedBefore = usedMemory();
+        started = System.nanoTime();
+        // Навигатор начинает загрузку при раскрытии узла в потоке EDT
+        SwingUtilities.invokeLater(root::ensureChildrenLoaded);
+
+        long firstPage = -1;
+        AtomicInteger visible = new AtomicInteger();
+        while (visible.get() < ENTRIES && System.nanoTime() - started < TIMEOUT) {
+            SwingUtilities.invokeAndWait(() -> {
+                NodeTreeModel model = treeModel.get();
+                int count = model.getChildCount(root);
+                visible.set(count > 0 && model.getChild(root, 0) instanceof INode ? count : 0);
+            });
+            if (firstPage < 0 && visible.get() > 0) {
+                firstPage = System.nanoTime() - started;
+            }
+            Thread.sleep(PROBE);
+        }
+        long total = System.nanoTime() - started;
+        SwingUtilities.invokeAndWait(probe::stop);
+
+        System.out.println(MessageFormat.format(
+                "Expanded {0} of {1} entries: first page {2} ms, total {3} ms, max EDT stall {4} ms, heap +{5} KB",
+                visible.get(), ENTRIES,
+                TimeUnit.NANOSECONDS.toMillis(firstPage),
+                TimeUnit.NANOSECONDS.toMillis(total),
+                TimeUnit.NANOSECONDS.toMillis(maxStall.get()),
+                (usedMemory() - usedBefore) / 1024
+        ));
+        System.exit(visible.get() == ENTRIES ? 0 : 1);
+    }
+
+    private static void populate() throws Exception {
+        List<BenchmarkEntry> created = new LinkedList<>();
+        ServiceRegistry.getInstance().lookupService(IConfigStoreService.class).runInTransaction(() -> {
+            for (int i = 0; i < ENTRIES; i++) {
+                BenchmarkEntry entry = Entity.newInstance(BenchmarkEntry.class, null, "Entry #" + i);
+                entry.model.setValue(BenchmarkEntry.PROP_NOTE, "Note #" + i);
+                entry.model.commit(false);
+                created.add(entry);
+            }
+        });
+        created.forEach(EntityCache.getInstance()::remove);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+
+    @EntityDefinition(lazy = true)
+    static class BenchmarkRoot extends Catalog {
+
+        BenchmarkRoot() {
+            super(null, null, "Benchmark", null);
+        }
+
+        @Override
+        public Class<? extends Entity> getChildClass() {
+            return BenchmarkEntry.class;
+        }
+    }
+
+
+    static class BenchmarkEntry extends Entity {
+
+        static final String PROP_NOTE = "note";
+
+        BenchmarkEntry(EntityRef owner, String PID) {
+            super(owner, null, PID, null);
+            model.addUserProp(PROP_NOTE, new Str(null), false, null);
+        }
+    }
+
+}
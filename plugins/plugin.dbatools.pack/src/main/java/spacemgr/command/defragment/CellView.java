@@ -31,8 +31,9 @@ class CellView extends Catalog implements IFormController.ICellView {
             controller.getMapView().showExtents(selected.parallelStream()
                     .map(entity -> ((ExtentView) entity).getExtent())
                     .map(Extent::getSegment)
-                    .map(Segment::getExtents)
-                    .flatMap(Collection::parallelStream)
+                    .distinct()
+                    .map(controller.getDataProvider()::getExtents)
+                    .flatMap(Collection::stream)
                     .collect(Collectors.toList())
             );
         });
@@ -115,6 +116,7 @@ class CellView extends Catalog implements IFormController.ICellView {
                     Language.get(CellView.class, "command@run"),
                     cellView -> !cellView.controller.getDataProvider().getExtents().isEmpty()
             );
+            setParameters(DefragmentationTask.createParameters());
         }
 
         @Override
@@ -124,7 +126,7 @@ class CellView extends Catalog implements IFormController.ICellView {
 
         @Override
         public void execute(CellView context, Map<String, IComplexType> params) {
-            ITask task = new DefragmentationTask(context.controller, null);
+            ITask task = new DefragmentationTask(context.controller, null, DefragmentationTask.getOptions(params));
             ServiceRegistry.getInstance()
                     .lookupService(ITaskExecutorService.class)
                     .quietTask(task);
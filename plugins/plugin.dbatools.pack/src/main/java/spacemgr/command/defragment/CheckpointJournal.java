@@ -0,0 +1,201 @@
+package spacemgr.command.defragment;
+
+import codex.log.Logger;
+import spacemgr.TableSpaceManager;
+import spacemgr.command.objects.TableSpace;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local journal of the defragmentation plan and commands completed so far. The plan is written
+ * before the movement is started, each successful command is appended as soon as it finishes.
+ * If the movement is interrupted the journal allows to continue the remaining commands without
+ * generation of the plan. The journal is deleted when the temporary tablespace is dropped.
+ */
+class CheckpointJournal {
+
+    private final static String JOURNAL_DIR = ".manager.tranzaxis/defragmentation";
+    private final static String SEPARATOR   = "\t";
+    private final static String REC_SPACE   = "SPACE";
+    private final static String REC_PLAN    = "PLAN";
+    private final static String REC_START   = "START";
+    private final static String REC_DONE    = "DONE";
+
+    private final String spaceName;
+    private final Path   file;
+
+    CheckpointJournal(TableSpace tableSpace) {
+        this.spaceName = tableSpace.getPID();
+        String database = tableSpace.getDatabase() == null ? "" : String.valueOf(tableSpace.getDatabase().getDatabaseUrl(false));
+        this.file = Paths.get(
+                System.getProperty("user.home"),
+                JOURNAL_DIR,
+                spaceName.concat("-").concat(Integer.toHexString(database.hashCode())).concat(".journal")
+        );
+    }
+
+    boolean exists() {
+        return Files.exists(file);
+    }
+
+    /**
+     * Create new journal with the plan of the movement.
+     */
+    void writePlan(List<DefragmentationTask.Command> commands) {
+        List<String> records = new LinkedList<>();
+        records.add(record(REC_SPACE, spaceName));
+        commands.forEach(command -> records.add(record(
+                REC_PLAN,
+                command.getKey(),
+                command.isAccess() ? DefragmentationTask.Recorded.KIND_ACCESS : command.isIndex() ? DefragmentationTask.Recorded.KIND_INDEX : "",
+                command.isForward() && command.isBackward() ? DefragmentationTask.Direction.Any.name() :
+                        command.isForward() ? DefragmentationTask.Direction.Forward.name() : DefragmentationTask.Direction.Backward.name(),
+                command.getOwner(),
+                command.getTableKey(),
+                String.valueOf(command.getSize()),
+                command.getResetSQL(),
+                command.isForward()  ? command.getSQL(DefragmentationTask.Direction.Forward)    : null,
+                command.isForward()  ? command.getTitle(DefragmentationTask.Direction.Forward)  : null,
+                command.isBackward() ? command.getSQL(DefragmentationTask.Direction.Backward)   : null,
+                command.isBackward() ? command.getTitle(DefragmentationTask.Direction.Backward) : null
+        )));
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, records, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Logger.getContextLogger(TableSpaceManager.class).warn("Unable to write defragmentation journal ''{0}''", file);
+        }
+    }
+
+    /**
+     * Mark the temporary tablespace as created, commands are going to be executed.
+     */
+    void started() {
+        append(record(REC_START));
+    }
+
+    /**
+     * Mark the command as completed in the direction.
+     */
+    void completed(DefragmentationTask.Command command, DefragmentationTask.Direction direction) {
+        append(record(REC_DONE, direction.name(), command.getKey()));
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            Logger.getContextLogger(TableSpaceManager.class).warn("Unable to delete defragmentation journal ''{0}''", file);
+        }
+    }
+
+    /**
+     * Read the journal.
+     * @return Plan and completed commands or NULL if the journal does not exist or is damaged.
+     */
+    Checkpoint read() {
+        if (!exists()) {
+            return null;
+        }
+        Checkpoint checkpoint = new Checkpoint();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(SEPARATOR, -1);
+                switch (fields[0]) {
+                    case REC_SPACE:
+                        if (!spaceName.equals(fields[1])) {
+                            return null;
+                        }
+                        break;
+                    case REC_PLAN:
+                        checkpoint.commands.add(new DefragmentationTask.Recorded(
+                                fields[1], fields[2],
+                                DefragmentationTask.Direction.valueOf(fields[3]),
+                                value(fields[4]), value(fields[5]), Long.parseLong(fields[6]), value(fields[7]),
+                                value(fields[8]), value(fields[9]),
+                                value(fields[10]), value(fields[11])
+                        ));
+                        break;
+                    case REC_START:
+                        checkpoint.started = true;
+                        break;
+                    case REC_DONE:
+                        checkpoint.completed.add(Checkpoint.completedKey(DefragmentationTask.Direction.valueOf(fields[1]), fields[2]));
+                        break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Process has been interrupted while the record was written
+            Logger.getContextLogger(TableSpaceManager.class).warn("Defragmentation journal ''{0}'' is damaged", file);
+            return null;
+        }
+        return checkpoint.commands.isEmpty() ? null : checkpoint;
+    }
+
+    private synchronized void append(String record) {
+        try {
+            Files.write(
+                    file, Collections.singletonList(record), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC
+            );
+        } catch (IOException e) {
+            Logger.getContextLogger(TableSpaceManager.class).warn("Unable to write defragmentation journal ''{0}''", file);
+        }
+    }
+
+    private static String record(String type, String... fields) {
+        return Stream.concat(Stream.of(type), Arrays.stream(fields))
+                .map(field -> field == null ? "" : field.replaceAll("[\\t\\r\\n]", " "))
+                .collect(Collectors.joining(SEPARATOR));
+    }
+
+    private static String value(String field) {
+        return field.isEmpty() ? null : field;
+    }
+
+
+    static class Checkpoint {
+
+        private final List<DefragmentationTask.Command> commands = new LinkedList<>();
+        private final Set<String> completed = new HashSet<>();
+        private boolean started = false;
+
+        private static String completedKey(DefragmentationTask.Direction direction, String key) {
+            return direction.name().concat(":").concat(key);
+        }
+
+        /**
+         * Returns the plan of the interrupted movement.
+         */
+        List<DefragmentationTask.Command> getCommands() {
+            return commands;
+        }
+
+        /**
+         * Returns whether the movement has been started (the temporary tablespace was created).
+         */
+        boolean isStarted() {
+            return started;
+        }
+
+        boolean isCompleted(DefragmentationTask.Command command, DefragmentationTask.Direction direction) {
+            return completed.contains(completedKey(direction, command.getKey()));
+        }
+
+        /**
+         * Returns number of commands completed in both directions.
+         */
+        int getCompletedCount() {
+            return completed.size();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package spacemgr.command.defragment;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Defragmentation commands of one direction arranged as a dependency graph:
+ * <ul>
+ * <li>commands of the same table are executed in order of the plan;</li>
+ * <li>access grant precedes and access revoke follows all commands of the user;</li>
+ * <li>index commands with unknown table wait for all table and LOB commands planned before them.</li>
+ * </ul>
+ * Independent commands are executed concurrently by a bounded number of database sessions.
+ */
+class CommandGraph {
+
+    private final List<Node> nodes = new LinkedList<>();
+
+    /**
+     * @param commands Commands in order of the plan.
+     * @param direction Direction of the movement, commands not applicable to it are skipped.
+     */
+    CommandGraph(List<DefragmentationTask.Command> commands, DefragmentationTask.Direction direction) {
+        Map<String, Node> lastByTable = new HashMap<>();
+        Map<String, Node> quotaByOwner = new HashMap<>();
+        Map<String, List<Node>> byOwner = new HashMap<>();
+        List<Node> barrier = null;
+
+        for (DefragmentationTask.Command command : commands) {
+            if (!(direction == DefragmentationTask.Direction.Forward ? command.isForward() : command.isBackward())) {
+                continue;
+            }
+            Node node = new Node(command);
+            List<Node> ownerNodes = byOwner.computeIfAbsent(command.getOwner(), owner -> new LinkedList<>());
+            if (command.isAccess()) {
+                node.dependencies.addAll(ownerNodes);
+                quotaByOwner.put(command.getOwner(), node);
+            } else {
+                if (quotaByOwner.containsKey(command.getOwner())) {
+                    node.dependencies.add(quotaByOwner.get(command.getOwner()));
+                }
+                String tableKey = command.getTableKey();
+                if (tableKey != null) {
+                    if (lastByTable.containsKey(tableKey)) {
+                        node.dependencies.add(lastByTable.get(tableKey));
+                    }
+                    lastByTable.put(tableKey, node);
+                    barrier = null;
+                } else if (command.isIndex()) {
+                    if (barrier == null) {
+                        barrier = new ArrayList<>(lastByTable.values());
+                    }
+                    node.dependencies.addAll(barrier);
+                }
+            }
+            ownerNodes.add(node);
+            nodes.add(node);
+        }
+    }
+
+    /**
+     * Returns number of commands in the graph.
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns total size of segments processed by the commands (bytes).
+     */
+    long getSize() {
+        return nodes.stream().mapToLong(node -> node.command.getSize()).sum();
+    }
+
+    /**
+     * Estimate duration of the graph execution by simulation of list scheduling: commands are
+     * taken in order of the plan, each one starts on the earliest free session as soon as
+     * commands it depends on are finished.
+     * @param sessions Number of concurrent sessions.
+     * @param duration Estimated duration of a command (milliseconds).
+     * @return Estimated duration of the graph (milliseconds).
+     */
+    long estimate(int sessions, ToLongFunction<DefragmentationTask.Command> duration) {
+        PriorityQueue<Long> freeAt = new PriorityQueue<>();
+        for (int i = 0; i < Math.max(1, sessions); i++) {
+            freeAt.add(0L);
+        }
+        Map<Node, Long> finishAt = new HashMap<>();
+        long total = 0;
+        for (Node node : nodes) {
+            long ready = node.dependencies.stream().mapToLong(finishAt::get).max().orElse(0);
+            long start  = Math.max(freeAt.poll(), ready);
+            long finish = start + duration.applyAsLong(node.command);
+            freeAt.add(finish);
+            finishAt.put(node, finish);
+            total = Math.max(total, finish);
+        }
+        return total;
+    }
+
+    /**
+     * Execute commands of the graph. A command is started as soon as all commands it depends on
+     * are finished.
+     * @param sessions Maximum number of commands executed simultaneously.
+     * @param action Execution of a command. An exception thrown by the action stops the graph:
+     * commands that have not been started by that moment are skipped.
+     * @throws RuntimeException Exception of the first failed command.
+     */
+    void execute(int sessions, Consumer<DefragmentationTask.Command> action) {
+        AtomicInteger threadNum = new AtomicInteger(0);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, sessions), runnable -> {
+            Thread thread = new Thread(runnable, "Defragmentation session #" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Map<Node, CompletableFuture<Void>> futures = new HashMap<>();
+        for (Node node : nodes) {
+            CompletableFuture<?>[] dependencies = node.dependencies.stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture[]::new);
+            futures.put(node, CompletableFuture.allOf(dependencies).handleAsync((result, error) -> {
+                if (failure.get() == null) {
+                    try {
+                        action.accept(node.command);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+                return null;
+            }, pool));
+        }
+        try {
+            futures.values().forEach(CompletableFuture::join);
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+
+    private static class Node {
+
+        private final DefragmentationTask.Command command;
+        private final Set<Node> dependencies = new LinkedHashSet<>();
+
+        Node(DefragmentationTask.Command command) {
+            this.command = command;
+        }
+    }
+}
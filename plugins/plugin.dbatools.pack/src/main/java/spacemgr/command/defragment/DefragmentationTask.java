@@ -8,8 +8,12 @@ import codex.log.Level;
 import codex.log.Logger;
 import codex.log.LoggingSource;
 import codex.model.Entity;
+import codex.property.PropertyHolder;
 import codex.service.ServiceRegistry;
 import codex.task.*;
+import codex.type.Bool;
+import codex.type.IComplexType;
+import codex.type.Int;
 import codex.utils.FileUtils;
 import codex.utils.Language;
 import org.apache.commons.io.FilenameUtils;
@@ -27,7 +31,9 @@ import java.text.MessageFormat;
 import java.util.*;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -43,13 +49,22 @@ class DefragmentationTask extends AbstractTask<Void> {
     }
 
     private final static Integer DDL_LOCK_TIMEOUT = 30; // Seconds
+    private final static long    MOVE_RATE = Long.getLong("spacemgr.moveRate", 20) * 1024 * 1024; // Bytes per second
+    private final static long    STATEMENT_OVERHEAD = 2000; // Milliseconds
     private final static String  COMMAND_SUCCESS  = Language.get("step@process.success");
     private final static String  COMMAND_SKIP     = Language.get("step@process.skip");
     private final static String  COMMAND_ERROR    = Language.get("step@process.fail");
 
+    private final static String PARAM_SESSIONS = "sessions";
+    private final static String PARAM_ONLINE   = "online";
+    private final static String PARAM_PARALLEL = "parallel";
+
     private final IFormController  controller;
     private final Supplier<String> spaceName;
     private final List<Segment>    segments;
+    private final Options          options;
+    private final CheckpointJournal journal;
+    private CheckpointJournal.Checkpoint checkpoint;
 
     // Контексты логирования
     @LoggingSource()
@@ -62,7 +77,32 @@ class DefragmentationTask extends AbstractTask<Void> {
     private static class SQLGenerator implements IContext {}
 
 
+    /**
+     * Parameters of commands which start the defragmentation.
+     */
+    static PropertyHolder[] createParameters() {
+        return new PropertyHolder[] {
+                new PropertyHolder<>(PARAM_SESSIONS, new Int(Options.DEFAULT.sessions), true),
+                new PropertyHolder<>(PARAM_ONLINE,   new Bool(Options.DEFAULT.online), false),
+                new PropertyHolder<>(PARAM_PARALLEL, new Int(Options.DEFAULT.parallel), false)
+        };
+    }
+
+    static Options getOptions(Map<String, IComplexType> params) {
+        Integer sessions = (Integer) params.get(PARAM_SESSIONS).getValue();
+        Integer parallel = (Integer) params.get(PARAM_PARALLEL).getValue();
+        return new Options(
+                sessions == null ? Options.DEFAULT.sessions : sessions,
+                params.get(PARAM_ONLINE).getValue() == Boolean.TRUE,
+                parallel == null ? Options.DEFAULT.parallel : parallel
+        );
+    }
+
     DefragmentationTask(IFormController controller, List<Segment> segments) {
+        this(controller, segments, Options.DEFAULT);
+    }
+
+    DefragmentationTask(IFormController controller, List<Segment> segments, Options options) {
         super(
                 segments == null ?  MessageFormat.format(
                         Language.get("title@space"),
@@ -72,6 +112,8 @@ class DefragmentationTask extends AbstractTask<Void> {
         this.controller = controller;
         this.spaceName  = () -> controller.getTableSpace().getPID();
         this.segments   = segments;
+        this.options    = options;
+        this.journal    = new CheckpointJournal(controller.getTableSpace());
 
         Entity cellView = (Entity) controller.getCellView();
         ITaskListener lockHandler = new ITaskListener() {
@@ -104,7 +146,67 @@ class DefragmentationTask extends AbstractTask<Void> {
     @Override
     public Void execute() throws Exception {
         controller.initLogOutput(this);
-        
+
+        List<Command> processCommands = resumeCommands();
+        if (processCommands == null) {
+            processCommands = planCommands();
+            if (!processCommands.isEmpty()) {
+                journal.writePlan(processCommands);
+            }
+        }
+
+        // Process commands
+        if (!processCommands.isEmpty()) {
+            initializeProcess();
+            process(processCommands);
+            finalizeProcess();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the plan of the interrupted movement if it is confirmed by user or NULL if there
+     * is nothing to resume. The journal is considered valid if the temporary tablespace exists.
+     */
+    private List<Command> resumeCommands() throws SQLException {
+        CheckpointJournal.Checkpoint found = journal.read();
+        if (found == null || !found.isStarted() || !isTemporarySpaceExists()) {
+            if (journal.exists()) {
+                Logger.getContextLogger(TableSpaceManager.class).debug("Discard defragmentation journal");
+                journal.delete();
+            }
+            return null;
+        }
+        long totalCommands = commandsCount(found.getCommands());
+        if (!confirm(MessageFormat.format(
+                Language.get("step@resume.confirm"),
+                totalCommands - found.getCompletedCount(), totalCommands
+        ))) {
+            Logger.getContextLogger(TableSpaceManager.class).info("Resume of interrupted operation was declined by user");
+            journal.delete();
+            return null;
+        }
+        TaskOutput.put(
+                Level.Info, Language.get("step@resume"),
+                String.valueOf(found.getCompletedCount()), String.valueOf(totalCommands)
+        );
+        checkpoint = found;
+        return found.getCommands();
+    }
+
+    private boolean isTemporarySpaceExists() throws SQLException {
+        try (final ResultSet resultSet = ServiceRegistry.getInstance()
+                .lookupService(IDatabaseAccessService.class).select(
+                        controller.getTableSpace().getConnectionID(),
+                        "SELECT COUNT(*) FROM DBA_TABLESPACES WHERE TABLESPACE_NAME = ?",
+                        Space.getNewSpaceName(spaceName.get())
+                )
+        ) {
+            return resultSet.next() && resultSet.getInt(1) > 0;
+        }
+    }
+
+    private List<Command> planCommands() {
         List<Segment> processSegments;
         if (segments == null || segments.isEmpty()) {
             // Get tablespace extent information
@@ -135,15 +237,7 @@ class DefragmentationTask extends AbstractTask<Void> {
 
         // Prepare commands
         setProvider(controller.getDataProvider());
-        List<Command> processCommands = prepareCommands(processSegments, false);
-
-        // Process commands
-        if (!processCommands.isEmpty()) {
-            initializeProcess();
-            process(processCommands);
-            finalizeProcess();
-        }
-        return null;
+        return prepareCommands(processSegments, false);
     }
 
     private long getUsedBlocks() {
@@ -265,10 +359,22 @@ class DefragmentationTask extends AbstractTask<Void> {
 
             commands.addAll(accessCommands);
             commands.addAll(moveCommands);
+            commands.forEach(command -> command.setOptions(options));
+            if (options.parallel > 1) {
+                readDegrees(moveCommands);
+            }
 
             long totalCommands = commandsCount(commands);
+            long duration = estimateDuration(commands);
             if (!repair) {
                 TaskOutput.put(Level.Info, Language.get("step@generate.result"), String.valueOf(totalCommands));
+                TaskOutput.put(
+                        Level.Info, Language.get("step@estimate"),
+                        String.valueOf(options.sessions),
+                        options.online ? "ONLINE" : "-",
+                        options.parallel > 1 ? String.valueOf(options.parallel) : "-",
+                        formatDuration(duration)
+                );
             }
 
             if (!commands.isEmpty()) {
@@ -287,24 +393,11 @@ class DefragmentationTask extends AbstractTask<Void> {
 
             } else if (!repair) {
                 // Confirmation
-                AtomicBoolean confirmed = new AtomicBoolean(false);
-                try {
-                    Semaphore lock = new Semaphore(1);
-                    lock.acquire();
-                    SwingUtilities.invokeLater(() -> {
-                        confirmed.set(MessageBox.confirmation(
-                                MessageType.CONFIRMATION.toString(),
-                                MessageFormat.format(
-                                        Language.get("step@confirm"),
-                                        totalCommands
-                                )
-                        ));
-                        lock.release();
-                    });
-                    try { lock.acquire(); } finally { lock.release(); }
-                } catch (Exception ignore) {}
-
-                if (!confirmed.get()) {
+                if (!confirm(MessageFormat.format(
+                        Language.get("step@confirm"),
+                        totalCommands,
+                        formatDuration(duration)
+                ))) {
                     TaskOutput.put(Level.Warn, Language.get("result@canceled"));
                     Logger.getContextLogger(TableSpaceManager.class).info("Operation was canceled by user");
                     throw new CancelException();
@@ -314,6 +407,38 @@ class DefragmentationTask extends AbstractTask<Void> {
         }
     }
 
+    private boolean confirm(String message) {
+        AtomicBoolean confirmed = new AtomicBoolean(false);
+        try {
+            Semaphore lock = new Semaphore(1);
+            lock.acquire();
+            SwingUtilities.invokeLater(() -> {
+                confirmed.set(MessageBox.confirmation(MessageType.CONFIRMATION.toString(), message));
+                lock.release();
+            });
+            try { lock.acquire(); } finally { lock.release(); }
+        } catch (Exception ignore) {}
+        return confirmed.get();
+    }
+
+    /**
+     * Estimate duration of the movement (milliseconds) by sizes of segments. The forward and
+     * the backward movements are simulated separately with configured number of sessions.
+     */
+    private long estimateDuration(List<Command> commands) {
+        return Stream.of(Direction.Forward, Direction.Backward)
+                .map(direction -> new CommandGraph(orderCommands(commands, direction), direction))
+                .mapToLong(graph -> graph.estimate(options.sessions, command -> STATEMENT_OVERHEAD +
+                        1000 * command.getSize() / (MOVE_RATE * Math.max(1, options.parallel))
+                ))
+                .sum();
+    }
+
+    static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        return String.format("%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
     private long commandsCount(List<Command> commands) {
         return Math.addExact(
                 commands.parallelStream().filter(Command::isForward).count(),
@@ -422,7 +547,10 @@ class DefragmentationTask extends AbstractTask<Void> {
                                 indexType.put(segment.getName(), Index.getIndexType(segment));
                             }
                             if ("LOB".equals(indexType.get(segment.getName()))) {
-                                commands.add(Lob.getCommandsByIndex(segment));
+                                Lob lobCommand = Lob.getCommandsByIndex(segment);
+                                if (lobCommand != null) {
+                                    commands.add(lobCommand);
+                                }
                             } else {
                                 Index idxCommand = new Index(segment);
                                 if (!commands.contains(idxCommand)) {
@@ -457,6 +585,15 @@ class DefragmentationTask extends AbstractTask<Void> {
                 .map(Segment::getName)
                 .distinct()
                 .collect(Collectors.toList());
+        // Sizes of indexes to be rebuilt in the original tablespace
+        Map<String, Long> indexSizes = getProvider().getSegments().stream()
+                .filter(segment -> SegmentType.INDEX.equals(SegmentType.byType(segment.getType())))
+                .collect(Collectors.toMap(
+                        segment -> segment.getOwner().concat(".").concat(segment.getName()),
+                        Segment::getSize,
+                        Long::sum
+                ));
+        Map<String, String> indexTables = new HashMap<>();
         try (final ResultSet resultSet = ServiceRegistry.getInstance()
                 .lookupService(IDatabaseAccessService.class)
                 .select(controller.getTableSpace().getConnectionID(), query)
@@ -466,8 +603,12 @@ class DefragmentationTask extends AbstractTask<Void> {
                 final String owner = resultSet.getString("TABLE_OWNER");
                 final String table = resultSet.getString("TABLE_NAME");
                 final String index = resultSet.getString("INDEX_NAME");
+                indexTables.put(owner.concat(".").concat(index), table);
                 if (tables.contains(table)) {
-                    Index idxCommand = new Index(new Index.IndexDef(space, owner, index));
+                    Index idxCommand = new Index(new Index.IndexDef(
+                            space, owner, table, index,
+                            indexSizes.getOrDefault(owner.concat(".").concat(index), 0L)
+                    ));
                     if (!commands.contains(idxCommand)) {
                         commands.add(idxCommand);
                     }
@@ -476,6 +617,11 @@ class DefragmentationTask extends AbstractTask<Void> {
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        // Index commands are serialized with commands of their tables
+        commands.stream()
+                .filter(command -> command instanceof Index)
+                .map(command -> (Index) command)
+                .forEach(command -> command.setIndexTable(indexTables.get(command.getOwner().concat(".").concat(command.getName()))));
         return commands;
     }
 
@@ -531,16 +677,7 @@ class DefragmentationTask extends AbstractTask<Void> {
                 }
             });
 
-            List<Command> repairCommands = prepareCommands(segments, true);
-            // Move Quota commands to the end
-            repairCommands.sort((o1, o2) -> {
-                if (o1 instanceof Quota && !(o2 instanceof Quota)) {
-                    return 1;
-                } else if (o2 instanceof Quota && !(o1 instanceof Quota)) {
-                    return -1;
-                }
-                return 0;
-            });
+            List<Command> repairCommands = orderCommands(prepareCommands(segments, true), Direction.Backward);
 
             TaskOutput.put(
                     Level.Info,
@@ -563,6 +700,7 @@ class DefragmentationTask extends AbstractTask<Void> {
         TaskOutput.put(Level.Info,Language.get("step@initialize"));
         setWaitLockTimeout();
         createTablespace();
+        journal.started();
     }
 
     private void finalizeProcess() {
@@ -570,6 +708,7 @@ class DefragmentationTask extends AbstractTask<Void> {
         try {
             checkTablespace();
             dropTablespace();
+            journal.delete();
         } catch (Exception ignore) {}
     }
 
@@ -667,22 +806,11 @@ class DefragmentationTask extends AbstractTask<Void> {
     }
 
     private void process(List<Command> commands) {
-        long totalCommands = commandsCount(commands);
-        // TODO: Calc progress based on moved size
-        AtomicInteger commandIdx = new AtomicInteger(0);
+        Progress progress = new Progress(commands);
         try {
             // Process forward
             TaskOutput.put(Level.Info, Language.get(DefragmentationTask.class, "step@move.forward"));
-            commands.stream().filter(Command::isForward).forEach(command -> {
-                String commandTitle = command.getTitle(Direction.Forward);
-                if (!isCancelled()) {
-                    int percent = (int) (100 * commandIdx.addAndGet(1) / totalCommands);
-                    setProgress(percent, commandTitle);
-                    processCommand(command, Direction.Forward, commandIdx.get(), totalCommands, commandTitle);
-                } else {
-                    throw new CancelException();
-                }
-            });
+            processGraph(commands, Direction.Forward, progress);
 
             //Coalesce tablespace
             Logger.getContextLogger(TableSpaceManager.class).debug("Coalesce original tablespace");
@@ -707,29 +835,9 @@ class DefragmentationTask extends AbstractTask<Void> {
 //                }
 //            });
 
-            // Move Quota commands to the end
-            commands.sort((o1, o2) -> {
-                if (o1 instanceof Quota && !(o2 instanceof Quota)) {
-                    return 1;
-                } else if (o2 instanceof Quota && !(o1 instanceof Quota)) {
-                    return -1;
-                }
-                return 0;
-            });
-
             // Process backward
             TaskOutput.put(Level.Info, Language.get(DefragmentationTask.class, "step@move.backward"));
-            commands.stream().filter(Command::isBackward).forEach(command -> {
-                int percent = (int) (100 * commandIdx.getAndAdd(1) / totalCommands);
-                String commandTitle = command.getTitle(Direction.Backward);
-                setProgress(percent, commandTitle);
-
-                if (!isCancelled()) {
-                    processCommand(command, Direction.Backward, commandIdx.get(), totalCommands, commandTitle);
-                } else {
-                    throw new CancelException();
-                }
-            });
+            processGraph(commands, Direction.Backward, progress);
         } catch (Throwable e) {
             TaskOutput.put(isCancelled() ? Level.Warn : Level.Error, Language.get("result@abort"));
             if (!isCancelled()) {
@@ -738,7 +846,61 @@ class DefragmentationTask extends AbstractTask<Void> {
         }
     }
 
-    private void processCommand(
+    private void processGraph(List<Command> commands, Direction direction, Progress progress) {
+        CommandGraph graph = new CommandGraph(
+                orderCommands(
+                        commands.stream()
+                                .filter(command -> !isCompleted(command, direction))
+                                .collect(Collectors.toList()),
+                        direction
+                ),
+                direction
+        );
+        Logger.getContextLogger(TableSpaceManager.class).debug(
+                "Execute {0} commands ({1}) in {2} session(s)",
+                graph.size(), FileUtils.formatFileSize(graph.getSize()), options.sessions
+        );
+        graph.execute(options.sessions, command -> {
+            if (isCancelled()) {
+                throw new CancelException();
+            }
+            String commandTitle = command.getTitle(direction);
+            int index = progress.started(commandTitle);
+            if (processCommand(command, direction, index, progress.totalCommands, commandTitle)) {
+                journal.completed(command, direction);
+            }
+            progress.finished(command);
+        });
+    }
+
+    private boolean isCompleted(Command command, Direction direction) {
+        return checkpoint != null && checkpoint.isCompleted(command, direction);
+    }
+
+    /**
+     * Returns commands in order of execution: access revoke commands are moved to the end of the
+     * backward movement.
+     */
+    private static List<Command> orderCommands(List<Command> commands, Direction direction) {
+        List<Command> ordered = new LinkedList<>(commands);
+        if (direction == Direction.Backward) {
+            ordered.sort((o1, o2) -> {
+                if (o1.isAccess() && !o2.isAccess()) {
+                    return 1;
+                } else if (o2.isAccess() && !o1.isAccess()) {
+                    return -1;
+                }
+                return 0;
+            });
+        }
+        return ordered;
+    }
+
+    /**
+     * Execute the command.
+     * @return TRUE if the command is completed or skipped, FALSE if it failed.
+     */
+    private boolean processCommand(
             Command command,
             Direction direction,
             int    index,
@@ -749,6 +911,7 @@ class DefragmentationTask extends AbstractTask<Void> {
         try {
             executeCommandSQL(query);
             TaskOutput.put(Level.Info, COMMAND_SUCCESS, String.valueOf(index), String.valueOf(total), title);
+            return true;
         } catch (SQLException e) {
             if (e.getErrorCode() == 2149) {
                 //ORA-02149: Specified partition does not exist
@@ -758,11 +921,57 @@ class DefragmentationTask extends AbstractTask<Void> {
                         "Object (sub)partition does not exists"
                 );
                 TaskOutput.put(Level.Debug, COMMAND_SKIP, String.valueOf(index), String.valueOf(total), title);
+                return true;
             } else {
                 Logger.getContextLogger(TableSpaceManager.class).warn( "{0}\n{1}", query, e.getMessage().trim());
                 TaskOutput.put(Level.Error, COMMAND_ERROR, String.valueOf(index), String.valueOf(total), title, e.getMessage().trim());
+                return false;
+            }
+        } finally {
+            // Degree of parallelism of the statement is kept as attribute of the object,
+            // it is restored whether the statement succeeded or not
+            if (command.getResetSQL() != null) {
+                try {
+                    executeCommandSQL(command.getResetSQL());
+                } catch (SQLException e) {
+                    Logger.getContextLogger(TableSpaceManager.class).warn("{0}\n{1}", command.getResetSQL(), e.getMessage().trim());
+                }
+            }
+        }
+    }
+
+    /**
+     * Read degree of parallelism of objects to be moved with PARALLEL clause, so the original
+     * value is restored after the movement.
+     */
+    private void readDegrees(List<Command> commands) {
+        Map<String, String> degrees = new HashMap<>();
+        commands.forEach(command -> {
+            String type = command.getParallelObjectType();
+            if (type != null) {
+                String name = command.getParallelObjectName();
+                command.setDegree(degrees.computeIfAbsent(
+                        MessageFormat.format("{0}:{1}.{2}", type, command.getOwner(), name),
+                        key -> readDegree(type, command.getOwner(), name)
+                ));
             }
+        });
+    }
+
+    private String readDegree(String type, String owner, String name) {
+        final String query = Command.OBJ_TABLE.equals(type) ?
+                "SELECT TRIM(DEGREE) DEGREE FROM DBA_TABLES WHERE OWNER = ? AND TABLE_NAME = ?" :
+                "SELECT TRIM(DEGREE) DEGREE FROM DBA_INDEXES WHERE OWNER = ? AND INDEX_NAME = ?";
+        try (final ResultSet resultSet = ServiceRegistry.getInstance().lookupService(IDatabaseAccessService.class)
+                .select(controller.getTableSpace().getConnectionID(), query, owner, name)
+        ) {
+            if (resultSet.next()) {
+                return resultSet.getString("DEGREE");
+            }
+        } catch (SQLException e) {
+            Logger.getContextLogger(TableSpaceManager.class).warn("{0}\n{1}", query, e.getMessage().trim());
         }
+        return null;
     }
 
     private void executeCommandSQL(String query) throws SQLException {
@@ -784,14 +993,109 @@ class DefragmentationTask extends AbstractTask<Void> {
     public void finished(Void result) {}
 
 
+    /**
+     * Progress of the movement weighted by sizes of processed segments. Estimated remaining time
+     * is based on the rate observed since the movement was started.
+     */
+    private class Progress {
+
+        private final long totalCommands;
+        private final long totalBytes;
+        private final AtomicInteger commandIdx;
+        private final AtomicLong doneBytes;
+        private final AtomicLong movedBytes = new AtomicLong(0);
+        private final long startTime = System.nanoTime();
+
+        Progress(List<Command> commands) {
+            long total = 0, done = 0;
+            int  completed = 0;
+            for (Direction direction : new Direction[] {Direction.Forward, Direction.Backward}) {
+                for (Command command : commands) {
+                    if (direction == Direction.Forward ? command.isForward() : command.isBackward()) {
+                        long size = command.getSize();
+                        total += size;
+                        if (isCompleted(command, direction)) {
+                            done += size;
+                            completed++;
+                        }
+                    }
+                }
+            }
+            this.totalCommands = commandsCount(commands);
+            this.totalBytes = total;
+            this.commandIdx = new AtomicInteger(completed);
+            this.doneBytes  = new AtomicLong(done);
+        }
+
+        /**
+         * Update progress on start of the command.
+         * @return Index of the command.
+         */
+        int started(String title) {
+            int index = commandIdx.incrementAndGet();
+            int percent = (int) (totalBytes > 0 ? 100 * doneBytes.get() / totalBytes : 100 * (index - 1) / totalCommands);
+            long moved   = movedBytes.get();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            if (moved > 0 && elapsed > 0) {
+                long rate = 1000 * moved / elapsed;
+                title = MessageFormat.format(
+                        Language.get(DefragmentationTask.class, "step@progress"),
+                        title,
+                        FileUtils.formatFileSize(rate),
+                        formatDuration(1000 * Math.max(0, totalBytes - doneBytes.get()) / Math.max(1, rate))
+                );
+            }
+            setProgress(Math.min(100, Math.max(0, percent)), title);
+            return index;
+        }
+
+        void finished(Command command) {
+            long size = command.getSize();
+            doneBytes.addAndGet(size);
+            movedBytes.addAndGet(size);
+        }
+    }
+
+
     enum Direction {
         Forward, Backward, Any
     }
 
+
+    /**
+     * Options of the movement: number of concurrent sessions and clauses of DDL statements.
+     */
+    static class Options {
+
+        final static Options DEFAULT = new Options(1, false, 0);
+
+        final int     sessions;
+        final boolean online;
+        final int     parallel;
+
+        /**
+         * @param sessions Number of commands executed concurrently (commands of the same table are
+         * executed one by one).
+         * @param online Add ONLINE clause to allow DML during the movement.
+         * @param parallel Degree of parallelism of a statement, clause PARALLEL is not used if it is
+         * less than 2.
+         */
+        Options(int sessions, boolean online, int parallel) {
+            this.sessions = Math.max(1, sessions);
+            this.online   = online;
+            this.parallel = Math.max(0, parallel);
+        }
+    }
+
     abstract static class Command {
 
+        final static String OBJ_TABLE = "TABLE";
+        final static String OBJ_INDEX = "INDEX";
+
         private final String owner, table, name, part;
         private       String space;
+        private       Options options = Options.DEFAULT;
+        private       String degree;
 
         Command(String space, String owner, String table, String name, String part) {
             this.space = space;
@@ -821,6 +1125,96 @@ class DefragmentationTask extends AbstractTask<Void> {
             return space;
         }
 
+        void setOptions(Options options) {
+            this.options = options;
+        }
+
+        String getOnlineClause() {
+            return options.online ? "ONLINE" : "";
+        }
+
+        String getParallelClause() {
+            return options.parallel > 1 ? "PARALLEL " + options.parallel : "";
+        }
+
+        /**
+         * Returns identifier of the command in the journal.
+         */
+        String getKey() {
+            return Stream.of(getClass().getSimpleName(), space, owner, table, name, part)
+                    .map(value -> value == null ? "" : value)
+                    .collect(Collectors.joining(":"));
+        }
+
+        /**
+         * Returns whether the command grants or revokes access to the temporary tablespace.
+         */
+        boolean isAccess() {
+            return false;
+        }
+
+        /**
+         * Returns whether the command moves or rebuilds an index.
+         */
+        boolean isIndex() {
+            return false;
+        }
+
+        /**
+         * Returns key of the table changed by the command or NULL if it is unknown.
+         */
+        String getTableKey() {
+            return getTable() == null ? null : getOwner().concat(".").concat(getTable());
+        }
+
+        /**
+         * Returns size of segments processed by the command (bytes).
+         */
+        long getSize() {
+            return dependentSegments().stream().mapToLong(Segment::getSize).sum();
+        }
+
+        /**
+         * Returns type of the object which keeps degree of parallelism given to the command
+         * ({@link #OBJ_TABLE} or {@link #OBJ_INDEX}) or NULL if the command does not change it.
+         */
+        String getParallelObjectType() {
+            return null;
+        }
+
+        /**
+         * Returns name of the object which keeps degree of parallelism given to the command.
+         */
+        String getParallelObjectName() {
+            return null;
+        }
+
+        /**
+         * Set degree of parallelism of the object before the movement (as in DBA_TABLES.DEGREE).
+         */
+        void setDegree(String degree) {
+            this.degree = degree;
+        }
+
+        /**
+         * Returns query to restore degree of parallelism of the object after the movement or NULL.
+         * If the original degree is unknown, parallelism of the object is turned off.
+         */
+        String getResetSQL() {
+            if (getParallelClause().isEmpty() || getParallelObjectType() == null) {
+                return null;
+            }
+            String degreeClause;
+            if (degree == null || "1".equals(degree)) {
+                degreeClause = "NOPARALLEL";
+            } else if ("DEFAULT".equals(degree)) {
+                degreeClause = "PARALLEL";
+            } else {
+                degreeClause = "PARALLEL " + degree;
+            }
+            return MessageFormat.format("ALTER {0} {1}.{2} {3}", getParallelObjectType(), getOwner(), getParallelObjectName(), degreeClause);
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -852,6 +1246,88 @@ class DefragmentationTask extends AbstractTask<Void> {
     }
 
 
+    /**
+     * Command of the plan restored from the journal.
+     */
+    static class Recorded extends Command {
+
+        final static String KIND_ACCESS = "access";
+        final static String KIND_INDEX  = "index";
+
+        private final String    key, kind, tableKey, resetSQL;
+        private final Direction direction;
+        private final long      size;
+        private final String    forwardSQL, forwardTitle, backwardSQL, backwardTitle;
+
+        Recorded(
+                String key, String kind, Direction direction, String owner, String tableKey, long size, String resetSQL,
+                String forwardSQL, String forwardTitle, String backwardSQL, String backwardTitle
+        ) {
+            super(null, owner, null, key, null);
+            this.key       = key;
+            this.kind      = kind;
+            this.direction = direction;
+            this.tableKey  = tableKey;
+            this.size      = size;
+            this.resetSQL  = resetSQL;
+            this.forwardSQL    = forwardSQL;
+            this.forwardTitle  = forwardTitle;
+            this.backwardSQL   = backwardSQL;
+            this.backwardTitle = backwardTitle;
+        }
+
+        @Override
+        String getKey() {
+            return key;
+        }
+
+        @Override
+        boolean isAccess() {
+            return KIND_ACCESS.equals(kind);
+        }
+
+        @Override
+        boolean isIndex() {
+            return KIND_INDEX.equals(kind);
+        }
+
+        @Override
+        String getTableKey() {
+            return tableKey;
+        }
+
+        @Override
+        long getSize() {
+            return size;
+        }
+
+        @Override
+        String getResetSQL() {
+            return resetSQL;
+        }
+
+        @Override
+        protected Direction getDirection() {
+            return direction;
+        }
+
+        @Override
+        String getSQL(Direction direction) {
+            return direction == Direction.Forward ? forwardSQL : backwardSQL;
+        }
+
+        @Override
+        String getTitle(Direction direction) {
+            return direction == Direction.Forward ? forwardTitle : backwardTitle;
+        }
+
+        @Override
+        Collection<Segment> dependentSegments() {
+            return Collections.emptyList();
+        }
+    }
+
+
     static class Space extends Command {
 
         private final static String SIZE_INIT = "1M";
@@ -945,6 +1421,11 @@ class DefragmentationTask extends AbstractTask<Void> {
             super(space, owner, null, null, null);
         }
 
+        @Override
+        boolean isAccess() {
+            return true;
+        }
+
         @Override
         protected Direction getDirection() {
             return Direction.Any;
@@ -1004,19 +1485,33 @@ class DefragmentationTask extends AbstractTask<Void> {
         @Override
         String getSQL(Direction direction) {
             boolean isSubPartition = SegmentType.TABLE_SUBPARTITION.equals(SegmentType.byType(tableSegment.getType()));
+            // ONLINE follows MOVE for a table and ends the statement for a (sub)partition
             return MessageFormat.format(
-                    "ALTER TABLE {0}.{1} MOVE {2} {3} TABLESPACE {4} {5}",
+                    "ALTER TABLE {0}.{1} MOVE {2} {3} {4} TABLESPACE {5} {6} {7} {8}",
                     new ArrayList<String>() {{
                         add(getOwner());
                         add(getTable());
                         add(getPart() != null ? (isSubPartition ? OPT_SUBPARTITION : OPT_PARTITION) : "");
                         add(getPart() != null ? getPart() : "");
+                        add(getPart() == null ? getOnlineClause() : "");
                         add(direction.equals(Direction.Forward) ? Space.getNewSpaceName(getSpace()) : getSpace());
                         add(getPart() != null ? OPT_UPDATE_INDEX : "");
+                        add(getParallelClause());
+                        add(getPart() != null ? getOnlineClause() : "");
                     }}.toArray()
             ).replaceAll("\\s\\s+", " ").trim();
         }
 
+        @Override
+        String getParallelObjectType() {
+            return OBJ_TABLE;
+        }
+
+        @Override
+        String getParallelObjectName() {
+            return getTable();
+        }
+
         @Override
         public String getTitle(Direction direction) {
             return MessageFormat.format(
@@ -1061,15 +1556,21 @@ class DefragmentationTask extends AbstractTask<Void> {
         private final Segment indexSegment;
 
         static class IndexDef {
-            private final String space, owner, index;
+            private final String space, owner, table, index;
+            private final long   size;
 
-            IndexDef(String space, String owner, String index) {
+            IndexDef(String space, String owner, String table, String index, long size) {
                 this.space = space;
                 this.owner = owner;
+                this.table = table;
                 this.index = index;
+                this.size  = size;
             }
         }
 
+        private String indexTable;
+        private long   indexSize;
+
         Index(Segment segment) {
             super(
                     segment.getTableSpace().getPID(),
@@ -1084,6 +1585,39 @@ class DefragmentationTask extends AbstractTask<Void> {
         Index(IndexDef indexDef) {
             super(indexDef.space, indexDef.owner, null, indexDef.index, null);
             this.indexSegment = null;
+            this.indexTable   = indexDef.table;
+            this.indexSize    = indexDef.size;
+        }
+
+        @Override
+        boolean isIndex() {
+            return true;
+        }
+
+        void setIndexTable(String table) {
+            if (table != null) {
+                this.indexTable = table;
+            }
+        }
+
+        @Override
+        String getTableKey() {
+            return indexTable == null ? null : getOwner().concat(".").concat(indexTable);
+        }
+
+        @Override
+        long getSize() {
+            return indexSegment == null ? indexSize : super.getSize();
+        }
+
+        @Override
+        String getParallelObjectType() {
+            return OBJ_INDEX;
+        }
+
+        @Override
+        String getParallelObjectName() {
+            return getName();
         }
 
         @Override
@@ -1095,13 +1629,15 @@ class DefragmentationTask extends AbstractTask<Void> {
         String getSQL(Direction direction) {
             boolean isSubPartition = indexSegment != null && SegmentType.INDEX_SUBPARTITION.equals(SegmentType.byType(indexSegment.getType()));
             return MessageFormat.format(
-                    "ALTER INDEX {0}.{1} REBUILD {2} {3} TABLESPACE {4}",
+                    "ALTER INDEX {0}.{1} REBUILD {2} {3} TABLESPACE {4} {5} {6}",
                     new ArrayList<String>() {{
                         add(getOwner());
                         add(getName());
                         add(getPart() != null ? (isSubPartition ? Table.OPT_SUBPARTITION : Table.OPT_PARTITION) : "");
                         add(getPart() != null ? getPart() : "");
                         add(direction.equals(Direction.Forward) ? Space.getNewSpaceName(getSpace()) : getSpace());
+                        add(getParallelClause());
+                        add(getOnlineClause());
                     }}.toArray()
             ).replaceAll("\\s\\s+", " ").trim();
         }
@@ -1448,19 +1984,32 @@ class DefragmentationTask extends AbstractTask<Void> {
         String getSQL(Direction direction) {
             boolean isSubPartition = SegmentType.TABLE_SUBPARTITION.equals(SegmentType.byType(tableSegment.getType()));
             return MessageFormat.format(
-                    "ALTER TABLE {0}.{1} MOVE {2} {3} LOB ({4}) STORE AS (TABLESPACE {5}) {6}",
+                    "ALTER TABLE {0}.{1} MOVE {2} {3} {4} LOB ({5}) STORE AS (TABLESPACE {6}) {7} {8} {9}",
                     new ArrayList<String>() {{
                         add(getOwner());
                         add(getTable());
                         add(getPart() != null ? (isSubPartition ? Table.OPT_SUBPARTITION : Table.OPT_PARTITION) : "");
                         add(getPart() != null ? getPart() : "");
+                        add(getPart() == null ? getOnlineClause() : "");
                         add(getName());
                         add(direction.equals(Direction.Forward) ? Space.getNewSpaceName(getSpace()) : getSpace());
                         add(getPart() != null ? Table.OPT_UPDATE_INDEX : "");
+                        add(getParallelClause());
+                        add(getPart() != null ? getOnlineClause() : "");
                     }}.toArray()
             ).replaceAll("\\s\\s+", " ").trim();
         }
 
+        @Override
+        String getParallelObjectType() {
+            return OBJ_TABLE;
+        }
+
+        @Override
+        String getParallelObjectName() {
+            return getTable();
+        }
+
         @Override
         String getTitle(Direction direction) {
             return MessageFormat.format(
@@ -0,0 +1,374 @@
+package spacemgr.command.defragment;
+
+import spacemgr.command.objects.Extent;
+import spacemgr.command.objects.Segment;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Extents of a tablespace packed into parallel arrays (datafile, first block, number of blocks,
+ * segment index) sorted by the datafile and the first block, and a hash index of segments by
+ * (owner, type, name, partition).
+ * Extents appended after the last sort form an unsorted tail, so lookups during a reload see only
+ * previously loaded extents. Removed extents are marked and dropped on the next sort.
+ * Extent objects are not kept: each call returns new views of the packed rows, equal to the
+ * views of the same extent returned before.
+ */
+final class ExtentStore {
+
+    private final static int INITIAL_CAPACITY = 1024;
+    private final static int INSERTION_SORT_THRESHOLD = 16;
+    private final static int REMOVED = -1;
+
+    private final Map<SegmentKey, Integer> segmentIndex = new HashMap<>();
+    private final List<Segment> segments = new ArrayList<>();
+
+    private int[]  fileNos     = new int[INITIAL_CAPACITY];
+    private long[] firstBlocks = new long[INITIAL_CAPACITY];
+    private long[] blockCounts = new long[INITIAL_CAPACITY];
+    private int[]  segmentIds  = new int[INITIAL_CAPACITY];
+    private int  length, sortedLength, removed;
+    private long maxBlockCount;
+    private List<Extent> snapshot;
+
+    /**
+     * Returns index of the segment, the segment is created by the factory if it is not known yet.
+     */
+    int segmentId(String owner, String type, String name, String part, Supplier<Segment> factory) {
+        return segmentIndex.computeIfAbsent(new SegmentKey(owner, type, name, part), key -> {
+            segments.add(factory.get());
+            return segments.size() - 1;
+        });
+    }
+
+    Segment getSegment(int segmentId) {
+        return segments.get(segmentId);
+    }
+
+    List<Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Returns number of live extents.
+     */
+    int size() {
+        return length - removed;
+    }
+
+    /**
+     * Returns number of extents in the sorted part of the store (including removed ones).
+     */
+    int sortedSize() {
+        return sortedLength;
+    }
+
+    /**
+     * Returns view of the extent, the extent may be removed.
+     */
+    Extent getExtent(int index) {
+        return new StoredExtent(segments.get(segmentIds[index]), fileNos[index], firstBlocks[index], blockCounts[index]);
+    }
+
+    /**
+     * Append the extent to the unsorted tail of the store.
+     * @return Index of the extent.
+     */
+    int add(int fileNo, long firstBlock, long blockCount, int segmentId) {
+        if (length == firstBlocks.length) {
+            int capacity = length + (length >> 1);
+            fileNos     = Arrays.copyOf(fileNos,     capacity);
+            firstBlocks = Arrays.copyOf(firstBlocks, capacity);
+            blockCounts = Arrays.copyOf(blockCounts, capacity);
+            segmentIds  = Arrays.copyOf(segmentIds,  capacity);
+        }
+        fileNos[length]     = fileNo;
+        firstBlocks[length] = firstBlock;
+        blockCounts[length] = blockCount;
+        segmentIds[length]  = segmentId;
+        maxBlockCount = Math.max(maxBlockCount, blockCount);
+        snapshot = null;
+        return length++;
+    }
+
+    /**
+     * Mark the extent as removed.
+     * @return Removed extent or NULL if it has already been removed.
+     */
+    Extent remove(int index) {
+        if (segmentIds[index] == REMOVED) {
+            return null;
+        }
+        Extent extent = getExtent(index);
+        segmentIds[index] = REMOVED;
+        removed++;
+        snapshot = null;
+        return extent;
+    }
+
+    /**
+     * Binary search of the extent in the sorted part of the store.
+     * @return Index of the extent or -1 if it is not found.
+     */
+    int indexOf(int fileNo, long firstBlock, long blockCount, int segmentId) {
+        int index = lowerBound(fileNo, firstBlock);
+        for (; index < sortedLength && fileNos[index] == fileNo && firstBlocks[index] == firstBlock; index++) {
+            if (blockCounts[index] == blockCount && segmentIds[index] == segmentId) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns live extents of the datafile which intersect the block range. The sorted part of
+     * the store is searched by the datafile and the first block, the unsorted tail is scanned.
+     */
+    List<Extent> getExtents(int fileNo, long fromBlock, long toBlock) {
+        List<Extent> result = new LinkedList<>();
+        for (
+                int index = lowerBound(fileNo, fromBlock - maxBlockCount + 1);
+                index < sortedLength && fileNos[index] == fileNo && firstBlocks[index] <= toBlock;
+                index++
+        ) {
+            if (intersects(index, fileNo, fromBlock, toBlock)) {
+                result.add(getExtent(index));
+            }
+        }
+        for (int index = sortedLength; index < length; index++) {
+            if (intersects(index, fileNo, fromBlock, toBlock)) {
+                result.add(getExtent(index));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns live extents of the segment.
+     */
+    List<Extent> getExtents(Segment segment) {
+        List<Extent> result = new LinkedList<>();
+        Integer segmentId = segmentIndex.get(new SegmentKey(segment.getOwner(), segment.getType(), segment.getName(), segment.getPart()));
+        if (segmentId != null) {
+            for (int index = 0; index < length; index++) {
+                if (segmentIds[index] == segmentId) {
+                    result.add(getExtent(index));
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean intersects(int index, int fileNo, long fromBlock, long toBlock) {
+        return segmentIds[index] != REMOVED &&
+               fileNos[index] == fileNo &&
+               firstBlocks[index] <= toBlock &&
+               firstBlocks[index] + blockCounts[index] - 1 >= fromBlock;
+    }
+
+    /**
+     * Returns live extents ordered by the datafile and the first block. The store itself is not reordered, so
+     * indexes returned by {@link #indexOf} stay valid. The list is a packed copy of the store and is not affected
+     * by further changes of it.
+     */
+    List<Extent> asList() {
+        if (snapshot == null) {
+            int[] order = new int[size()];
+            int count = 0;
+            if (sortedLength == length) {
+                for (int index = 0; index < length; index++) {
+                    if (segmentIds[index] != REMOVED) {
+                        order[count++] = index;
+                    }
+                }
+            } else {
+                // Only the tail is sorted, then it is merged with the sorted part
+                Integer[] tail = new Integer[length - sortedLength];
+                int tailLength = 0;
+                for (int index = sortedLength; index < length; index++) {
+                    if (segmentIds[index] != REMOVED) {
+                        tail[tailLength++] = index;
+                    }
+                }
+                Arrays.sort(tail, 0, tailLength, (i, j) -> compare(i, fileNos[j], firstBlocks[j]));
+                int index = 0, tailIndex = 0;
+                while (index < sortedLength || tailIndex < tailLength) {
+                    if (index < sortedLength && segmentIds[index] == REMOVED) {
+                        index++;
+                    } else if (tailIndex == tailLength || index < sortedLength && compare(index, fileNos[tail[tailIndex]], firstBlocks[tail[tailIndex]]) <= 0) {
+                        order[count++] = index++;
+                    } else {
+                        order[count++] = tail[tailIndex++];
+                    }
+                }
+            }
+            snapshot = new Snapshot(order);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drop removed extents and sort the whole store.
+     */
+    void sort() {
+        if (sortedLength == length && removed == 0) {
+            return;
+        }
+        int live = 0;
+        for (int index = 0; index < length; index++) {
+            if (segmentIds[index] != REMOVED) {
+                if (live != index) {
+                    fileNos[live]     = fileNos[index];
+                    firstBlocks[live] = firstBlocks[index];
+                    blockCounts[live] = blockCounts[index];
+                    segmentIds[live]  = segmentIds[index];
+                }
+                live++;
+            }
+        }
+        length  = live;
+        removed = 0;
+        quickSort(0, length - 1);
+        sortedLength = length;
+        snapshot = null;
+    }
+
+    private int lowerBound(int fileNo, long firstBlock) {
+        int low = 0, high = sortedLength;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, fileNo, firstBlock) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void quickSort(int low, int high) {
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            int  pivotFile  = fileNos[(low + high) >>> 1];
+            long pivotBlock = firstBlocks[(low + high) >>> 1];
+            int left = low, right = high;
+            while (left <= right) {
+                while (compare(left,  pivotFile, pivotBlock) < 0) left++;
+                while (compare(right, pivotFile, pivotBlock) > 0) right--;
+                if (left <= right) {
+                    swap(left++, right--);
+                }
+            }
+            // Recurse into the smaller part to limit stack depth
+            if (right - low < high - left) {
+                quickSort(low, right);
+                low = left;
+            } else {
+                quickSort(left, high);
+                high = right;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j - 1, fileNos[j], firstBlocks[j]) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    private int compare(int index, int fileNo, long firstBlock) {
+        int result = Integer.compare(fileNos[index], fileNo);
+        return result != 0 ? result : Long.compare(firstBlocks[index], firstBlock);
+    }
+
+    private void swap(int i, int j) {
+        int  file  = fileNos[i];     fileNos[i]     = fileNos[j];     fileNos[j]     = file;
+        long first = firstBlocks[i]; firstBlocks[i] = firstBlocks[j]; firstBlocks[j] = first;
+        long count = blockCounts[i]; blockCounts[i] = blockCounts[j]; blockCounts[j] = count;
+        int  segId = segmentIds[i];  segmentIds[i]  = segmentIds[j];  segmentIds[j]  = segId;
+    }
+
+
+    /**
+     * Extent view of a packed row of the store.
+     */
+    private final static class StoredExtent extends Extent {
+
+        private final Segment segment;
+
+        StoredExtent(Segment segment, int fileNo, long firstBlock, long blockCount) {
+            super(segment.getOwner(), segment.getName(), segment.getType(), segment.getPart(), fileNo, firstBlock, blockCount);
+            this.segment = segment;
+        }
+
+        @Override
+        public Segment getSegment() {
+            return segment;
+        }
+    }
+
+
+    /**
+     * Packed copy of live extents of the store in order of the datafile and the first block.
+     */
+    private final class Snapshot extends AbstractList<Extent> implements RandomAccess {
+
+        private final Segment[] segs;
+        private final int[]  files;
+        private final long[] firsts;
+        private final long[] counts;
+
+        Snapshot(int[] order) {
+            segs   = new Segment[order.length];
+            files  = new int[order.length];
+            firsts = new long[order.length];
+            counts = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                segs[i]   = segments.get(segmentIds[order[i]]);
+                files[i]  = fileNos[order[i]];
+                firsts[i] = firstBlocks[order[i]];
+                counts[i] = blockCounts[order[i]];
+            }
+        }
+
+        @Override
+        public Extent get(int index) {
+            return new StoredExtent(segs[index], files[index], firsts[index], counts[index]);
+        }
+
+        @Override
+        public int size() {
+            return segs.length;
+        }
+    }
+
+
+    private final static class SegmentKey {
+
+        private final String owner, type, name, part;
+        private final int hash;
+
+        SegmentKey(String owner, String type, String name, String part) {
+            this.owner = owner;
+            this.type  = type;
+            this.name  = name;
+            this.part  = part;
+            this.hash  = Objects.hash(owner, type, name, part);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SegmentKey)) return false;
+            SegmentKey key = (SegmentKey) o;
+            return hash == key.hash &&
+                   Objects.equals(owner, key.owner) &&
+                   Objects.equals(type,  key.type) &&
+                   Objects.equals(name,  key.name) &&
+                   Objects.equals(part,  key.part);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -124,6 +124,7 @@ class ExtentView extends Catalog {
                     Language.get(ExtentView.class, "command@run.object"),
                     extentView -> extentView.model.isValid() && !((Entity) extentView.getParent()).islocked()
             );
+            setParameters(DefragmentationTask.createParameters());
         }
 
         @Override
@@ -133,7 +134,8 @@ class ExtentView extends Catalog {
                     context.parallelStream()
                             .map(extentView -> extentView.getExtent().getSegment())
                             .distinct()
-                            .collect(Collectors.toList())
+                            .collect(Collectors.toList()),
+                    DefragmentationTask.getOptions(params)
             );
             ServiceRegistry.getInstance()
                     .lookupService(ITaskExecutorService.class)
@@ -15,6 +15,8 @@ import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.HierarchyEvent;
 import java.awt.image.BufferedImage;
 import java.sql.SQLException;
@@ -83,15 +85,14 @@ public class FormController implements IFormController {
     public JPanel getFormView() {
         infoLabel.addHierarchyListener(e -> {
             if ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0) {
-                final long blocksInCell = getMapView().getBlocksPerCell();
-                final long sizeOfCell   = blocksInCell * getTableSpace().getBlockSize();
-                infoLabel.setText(MessageFormat.format(
-                        Language.get("info@pattern"),
-                        getTableSpace().getPID(),
-                        String.valueOf(getTableSpace().getBlocks()),
-                        String.valueOf(blocksInCell),
-                        FileUtils.formatFileSize(sizeOfCell)
-                ));
+                updateInfo();
+            }
+        });
+        // Blocks per cell depend on the map width
+        getMapView().getComponent().addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                SwingUtilities.invokeLater(() -> updateInfo());
             }
         });
 
@@ -107,11 +108,25 @@ public class FormController implements IFormController {
                 add(showLegend);
                 add(infoLabel);
             }}, BorderLayout.NORTH);
-            add(getMapView().getComponent(),  BorderLayout.WEST);
-            add(tabbedPane, BorderLayout.CENTER);
+            add(new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, getMapView().getComponent(), tabbedPane) {{
+                setBorder(null);
+                setResizeWeight(0);
+            }}, BorderLayout.CENTER);
         }};
     }
 
+    private void updateInfo() {
+        final long blocksInCell = getMapView().getBlocksPerCell();
+        final long sizeOfCell   = blocksInCell * getTableSpace().getBlockSize();
+        infoLabel.setText(MessageFormat.format(
+                Language.get("info@pattern"),
+                getTableSpace().getPID(),
+                String.valueOf(getTableSpace().getBlocks()),
+                String.valueOf(blocksInCell),
+                FileUtils.formatFileSize(sizeOfCell)
+        ));
+    }
+
     @Override
     public void initLogOutput(ITask task) {
         tabbedPane.setComponentAt(1, new JPanel(new BorderLayout(5, 5)) {{
@@ -9,6 +9,8 @@ import javax.swing.*;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 interface IFormController {
 
@@ -28,6 +30,9 @@ interface IFormController {
         int  getBlocksPerCell();
 
         void insertExtent(Extent extent);
+        default void insertExtents(Collection<Extent> extents) {
+            extents.forEach(this::insertExtent);
+        }
         void removeExtent(Extent extent);
         void showExtents(List<Extent> extents);
     }
@@ -41,6 +46,25 @@ interface IFormController {
         default Collection<Extent> getExtents() {
             return Collections.emptyList();
         }
+        default Collection<Extent> getExtents(long fromBlock, long toBlock) {
+            return getExtents().stream()
+                    .filter(extent -> getMapBlock(extent) <= toBlock && getMapBlock(extent) + extent.getSize() - 1 >= fromBlock)
+                    .collect(Collectors.toList());
+        }
+        default Collection<Extent> getExtents(Segment segment) {
+            return getExtents().stream()
+                    .filter(extent -> extent.getSegment().equals(segment))
+                    .collect(Collectors.toList());
+        }
+        /**
+         * Pass the extents to the reader while no changes of them are published to the map view.
+         */
+        default void readExtents(Consumer<Collection<Extent>> reader) {
+            reader.accept(getExtents());
+        }
+        default long getMapBlock(Extent extent) {
+            return extent.getFirstBlock();
+        }
         default Collection<Segment> getSegments() {
             return Collections.emptyList();
         }
@@ -1,24 +1,35 @@
 package spacemgr.command.defragment;
 
 import spacemgr.command.objects.Extent;
+import spacemgr.command.objects.Segment;
 import javax.swing.*;
 import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.concurrent.ConcurrentHashMap;
 
-class MapPanel extends JPanel implements IFormController.IMapView {
+/**
+ * Map of tablespace blocks. Cells are rendered into an off-screen image: cell colors are kept
+ * in an array and recalculated only for cells changed by inserted or removed extents. Selected
+ * and highlighted cells are drawn over the image. Number of columns follows the panel width, the
+ * map keeps {@link #MAP_HEIGHT} rows of cells in view, so blocks per cell are recalculated on resize.
+ */
+class MapPanel extends JPanel implements IFormController.IMapView, Scrollable {
 
     // Dimensions
     private final static int CELL_SIZE   = 8;
     private final static int MAP_WIDTH   = 50;
     private final static int MAP_HEIGHT  = 60;
-    private final static int CELL_COUNT  = MAP_WIDTH * MAP_HEIGHT;
+    private final static int SYS_BLOCKS  = 128;
+    private final static int REBUILD_DELAY = 200;
 
     // Colors
     final static Color CELL_SYS  = Color.MAGENTA;
@@ -32,56 +43,105 @@ class MapPanel extends JPanel implements IFormController.IMapView {
     private final IFormController controller;
     private final JScrollPane scrollPane;
 
-    private int   selectedCell;
-    private int[] highlightedCells = new int[]{};
-    private final Map<Integer, List<Extent>> cellMap = new HashMap<>();
+    // Cell model, guarded by the panel
+    private long   blocksPerCell;
+    private int    cellCount;
+    private long[] usedBlocks   = new long[0];
+    private int[]  problemCount = new int[0];
+    private int[]  cellColors   = new int[0];
+    private final BitSet dirtyCells = new BitSet();
+    // Problem flag is taken once per segment, so removal of an extent reverts exactly what its insertion added
+    private final Map<Segment, Boolean> problemSegments = new ConcurrentHashMap<>();
+    private final javax.swing.Timer rebuildTimer = new javax.swing.Timer(REBUILD_DELAY, event -> rebuild());
+
+    // Rendering, accessed from EDT only
+    private BufferedImage image;
+    private volatile int columns;
+    private int selectedCell = -1;
+    private BitSet highlightedCells = new BitSet();
 
     MapPanel(IFormController controller) {
         super();
         this.controller = controller;
+        setOpaque(true);
+        rebuildTimer.setRepeats(false);
+        rebuild();
+        // Size of the tablespace and positions of its datafiles on the map may change between loads
+        controller.getDataProvider().addDataChangeListener(new IDataChangeListener() {
+            @Override
+            public void dataLoaded() {
+                rebuild();
+            }
+        });
 
         addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
                 super.mouseClicked(e);
-                int cellIdx = getCellIndex(e.getY() / CELL_SIZE + 1, e.getX()  / CELL_SIZE + 1);
-                if (isCellUsed(cellIdx)) {
+                int col = e.getX() / CELL_SIZE;
+                int cellIdx = col < columns ? e.getY() / CELL_SIZE * columns + col : -1;
+                if (cellIdx >= 0 && isCellUsed(cellIdx)) {
                     selectCell(cellIdx);
                 } else {
                     selectCell(-1);
                 }
             }
         });
-
-        scrollPane = new JScrollPane(MapPanel.this) {
+        addComponentListener(new ComponentAdapter() {
             @Override
-            public Dimension getPreferredSize() {
-                Dimension defaultDim = super.getPreferredSize();
-                if (getSize().height < defaultDim.height) {
-                    int scrollBarWidth = scrollPane.getVerticalScrollBar().getPreferredSize().width;
-                    return new Dimension(
-                            defaultDim.width + scrollBarWidth + 1,
-                            defaultDim.height
-                    );
-                } else {
-                    return defaultDim;
+            public void componentResized(ComponentEvent e) {
+                int newColumns = Math.max(1, getWidth() / CELL_SIZE);
+                if (newColumns != columns) {
+                    columns = newColumns;
+                    if (getBlocksPerCell() != getCellBlocks()) {
+                        rebuildTimer.restart();
+                    }
+                    image = null;
+                    revalidate();
+                    repaint();
                 }
             }
-        };
+        });
+
+        scrollPane = new JScrollPane(MapPanel.this);
         scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
         scrollPane.setBorder(new CompoundBorder(
                 new EmptyBorder(5, 5, 5, 0),
                 new LineBorder(Color.GRAY, 1)
         ));
+        scrollPane.setMinimumSize(new Dimension(CELL_SIZE * 10, CELL_SIZE * 10));
     }
 
     @Override
     public Dimension getPreferredSize() {
-        int minHeight = CELL_SIZE * (int) Math.ceil(
-                ((double) controller.getTableSpace().getBlocks() / getBlocksPerCell() / MAP_WIDTH)
-        ) - 1;
-        int minWidth  = MAP_WIDTH * CELL_SIZE - 1;
-        return new Dimension(minWidth, minHeight);
+        int cols = columns > 0 ? columns : MAP_WIDTH;
+        int rows = (int) Math.ceil((double) getCellCount() / cols);
+        return new Dimension(MAP_WIDTH * CELL_SIZE, rows * CELL_SIZE);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(MAP_WIDTH * CELL_SIZE, MAP_HEIGHT * CELL_SIZE);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return CELL_SIZE;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
     }
 
     @Override
@@ -91,77 +151,103 @@ class MapPanel extends JPanel implements IFormController.IMapView {
 
     @Override
     public int getBlocksPerCell() {
-        return (int) Math.ceil(((float) controller.getTableSpace().getBlocks()) / CELL_COUNT);
+        int cols = columns > 0 ? columns : MAP_WIDTH;
+        return (int) Math.max(1, Math.ceil(((double) controller.getTableSpace().getBlocks()) / (cols * MAP_HEIGHT)));
     }
 
     @Override
     public void insertExtent(Extent extent) {
-        int[] cellIds = getCellsByExtent(extent);
-        for (int cellIdx : cellIds) {
-            cellMap.computeIfAbsent(cellIdx, index -> new LinkedList<>()).add(extent);
-            paintCell(cellIdx, null);
+        boolean problem = isProblematic(extent.getSegment());
+        synchronized (this) {
+            applyExtent(extent, 1, problem);
         }
+        repaint();
     }
 
     @Override
-    public void removeExtent(Extent extent) {
-        int[] cellIds = getCellsByExtent(extent);
-        for (int cellIdx : cellIds) {
+    public void insertExtents(Collection<Extent> extents) {
+        // Detect problems of new segments before the lock
+        extents.forEach(extent -> isProblematic(extent.getSegment()));
+        synchronized (this) {
+            extents.forEach(extent -> applyExtent(extent, 1, isProblematic(extent.getSegment())));
+        }
+        repaint();
+    }
 
-            cellMap.computeIfAbsent(cellIdx, index -> new LinkedList<>()).remove(extent);
-            if (selectedCell == cellIdx) {
-                List<Extent> cellExtents = getExtentsByCell(cellIdx);
-                if (cellExtents.isEmpty()) {
-                    selectCell(-1);
-                } else {
-                    selectCell(cellIdx);
-                }
-            }
-            paintCell(cellIdx, null);
+    @Override
+    public void removeExtent(Extent extent) {
+        boolean problem = isProblematic(extent.getSegment());
+        synchronized (this) {
+            applyExtent(extent, -1, problem);
         }
+        SwingUtilities.invokeLater(() -> {
+            if (selectedCell >= 0) {
+                selectCell(isCellUsed(selectedCell) ? selectedCell : -1);
+            }
+            repaint();
+        });
     }
 
     @Override
     public void showExtents(List<Extent> extents) {
-        highlightCells(extents.parallelStream()
-                .map(extent -> Arrays.stream(getCellsByExtent(extent)))
-                .flatMapToInt(x -> x)
-                .distinct()
-                .toArray()
-        );
+        BitSet cells = new BitSet();
+        long cellBlocks = getCellBlocks();
+        extents.forEach(extent -> {
+            long firstBlock = controller.getDataProvider().getMapBlock(extent);
+            cells.set(
+                    (int) (firstBlock / cellBlocks),
+                    (int) ((firstBlock + extent.getSize() - 1) / cellBlocks) + 1
+            );
+        });
+        SwingUtilities.invokeLater(() -> {
+            highlightedCells = cells;
+            repaint();
+        });
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        if (cellMap.isEmpty() && !controller.getDataProvider().getExtents().isEmpty()) {
-            controller.getDataProvider().getExtents()
-                    .forEach(extent -> {
-                        int[] cellIds = getCellsByExtent(extent);
-                        for (int cellIdx : cellIds) {
-                            cellMap.computeIfAbsent(cellIdx, index -> new LinkedList<>()).add(extent);
-                        }
-                    });
-            repaint();
+        if (columns == 0) {
+            columns = Math.max(1, getWidth() / CELL_SIZE);
         }
-        for (int row = 1; row <= MAP_HEIGHT; row++) {
-            for (int col = 1; col <= MAP_WIDTH; col++) {
-                int cellIdx = getCellIndex(row, col);
-                if (!isCellNone(cellIdx))
-                    paintCell(g, row-1, col-1, getCellColor(cellIdx));
+        synchronized (this) {
+            int rows = Math.max(1, (int) Math.ceil((double) cellCount / columns));
+            boolean newImage = image == null || image.getWidth() != columns * CELL_SIZE || image.getHeight() != rows * CELL_SIZE;
+            if (newImage) {
+                image = new BufferedImage(columns * CELL_SIZE, rows * CELL_SIZE, BufferedImage.TYPE_INT_RGB);
+                dirtyCells.set(0, cellCount);
             }
+            Graphics2D ig = image.createGraphics();
+            try {
+                if (newImage) {
+                    // Cells beyond the end of the tablespace
+                    ig.setColor(CELL_NONE);
+                    ig.fillRect(0, 0, image.getWidth(), image.getHeight());
+                }
+                for (int cellIdx = dirtyCells.nextSetBit(0); cellIdx >= 0 && cellIdx < cellCount; cellIdx = dirtyCells.nextSetBit(cellIdx + 1)) {
+                    cellColors[cellIdx] = calcCellColor(cellIdx);
+                    paintCell(ig, cellIdx, new Color(cellColors[cellIdx]));
+                }
+            } finally {
+                ig.dispose();
+            }
+            dirtyCells.clear();
         }
-    }
+        g.drawImage(image, 0, 0, null);
 
-    private void paintCell(int cellIdx, Color color) {
-        int row      = (int) Math.ceil((cellIdx-1) / MAP_WIDTH);
-        int col      = (cellIdx-1) % MAP_WIDTH;
-        paintCell(getGraphics(), row, col, color == null ? getCellColor(cellIdx) : color);
+        // Overlay
+        for (int cellIdx = highlightedCells.nextSetBit(0); cellIdx >= 0 && cellIdx < cellCount; cellIdx = highlightedCells.nextSetBit(cellIdx + 1)) {
+            paintCell(g, cellIdx, CELL_HIGH);
+        }
+        if (selectedCell >= 0 && selectedCell < cellCount) {
+            paintCell(g, selectedCell, CELL_SEL);
+        }
     }
 
-    private void paintCell(Graphics g, int row, int col, Color color) {
-        int topLeftX = col * CELL_SIZE - 1;
-        int topLeftY = row * CELL_SIZE - 1;
+    private void paintCell(Graphics g, int cellIdx, Color color) {
+        int topLeftX = cellIdx % columns * CELL_SIZE;
+        int topLeftY = cellIdx / columns * CELL_SIZE;
 
         g.setColor(color);
         g.fillRect(topLeftX, topLeftY, CELL_SIZE, CELL_SIZE);
@@ -170,37 +256,71 @@ class MapPanel extends JPanel implements IFormController.IMapView {
         g.drawRect(topLeftX, topLeftY, CELL_SIZE, CELL_SIZE);
     }
 
-    private int getCellIndex(int row, int col) {
-        return MAP_WIDTH * (row-1) + col;
+    private int calcCellCount(long cellBlocks) {
+        return (int) Math.ceil((double) controller.getTableSpace().getBlocks() / cellBlocks);
     }
 
-    private Color getCellColor(int cellIdx) {
-        if (selectedCell == cellIdx) {
-            return CELL_SEL;
-        }
-        boolean highlighted = highlightedCells != null && IntStream.of(highlightedCells).anyMatch(x -> x == cellIdx);
-        if (highlighted) {
-            return CELL_HIGH;
+    /**
+     * Recreate the cell model for the current size of the tablespace and fill it with
+     * extents known by the data provider.
+     */
+    private void rebuild() {
+        long cellBlocks = getBlocksPerCell();
+        int  cells = calcCellCount(cellBlocks);
+        // The provider publishes no inserted or removed extents while the reader runs, so the
+        // cell model is swapped without losing or repeating changes made after the snapshot
+        controller.getDataProvider().readExtents(extents -> {
+            // Problems are detected on each load, so the flags are taken anew. Segment flags
+            // are cached before the lock, the cell model is then filled from the cache
+            problemSegments.clear();
+            controller.getDataProvider().getSegments().forEach(this::isProblematic);
+            synchronized (this) {
+                blocksPerCell = cellBlocks;
+                cellCount     = cells;
+                usedBlocks    = new long[cells];
+                problemCount  = new int[cells];
+                cellColors    = new int[cells];
+                dirtyCells.set(0, cells);
+                extents.forEach(extent -> applyExtent(extent, 1, isProblematic(extent.getSegment())));
+            }
+        });
+        SwingUtilities.invokeLater(() -> {
+            image = null;
+            revalidate();
+            repaint();
+        });
+    }
+
+    private boolean isProblematic(Segment segment) {
+        return problemSegments.computeIfAbsent(segment, key -> !key.problemsGetter().get().isEmpty());
+    }
+
+    private void applyExtent(Extent extent, int sign, boolean problem) {
+        long firstBlock = controller.getDataProvider().getMapBlock(extent);
+        long lastBlock  = firstBlock + extent.getSize() - 1;
+        int firstCell = (int) (firstBlock / blocksPerCell);
+        int lastCell  = (int) Math.min(lastBlock / blocksPerCell, cellCount - 1);
+        for (int cellIdx = firstCell; cellIdx <= lastCell; cellIdx++) {
+            long cellStart = cellIdx * blocksPerCell;
+            long cellEnd   = cellStart + blocksPerCell - 1;
+            usedBlocks[cellIdx] += sign * (Math.min(lastBlock, cellEnd) - Math.max(firstBlock, cellStart) + 1);
+            if (problem) {
+                problemCount[cellIdx] += sign;
+            }
+            dirtyCells.set(cellIdx);
         }
+    }
 
-        if (isCellWithProblem(cellIdx)) {
-            return CELL_BAD;
-        } else if (isCellUsed(cellIdx)) {
-            int minCellBlock = (cellIdx-1)*getBlocksPerCell();
-            int maxCellBlock = minCellBlock+getBlocksPerCell();
-
-            long cellUsedBlocks = getExtentsByCell(cellIdx).parallelStream()
-                    .mapToLong(extent ->
-                            Math.min(extent.getLastBlock(), maxCellBlock) - Math.max(extent.getFirstBlock(), minCellBlock)
-                    ).sum();
-            float percent = Math.max((float) cellUsedBlocks / getBlocksPerCell(), 0.3f);
-            return mixColors(CELL_FREE, CELL_USED, percent);
-        } else if (isCellSystem(cellIdx)) {
-            return CELL_SYS;
-        } else if (isCellNone(cellIdx)) {
-            return CELL_NONE;
+    private int calcCellColor(int cellIdx) {
+        if (problemCount[cellIdx] > 0) {
+            return CELL_BAD.getRGB();
+        } else if (usedBlocks[cellIdx] > 0) {
+            float percent = Math.max((float) usedBlocks[cellIdx] / blocksPerCell, 0.3f);
+            return mixColors(CELL_FREE, CELL_USED, Math.min(percent, 1f)).getRGB();
+        } else if ((cellIdx + 1) * blocksPerCell <= SYS_BLOCKS) {
+            return CELL_SYS.getRGB();
         } else {
-            return CELL_FREE;
+            return CELL_FREE.getRGB();
         }
     }
 
@@ -211,56 +331,30 @@ class MapPanel extends JPanel implements IFormController.IMapView {
         return new Color(redPart, greenPart, bluePart);
     }
 
-    private boolean isCellWithProblem(int cellIdx) {
-        return getExtentsByCell(cellIdx).parallelStream()
-                .anyMatch(extent -> !extent.getSegment().problemsGetter().get().isEmpty());
+    private synchronized int getCellCount() {
+        return cellCount;
     }
 
-    private boolean isCellUsed(int cellIdx) {
-        return !cellMap.getOrDefault(cellIdx, Collections.emptyList()).isEmpty();
+    private synchronized long getCellBlocks() {
+        return blocksPerCell;
     }
 
-    private boolean isCellSystem(int cellIdx) {
-        return cellIdx * getBlocksPerCell() <= 128;
-    }
-
-    private boolean isCellNone(int cellIdx) {
-        return cellIdx > (controller.getTableSpace().getBlocks() / getBlocksPerCell())+1;
+    private synchronized boolean isCellUsed(int cellIdx) {
+        return cellIdx < cellCount && usedBlocks[cellIdx] > 0;
     }
 
     private void selectCell(int cellIdx) {
-        int prevSelectedCell = selectedCell;
         selectedCell = cellIdx;
-        if (prevSelectedCell > 0) {
-            paintCell(prevSelectedCell, getCellColor(prevSelectedCell));
-        }
-        if (selectedCell > 0) {
-            paintCell(selectedCell, CELL_SEL);
-        }
-        SwingUtilities.invokeLater(() -> controller.getCellView().showExtents(getExtentsByCell(selectedCell)));
-    }
-
-    private void highlightCells(int[] cellIds) {
-        int[] prevHighlighted = highlightedCells;
-        highlightedCells = cellIds;
-
-        for (int cellId : prevHighlighted) {
-            if (Arrays.stream(cellIds).noneMatch(i -> i == cellId)) {
-                paintCell(cellId, getCellColor(cellId));
-            }
-        }
-        for (int cellId : highlightedCells) {
-            paintCell(cellId, cellId == selectedCell ? CELL_SEL : CELL_HIGH);
-        }
-    }
-
-    private int[] getCellsByExtent(Extent extent) {
-        int firstCellId = (int) Math.ceil((float) extent.getFirstBlock() / getBlocksPerCell());
-        int lastCellId  = (int) Math.ceil((float) extent.getLastBlock()  / getBlocksPerCell());
-        return IntStream.rangeClosed(firstCellId, lastCellId).toArray();
+        repaint();
+        List<Extent> extents = getExtentsByCell(cellIdx);
+        SwingUtilities.invokeLater(() -> controller.getCellView().showExtents(extents));
     }
 
     private List<Extent> getExtentsByCell(int cellIdx) {
-        return cellMap.getOrDefault(cellIdx, Collections.emptyList());
+        if (cellIdx < 0) {
+            return Collections.emptyList();
+        }
+        long cellBlocks = getCellBlocks();
+        return new LinkedList<>(controller.getDataProvider().getExtents(cellIdx * cellBlocks, (cellIdx + 1) * cellBlocks - 1));
     }
 }
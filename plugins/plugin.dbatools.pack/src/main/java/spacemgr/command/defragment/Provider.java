@@ -6,6 +6,8 @@ import codex.service.ServiceRegistry;
 import codex.task.AbstractTask;
 import codex.task.ITask;
 import codex.task.ITaskExecutorService;
+import codex.task.ITaskListener;
+import codex.task.Status;
 import codex.utils.Language;
 import manager.nodes.Database;
 import oracle.jdbc.OracleConnection;
@@ -15,27 +17,37 @@ import spacemgr.command.objects.*;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 class Provider implements IFormController.IDataProvider {
 
-    private final static Map<TableSpace, List<Extent>>       EXTENTS_CACHE = new HashMap<>();
+    private final static Map<TableSpace, ExtentStore>        EXTENT_STORE  = new HashMap<>();
     private final static Map<TableSpace, List<IProblematic>> PROBLEM_CACHE = new HashMap<>();
-    private final static Map<TableSpace, List<Segment>>      SEGMENT_CACHE = new HashMap<>();
+    private final static Map<TableSpace, Map<Integer, Long>> FILE_OFFSETS  = new ConcurrentHashMap<>();
+
+    // Loader settings may be overridden by system properties
+    private final static int FETCH_SIZE    = Integer.getInteger("spacemgr.fetchSize", 5000);
+    private final static int LOAD_THREADS  = Integer.getInteger("spacemgr.loadThreads", 4);
+    private final static int PROGRESS_STEP = 1000;
+    private final static int ERR_CANCELLED = 1013;
 
     private final IFormController controller;
-    private final OracleConnection connection;
+    private final Queue<OracleConnection> connections = new ConcurrentLinkedQueue<>();
     private final List<IDataChangeListener> listeners = new LinkedList<>();
 
     Provider(IFormController controller) throws SQLException {
-        EXTENTS_CACHE.putIfAbsent(controller.getTableSpace(), new LinkedList<>());
+        EXTENT_STORE.putIfAbsent(controller.getTableSpace(), new ExtentStore());
         PROBLEM_CACHE.putIfAbsent(controller.getTableSpace(), new LinkedList<>());
-        SEGMENT_CACHE.putIfAbsent(controller.getTableSpace(), new LinkedList<>());
         this.controller = controller;
-        this.connection = connect();
+        this.connections.add(connect());
     }
 
     private OracleConnection connect() throws SQLException {
@@ -51,6 +63,32 @@ class Provider implements IFormController.IDataProvider {
         return (OracleConnection) driver.connect(dbURL, prop);
     }
 
+    /**
+     * Take an idle connection from the pool or open a new one. The connection is returned to
+     * the pool when the lease is closed.
+     */
+    private ConnectionLease acquireConnection() throws SQLException {
+        OracleConnection connection;
+        while ((connection = connections.poll()) != null) {
+            if (!connection.isClosed()) {
+                return new ConnectionLease(connection);
+            }
+        }
+        return new ConnectionLease(connect());
+    }
+
+    /**
+     * Close idle connections opened by parallel loaders, one connection is kept for the next load.
+     */
+    private void trimConnections() {
+        OracleConnection connection;
+        while (connections.size() > 1 && (connection = connections.poll()) != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignore) {}
+        }
+    }
+
     @Override
     public void loadExtents() {
         final ITask loadStructure = new LoadExtents();
@@ -59,12 +97,38 @@ class Provider implements IFormController.IDataProvider {
 
     @Override
     public synchronized Collection<Extent> getExtents() {
-        return EXTENTS_CACHE.get(controller.getTableSpace());
+        return getStore().asList();
+    }
+
+    @Override
+    public synchronized void readExtents(Consumer<Collection<Extent>> reader) {
+        reader.accept(getStore().asList());
+    }
+
+    @Override
+    public synchronized Collection<Extent> getExtents(long fromBlock, long toBlock) {
+        List<Extent> result = new LinkedList<>();
+        getFileOffsets().forEach((fileNo, offset) -> {
+            if (offset <= toBlock) {
+                result.addAll(getStore().getExtents(fileNo, fromBlock - offset, toBlock - offset));
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public synchronized Collection<Extent> getExtents(Segment segment) {
+        return getStore().getExtents(segment);
+    }
+
+    @Override
+    public long getMapBlock(Extent extent) {
+        return getFileOffsets().getOrDefault(extent.getFileNo(), 0L) + extent.getFirstBlock();
     }
 
     @Override
     public synchronized List<Segment> getSegments() {
-        return new LinkedList<>(SEGMENT_CACHE.get(controller.getTableSpace()));
+        return new LinkedList<>(getStore().getSegments());
     }
 
     @Override
@@ -84,59 +148,95 @@ class Provider implements IFormController.IDataProvider {
         listeners.remove(listener);
     }
 
-    private Segment getSegment(String owner, String type, String name, String part) {
-        return SEGMENT_CACHE.get(controller.getTableSpace()).parallelStream()
-                .filter(segment ->
-                        Objects.equals(segment.getOwner(), owner) &&
-                        Objects.equals(segment.getType(), type) &&
-                        Objects.equals(segment.getName(), name) &&
-                        Objects.equals(segment.getPart(), part)
-                ).findFirst()
-                .orElseGet(() -> {
-                    Segment newSegment = new Segment(owner, type, name, part) {
-                        @Override
-                        public TableSpace getTableSpace() {
-                            return controller.getTableSpace();
-                        }
+    private ExtentStore getStore() {
+        return EXTENT_STORE.get(controller.getTableSpace());
+    }
 
-                        @Override
-                        public Supplier<List<IProblematic>> problemsGetter() {
-                            return () -> PROBLEM_CACHE.get(controller.getTableSpace()).parallelStream()
-                                    .filter(problematic -> problematic.isRelatedSegment(this))
-                                    .collect(Collectors.toList());
-                        }
-                    };
-                    SEGMENT_CACHE.get(controller.getTableSpace()).add(newSegment);
-                    return newSegment;
-                });
+    /**
+     * Returns position of the first block of each datafile (by relative number) in the map of
+     * the tablespace: datafiles follow each other in order of their identifiers.
+     */
+    private Map<Integer, Long> getFileOffsets() {
+        return FILE_OFFSETS.getOrDefault(controller.getTableSpace(), Collections.emptyMap());
     }
 
-    private synchronized void insertExtent(Extent extent) {
-        extent.getSegment().addExtent(extent);
-        EXTENTS_CACHE.get(controller.getTableSpace()).add(extent);
-        controller.getMapView().insertExtent(extent);
+    private int getSegmentId(String owner, String type, String name, String part) {
+        return getStore().segmentId(owner, type, name, part, () -> new Segment(owner, type, name, part) {
+            @Override
+            public TableSpace getTableSpace() {
+                return controller.getTableSpace();
+            }
+
+            @Override
+            public Supplier<List<IProblematic>> problemsGetter() {
+                return () -> PROBLEM_CACHE.get(controller.getTableSpace()).parallelStream()
+                        .filter(problematic -> problematic.isRelatedSegment(this))
+                        .collect(Collectors.toList());
+            }
+        });
+    }
+
+    /**
+     * Changes of the store are published to the map under the lock, so the map rebuilt from
+     * the extents passed to {@link #readExtents(Consumer)} neither misses nor repeats any of them.
+     */
+    private synchronized void removeExtent(int index) {
+        Extent extent = getStore().remove(index);
+        if (extent != null) {
+            extent.getSegment().delExtent(extent);
+            controller.getMapView().removeExtent(extent);
+        }
     }
 
-    private synchronized void removeExtent(Extent extent) {
-        extent.getSegment().delExtent(extent);
-        EXTENTS_CACHE.get(controller.getTableSpace()).remove(extent);
-        controller.getMapView().removeExtent(extent);
+    /**
+     * Merge the page of rows fetched by a loader: mark the extents loaded before as found, add
+     * new ones to the store and publish them to the map in one batch.
+     */
+    private synchronized void mergeExtents(List<ExtentRow> page, BitSet foundExtents) {
+        List<Extent> inserted = new ArrayList<>(page.size());
+        for (ExtentRow row : page) {
+            final int segmentId = getSegmentId(row.owner, row.type, row.name, row.part);
+            int existing = getStore().indexOf(row.fileNo, row.block, row.size, segmentId);
+            if (existing >= 0) {
+                foundExtents.set(existing);
+                continue;
+            }
+            final Extent extent = getStore().getExtent(getStore().add(row.fileNo, row.block, row.size, segmentId));
+            extent.getSegment().addExtent(extent);
+            inserted.add(extent);
+        }
+        if (!inserted.isEmpty()) {
+            controller.getMapView().insertExtents(inserted);
+        }
     }
 
     private synchronized void sortExtents() {
-        EXTENTS_CACHE.get(controller.getTableSpace()).sort(
-                Comparator.comparingLong(Extent::getFirstBlock)
-        );
+        getStore().sort();
     }
 
 
     private class LoadExtents extends AbstractTask<List<Extent>> {
 
+        private final Set<Statement> activeStatements = ConcurrentHashMap.newKeySet();
+
         private LoadExtents() {
             super(MessageFormat.format(
                     Language.get(Provider.class, "task@load"),
                     controller.getTableSpace().getPID()
             ));
+            // Interrupt running queries, loaders check the status between rows
+            addListener(new ITaskListener() {
+                @Override
+                public void statusChanged(ITask task, Status prevStatus, Status nextStatus) {
+                    if (nextStatus == Status.CANCELLED) {
+                        activeStatements.forEach(statement -> {
+                            try {
+                                statement.cancel();
+                            } catch (SQLException ignore) {}
+                        });
+                    }
+                }
+            });
         }
 
         @Override
@@ -180,135 +280,205 @@ class Provider implements IFormController.IDataProvider {
                     controller.getTableSpace().getPID()
             );
             setProgress(0, Language.get(Provider.class, "load@fetch"));
-            final String query = MessageFormat.format(
-                    Language.get(Provider.class, "load@query.sys", Language.DEF_LOCALE),
+            Map<Integer, Integer> dataFiles   = new LinkedHashMap<>();
+            Map<Integer, Long>    fileOffsets = new LinkedHashMap<>();
+            try (final ResultSet resultSet = ServiceRegistry.getInstance().lookupService(IDatabaseAccessService.class).select(
+                    controller.getTableSpace().getConnectionID(),
+                    "SELECT FILE_ID, RELATIVE_FNO, BLOCKS FROM DBA_DATA_FILES WHERE TABLESPACE_NAME = ? ORDER BY FILE_ID",
                     controller.getTableSpace().getPID()
-            );
-            final PreparedStatement statement = connection.prepareStatement(
-                    query,
-                    ResultSet.TYPE_FORWARD_ONLY,
-                    ResultSet.CONCUR_READ_ONLY
-            );
-
-            statement.setFetchSize(Math.max(50, totalExtents / 250));
-            Logger.getContextLogger(TableSpaceManager.class).debug(
-                    "Set cursor fetch size: {0}",
-                    statement.getFetchSize()
-            );
-
-            // Terminate SQL statement watchdog
-            new Thread(() -> {
-                while (!getStatus().isFinal()) {
-                    if (isCancelled()) {
-                        try {
-                            statement.cancel();
-                        } catch (SQLException ignore) {}
+            )) {
+                long offset = 0;
+                while (resultSet.next()) {
+                    dataFiles.put(resultSet.getInt("FILE_ID"), resultSet.getInt("RELATIVE_FNO"));
+                    fileOffsets.put(resultSet.getInt("RELATIVE_FNO"), offset);
+                    offset += resultSet.getLong("BLOCKS");
+                }
+            }
+            FILE_OFFSETS.put(controller.getTableSpace(), fileOffsets);
+
+            // Extents loaded before are looked up in the sorted part of the store,
+            // new ones are appended to its tail
+            sortExtents();
+            final BitSet foundExtents = new BitSet(getStore().sortedSize());
+            final AtomicInteger loadedExtents = new AtomicInteger(0);
+            final int expectedExtents = totalExtents;
+
+            ExecutorService loaders = Executors.newFixedThreadPool(
+                    Math.max(1, Math.min(LOAD_THREADS, dataFiles.size())),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "Extent loader: " + controller.getTableSpace().getPID());
+                        thread.setDaemon(true);
+                        return thread;
                     }
+            );
+            try {
+                List<Future<?>> futures = new LinkedList<>();
+                dataFiles.forEach((fileId, relativeFno) -> futures.add(loaders.submit(() -> {
+                    loadDataFile(fileId, relativeFno, foundExtents, count -> {
+                        int loaded = loadedExtents.addAndGet(count);
+                        if (loaded / PROGRESS_STEP != (loaded - count) / PROGRESS_STEP) {
+                            setProgress(100 * loaded / Math.max(expectedExtents, loaded), getDescription());
+                        }
+                    });
+                    return null;
+                })));
+                for (Future<?> future : futures) {
                     try {
-                        Thread.sleep(500);
-                    } catch (InterruptedException ignore) {}
+                        future.get();
+                    } catch (ExecutionException e) {
+                        if (!(e.getCause() instanceof SQLException) || ((SQLException) e.getCause()).getErrorCode() != ERR_CANCELLED) {
+                            futures.forEach(other -> other.cancel(true));
+                            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                        }
+                    }
                 }
-            }).start();
+            } finally {
+                loaders.shutdownNow();
+                trimConnections();
+            }
+            if (isCancelled()) {
+                return null;
+            }
 
-            ResultSet resultSet = null;
-            try {
-                resultSet = statement.executeQuery();
-                int extentIdx = 0;
+            // Synchronize
+            Logger.getContextLogger(TableSpaceManager.class).debug("Delete obsolete extents");
+            int loadedBefore = getStore().sortedSize();
+            for (int index = foundExtents.nextClearBit(0); index < loadedBefore; index = foundExtents.nextClearBit(index + 1)) {
+                removeExtent(index);
+            }
+            Logger.getContextLogger(TableSpaceManager.class).debug("Sorting loaded extents");
+            sortExtents();
 
-                Set<Integer> existingExtentHashes = getExtents().parallelStream()
-                        .map(Extent::hashCode).collect(Collectors.toSet());
-                Set<Integer> foundExtentHashes = new HashSet<>();
-                while (resultSet.next()) {
-                    final String owner = resultSet.getString("OWNER");
-                    final String name  = resultSet.getString("SEGMENT_NAME");
-                    final String type  = resultSet.getString("SEGMENT_TYPE");
-                    final String part  = resultSet.getString("PARTITION_NAME");
-                    final Long block   = resultSet.getLong(  "BLOCK_ID");
-                    final Long size    = resultSet.getLong(  "BLOCKS");
-
-                    SegmentType segmentType = SegmentType.byType(type);
-                    if (segmentType == null) continue;
-                    final Segment segment = getSegment(owner, type, name, part);
-
-                    extentIdx++;
-                    int percent = 100 * extentIdx / totalExtents;
-                    setProgress(percent, getDescription());
-
-                    final Extent extent = new Extent(owner, name, type, part, block, size) {
-                        @Override
-                        public Segment getSegment() {
-                            return segment;
+            Logger.getContextLogger(TableSpaceManager.class).debug(
+                    "Loaded objects of tablespace ''{0}'': segments={1}, extents={2}",
+                    controller.getTableSpace().getPID(),
+                    String.valueOf(getSegments().size()),
+                    String.valueOf(getExtents().size())
+            );
+            new LinkedList<>(listeners).forEach(IDataChangeListener::dataLoaded);
+            return null;
+        }
+
+        /**
+         * Load extents of one datafile. Rows are collected by pages of the fetch size, each page
+         * is merged into the store and painted on the map at once.
+         */
+        private void loadDataFile(int fileId, int relativeFno, BitSet foundExtents, IntConsumer onPage) throws SQLException {
+            final String query = MessageFormat.format(
+                    Language.get(Provider.class, "load@query.sys", Language.DEF_LOCALE),
+                    controller.getTableSpace().getPID(),
+                    String.valueOf(relativeFno)
+            );
+            Logger.getContextLogger(TableSpaceManager.class).debug(
+                    "Load extents of datafile #{0} (fetch size: {1})",
+                    String.valueOf(fileId), String.valueOf(FETCH_SIZE)
+            );
+            try (
+                    final ConnectionLease lease = acquireConnection();
+                    final PreparedStatement statement = lease.connection.prepareStatement(
+                            query,
+                            ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY
+                    )
+            ) {
+                statement.setFetchSize(FETCH_SIZE);
+                activeStatements.add(statement);
+                List<ExtentRow> page = new ArrayList<>(FETCH_SIZE);
+                try (final ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        checkPaused();
+                        if (isCancelled()) {
+                            return;
+                        }
+                        final String owner = resultSet.getString("OWNER");
+                        final String name  = resultSet.getString("SEGMENT_NAME");
+                        final String type  = resultSet.getString("SEGMENT_TYPE");
+                        final String part  = resultSet.getString("PARTITION_NAME");
+                        final long   block = resultSet.getLong(  "BLOCK_ID");
+                        final long   size  = resultSet.getLong(  "BLOCKS");
+
+                        if (SegmentType.byType(type) == null) continue;
+                        page.add(new ExtentRow(owner, type, name, part, relativeFno, block, size));
+                        if (page.size() == FETCH_SIZE) {
+                            mergeExtents(page, foundExtents);
+                            onPage.accept(page.size());
+                            page.clear();
                         }
-                    };
-                    foundExtentHashes.add(extent.hashCode());
-                    if (!existingExtentHashes.contains(extent.hashCode())) {
-                        existingExtentHashes.add(extent.hashCode());
-                        insertExtent(extent);
                     }
-                }
-                // Synchronize
-                Logger.getContextLogger(TableSpaceManager.class).debug("Delete obsolete extents");
-                new LinkedList<>(getExtents()).parallelStream().forEach(extent -> {
-                    if (!foundExtentHashes.contains(extent.hashCode())) {
-                        removeExtent(extent);
+                    if (!page.isEmpty()) {
+                        mergeExtents(page, foundExtents);
+                        onPage.accept(page.size());
                     }
-                });
-                Logger.getContextLogger(TableSpaceManager.class).debug("Sorting loaded extents");
-                sortExtents();
-
-                Logger.getContextLogger(TableSpaceManager.class).debug(
-                        "Loaded objects of tablespace ''{0}'': segments={1}, extents={2}",
-                        controller.getTableSpace().getPID(),
-                        String.valueOf(getSegments().size()),
-                        String.valueOf(getExtents().size())
-                );
-                new LinkedList<>(listeners).forEach(IDataChangeListener::dataLoaded);
-            } catch (SQLException e) {
-                if (e.getErrorCode() != 1013) throw e;
-            } finally {
-                if (resultSet != null) {
-                    resultSet.getStatement().close();
-                    resultSet.close();
+                } finally {
+                    activeStatements.remove(statement);
                 }
             }
-            return null;
         }
 
+        @Override
+        public void finished(List<Extent> result) {}
+
         List<IProblematic> detectProblematic() {
             Logger.getContextLogger(TableSpaceManager.class).debug(Language.get(Provider.class, "load@check", Language.DEF_LOCALE));
             List<IProblematic> problematicObjects = new LinkedList<>();
-            try {
-                final PreparedStatement statement = connection.prepareStatement(
-                        Language.get(Provider.class, "load@problem.long", Language.DEF_LOCALE),
-                        ResultSet.TYPE_FORWARD_ONLY,
-                        ResultSet.CONCUR_READ_ONLY
-                );
+            try (
+                    final ConnectionLease lease = acquireConnection();
+                    final PreparedStatement statement = lease.connection.prepareStatement(
+                            Language.get(Provider.class, "load@problem.long", Language.DEF_LOCALE),
+                            ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY
+                    )
+            ) {
                 statement.setString(1, controller.getTableSpace().getPID());
-                ResultSet resultSet = null;
-                try {
-                    resultSet = statement.executeQuery();
+                try (final ResultSet resultSet = statement.executeQuery()) {
                     while (resultSet.next()) {
                         final String owner  = resultSet.getString("OWNER");
                         final String table  = resultSet.getString("TABLE_NAME");
                         final String column = resultSet.getString("COLUMN_NAME");
                         problematicObjects.add(new InvalidColumnDatatype(owner, table, column));
                     }
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                } finally {
-                    if (resultSet != null) {
-                        resultSet.getStatement().close();
-                        resultSet.close();
-                    }
                 }
             } catch (SQLException e) {
                 e.printStackTrace();
             }
             return problematicObjects;
         }
+    }
+
+
+    /**
+     * Fetched row of the extent to be merged into the store.
+     */
+    private final static class ExtentRow {
+
+        private final String owner, type, name, part;
+        private final int  fileNo;
+        private final long block, size;
+
+        private ExtentRow(String owner, String type, String name, String part, int fileNo, long block, long size) {
+            this.owner  = owner;
+            this.type   = type;
+            this.name   = name;
+            this.part   = part;
+            this.fileNo = fileNo;
+            this.block  = block;
+            this.size   = size;
+        }
+    }
+
+
+    private final class ConnectionLease implements AutoCloseable {
+
+        private final OracleConnection connection;
+
+        private ConnectionLease(OracleConnection connection) {
+            this.connection = connection;
+        }
 
         @Override
-        public void finished(List<Extent> result) {}
+        public void close() {
+            connections.add(connection);
+        }
     }
 
 
@@ -9,14 +9,16 @@ public abstract class Extent {
     private final String owner;
     private final String type;
     private final String part;
+    private final int    file;
     private final long   block;
     private final long   size;
 
-    protected Extent(String owner, String name, String type, String part, long block, long size) {
+    protected Extent(String owner, String name, String type, String part, int file, long block, long size) {
         this.name  = name;
         this.owner = owner;
         this.type  = type;
         this.part  = part;
+        this.file  = file;
         this.block = block;
         this.size  = size;
     }
@@ -37,6 +39,13 @@ public abstract class Extent {
         return part;
     }
 
+    /**
+     * Returns relative number of the datafile which contains the extent.
+     */
+    public final int getFileNo() {
+        return file;
+    }
+
     public final long getFirstBlock() {
         return block;
     }
@@ -59,6 +68,7 @@ public abstract class Extent {
         return name.equals(extent.name) &&
                owner.equals(extent.owner) &&
                type.equals(extent.type) &&
+               file == extent.file &&
                block == extent.block &&
                size == extent.size &&
                Objects.equals(part, extent.part);
@@ -66,20 +76,20 @@ public abstract class Extent {
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, owner, type, part, block, size);
+        return Objects.hash(name, owner, type, part, file, block, size);
     }
 
     @Override
     public final String toString() {
         if (part == null) {
             return MessageFormat.format(
-                    "Extent [#{0}-{1}, type={2}, owner={3}, name={4}]",
-                    String.valueOf(block), String.valueOf(block+size-1), type, owner, name
+                    "Extent [file={5}, #{0}-{1}, type={2}, owner={3}, name={4}]",
+                    String.valueOf(block), String.valueOf(block+size-1), type, owner, name, String.valueOf(file)
             );
         } else {
             return MessageFormat.format(
-                    "Extent [#{0}-{1}, type={2}, owner={3}, name={4}, partition={5}]",
-                    String.valueOf(block), String.valueOf(block+size-1), type, owner, name, part
+                    "Extent [file={6}, #{0}-{1}, type={2}, owner={3}, name={4}, partition={5}]",
+                    String.valueOf(block), String.valueOf(block+size-1), type, owner, name, part, String.valueOf(file)
             );
         }
     }
@@ -1,14 +1,15 @@
 package spacemgr.command.objects;
 
 import java.text.MessageFormat;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 public abstract class Segment {
 
-    private final List<Extent> extents = new LinkedList<>();
+    // Extents are kept by the data provider, the segment counts their blocks only
+    private final AtomicLong blocks = new AtomicLong();
     private final String owner, type, name, part;
 
     public Segment(String owner, String type, String name, String part) {
@@ -38,20 +39,16 @@ public abstract class Segment {
         return part;
     }
 
-    public final List<Extent> getExtents() {
-        return new LinkedList<>(extents);
-    }
-
     public final void addExtent(Extent extent) {
-        extents.add(extent);
+        blocks.addAndGet(extent.getSize());
     }
 
     public final void delExtent(Extent extent) {
-        extents.remove(extent);
+        blocks.addAndGet(-extent.getSize());
     }
 
     public long getSize() {
-        return extents.parallelStream().mapToLong(Extent::getSize).sum() * getTableSpace().getBlockSize();
+        return blocks.get() * getTableSpace().getBlockSize();
     }
 
     @Override
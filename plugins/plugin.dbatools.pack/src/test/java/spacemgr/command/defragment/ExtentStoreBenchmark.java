@@ -0,0 +1,172 @@
+package spacemgr.command.defragment;
+
+import spacemgr.command.objects.Extent;
+import spacemgr.command.objects.IProblematic;
+import spacemgr.command.objects.Segment;
+import spacemgr.command.objects.TableSpace;
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of the extent store over a synthetic tablespace. Extents of datafiles follow each other
+ * with random sizes and segments, datafiles are loaded by interleaved pages as parallel loaders merge them.
+ * Run in a separate JVM:
+ * <pre>
+ * java -cp &lt;classpath&gt; [-Dextents=1000000] [-Dfiles=8] [-Dsegments=20000] spacemgr.command.defragment.ExtentStoreBenchmark
+ * </pre>
+ * Stages: initial load, reload with 1% of extents dropped and 1% added, iteration of all extents,
+ * lookup of extents by block ranges of map cells. Retained heap of the store is printed at the end.
+ */
+public class ExtentStoreBenchmark {
+
+    private final static int EXTENTS   = Integer.getInteger("extents", 1_000_000);
+    private final static int FILES     = Integer.getInteger("files", 8);
+    private final static int SEGMENTS  = Integer.getInteger("segments", 20_000);
+    private final static int PAGE_SIZE = 5000;
+    private final static int CELLS     = 10_000;
+    private final static long SEED     = 42;
+
+    public static void main(String[] args) {
+        Random random = new Random(SEED);
+        List<List<Row>> files = generate(random);
+
+        System.gc();
+        long heapBefore = usedMemory();
+        ExtentStore store = new ExtentStore();
+
+        long started = System.nanoTime();
+        merge(store, files, new BitSet());
+        store.sort();
+        report("Load", started, store);
+
+        // Reload: each datafile loses 1% of extents and gets 1% of new ones at its end
+        for (List<Row> rows : files) {
+            long lastBlock = rows.get(rows.size() - 1).block + rows.get(rows.size() - 1).size;
+            int changes = Math.max(1, rows.size() / 100);
+            for (int i = 0; i < changes; i++) {
+                rows.remove(random.nextInt(rows.size()));
+                Row added = new Row(rows.get(0).fileNo, lastBlock, 8 + random.nextInt(1017), random.nextInt(SEGMENTS));
+                rows.add(added);
+                lastBlock += added.size;
+            }
+        }
+        started = System.nanoTime();
+        BitSet found = new BitSet(store.sortedSize());
+        merge(store, files, found);
+        int loadedBefore = store.sortedSize();
+        for (int index = found.nextClearBit(0); index < loadedBefore; index = found.nextClearBit(index + 1)) {
+            store.remove(index);
+        }
+        store.sort();
+        report("Reload", started, store);
+
+        started = System.nanoTime();
+        long usedBlocks = 0;
+        for (Extent extent : store.asList()) {
+            usedBlocks += extent.getSize();
+        }
+        report("Iterate (" + usedBlocks + " blocks)", started, store);
+
+        started = System.nanoTime();
+        long lookedUp = 0;
+        for (int fileNo = 1; fileNo <= FILES; fileNo++) {
+            List<Row> rows = files.get(fileNo - 1);
+            long fileBlocks = rows.get(rows.size() - 1).block + rows.get(rows.size() - 1).size;
+            long cellBlocks = Math.max(1, fileBlocks * FILES / CELLS);
+            for (long fromBlock = 0; fromBlock < fileBlocks; fromBlock += cellBlocks) {
+                lookedUp += store.getExtents(fileNo, fromBlock, fromBlock + cellBlocks - 1).size();
+            }
+        }
+        report("Lookup by cells (" + lookedUp + " hits)", started, store);
+
+        System.gc();
+        long heapAfter = usedMemory();
+        System.out.println(MessageFormat.format(
+                "Retained heap: {0} KB for {1} extents of {2} datafiles",
+                String.valueOf((heapAfter - heapBefore) / 1024), String.valueOf(store.size()), String.valueOf(files.size())
+        ));
+    }
+
+    private static List<List<Row>> generate(Random random) {
+        List<List<Row>> files = new ArrayList<>(FILES);
+        for (int fileNo = 1; fileNo <= FILES; fileNo++) {
+            List<Row> rows = new ArrayList<>(EXTENTS / FILES);
+            long block = 128;
+            for (int i = 0; i < EXTENTS / FILES; i++) {
+                Row row = new Row(fileNo, block, 8 + random.nextInt(1017), random.nextInt(SEGMENTS));
+                rows.add(row);
+                block += row.size + (random.nextInt(10) == 0 ? random.nextInt(256) : 0);
+            }
+            files.add(rows);
+        }
+        return files;
+    }
+
+    /**
+     * Merge pages of all datafiles in turn, as {@link Provider} does for parallel loaders.
+     */
+    private static void merge(ExtentStore store, List<List<Row>> files, BitSet found) {
+        int maxRows = files.stream().mapToInt(List::size).max().orElse(0);
+        for (int offset = 0; offset < maxRows; offset += PAGE_SIZE) {
+            for (List<Row> rows : files) {
+                for (Row row : rows.subList(Math.min(offset, rows.size()), Math.min(offset + PAGE_SIZE, rows.size()))) {
+                    String name = "SEGMENT_" + row.segment;
+                    int segmentId = store.segmentId("OWNER", "TABLE", name, null, () -> new BenchmarkSegment(name));
+                    int existing = store.indexOf(row.fileNo, row.block, row.size, segmentId);
+                    if (existing >= 0) {
+                        found.set(existing);
+                    } else {
+                        Extent extent = store.getExtent(store.add(row.fileNo, row.block, row.size, segmentId));
+                        extent.getSegment().addExtent(extent);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void report(String stage, long started, ExtentStore store) {
+        System.out.println(MessageFormat.format(
+                "{0}: {1} ms, extents={2}",
+                stage, String.valueOf(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)), String.valueOf(store.size())
+        ));
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+
+    private final static class Row {
+
+        private final int  fileNo, segment;
+        private final long block, size;
+
+        Row(int fileNo, long block, long size, int segment) {
+            this.fileNo  = fileNo;
+            this.block   = block;
+            this.size    = size;
+            this.segment = segment;
+        }
+    }
+
+
+    private final static class BenchmarkSegment extends Segment {
+
+        BenchmarkSegment(String name) {
+            super("OWNER", "TABLE", name, null);
+        }
+
+        @Override
+        public TableSpace getTableSpace() {
+            return null;
+        }
+
+        @Override
+        public Supplier<List<IProblematic>> problemsGetter() {
+            return Collections::emptyList;
+        }
+    }
+}
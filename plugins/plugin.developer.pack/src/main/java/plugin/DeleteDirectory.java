@@ -10,15 +10,11 @@ import codex.type.IComplexType;
 import codex.utils.Language;
 import manager.commands.common.DiskUsageReport;
 import manager.nodes.Common;
-import org.apache.commons.io.FileDeleteStrategy;
+import manager.utils.DirectoryRemover;
 import plugin.command.CommandPlugin;
-import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class DeleteDirectory extends CommandPlugin<Common> {
 
@@ -56,40 +52,7 @@ public class DeleteDirectory extends CommandPlugin<Common> {
 
         @Override
         public Void execute() throws Exception {
-            setProgress(0, Language.get(DiskUsageReport.class, "delete@calc"));
-            long totalFiles = Files.walk(path).count();
-
-            AtomicInteger processed = new AtomicInteger(0);
-            Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
-
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    return processPath(file);
-                }
-
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
-                    return processPath(dir);
-                }
-
-                private FileVisitResult processPath(Path path) {
-                    checkPaused();
-                    if (isCancelled()) {
-                        return FileVisitResult.TERMINATE;
-                    }
-                    try {
-                        FileDeleteStrategy.NORMAL.delete(path.toFile());
-                        processed.addAndGet(1);
-                        setProgress(
-                                (int) (processed.get() * 100 / totalFiles),
-                                MessageFormat.format(Language.get(DiskUsageReport.class, "delete@progress"), path)
-                        );
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+            new DirectoryRemover(this, Language.get(DiskUsageReport.class, "delete@progress")).deleteViaTrash(path, 0);
             return null;
         }
 
@@ -0,0 +1,118 @@
+package plugin;
+
+import codex.log.Logger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Properties;
+
+/**
+ * Local cache of release directory scan results. Release tags are not changed after creation,
+ * so the result is stored per release URL and revision of the last change of the directory:
+ * if the release is modified (for example, its status is changed) the revision differs and the
+ * release is scanned again.
+ */
+final class ReleaseScanCache {
+
+    private final static Path   CACHE_FILE = Paths.get(System.getProperty("user.home"), ".manager.tranzaxis", "releases.cache");
+    private final static String SEPARATOR  = "\t";
+
+    private final static ReleaseScanCache INSTANCE = new ReleaseScanCache();
+
+    static ReleaseScanCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final Properties entries = new Properties();
+    private boolean modified = false;
+
+    private ReleaseScanCache() {
+        if (Files.exists(CACHE_FILE)) {
+            try (InputStream stream = Files.newInputStream(CACHE_FILE)) {
+                entries.load(stream);
+            } catch (IOException e) {
+                Logger.getLogger().warn("Unable to read release cache ''{0}''", CACHE_FILE);
+            }
+        }
+    }
+
+    /**
+     * Returns cached scan result of the release or NULL.
+     * @param url URL of the release directory.
+     * @param revision Revision of the last change of the directory.
+     */
+    synchronized Entry get(String url, long revision) {
+        String value = entries.getProperty(key(url, revision));
+        if (value != null) {
+            try {
+                String[] fields = value.split(SEPARATOR, -1);
+                return new Entry(
+                        ShowVersionInfo.ReleaseStatus.valueOf(fields[0]),
+                        fields[1].isEmpty() ? null : Long.valueOf(fields[1]),
+                        fields[2].isEmpty() ? null : new Date(Long.parseLong(fields[2]))
+                );
+            } catch (RuntimeException e) {
+                entries.remove(key(url, revision));
+            }
+        }
+        return null;
+    }
+
+    synchronized Entry put(String url, long revision, ShowVersionInfo.ReleaseStatus status, Long createRevision, Date createDate) {
+        entries.setProperty(
+                key(url, revision),
+                String.join(
+                        SEPARATOR,
+                        status.name(),
+                        createRevision == null ? "" : String.valueOf(createRevision),
+                        createDate == null ? "" : String.valueOf(createDate.getTime())
+                )
+        );
+        modified = true;
+        return new Entry(status, createRevision, createDate);
+    }
+
+    /**
+     * Write new results to the cache file.
+     */
+    synchronized void save() {
+        if (!modified) {
+            return;
+        }
+        try {
+            Files.createDirectories(CACHE_FILE.getParent());
+            try (OutputStream stream = Files.newOutputStream(CACHE_FILE)) {
+                entries.store(stream, null);
+            }
+            modified = false;
+        } catch (IOException e) {
+            Logger.getLogger().warn("Unable to write release cache ''{0}''", CACHE_FILE);
+        }
+    }
+
+    private static String key(String url, long revision) {
+        return url.concat("@").concat(String.valueOf(revision));
+    }
+
+
+    static class Entry {
+
+        final ShowVersionInfo.ReleaseStatus status;
+        final Long createRevision;
+        final Date createDate;
+
+        private Entry(ShowVersionInfo.ReleaseStatus status, Long createRevision, Date createDate) {
+            this.status = status;
+            this.createRevision = createRevision;
+            this.createDate = createDate;
+        }
+
+        boolean hasRevision() {
+            return createRevision != null && createDate != null;
+        }
+    }
+}
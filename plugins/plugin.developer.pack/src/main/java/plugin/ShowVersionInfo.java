@@ -34,6 +34,11 @@ import java.text.MessageFormat;
 import java.util.*;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class ShowVersionInfo extends CommandPlugin<Offshoot> {
@@ -44,10 +49,11 @@ public class ShowVersionInfo extends CommandPlugin<Offshoot> {
     private static String PROP_LAST_OFFSHOOT = "lastOffshoot";
     private static String PROP_RELEASE_STAT  = "releaseStatus";
     private static String PROP_BRANCH_CREATE = "branchCreated";
-    private static String PROP_RELEASE_INFO  = "releaseInfo";
 
     private static String PARAM_RELEASE_INFO = "releaseRevisions";
 
+    private final static int SCAN_CONNECTIONS = Integer.getInteger("svn.scanConnections", 4);
+
     public ShowVersionInfo() {
         super(offshoot -> true);
         setParameters(
@@ -88,6 +94,8 @@ public class ShowVersionInfo extends CommandPlugin<Offshoot> {
         @Override
         public ParamModel execute() {
             ParamModel paramModel = new ParamModel();
+            ReleaseCatalog catalog = new ReleaseCatalog();
+            List<SVNDirEntry> entryList = Collections.emptyList();
             try {
                 setProgress(0, Language.get(ShowVersionInfo.class, "progress@file"));
                 BranchDocument branch = getBranch(offshoot);
@@ -95,21 +103,12 @@ public class ShowVersionInfo extends CommandPlugin<Offshoot> {
                 BinarySource lastRelease = getLastRelease(branch);
 
                 if (lastRelease instanceof Release) {
-                    Map<String, ReleaseInfo> releaseInfos = getReleaseInfos(branch);
-                    List<ReleaseStatus> statuses = releaseInfos.values().stream()
-                            .map(releaseInfo -> releaseInfo.status)
-                            .collect(Collectors.toList());
-
-                    paramModel.addProperty(PROP_RELEASE_STAT, new AnyType(
-                            statuses.isEmpty() ? getReleaseStatus((Release) lastRelease) : (
-                                statuses.contains(ReleaseStatus.Expired) ? ReleaseStatus.Expired : (
-                                        statuses.contains(ReleaseStatus.Prod) ? ReleaseStatus.Prod : ReleaseStatus.Test
-                                )
-                            )
-                    ), false);
+                    entryList = getReleaseEntries(branch);
+                    // Refined by statuses of the releases as they are loaded
+                    paramModel.addProperty(PROP_RELEASE_STAT, new AnyType(getReleaseStatus((Release) lastRelease)), false);
                     paramModel.addProperty(PROP_LAST_RELEASE, new AnyType(lastRelease), false);
 
-                    setProgress(100, Language.get(ShowVersionInfo.class, "progress@rev"));
+                    setProgress(0, Language.get(ShowVersionInfo.class, "progress@rev"));
 
                     paramModel.addProperty(PROP_BRANCH_CREATE, new AnyType(), false);
                     SVNRevision revision = SVN.getMinimalRevision(offshoot.getRemotePath(), offshoot.getRepository().getAuthManager());
@@ -119,12 +118,6 @@ public class ShowVersionInfo extends CommandPlugin<Offshoot> {
                             String.valueOf(revision.getNumber()),
                             Offshoot.DATE_FORMAT.format(date)
                     ));
-
-                    paramModel.addProperty(
-                            PROP_RELEASE_INFO,
-                            new codex.type.Map<>(new Str(), new EntityRef<>(ReleaseInfo.class), releaseInfos),
-                            false
-                    );
                 } else {
                     paramModel.addProperty(PROP_LAST_OFFSHOOT, new AnyType(), false);
                     paramModel.setValue(PROP_LAST_OFFSHOOT, lastRelease);
@@ -132,51 +125,49 @@ public class ShowVersionInfo extends CommandPlugin<Offshoot> {
             } catch (Exception e) {
                 e.printStackTrace();
             }
+
+            // Releases are shown as soon as they are loaded
+            showDialog(paramModel, entryList.isEmpty() ? null : catalog);
+            if (!entryList.isEmpty()) {
+                scanReleases(entryList, catalog, paramModel);
+            }
             return paramModel;
         }
 
         @Override
-        @SuppressWarnings("unchecked")
-        public void finished(ParamModel paramModel) {
-            if (getStatus() == codex.task.Status.FINISHED) {
-                SwingUtilities.invokeLater(() -> new Dialog(
-                        Dialog.findNearestWindow(),
-                        ImageUtils.getByPath(Language.get(ShowVersionInfo.class, "icon")),
-                        Language.get(ShowVersionInfo.class, "title"),
-                        new JPanel(new BorderLayout()) {{
-                            // Common properties
-                            EditorPage page = new EditorPage(paramModel);
-                            add(page, BorderLayout.NORTH);
-
-                            // Releases
-                            if (paramModel.hasProperty(PROP_RELEASE_INFO)) {
-                                paramModel.getEditor(PROP_RELEASE_INFO).setVisible(false);
-                                Map<String, ReleaseInfo> releases = ((Map<String, ReleaseInfo>) paramModel.getValue(PROP_RELEASE_INFO));
-                                if (!releases.isEmpty()) {
-                                    ReleaseCatalog catalog = new ReleaseCatalog();
-                                    releases.forEach((version, releaseInfo) -> catalog.attach(releaseInfo));
-
-                                    SelectorPresentation releasesView = catalog.getSelectorPresentation();
-                                    if (releasesView != null) {
-                                        releasesView.setBorder(new TitledBorder(
-                                                new LineBorder(Color.GRAY, 1),
-                                                Language.get(ShowVersionInfo.class, "releases@title")
-                                        ));
-                                        add(catalog.getSelectorPresentation(), BorderLayout.CENTER);
-                                    }
-                                }
+        public void finished(ParamModel paramModel) {}
+
+        private void showDialog(ParamModel paramModel, ReleaseCatalog catalog) {
+            SwingUtilities.invokeLater(() -> new Dialog(
+                    Dialog.findNearestWindow(),
+                    ImageUtils.getByPath(Language.get(ShowVersionInfo.class, "icon")),
+                    Language.get(ShowVersionInfo.class, "title"),
+                    new JPanel(new BorderLayout()) {{
+                        // Common properties
+                        EditorPage page = new EditorPage(paramModel);
+                        add(page, BorderLayout.NORTH);
+
+                        // Releases
+                        if (catalog != null) {
+                            SelectorPresentation releasesView = catalog.getSelectorPresentation();
+                            if (releasesView != null) {
+                                releasesView.setBorder(new TitledBorder(
+                                        new LineBorder(Color.GRAY, 1),
+                                        Language.get(ShowVersionInfo.class, "releases@title")
+                                ));
+                                add(releasesView, BorderLayout.CENTER);
                             }
-                        }},
-                        null,
-                        Dialog.Default.BTN_CLOSE.newInstance()
-                ) {
-                    @Override
-                    public Dimension getPreferredSize() {
-                        Dimension prefSize = super.getPreferredSize();
-                        return new Dimension(650, prefSize.getSize().height);
-                    }
-                }.setVisible(true));
-            }
+                        }
+                    }},
+                    null,
+                    Dialog.Default.BTN_CLOSE.newInstance()
+            ) {
+                @Override
+                public Dimension getPreferredSize() {
+                    Dimension prefSize = super.getPreferredSize();
+                    return new Dimension(650, prefSize.getSize().height);
+                }
+            }.setVisible(true));
         }
 
         private BranchDocument getBranch(Offshoot offshoot) throws Exception {
@@ -219,57 +210,102 @@ public class ShowVersionInfo extends CommandPlugin<Offshoot> {
             }
         }
 
-        private Map<String, ReleaseInfo> getReleaseInfos(BranchDocument branch) throws SVNException {
-            Map<String, ReleaseInfo> releases = new LinkedHashMap<>();
-            Type.Enum branchType = branch.getBranch().getType();
-            if (branchType == Type.OFFSHOOT) {
-                String baseRelease = branch.getBranch().getBaseRelease();
-                String releaseDir = ReleaseList.class.getAnnotation(RepositoryBranch.Branch.class).remoteDir();
-                SVNURL svnUrl = SVNURL.parseURIEncoded(offshoot.getRepository().getRepoUrl())
-                        .appendPath(releaseDir, false);
-
-                List<SVNDirEntry> entryList = SVN.list(svnUrl.toString(), offshoot.getRepository().getAuthManager()).stream()
-                        .filter(svnDirEntry -> svnDirEntry.getName().startsWith(baseRelease))
-                        .sorted(Comparator.comparing(
-                                SVNDirEntry::getName,
-                                BinarySource.VERSION_SORTER.reversed()
-                        ))
+        private List<SVNDirEntry> getReleaseEntries(BranchDocument branch) throws SVNException {
+            if (branch.getBranch().getType() != Type.OFFSHOOT) {
+                return Collections.emptyList();
+            }
+            String baseRelease = branch.getBranch().getBaseRelease();
+            String releaseDir = ReleaseList.class.getAnnotation(RepositoryBranch.Branch.class).remoteDir();
+            SVNURL svnUrl = SVNURL.parseURIEncoded(offshoot.getRepository().getRepoUrl())
+                    .appendPath(releaseDir, false);
+
+            return SVN.list(svnUrl.toString(), offshoot.getRepository().getAuthManager()).stream()
+                    .filter(svnDirEntry -> svnDirEntry.getName().startsWith(baseRelease))
+                    .sorted(Comparator.comparing(
+                            SVNDirEntry::getName,
+                            BinarySource.VERSION_SORTER.reversed()
+                    ))
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Load information of the releases by a limited number of concurrent connections.
+         * Releases are added to the catalog in version order as soon as they and all preceding
+         * releases are loaded.
+         */
+        private void scanReleases(List<SVNDirEntry> entryList, ReleaseCatalog catalog, ParamModel paramModel) {
+            AtomicInteger threadNum = new AtomicInteger(0);
+            ExecutorService pool = Executors.newFixedThreadPool(SCAN_CONNECTIONS, runnable -> {
+                Thread thread = new Thread(runnable, "Release scan #" + threadNum.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<ReleaseInfo>> futures = entryList.stream()
+                        .map(svnDirEntry -> pool.submit(() -> getReleaseInfo(svnDirEntry)))
                         .collect(Collectors.toList());
 
-                for (SVNDirEntry svnDirEntry : entryList) {
+                for (int index = 0; index < futures.size(); index++) {
                     if (isCancelled()) {
                         throw new CancelException();
                     }
-                    final String releaseName = svnDirEntry.getName();
+                    setProgress(
+                            index * 100 / futures.size(),
+                            MessageFormat.format(
+                                    Language.get(ShowVersionInfo.class, "progress@release"),
+                                    entryList.get(index).getName()
+                            )
+                    );
                     try {
-                        setProgress(
-                                (entryList.indexOf(svnDirEntry) + 1) * 100 / entryList.size(),
-                                MessageFormat.format(
-                                        Language.get(ShowVersionInfo.class, "progress@release"),
-                                        releaseName
-                                )
-                        );
-                        ReleaseStatus status = getReleaseStatus(Entity.newInstance(Release.class, offshoot.getRepository().toRef(), svnDirEntry.getName()));
-
-                        if (loadReleaseRev) {
-                            SVNRevision revision = SVN.getMinimalRevision(svnDirEntry.getURL().toString(), offshoot.getRepository().getAuthManager());
-                            Date date = SVN.info(svnDirEntry.getURL().toString(), revision, true, offshoot.getRepository().getAuthManager()).getCommittedDate();
-                            releases.put(
-                                    releaseName,
-                                    new ReleaseInfo(releaseName, status, new Revision(revision.getNumber(), date))
-                            );
-                        } else {
-                            releases.put(
-                                    releaseName,
-                                    new ReleaseInfo(releaseName, status, null)
-                            );
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
+                        ReleaseInfo releaseInfo = futures.get(index).get();
+                        SwingUtilities.invokeLater(() -> {
+                            catalog.attach(releaseInfo);
+                            paramModel.setValue(PROP_RELEASE_STAT, getVersionStatus(catalog));
+                        });
+                    } catch (ExecutionException e) {
+                        e.getCause().printStackTrace();
                     }
                 }
+            } catch (InterruptedException e) {
+                throw new CancelException();
+            } finally {
+                pool.shutdownNow();
+                ReleaseScanCache.getInstance().save();
             }
-            return releases;
+        }
+
+        private ReleaseInfo getReleaseInfo(SVNDirEntry svnDirEntry) throws Exception {
+            final String releaseName = svnDirEntry.getName();
+            final String releaseUrl  = svnDirEntry.getURL().toString();
+
+            ReleaseScanCache cache = ReleaseScanCache.getInstance();
+            ReleaseScanCache.Entry entry = cache.get(releaseUrl, svnDirEntry.getRevision());
+            if (entry == null || (loadReleaseRev && !entry.hasRevision())) {
+                ReleaseStatus status = entry != null ? entry.status : getReleaseStatus(
+                        Entity.newInstance(Release.class, offshoot.getRepository().toRef(), releaseName)
+                );
+                Long revision = null;
+                Date date = null;
+                if (loadReleaseRev) {
+                    revision = SVN.getMinimalRevision(releaseUrl, offshoot.getRepository().getAuthManager()).getNumber();
+                    date = SVN.info(releaseUrl, SVNRevision.create(revision), true, offshoot.getRepository().getAuthManager()).getCommittedDate();
+                }
+                entry = cache.put(releaseUrl, svnDirEntry.getRevision(), status, revision, date);
+            }
+            return new ReleaseInfo(
+                    releaseName,
+                    entry.status,
+                    loadReleaseRev ? new Revision(entry.createRevision, entry.createDate) : null
+            );
+        }
+
+        private ReleaseStatus getVersionStatus(ReleaseCatalog catalog) {
+            List<ReleaseStatus> statuses = catalog.childrenList().stream()
+                    .map(iNode -> ((ReleaseInfo) iNode).status)
+                    .collect(Collectors.toList());
+            return statuses.contains(ReleaseStatus.Expired) ? ReleaseStatus.Expired : (
+                    statuses.contains(ReleaseStatus.Prod) ? ReleaseStatus.Prod : ReleaseStatus.Test
+            );
         }
     }
 
@@ -31,12 +31,12 @@ public class AbstractInstanceUnit extends AccessPoint {
         return Language.get(AbstractInstanceUnit.class, "load", Language.DEF_LOCALE);
     }
 
-    protected String saveSettingsQuery() {
-        return Language.get(AbstractInstanceUnit.class, "save", Language.DEF_LOCALE);
-    }
-
     @Override
     protected AccessPointSettings loadSettings() {
+        AccessPointSettings prefetched = AccessPointStore.getPrefetched(getClass(), getPID());
+        if (prefetched != null) {
+            return prefetched;
+        }
         if (getOwner() != null) {
             Database database = getEnvironment().getDataBase(true);
             try (ResultSet rs = DAS.select(
@@ -58,21 +58,6 @@ public class AbstractInstanceUnit extends AccessPoint {
         return new AccessPointSettings(null, null, null);
     }
 
-    @Override
-    protected void saveSettings() {
-        Database database = getEnvironment().getDataBase(true);
-        try {
-            DAS.update(
-                    database.getConnectionID(false),
-                    saveSettingsQuery(),
-                    getAddress(true),
-                    Integer.valueOf(getPID())
-            );
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
     private Environment getEnvironment() {
         return (Environment) getOwner();
     }
@@ -50,8 +50,6 @@ public class AccessPoint extends Catalog {
         return new AccessPointSettings(null, null, null);
     }
 
-    protected void saveSettings() {}
-
     final String getAddress(boolean unsaved) {
         return (String) (unsaved ? model.getUnsavedValue(PROP_ADDR) : model.getValue(PROP_ADDR));
     }
@@ -64,7 +62,7 @@ public class AccessPoint extends Catalog {
         model.setValue(PROP_ADDR, address);
     }
 
-    class AccessPointSettings {
+    static class AccessPointSettings {
         String  title;
         String  address;
         Boolean used;
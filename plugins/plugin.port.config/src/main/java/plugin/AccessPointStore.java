@@ -0,0 +1,188 @@
+package plugin;
+
+import codex.context.IContext;
+import codex.database.IDatabaseAccessService;
+import codex.log.Logger;
+import codex.log.LoggingSource;
+import codex.service.ServiceRegistry;
+import codex.utils.Language;
+import manager.nodes.Database;
+import units.InstanceControlService;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Set-based access to settings of the instance access points. Settings of all access points of
+ * the instance are selected by one query and passed to the units being created, changed addresses
+ * are saved by one batch in one transaction. Before the batch the rows are locked and compared
+ * with the loaded values, so changes made by somebody else are not overwritten.
+ */
+final class AccessPointStore {
+
+    @LoggingSource()
+    @IContext.Definition(
+            id     = "SAP.Store",
+            name   = "Access point settings storage",
+            icon   = "/images/remap.png",
+            parent = SAPConfig.class
+    )
+    private static class StoreContext implements IContext {}
+
+    private final static IDatabaseAccessService DAS = ServiceRegistry.getInstance().lookupService(IDatabaseAccessService.class);
+    private final static ThreadLocal<Map<String, AccessPoint.AccessPointSettings>> PREFETCHED = new ThreadLocal<>();
+
+    private AccessPointStore() {}
+
+    /**
+     * Access point of the instance (row of RDX_SAP).
+     */
+    static class Row {
+        final String id, uri;
+        final boolean instanceControl;
+        final AccessPoint.AccessPointSettings settings;
+
+        private Row(String id, String uri, boolean instanceControl, AccessPoint.AccessPointSettings settings) {
+            this.id  = id;
+            this.uri = uri;
+            this.instanceControl = instanceControl;
+            this.settings = settings;
+        }
+    }
+
+    /**
+     * Select all access points of the instance with their settings by one query.
+     */
+    static List<Row> load(Database database, Integer instance) throws SQLException {
+        List<Row> rows = new LinkedList<>();
+        try (ResultSet rs = DAS.select(
+                database.getConnectionID(false),
+                Language.get(AccessPointStore.class, "load", Language.DEF_LOCALE),
+                instance
+        )) {
+            while (rs.next()) {
+                rows.add(new Row(
+                        rs.getString("ID"),
+                        rs.getString("URI"),
+                        rs.getString("SYSTEMUNITID") == null,
+                        new AccessPoint.AccessPointSettings(
+                                rs.getString("TITLE"),
+                                rs.getString("ADDRESS"),
+                                rs.getBoolean("USE")
+                        )
+                ));
+            }
+        }
+        Logger.getContextLogger(StoreContext.class).debug(
+                "Loaded {0} access points of instance #{1} (round-trips: 1)",
+                rows.size(), instance
+        );
+        return rows;
+    }
+
+    /**
+     * Make settings available to units created by the current thread, so they do not query
+     * the database one by one.
+     * @param settings Settings by key of the unit (see {@link #key(Class, String)}).
+     */
+    static void prefetch(Map<String, AccessPoint.AccessPointSettings> settings) {
+        PREFETCHED.set(settings);
+    }
+
+    static void release() {
+        PREFETCHED.remove();
+    }
+
+    /**
+     * Returns prefetched settings of the unit or NULL.
+     */
+    static AccessPoint.AccessPointSettings getPrefetched(Class<? extends AccessPoint> unitClass, String PID) {
+        Map<String, AccessPoint.AccessPointSettings> settings = PREFETCHED.get();
+        return settings == null ? null : settings.get(key(unitClass, PID));
+    }
+
+    static String key(Class<? extends AccessPoint> unitClass, String PID) {
+        return unitClass.getTypeName().concat(":").concat(PID);
+    }
+
+    /**
+     * Save changed addresses of access points of the instance by one batch in one transaction.
+     * @param database Database of the instance.
+     * @param instance ID of the instance.
+     * @param accessPoints Changed access points.
+     * @return Access points whose addresses in the database differ from the loaded ones. If the
+     * list is not empty nothing is saved.
+     */
+    static List<AccessPoint> save(Database database, Integer instance, List<AccessPoint> accessPoints) throws SQLException {
+        int roundTrips = 0;
+        try (PreparedStatement lock = DAS.prepareStatement(
+                database.getConnectionID(false),
+                Language.get(AccessPointStore.class, "lock", Language.DEF_LOCALE),
+                instance
+        )) {
+            Connection connection = lock.getConnection();
+            connection.setAutoCommit(false);
+            try {
+                // Lock rows of the instance and read current addresses
+                String instanceSapId = null;
+                Map<String, String> current = new HashMap<>();
+                try (ResultSet rs = lock.executeQuery()) {
+                    roundTrips++;
+                    while (rs.next()) {
+                        String id = rs.getString("ID");
+                        if (rs.getString("SYSTEMUNITID") == null) {
+                            instanceSapId = id;
+                        }
+                        current.put(id, rs.getString("ADDRESS"));
+                    }
+                }
+
+                List<AccessPoint> conflicts = new LinkedList<>();
+                Map<AccessPoint, String> rowIds = new LinkedHashMap<>();
+                for (AccessPoint accessPoint : accessPoints) {
+                    String id = accessPoint instanceof InstanceControlService ? instanceSapId : accessPoint.getPID();
+                    if (id == null || !current.containsKey(id) || !Objects.equals(current.get(id), accessPoint.getAddress(false))) {
+                        conflicts.add(accessPoint);
+                    } else {
+                        rowIds.put(accessPoint, id);
+                    }
+                }
+                if (!conflicts.isEmpty()) {
+                    connection.rollback();
+                    Logger.getContextLogger(StoreContext.class).debug(
+                            "Access points of instance #{0} were changed concurrently: {1}",
+                            instance, conflicts
+                    );
+                    return conflicts;
+                }
+
+                try (PreparedStatement update = connection.prepareStatement(
+                        Language.get(AccessPointStore.class, "save", Language.DEF_LOCALE)
+                )) {
+                    for (Map.Entry<AccessPoint, String> entry : rowIds.entrySet()) {
+                        update.setString(1, entry.getKey().getAddress(true));
+                        update.setInt(2, Integer.valueOf(entry.getValue()));
+                        update.addBatch();
+                    }
+                    update.executeBatch();
+                    roundTrips++;
+                }
+                connection.commit();
+                roundTrips++;
+                Logger.getContextLogger(StoreContext.class).debug(
+                        "Saved {0} access points of instance #{1} (round-trips: {2})",
+                        rowIds.size(), instance, roundTrips
+                );
+                return Collections.emptyList();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+                connection.close();
+            }
+        }
+    }
+}
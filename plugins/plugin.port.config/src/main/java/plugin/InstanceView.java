@@ -1,27 +1,21 @@
 package plugin;
 
-import codex.database.IDatabaseAccessService;
 import codex.explorer.tree.NodeTreeModel;
 import codex.log.Logger;
 import codex.model.Catalog;
 import codex.model.Entity;
-import codex.service.ServiceRegistry;
 import codex.type.EntityRef;
-import codex.utils.Language;
 import manager.nodes.Database;
 import manager.nodes.Environment;
 import org.atteo.classindex.ClassIndex;
 import units.InstanceControlService;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Locale;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public class InstanceView extends Catalog {
 
-    private final static IDatabaseAccessService DAS = ServiceRegistry.getInstance().lookupService(IDatabaseAccessService.class);
     private final static Map<String, Class<? extends AbstractInstanceUnit>>  UNITS = StreamSupport.stream(
             ClassIndex.getSubclasses(AbstractInstanceUnit.class, AbstractInstanceUnit.class.getClassLoader()).spliterator(),
             false
@@ -53,31 +47,45 @@ public class InstanceView extends Catalog {
         Database database = getEnvironment().getDataBase(true);
         Integer  instance = getEnvironment().getInstanceId();
 
-        Entity ics = Entity.newInstance(getChildClass(), getOwner().toRef(), String.valueOf(instance));
-        Logger.getLogger().debug("Attach ISC SAP: {0}, service={1}", ics, InstanceControlService.class.getAnnotation(Unit.class).serviceUri());
-        attach(ics);
+        // Settings of all access points are selected at once and taken by units being created
+        Map<String, AccessPoint.AccessPointSettings> settings = new HashMap<>();
+        List<AccessPointStore.Row> rows = Collections.emptyList();
+        try {
+            rows = AccessPointStore.load(database, instance);
+            rows.forEach(row -> settings.put(
+                    row.instanceControl ?
+                            AccessPointStore.key(InstanceControlService.class, String.valueOf(instance)) :
+                            AccessPointStore.key(getUnitClass(getServiceUri(row.uri)), row.id),
+                    row.settings
+            ));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
 
-        try (ResultSet rs = DAS.select(
-                database.getConnectionID(false),
-                Language.get(InstanceView.class, "select", Language.DEF_LOCALE),
-                instance
-        )) {
-            while (rs.next()) {
-                String id  = rs.getString("ID");
-                String uri = rs.getString("URI").replaceAll("(.*)#.*", "$1");
+        AccessPointStore.prefetch(settings);
+        try {
+            Entity ics = Entity.newInstance(getChildClass(), getOwner().toRef(), String.valueOf(instance));
+            Logger.getLogger().debug("Attach ISC SAP: {0}, service={1}", ics, InstanceControlService.class.getAnnotation(Unit.class).serviceUri());
+            attach(ics);
 
+            rows.stream().filter(row -> !row.instanceControl).forEach(row -> {
+                String uri = getServiceUri(row.uri);
                 Class<? extends AbstractInstanceUnit> unitClass = getUnitClass(uri);
-                AbstractInstanceUnit unit = Entity.newInstance(unitClass, getOwner().toRef(), id);
+                AbstractInstanceUnit unit = Entity.newInstance(unitClass, getOwner().toRef(), row.id);
                 if (unit.getUsed()) {
                     Logger.getLogger().debug("Attach unit SAP: {0}, service={1}", unit, uri);
                     ics.attach(unit);
                 }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            });
+        } finally {
+            AccessPointStore.release();
         }
     }
 
+    private static String getServiceUri(String uri) {
+        return uri.replaceAll("(.*)#.*", "$1");
+    }
+
     private Class<? extends AbstractInstanceUnit> getUnitClass(String uri) {
         return UNITS.getOrDefault(uri, AbstractInstanceUnit.class);
     }
@@ -3,6 +3,8 @@ package plugin;
 import codex.command.EditorCommand;
 import codex.component.button.DialogButton;
 import codex.component.dialog.Dialog;
+import codex.component.messagebox.MessageBox;
+import codex.component.messagebox.MessageType;
 import codex.editor.IEditor;
 import codex.explorer.tree.NodeTreeModel;
 import codex.log.Logger;
@@ -28,10 +30,12 @@ import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.MatteBorder;
 import java.awt.*;
+import java.sql.SQLException;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public class SAPConfig extends CommandPlugin<Environment> {
@@ -152,21 +156,40 @@ public class SAPConfig extends CommandPlugin<Environment> {
         getContext().forEach(environment -> {
             InstanceView instanceView = Entity.newInstance(InstanceView.class, environment.toRef(), environment.getInstanceId().toString());
             NodeTreeModel treeModel = new NodeTreeModel(instanceView.getChildAt(0));
-            StreamSupport.stream(treeModel.spliterator(), false)
+            List<AccessPoint> changed = StreamSupport.stream(treeModel.spliterator(), false)
                     .map(iNode -> (AccessPoint) iNode)
                     .filter(accessPoint -> accessPoint.model.hasChanges())
-                    .peek(accessPoint -> Logger.getLogger().info(
+                    .collect(Collectors.toList());
+            if (changed.isEmpty()) {
+                return;
+            }
+            try {
+                List<AccessPoint> conflicts = AccessPointStore.save(environment.getDataBase(true), environment.getInstanceId(), changed);
+                if (!conflicts.isEmpty()) {
+                    MessageBox.show(MessageType.ERROR, MessageFormat.format(
+                            Language.get(SAPConfig.class, "commit@conflict"),
+                            environment,
+                            conflicts.stream().map(AccessPoint::toString).collect(Collectors.joining(", "))
+                    ));
+                    // Drop stale objects from cache, so actual addresses are loaded next time
+                    conflicts.forEach(accessPoint -> accessPoint.model.remove());
+                    return;
+                }
+                changed.forEach(accessPoint -> {
+                    Logger.getLogger().info(
                             "Update address for access point ''{0}/{1}'': {2} => {3}",
                             environment,
                             accessPoint,
                             accessPoint.getAddress(false),
                             accessPoint.getAddress(true)
-                    ))
-                    .forEach(accessPoint -> {
-                        accessPoint.saveSettings();
-                        // Remove object to drop from cache
-                        accessPoint.model.remove();
-                    });
+                    );
+                    // Remove object to drop from cache
+                    accessPoint.model.remove();
+                });
+            } catch (SQLException e) {
+                Logger.getLogger().warn("Unable to save access points of ''{0}'': {1}", environment, e.getMessage());
+                MessageBox.show(MessageType.ERROR, e.getMessage());
+            }
         });
     }
 
@@ -15,8 +15,4 @@ public class InstanceControlService extends AbstractInstanceUnit {
         return Language.get(InstanceControlService.class, "load", Language.DEF_LOCALE);
     }
 
-    protected String saveSettingsQuery() {
-        return Language.get(InstanceControlService.class, "save", Language.DEF_LOCALE);
-    }
-
 }